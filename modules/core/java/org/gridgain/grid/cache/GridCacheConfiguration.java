@@ -176,6 +176,12 @@ public class GridCacheConfiguration {
     /** Default value for 'swapEnabled' flag. */
     public static final boolean DFLT_SWAP_ENABLED = false;
 
+    /** Default value for 'offHeapDirectReadEnabled' flag. */
+    public static final boolean DFLT_OFFHEAP_DIRECT_READ_ENABLED = false;
+
+    /** Default off-heap slab size is {@code 0} which means that every off-heap entry is allocated separately. */
+    public static final int DFLT_OFFHEAP_SLAB_SIZE = 0;
+
     /** Default value for 'maxConcurrentAsyncOps'. */
     public static final int DFLT_MAX_CONCURRENT_ASYNC_OPS = 10000;
 
@@ -203,6 +209,9 @@ public class GridCacheConfiguration {
     /** Default maximum number of query iterators that can be stored. */
     public static final int DFLT_MAX_QUERY_ITERATOR_CNT = 1024;
 
+    /** Default idle timeout of stored query iterators in milliseconds (10 minutes). */
+    public static final long DFLT_QUERY_ITERATOR_IDLE_TIMEOUT = 10 * 60 * 1000;
+
     /** Default continuous query buffers queue size. */
     public static final int DFLT_CONT_QUERY_QUEUE_SIZE = 1024 * 1024;
 
@@ -374,12 +383,21 @@ public class GridCacheConfiguration {
     /** Maximum number of query iterators that can be stored. */
     private int maxQryIterCnt = DFLT_MAX_QUERY_ITERATOR_CNT;
 
+    /** Idle timeout of stored query iterators. */
+    private long qryIterIdleTimeout = DFLT_QUERY_ITERATOR_IDLE_TIMEOUT;
+
     /** Continuous query queue size. */
     private int contQryQueueSize = DFLT_CONT_QUERY_QUEUE_SIZE;
 
     /** Memory mode. */
     private GridCacheMemoryMode memMode = DFLT_MEMORY_MODE;
 
+    /** Flag indicating whether reads may be served from off-heap memory without promoting entries on-heap. */
+    private boolean offHeapDirectReadEnabled = DFLT_OFFHEAP_DIRECT_READ_ENABLED;
+
+    /** Off-heap slab size. */
+    private int offHeapSlabSize = DFLT_OFFHEAP_SLAB_SIZE;
+
     /** Continuous query max buffer size. */
     private int contQryMaxBufSize = Integer.getInteger(GG_CONT_QUERY_MAX_BUF_SIZE, DFLT_CONT_QUERY_MAX_BUF_SIZE);
 
@@ -455,7 +473,10 @@ public class GridCacheConfiguration {
         offHeapMaxMem = cc.getOffHeapMaxMemory();
         maxConcurrentAsyncOps = cc.getMaxConcurrentAsyncOperations();
         maxQryIterCnt = cc.getMaximumQueryIteratorCount();
+        qryIterIdleTimeout = cc.getQueryIteratorIdleTimeout();
         memMode = cc.getMemoryMode();
+        offHeapDirectReadEnabled = cc.isOffHeapDirectReadEnabled();
+        offHeapSlabSize = cc.getOffHeapSlabSize();
         name = cc.getName();
         nearStartSize = cc.getNearStartSize();
         nearEvictPlc = cc.getNearEvictionPolicy();
@@ -1871,6 +1892,31 @@ public class GridCacheConfiguration {
         this.maxQryIterCnt = maxQryIterCnt;
     }
 
+    /**
+     * Gets idle timeout of stored query iterators. If next page of SQL fields query is not requested
+     * within this timeout, iterator is closed and its resources are released. This prevents leaks of
+     * server-side cursors abandoned by clients.
+     * <p>
+     * If {@code 0}, iterators are closed only when query is completed or cancelled or when
+     * {@link #getMaximumQueryIteratorCount()} is exceeded.
+     * <p>
+     * Default value is {@link #DFLT_QUERY_ITERATOR_IDLE_TIMEOUT}.
+     *
+     * @return Idle timeout of stored query iterators in milliseconds.
+     */
+    public long getQueryIteratorIdleTimeout() {
+        return qryIterIdleTimeout;
+    }
+
+    /**
+     * Sets idle timeout of stored query iterators.
+     *
+     * @param qryIterIdleTimeout Idle timeout of stored query iterators in milliseconds.
+     */
+    public void setQueryIteratorIdleTimeout(long qryIterIdleTimeout) {
+        this.qryIterIdleTimeout = qryIterIdleTimeout;
+    }
+
     /**
      * Gets maximum number of entries that can be accumulated before back-pressure
      * is enabled to postpone cache updates until query listeners are notified.
@@ -1917,6 +1963,68 @@ public class GridCacheConfiguration {
         this.memMode = memMode;
     }
 
+    /**
+     * Flag indicating whether non-transactional reads of entries which are not present on-heap may be
+     * served directly from off-heap memory. In this case value is unmarshalled from off-heap bytes and
+     * returned to the caller, but cache entry is not created on-heap, so read-mostly caches do not
+     * churn young generation. This flag is taken into account only for
+     * {@link GridCacheMemoryMode#OFFHEAP_TIERED} memory mode.
+     * <p>
+     * Number of such reads and number of entries promoted from off-heap to on-heap memory can be
+     * monitored via {@link GridCacheMetrics#offHeapDirectReads()} and {@link GridCacheMetrics#offHeapPromotions()}.
+     * <p>
+     * Default value is {@link #DFLT_OFFHEAP_DIRECT_READ_ENABLED}.
+     *
+     * @return {@code True} if reads may be served directly from off-heap memory.
+     */
+    public boolean isOffHeapDirectReadEnabled() {
+        return offHeapDirectReadEnabled;
+    }
+
+    /**
+     * Sets flag indicating whether reads may be served directly from off-heap memory.
+     * See {@link #isOffHeapDirectReadEnabled()} for more information.
+     *
+     * @param offHeapDirectReadEnabled {@code True} if reads may be served directly from off-heap memory.
+     */
+    public void setOffHeapDirectReadEnabled(boolean offHeapDirectReadEnabled) {
+        this.offHeapDirectReadEnabled = offHeapDirectReadEnabled;
+    }
+
+    /**
+     * Gets size of slabs off-heap entries are allocated from. If slab size is greater than {@code 0},
+     * off-heap memory is requested from operating system in slabs of this size, and every slab is cut into
+     * chunks of a single size class. This avoids native allocator call for every off-heap write and keeps
+     * memory fragmentation bounded for caches with large number of small entries. Every size class keeps
+     * one empty slab for reuse, other slabs which become empty after entries are removed or evicted are
+     * given back to operating system. Entries larger than one eighth of slab size are still allocated
+     * separately.
+     * <p>
+     * Slabs are shared by all partitions of the cache off-heap map and are counted against
+     * {@link #getOffHeapMaxMemory()}: whenever new slab takes memory above the limit, entries of the
+     * slab size are evicted by LRU. Partially used slabs are filled before new slabs are allocated.
+     * Fragmentation and utilization of slab memory can be monitored via {@code GridOffHeapProcessor}.
+     * <p>
+     * Slab size cannot be negative or greater than {@link #getOffHeapMaxMemory()} if the latter is limited.
+     * <p>
+     * Default value is {@link #DFLT_OFFHEAP_SLAB_SIZE}.
+     *
+     * @return Off-heap slab size in bytes or {@code 0} if every entry is allocated separately.
+     */
+    public int getOffHeapSlabSize() {
+        return offHeapSlabSize;
+    }
+
+    /**
+     * Sets size of slabs off-heap entries are allocated from.
+     * See {@link #getOffHeapSlabSize()} for more information.
+     *
+     * @param offHeapSlabSize Off-heap slab size in bytes or {@code 0} to allocate every entry separately.
+     */
+    public void setOffHeapSlabSize(int offHeapSlabSize) {
+        this.offHeapSlabSize = offHeapSlabSize;
+    }
+
     /**
      * Gets the maximum buffer size for continuous queries. When the current
      * number of entries in buffer exceeds the maximum buffer size, the buffer
@@ -286,6 +286,31 @@ public interface GridCacheMBean {
     @GridMBeanDescription("Count of cache entries that are waiting to be flushed.")
     public int getWriteBehindBufferSize();
 
+    /**
+     * Gets median write lag of write-behind store, i.e. time between the first update of a key
+     * and the moment this update is written to the underlying store.
+     *
+     * @return Median write lag in milliseconds.
+     */
+    @GridMBeanDescription("Median time in milliseconds updates wait in write-behind buffer.")
+    public long getWriteBehindMedianWriteLag();
+
+    /**
+     * Gets 99th percentile of write lag of write-behind store.
+     *
+     * @return 99th percentile of write lag in milliseconds.
+     */
+    @GridMBeanDescription("99th percentile of time in milliseconds updates wait in write-behind buffer.")
+    public long getWriteBehindWriteLag99();
+
+    /**
+     * Gets maximum write lag of write-behind store.
+     *
+     * @return Maximum write lag in milliseconds.
+     */
+    @GridMBeanDescription("Maximum time in milliseconds updates waited in write-behind buffer.")
+    public long getWriteBehindMaxWriteLag();
+
     /**
      * Gets current size of continuous query queue.
      *
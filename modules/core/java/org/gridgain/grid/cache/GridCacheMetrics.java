@@ -23,6 +23,7 @@
 
 package org.gridgain.grid.cache;
 
+import org.gridgain.grid.cache.eviction.*;
 import org.gridgain.grid.dr.cache.receiver.*;
 import org.gridgain.grid.dr.cache.sender.*;
 import org.jetbrains.annotations.*;
@@ -114,6 +115,45 @@ public interface GridCacheMetrics extends Serializable {
      */
     public int txRollbacks();
 
+    /**
+     * Gets total number of reads served directly from off-heap memory without promoting
+     * entries on-heap.
+     *
+     * This metric is local to node and is not transferred with serialized metrics.
+     *
+     * @return Number of direct off-heap reads.
+     * @see GridCacheConfiguration#isOffHeapDirectReadEnabled()
+     */
+    public int offHeapDirectReads();
+
+    /**
+     * Gets total number of entries moved from off-heap memory to on-heap memory.
+     * This metric is local to node and is not transferred with serialized metrics.
+     *
+     * @return Number of off-heap promotions.
+     */
+    public int offHeapPromotions();
+
+    /**
+     * Gets estimated on-heap memory size of cache entries in bytes as tracked by
+     * {@link GridCacheMemoryBoundedEvictionPolicy memory-bounded} eviction policy.
+     * This metric is local to node and is not transferred with serialized metrics.
+     *
+     * @return Memory size of cache entries in bytes or {@code -1} if eviction policy
+     *      does not track memory size.
+     */
+    public long evictionMemorySize();
+
+    /**
+     * Gets maximum on-heap memory size of cache entries in bytes allowed by
+     * {@link GridCacheMemoryBoundedEvictionPolicy memory-bounded} eviction policy.
+     * This metric is local to node and is not transferred with serialized metrics.
+     *
+     * @return Maximum memory size of cache entries in bytes, {@code 0} if memory size is
+     *      not limited or {@code -1} if eviction policy does not track memory size.
+     */
+    public long evictionMaxMemorySize();
+
     /**
      * Gets metrics for data sent during data center replication.
      *
@@ -0,0 +1,58 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.cache.eviction;
+
+import org.gridgain.grid.cache.*;
+
+/**
+ * Eviction policy which, in addition to number of entries, can bound cache by total memory
+ * size of its entries. Memory size of each entry is estimated via {@link GridCacheEntry#memorySize()}.
+ * Current and maximum memory sizes of such policy are exported via
+ * {@link GridCacheMetrics#evictionMemorySize()} and {@link GridCacheMetrics#evictionMaxMemorySize()}.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+public interface GridCacheMemoryBoundedEvictionPolicy<K, V> extends GridCacheEvictionPolicy<K, V> {
+    /**
+     * Gets maximum allowed memory size of cache in bytes before entry will start getting evicted.
+     *
+     * @return Maximum allowed memory size in bytes, {@code 0} if memory size is not limited.
+     */
+    public long getMaxMemorySize();
+
+    /**
+     * Sets maximum allowed memory size of cache in bytes before entry will start getting evicted.
+     *
+     * @param maxMemSize Maximum allowed memory size in bytes, {@code 0} for unlimited.
+     */
+    public void setMaxMemorySize(long maxMemSize);
+
+    /**
+     * Gets current memory size of entries tracked by this policy in bytes.
+     *
+     * @return Current memory size of entries tracked by this policy in bytes.
+     */
+    public long getCurrentMemorySize();
+}
@@ -40,11 +40,15 @@ import static org.gridgain.grid.cache.GridCachePeekMode.*;
  * implementation is very efficient since it does not create any additional
  * table-like data structures. The {@code FIFO} ordering information is
  * maintained by attaching ordering metadata to cache entries.
+ * <p>
+ * Besides maximum number of entries, the policy can bound cache by memory size
+ * (see {@link #setMaxMemorySize(long)}), in which case entries are evicted until
+ * total {@link GridCacheEntry#memorySize() memory size} of cache entries is under the limit.
  *
  * @author @java.author
  * @version @java.version
  */
-public class GridCacheFifoEvictionPolicy<K, V> implements GridCacheEvictionPolicy<K, V>,
+public class GridCacheFifoEvictionPolicy<K, V> implements GridCacheMemoryBoundedEvictionPolicy<K, V>,
     GridCacheFifoEvictionPolicyMBean {
     /** Tag. */
     private final String meta = UUID.randomUUID().toString();
@@ -52,10 +56,16 @@ public class GridCacheFifoEvictionPolicy<K, V> implements GridCacheEvictionPolic
     /** Maximum size. */
     private volatile int max = GridCacheConfiguration.DFLT_CACHE_SIZE;
 
+    /** Maximum memory size in bytes, {@code 0} if memory size is not limited. */
+    private volatile long maxMemSize;
+
     /** FIFO queue. */
     private final ConcurrentLinkedDeque8<GridCacheEntry<K, V>> queue =
         new ConcurrentLinkedDeque8<>();
 
+    /** Current memory size of all enqueued entries in bytes. */
+    private final LongAdder memSize = new LongAdder();
+
     /**
      * Constructs FIFO eviction policy with all defaults.
      */
@@ -74,6 +84,21 @@ public class GridCacheFifoEvictionPolicy<K, V> implements GridCacheEvictionPolic
         this.max = max;
     }
 
+    /**
+     * Constructs FIFO eviction policy with maximum size and maximum memory size.
+     *
+     * @param max Maximum allowed size of cache before entry will start getting evicted.
+     * @param maxMemSize Maximum allowed memory size of cache in bytes before entry will start
+     *      getting evicted, {@code 0} for unlimited.
+     */
+    public GridCacheFifoEvictionPolicy(int max, long maxMemSize) {
+        this(max);
+
+        A.ensure(maxMemSize >= 0, "maxMemSize >= 0");
+
+        this.maxMemSize = maxMemSize;
+    }
+
     /**
      * Gets maximum allowed size of cache before entry will start getting evicted.
      *
@@ -94,11 +119,34 @@ public class GridCacheFifoEvictionPolicy<K, V> implements GridCacheEvictionPolic
         this.max = max;
     }
 
+    /** {@inheritDoc} */
+    @Override public long getMaxMemorySize() {
+        return maxMemSize;
+    }
+
+    /**
+     * Sets maximum allowed memory size of cache in bytes before entry will start getting evicted.
+     * Memory size of an entry is calculated via {@link GridCacheEntry#memorySize()} when entry
+     * is enqueued and is updated on subsequent entry accesses.
+     *
+     * @param maxMemSize Maximum allowed memory size of cache in bytes, {@code 0} for unlimited.
+     */
+    @Override public void setMaxMemorySize(long maxMemSize) {
+        A.ensure(maxMemSize >= 0, "maxMemSize >= 0");
+
+        this.maxMemSize = maxMemSize;
+    }
+
     /** {@inheritDoc} */
     @Override public int getCurrentSize() {
         return queue.size();
     }
 
+    /** {@inheritDoc} */
+    @Override public long getCurrentMemorySize() {
+        return memSize.longValue();
+    }
+
     /** {@inheritDoc} */
     @Override public String getMetaAttributeName() {
         return meta;
@@ -124,26 +172,30 @@ public class GridCacheFifoEvictionPolicy<K, V> implements GridCacheEvictionPolic
                 shrink();
         }
         else {
-            Node<GridCacheEntry<K, V>> node = entry.removeMeta(meta);
+            MetaEntry<K, V> metaEntry = entry.removeMeta(meta);
 
-            if (node != null)
-                queue.unlinkx(node);
+            if (metaEntry != null && queue.unlinkx(metaEntry.node()))
+                changeMemorySize(-metaEntry.size());
         }
     }
 
     /**
      * @param entry Entry to touch.
-     * @return {@code True} if queue has been changed by this call.
+     * @return {@code True} if queue has been changed or memory size has grown by this call.
      */
     private boolean touch(GridCacheEntry<K, V> entry) {
-        Node<GridCacheEntry<K, V>> node = entry.meta(meta);
+        int size = memorySize(entry);
+
+        MetaEntry<K, V> metaEntry = entry.meta(meta);
 
         // Entry has not been enqueued yet.
-        if (node == null) {
+        if (metaEntry == null) {
             while (true) {
-                node = queue.offerLastx(entry);
+                Node<GridCacheEntry<K, V>> node = queue.offerLastx(entry);
 
-                if (entry.putMetaIfAbsent(meta, node) != null) {
+                metaEntry = new MetaEntry<>(node, size);
+
+                if (entry.putMetaIfAbsent(meta, metaEntry) != null) {
                     // Was concurrently added, need to clear it from queue.
                     queue.unlinkx(node);
 
@@ -158,32 +210,53 @@ public class GridCacheFifoEvictionPolicy<K, V> implements GridCacheEvictionPolic
                         return false;
                     }
 
+                    changeMemorySize(size);
+
                     return true;
                 }
                 // If node was unlinked by concurrent shrink() call, we must repeat the whole cycle.
-                else if (!entry.removeMeta(meta, node))
+                else if (!entry.removeMeta(meta, metaEntry))
                     return false;
             }
         }
+        else if (size != metaEntry.size() && metaEntry.node().item() != null) {
+            // Entry value has changed, keep queue position but update accounted memory size.
+            if (entry.replaceMeta(meta, metaEntry, new MetaEntry<>(metaEntry.node(), size))) {
+                int delta = size - metaEntry.size();
+
+                changeMemorySize(delta);
+
+                return delta > 0;
+            }
+        }
 
         // Entry is already in queue.
         return false;
     }
 
     /**
-     * Shrinks FIFO queue to maximum allowed size.
+     * Shrinks FIFO queue to maximum allowed size and memory size.
      */
     private void shrink() {
         int max = this.max;
 
+        long maxMemSize = this.maxMemSize;
+
         int startSize = queue.sizex();
 
-        for (int i = 0; i < startSize && queue.sizex() > max; i++) {
+        for (int i = 0; i < startSize && (queue.sizex() > max ||
+            maxMemSize > 0 && memSize.longValue() > maxMemSize); i++) {
             GridCacheEntry<K, V> entry = queue.poll();
 
             if (entry == null)
                 break;
 
+            MetaEntry<K, V> metaEntry = entry.meta(meta);
+
+            // Change current memory size as we polled entry from the queue.
+            if (metaEntry != null)
+                changeMemorySize(-metaEntry.size());
+
             if (!entry.evict()) {
                 entry.removeMeta(meta);
 
@@ -192,6 +265,32 @@ public class GridCacheFifoEvictionPolicy<K, V> implements GridCacheEvictionPolic
         }
     }
 
+    /**
+     * @param entry Entry.
+     * @return Entry memory size or {@code 0} if memory size is not limited.
+     */
+    private int memorySize(GridCacheEntry<K, V> entry) {
+        if (maxMemSize == 0)
+            return 0;
+
+        try {
+            return entry.memorySize();
+        }
+        catch (GridException e) {
+            U.error(null, "Failed to calculate entry memory size (will not account it): " + entry, e);
+
+            return 0;
+        }
+    }
+
+    /**
+     * @param delta Memory size delta in bytes.
+     */
+    private void changeMemorySize(int delta) {
+        if (delta != 0)
+            memSize.add(delta);
+    }
+
     /**
      * Checks entry for empty value.
      *
@@ -213,6 +312,43 @@ public class GridCacheFifoEvictionPolicy<K, V> implements GridCacheEvictionPolic
 
     /** {@inheritDoc} */
     @Override public String toString() {
-        return S.toString(GridCacheFifoEvictionPolicy.class, this);
+        return S.toString(GridCacheFifoEvictionPolicy.class, this, "memSize", memSize.longValue());
+    }
+
+    /**
+     * Entry metadata holding queue node and accounted memory size.
+     */
+    private static class MetaEntry<K, V> {
+        /** Queue node. */
+        private final Node<GridCacheEntry<K, V>> node;
+
+        /** Memory size. */
+        private final int size;
+
+        /**
+         * @param node Queue node.
+         * @param size Memory size.
+         */
+        private MetaEntry(Node<GridCacheEntry<K, V>> node, int size) {
+            assert node != null;
+            assert size >= 0;
+
+            this.node = node;
+            this.size = size;
+        }
+
+        /**
+         * @return Queue node.
+         */
+        private Node<GridCacheEntry<K, V>> node() {
+            return node;
+        }
+
+        /**
+         * @return Memory size.
+         */
+        private int size() {
+            return size;
+        }
     }
 }
@@ -64,4 +64,28 @@ public interface GridCacheFifoEvictionPolicyMBean {
      */
     @GridMBeanDescription("Current FIFO queue size.")
     public int getCurrentSize();
+
+    /**
+     * Gets maximum allowed cache memory size in bytes.
+     *
+     * @return Maximum allowed cache memory size in bytes, {@code 0} if memory size is not limited.
+     */
+    @GridMBeanDescription("Maximum allowed cache memory size in bytes.")
+    public long getMaxMemorySize();
+
+    /**
+     * Sets maximum allowed cache memory size in bytes.
+     *
+     * @param maxMemSize Maximum allowed cache memory size in bytes, {@code 0} for unlimited.
+     */
+    @GridMBeanDescription("Sets maximum allowed cache memory size in bytes.")
+    public void setMaxMemorySize(long maxMemSize);
+
+    /**
+     * Gets current memory size of queued entries in bytes.
+     *
+     * @return Current memory size of queued entries in bytes.
+     */
+    @GridMBeanDescription("Current memory size of queued entries in bytes.")
+    public long getCurrentMemorySize();
 }
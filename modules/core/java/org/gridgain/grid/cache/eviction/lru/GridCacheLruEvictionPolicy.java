@@ -23,6 +23,7 @@
 
 package org.gridgain.grid.cache.eviction.lru;
 
+import org.gridgain.grid.*;
 import org.gridgain.grid.cache.*;
 import org.gridgain.grid.cache.eviction.*;
 import org.gridgain.grid.util.*;
@@ -36,11 +37,15 @@ import java.util.*;
  * implementation is very efficient since it is lock-free and does not
  * create any additional table-like data structures. The {@code LRU} ordering
  * information is maintained by attaching ordering metadata to cache entries.
+ * <p>
+ * Besides maximum number of entries, the policy can bound cache by memory size
+ * (see {@link #setMaxMemorySize(long)}), in which case entries are evicted until
+ * total {@link GridCacheEntry#memorySize() memory size} of cache entries is under the limit.
  *
  * @author @java.author
  * @version @java.version
  */
-public class GridCacheLruEvictionPolicy<K, V> implements GridCacheEvictionPolicy<K, V>,
+public class GridCacheLruEvictionPolicy<K, V> implements GridCacheMemoryBoundedEvictionPolicy<K, V>,
     GridCacheLruEvictionPolicyMBean {
     /** Tag. */
     private final String meta = UUID.randomUUID().toString();
@@ -48,10 +53,16 @@ public class GridCacheLruEvictionPolicy<K, V> implements GridCacheEvictionPolicy
     /** Maximum size. */
     private volatile int max = GridCacheConfiguration.DFLT_CACHE_SIZE;
 
+    /** Maximum memory size in bytes, {@code 0} if memory size is not limited. */
+    private volatile long maxMemSize;
+
     /** Queue. */
     private final ConcurrentLinkedDeque8<GridCacheEntry<K, V>> queue =
         new ConcurrentLinkedDeque8<>();
 
+    /** Current memory size of all enqueued entries in bytes. */
+    private final LongAdder memSize = new LongAdder();
+
     /**
      * Constructs LRU eviction policy with all defaults.
      */
@@ -70,6 +81,21 @@ public class GridCacheLruEvictionPolicy<K, V> implements GridCacheEvictionPolicy
         this.max = max;
     }
 
+    /**
+     * Constructs LRU eviction policy with maximum size and maximum memory size.
+     *
+     * @param max Maximum allowed size of cache before entry will start getting evicted.
+     * @param maxMemSize Maximum allowed memory size of cache in bytes before entry will start
+     *      getting evicted, {@code 0} for unlimited.
+     */
+    public GridCacheLruEvictionPolicy(int max, long maxMemSize) {
+        this(max);
+
+        A.ensure(maxMemSize >= 0, "maxMemSize >= 0");
+
+        this.maxMemSize = maxMemSize;
+    }
+
     /**
      * Gets maximum allowed size of cache before entry will start getting evicted.
      *
@@ -90,11 +116,34 @@ public class GridCacheLruEvictionPolicy<K, V> implements GridCacheEvictionPolicy
         this.max = max;
     }
 
+    /** {@inheritDoc} */
+    @Override public long getMaxMemorySize() {
+        return maxMemSize;
+    }
+
+    /**
+     * Sets maximum allowed memory size of cache in bytes before entry will start getting evicted.
+     * Memory size of an entry is calculated via {@link GridCacheEntry#memorySize()}. Entries accessed
+     * before memory size limit has been set are accounted on their next access.
+     *
+     * @param maxMemSize Maximum allowed memory size of cache in bytes, {@code 0} for unlimited.
+     */
+    @Override public void setMaxMemorySize(long maxMemSize) {
+        A.ensure(maxMemSize >= 0, "maxMemSize >= 0");
+
+        this.maxMemSize = maxMemSize;
+    }
+
     /** {@inheritDoc} */
     @Override public int getCurrentSize() {
         return queue.size();
     }
 
+    /** {@inheritDoc} */
+    @Override public long getCurrentMemorySize() {
+        return memSize.longValue();
+    }
+
     /** {@inheritDoc} */
     @Override public String getMetaAttributeName() {
         return meta;
@@ -119,26 +168,30 @@ public class GridCacheLruEvictionPolicy<K, V> implements GridCacheEvictionPolicy
                 shrink();
         }
         else {
-            Node<GridCacheEntry<K, V>> node = entry.removeMeta(meta);
+            MetaEntry<K, V> metaEntry = entry.removeMeta(meta);
 
-            if (node != null)
-                queue.unlinkx(node);
+            if (metaEntry != null && queue.unlinkx(metaEntry.node()))
+                changeMemorySize(-metaEntry.size());
         }
     }
 
     /**
      * @param entry Entry to touch.
-     * @return {@code True} if new node has been added to queue by this call.
+     * @return {@code True} if new node has been added to queue or memory size has grown by this call.
      */
     private boolean touch(GridCacheEntry<K, V> entry) {
-        Node<GridCacheEntry<K, V>> node = entry.meta(meta);
+        int size = memorySize(entry);
+
+        MetaEntry<K, V> metaEntry = entry.meta(meta);
 
         // Entry has not been enqueued yet.
-        if (node == null) {
+        if (metaEntry == null) {
             while (true) {
-                node = queue.offerLastx(entry);
+                Node<GridCacheEntry<K, V>> node = queue.offerLastx(entry);
+
+                metaEntry = new MetaEntry<>(node, size);
 
-                if (entry.putMetaIfAbsent(meta, node) != null) {
+                if (entry.putMetaIfAbsent(meta, metaEntry) != null) {
                     // Was concurrently added, need to clear it from queue.
                     queue.unlinkx(node);
 
@@ -153,20 +206,33 @@ public class GridCacheLruEvictionPolicy<K, V> implements GridCacheEvictionPolicy
                         return false;
                     }
 
+                    changeMemorySize(size);
+
                     return true;
                 }
                 // If node was unlinked by concurrent shrink() call, we must repeat the whole cycle.
-                else if (!entry.removeMeta(meta, node))
+                else if (!entry.removeMeta(meta, metaEntry))
                     return false;
             }
         }
-        else if (queue.unlinkx(node)) {
+        else if (queue.unlinkx(metaEntry.node())) {
             // Move node to tail.
             Node<GridCacheEntry<K, V>> newNode = queue.offerLastx(entry);
 
-            if (!entry.replaceMeta(meta, node, newNode))
+            int delta = size - metaEntry.size();
+
+            if (!entry.replaceMeta(meta, metaEntry, new MetaEntry<>(newNode, size))) {
                 // Was concurrently added, need to clear it from queue.
-                queue.unlinkx(newNode);
+                if (queue.unlinkx(newNode))
+                    delta -= size;
+            }
+
+            if (delta != 0) {
+                changeMemorySize(delta);
+
+                // Memory size increased, so shrinking could be needed.
+                return delta > 0;
+            }
         }
 
         // Entry is already in queue.
@@ -174,19 +240,28 @@ public class GridCacheLruEvictionPolicy<K, V> implements GridCacheEvictionPolicy
     }
 
     /**
-     * Shrinks queue to maximum allowed size.
+     * Shrinks queue to maximum allowed size and memory size.
      */
     private void shrink() {
         int max = this.max;
 
+        long maxMemSize = this.maxMemSize;
+
         int startSize = queue.sizex();
 
-        for (int i = 0; i < startSize && queue.sizex() > max; i++) {
+        for (int i = 0; i < startSize && (queue.sizex() > max ||
+            maxMemSize > 0 && memSize.longValue() > maxMemSize); i++) {
             GridCacheEntry<K, V> entry = queue.poll();
 
             if (entry == null)
                 break;
 
+            MetaEntry<K, V> metaEntry = entry.meta(meta);
+
+            // Change current memory size as we polled entry from the queue.
+            if (metaEntry != null)
+                changeMemorySize(-metaEntry.size());
+
             if (!entry.evict()) {
                 entry.removeMeta(meta);
 
@@ -195,8 +270,72 @@ public class GridCacheLruEvictionPolicy<K, V> implements GridCacheEvictionPolicy
         }
     }
 
+    /**
+     * @param entry Entry.
+     * @return Entry memory size or {@code 0} if memory size is not limited.
+     */
+    private int memorySize(GridCacheEntry<K, V> entry) {
+        if (maxMemSize == 0)
+            return 0;
+
+        try {
+            return entry.memorySize();
+        }
+        catch (GridException e) {
+            U.error(null, "Failed to calculate entry memory size (will not account it): " + entry, e);
+
+            return 0;
+        }
+    }
+
+    /**
+     * @param delta Memory size delta in bytes.
+     */
+    private void changeMemorySize(int delta) {
+        if (delta != 0)
+            memSize.add(delta);
+    }
+
     /** {@inheritDoc} */
     @Override public String toString() {
-        return S.toString(GridCacheLruEvictionPolicy.class, this, "size", queue.sizex());
+        return S.toString(GridCacheLruEvictionPolicy.class, this, "size", queue.sizex(),
+            "memSize", memSize.longValue());
+    }
+
+    /**
+     * Entry metadata holding queue node and accounted memory size.
+     */
+    private static class MetaEntry<K, V> {
+        /** Queue node. */
+        private final Node<GridCacheEntry<K, V>> node;
+
+        /** Memory size. */
+        private final int size;
+
+        /**
+         * @param node Queue node.
+         * @param size Memory size.
+         */
+        private MetaEntry(Node<GridCacheEntry<K, V>> node, int size) {
+            assert node != null;
+            assert size >= 0;
+
+            this.node = node;
+            this.size = size;
+        }
+
+        /**
+         * @return Queue node.
+         */
+        private Node<GridCacheEntry<K, V>> node() {
+            return node;
+        }
+
+        /**
+         * @return Memory size.
+         */
+        private int size() {
+            return size;
+        }
     }
 }
@@ -26,9 +26,12 @@ package org.gridgain.grid.cache.eviction.random;
 import org.gridgain.grid.*;
 import org.gridgain.grid.cache.*;
 import org.gridgain.grid.cache.eviction.*;
+import org.gridgain.grid.util.LongAdder;
 import org.gridgain.grid.util.typedef.*;
 import org.gridgain.grid.util.typedef.internal.*;
 
+import java.util.*;
+
 import static org.gridgain.grid.cache.GridCachePeekMode.*;
 
 /**
@@ -39,15 +42,29 @@ import static org.gridgain.grid.cache.GridCachePeekMode.*;
  * <p>
  * Random eviction will provide the best performance over any key set in which every
  * key has the same probability of being accessed.
+ * <p>
+ * Besides maximum number of entries, the policy can bound cache by memory size
+ * (see {@link #setMaxMemorySize(long)}), in which case random entries are evicted until
+ * total {@link GridCacheEntry#memorySize() memory size} of cache entries is under the limit.
+ * Memory size of every entry is then kept in entry metadata.
  *
  * @author @java.author
  * @version @java.version
  */
-public class GridCacheRandomEvictionPolicy<K, V> implements GridCacheEvictionPolicy<K, V>,
+public class GridCacheRandomEvictionPolicy<K, V> implements GridCacheMemoryBoundedEvictionPolicy<K, V>,
     GridCacheRandomEvictionPolicyMBean {
+    /** Tag. */
+    private final String meta = UUID.randomUUID().toString();
+
     /** Maximum size. */
     private volatile int max = GridCacheConfiguration.DFLT_CACHE_SIZE;
 
+    /** Maximum memory size in bytes, {@code 0} if memory size is not limited. */
+    private volatile long maxMemSize;
+
+    /** Current memory size of accounted entries in bytes. */
+    private final LongAdder memSize = new LongAdder();
+
     /**
      * Constructs random eviction policy with all defaults.
      */
@@ -66,6 +83,21 @@ public class GridCacheRandomEvictionPolicy<K, V> implements GridCacheEvictionPol
         this.max = max;
     }
 
+    /**
+     * Constructs random eviction policy with maximum size and maximum memory size.
+     *
+     * @param max Maximum allowed size of cache before entry will start getting evicted.
+     * @param maxMemSize Maximum allowed memory size of cache in bytes before entry will start
+     *      getting evicted, {@code 0} for unlimited.
+     */
+    public GridCacheRandomEvictionPolicy(int max, long maxMemSize) {
+        this(max);
+
+        A.ensure(maxMemSize >= 0, "maxMemSize >= 0");
+
+        this.maxMemSize = maxMemSize;
+    }
+
     /**
      * Gets maximum allowed size of cache before entry will start getting evicted.
      *
@@ -86,10 +118,43 @@ public class GridCacheRandomEvictionPolicy<K, V> implements GridCacheEvictionPol
         this.max = max;
     }
 
+    /** {@inheritDoc} */
+    @Override public long getMaxMemorySize() {
+        return maxMemSize;
+    }
+
+    /**
+     * Sets maximum allowed memory size of cache in bytes before entry will start getting evicted.
+     * Memory size of an entry is calculated via {@link GridCacheEntry#memorySize()}. Entries accessed
+     * before memory size limit has been set are accounted on their next access.
+     *
+     * @param maxMemSize Maximum allowed memory size of cache in bytes, {@code 0} for unlimited.
+     */
+    @Override public void setMaxMemorySize(long maxMemSize) {
+        A.ensure(maxMemSize >= 0, "maxMemSize >= 0");
+
+        this.maxMemSize = maxMemSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getCurrentMemorySize() {
+        return memSize.longValue();
+    }
+
+    /** {@inheritDoc} */
+    @Override public String getMetaAttributeName() {
+        return meta;
+    }
+
     /** {@inheritDoc} */
     @Override public void onEntryAccessed(boolean rmv, GridCacheEntry<K, V> entry) {
-        if (!entry.isCached())
+        if (rmv || !entry.isCached()) {
+            release(entry);
+
             return;
+        }
+
+        boolean grown = account(entry);
 
         GridCache<K, V> cache = entry.projection().cache();
 
@@ -98,9 +163,64 @@ public class GridCacheRandomEvictionPolicy<K, V> implements GridCacheEvictionPol
         for (int i = max; i < size; i++) {
             GridCacheEntry<K, V> e = cache.randomEntry();
 
-            if (e != null)
-                e.evict();
+            if (e != null && e.evict())
+                release(e);
+        }
+
+        long maxMemSize = this.maxMemSize;
+
+        if (grown && maxMemSize > 0) {
+            // Number of attempts is bounded, since random entry may be not evictable or not accounted yet.
+            for (int i = 0; i < size && memSize.longValue() > maxMemSize; i++) {
+                GridCacheEntry<K, V> e = cache.randomEntry();
+
+                if (e != null && e.evict())
+                    release(e);
+            }
+        }
+    }
+
+    /**
+     * Accounts current memory size of entry.
+     *
+     * @param entry Entry.
+     * @return {@code True} if memory size has grown.
+     */
+    private boolean account(GridCacheEntry<K, V> entry) {
+        if (maxMemSize == 0)
+            return false;
+
+        int size;
+
+        try {
+            size = entry.memorySize();
         }
+        catch (GridException e) {
+            U.error(null, "Failed to calculate entry memory size (will not account it): " + entry, e);
+
+            return false;
+        }
+
+        Integer prev = entry.addMeta(meta, size);
+
+        int delta = prev != null ? size - prev : size;
+
+        if (delta != 0)
+            memSize.add(delta);
+
+        return delta > 0;
+    }
+
+    /**
+     * Releases memory size accounted for entry.
+     *
+     * @param entry Entry.
+     */
+    private void release(GridCacheEntry<K, V> entry) {
+        Integer size = entry.removeMeta(meta);
+
+        if (size != null && size != 0)
+            memSize.add(-size);
     }
 
     /**
@@ -124,6 +244,6 @@ public class GridCacheRandomEvictionPolicy<K, V> implements GridCacheEvictionPol
 
     /** {@inheritDoc} */
     @Override public String toString() {
-        return S.toString(GridCacheRandomEvictionPolicy.class, this);
+        return S.toString(GridCacheRandomEvictionPolicy.class, this, "memSize", memSize.longValue());
     }
 }
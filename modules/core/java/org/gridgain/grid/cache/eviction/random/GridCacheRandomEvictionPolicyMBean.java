@@ -48,4 +48,36 @@ public interface GridCacheRandomEvictionPolicyMBean {
      */
     @GridMBeanDescription("Sets maximum allowed cache size.")
     public void setMaxSize(int max);
+
+    /**
+     * Gets name of metadata attribute used to store entry memory size.
+     *
+     * @return Name of metadata attribute used to store entry memory size.
+     */
+    @GridMBeanDescription("Name of metadata attribute used to store entry memory size.")
+    public String getMetaAttributeName();
+
+    /**
+     * Gets maximum allowed cache memory size in bytes.
+     *
+     * @return Maximum allowed cache memory size in bytes, {@code 0} if memory size is not limited.
+     */
+    @GridMBeanDescription("Maximum allowed cache memory size in bytes.")
+    public long getMaxMemorySize();
+
+    /**
+     * Sets maximum allowed cache memory size in bytes.
+     *
+     * @param maxMemSize Maximum allowed cache memory size in bytes, {@code 0} for unlimited.
+     */
+    @GridMBeanDescription("Sets maximum allowed cache memory size in bytes.")
+    public void setMaxMemorySize(long maxMemSize);
+
+    /**
+     * Gets current memory size of accounted entries in bytes.
+     *
+     * @return Current memory size of accounted entries in bytes.
+     */
+    @GridMBeanDescription("Current memory size of accounted entries in bytes.")
+    public long getCurrentMemorySize();
 }
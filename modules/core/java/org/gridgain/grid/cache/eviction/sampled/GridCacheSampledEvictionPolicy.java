@@ -0,0 +1,292 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.cache.eviction.sampled;
+
+import org.gridgain.grid.*;
+import org.gridgain.grid.cache.*;
+import org.gridgain.grid.cache.eviction.*;
+import org.gridgain.grid.util.*;
+import org.gridgain.grid.util.typedef.internal.*;
+import org.jetbrains.annotations.*;
+
+import java.util.*;
+
+/**
+ * Eviction policy which approximates {@code LRU} (or {@code LFU}) ordering by sampling. Whenever
+ * cache size exceeds {@link #getMaxSize()}, the policy picks {@link #getSampleSize()} random cache
+ * entries and evicts the one which was accessed least recently (or least frequently if policy
+ * is {@link #isFrequencyBased() frequency based}).
+ * <p>
+ * Unlike {@link org.gridgain.grid.cache.eviction.lru.GridCacheLruEvictionPolicy}, this policy does
+ * not maintain any shared queue. Access information is kept in a small holder attached to entry
+ * metadata, so that reading an entry only updates fields of that holder and never touches any
+ * structure shared between threads. The price is that eviction order is approximate: the larger
+ * the sample size, the closer the policy gets to exact {@code LRU}.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+public class GridCacheSampledEvictionPolicy<K, V> implements GridCacheEvictionPolicy<K, V>,
+    GridCacheSampledEvictionPolicyMBean {
+    /** Default sample size. */
+    public static final int DFLT_SAMPLE_SIZE = 5;
+
+    /** Tag. */
+    private final String meta = UUID.randomUUID().toString();
+
+    /** Maximum size. */
+    private volatile int max = GridCacheConfiguration.DFLT_CACHE_SIZE;
+
+    /** Sample size. */
+    private volatile int sampleSize = DFLT_SAMPLE_SIZE;
+
+    /** Whether victims are chosen by access frequency. */
+    private final boolean freq;
+
+    /** Evictions counter. */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs sampled LRU eviction policy with all defaults.
+     */
+    public GridCacheSampledEvictionPolicy() {
+        freq = false;
+    }
+
+    /**
+     * Constructs sampled LRU eviction policy with maximum size.
+     *
+     * @param max Maximum allowed size of cache before entry will start getting evicted.
+     */
+    public GridCacheSampledEvictionPolicy(int max) {
+        this(max, DFLT_SAMPLE_SIZE, false);
+    }
+
+    /**
+     * Constructs sampled eviction policy.
+     *
+     * @param max Maximum allowed size of cache before entry will start getting evicted.
+     * @param sampleSize Number of entries sampled to pick one eviction victim.
+     * @param freq If {@code true}, least frequently used entry of the sample is evicted,
+     *      otherwise least recently used one.
+     */
+    public GridCacheSampledEvictionPolicy(int max, int sampleSize, boolean freq) {
+        A.ensure(max > 0, "max > 0");
+        A.ensure(sampleSize > 0, "sampleSize > 0");
+
+        this.max = max;
+        this.sampleSize = sampleSize;
+        this.freq = freq;
+    }
+
+    /**
+     * Gets maximum allowed size of cache before entry will start getting evicted.
+     *
+     * @return Maximum allowed size of cache before entry will start getting evicted.
+     */
+    @Override public int getMaxSize() {
+        return max;
+    }
+
+    /**
+     * Sets maximum allowed size of cache before entry will start getting evicted.
+     *
+     * @param max Maximum allowed size of cache before entry will start getting evicted.
+     */
+    @Override public void setMaxSize(int max) {
+        A.ensure(max > 0, "max > 0");
+
+        this.max = max;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getSampleSize() {
+        return sampleSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void setSampleSize(int sampleSize) {
+        A.ensure(sampleSize > 0, "sampleSize > 0");
+
+        this.sampleSize = sampleSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean isFrequencyBased() {
+        return freq;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getEvictions() {
+        return evictions.longValue();
+    }
+
+    /** {@inheritDoc} */
+    @Override public String getMetaAttributeName() {
+        return meta;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onEntryAccessed(boolean rmv, GridCacheEntry<K, V> entry) {
+        if (rmv || !entry.isCached())
+            return;
+
+        AccessInfo info = entry.meta(meta);
+
+        if (info == null) {
+            info = new AccessInfo();
+
+            AccessInfo old = entry.putMetaIfAbsent(meta, info);
+
+            if (old != null)
+                info = old;
+        }
+
+        info.onAccess();
+
+        GridCache<K, V> cache = entry.projection().cache();
+
+        int size = cache.size();
+
+        for (int i = max; i < size; i++) {
+            if (!evictOne(cache))
+                break;
+        }
+    }
+
+    /**
+     * Samples entries and evicts the best candidate among them.
+     *
+     * @param cache Cache.
+     * @return {@code False} if nothing could be sampled.
+     */
+    private boolean evictOne(GridCache<K, V> cache) {
+        int sampleSize = this.sampleSize;
+
+        GridCacheEntry<K, V> victim = null;
+
+        long victimRank = Long.MAX_VALUE;
+
+        for (int i = 0; i < sampleSize; i++) {
+            GridCacheEntry<K, V> e = cache.randomEntry();
+
+            if (e == null)
+                continue;
+
+            long rank = rank(e);
+
+            if (victim == null || rank < victimRank) {
+                victim = e;
+                victimRank = rank;
+            }
+        }
+
+        if (victim == null)
+            return false;
+
+        if (victim.evict())
+            evictions.increment();
+
+        return true;
+    }
+
+    /**
+     * Gets eviction rank of the entry. Entry with the lowest rank is evicted first.
+     *
+     * @param e Entry.
+     * @return Eviction rank.
+     */
+    private long rank(GridCacheEntry<K, V> e) {
+        AccessInfo info = accessInfo(e);
+
+        if (info == null)
+            // Entry has never been accessed through this policy.
+            return Long.MIN_VALUE;
+
+        return freq ? info.frequency() : info.accessTime();
+    }
+
+    /**
+     * @param e Entry.
+     * @return Access info or {@code null} if entry has none or has been concurrently removed.
+     */
+    @Nullable private AccessInfo accessInfo(GridCacheEntry<K, V> e) {
+        try {
+            return e.meta(meta);
+        }
+        catch (GridRuntimeException ignored) {
+            // Entry has been concurrently removed.
+            return null;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return S.toString(GridCacheSampledEvictionPolicy.class, this);
+    }
+
+    /**
+     * Access information attached to entry metadata. Fields are intentionally
+     * not volatile: lost updates only make eviction order slightly less precise.
+     */
+    private static class AccessInfo {
+        /** Frequency counter resolution: frequency is decayed by half every such period. */
+        private static final long DECAY_PERIOD = 60 * 1000;
+
+        /** Last access time. */
+        private long accessTime;
+
+        /** Access counter. */
+        private long cnt;
+
+        /**
+         * Records access.
+         */
+        void onAccess() {
+            long now = U.currentTimeMillis();
+
+            long periods = (now - accessTime) / DECAY_PERIOD;
+
+            cnt = (periods >= 64 ? 0 : cnt >>> periods) + 1;
+
+            accessTime = now;
+        }
+
+        /**
+         * @return Last access time.
+         */
+        long accessTime() {
+            return accessTime;
+        }
+
+        /**
+         * @return Access frequency decayed to current time.
+         */
+        long frequency() {
+            long periods = (U.currentTimeMillis() - accessTime) / DECAY_PERIOD;
+
+            return periods >= 64 ? 0 : cnt >>> periods;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.cache.eviction.sampled;
+
+import org.gridgain.grid.util.mbean.*;
+
+/**
+ * MBean for {@code sampled} eviction policy.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+@GridMBeanDescription("MBean for sampled cache eviction policy.")
+public interface GridCacheSampledEvictionPolicyMBean {
+    /**
+     * Gets name of metadata attribute used to store eviction policy data.
+     *
+     * @return Name of metadata attribute used to store eviction policy data.
+     */
+    @GridMBeanDescription("Name of metadata attribute used to store eviction policy data.")
+    public String getMetaAttributeName();
+
+    /**
+     * Gets maximum allowed cache size.
+     *
+     * @return Maximum allowed cache size.
+     */
+    @GridMBeanDescription("Maximum allowed cache size.")
+    public int getMaxSize();
+
+    /**
+     * Sets maximum allowed cache size.
+     *
+     * @param max Maximum allowed cache size.
+     */
+    @GridMBeanDescription("Sets maximum allowed cache size.")
+    public void setMaxSize(int max);
+
+    /**
+     * Gets number of entries sampled to pick one eviction victim.
+     *
+     * @return Number of entries sampled to pick one eviction victim.
+     */
+    @GridMBeanDescription("Number of entries sampled to pick one eviction victim.")
+    public int getSampleSize();
+
+    /**
+     * Sets number of entries sampled to pick one eviction victim.
+     *
+     * @param sampleSize Number of entries sampled to pick one eviction victim.
+     */
+    @GridMBeanDescription("Sets number of entries sampled to pick one eviction victim.")
+    public void setSampleSize(int sampleSize);
+
+    /**
+     * Gets whether victims are chosen by access frequency rather than by last access time.
+     *
+     * @return {@code True} if victims are chosen by access frequency.
+     */
+    @GridMBeanDescription("Whether victims are chosen by access frequency rather than by last access time.")
+    public boolean isFrequencyBased();
+
+    /**
+     * Gets number of entries evicted by this policy.
+     *
+     * @return Number of entries evicted by this policy.
+     */
+    @GridMBeanDescription("Number of entries evicted by this policy.")
+    public long getEvictions();
+}
@@ -0,0 +1,555 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.cache.eviction.tinylfu;
+
+import org.gridgain.grid.cache.*;
+import org.gridgain.grid.cache.eviction.*;
+import org.gridgain.grid.util.*;
+import org.gridgain.grid.util.LongAdder;
+import org.gridgain.grid.util.ConcurrentLinkedDeque8.*;
+import org.gridgain.grid.util.typedef.internal.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Eviction policy based on {@code W-TinyLFU} algorithm. Newly accessed entries are
+ * first placed into a small {@code LRU} admission window. When the window overflows,
+ * its least recently used entry becomes a candidate for the main {@code LRU} queue and
+ * is admitted only if it was accessed more frequently than the main queue victim, otherwise
+ * the candidate itself is evicted. This protects the hot working set from one-off scans
+ * which touch large amount of cold keys.
+ * <p>
+ * Access frequencies are kept in a compact count-min sketch with 4-bit counters which is
+ * periodically aged by halving all counters, so that frequencies reflect recent history.
+ * Just like {@link org.gridgain.grid.cache.eviction.lru.GridCacheLruEvictionPolicy}, the
+ * ordering information is maintained by attaching metadata to cache entries.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+public class GridCacheTinyLfuEvictionPolicy<K, V> implements GridCacheEvictionPolicy<K, V>,
+    GridCacheTinyLfuEvictionPolicyMBean {
+    /** Default admission window size as percentage of maximum size. */
+    public static final int DFLT_WINDOW_PERCENTAGE = 1;
+
+    /** Tag. */
+    private final String meta = UUID.randomUUID().toString();
+
+    /** Maximum size. */
+    private volatile int max = GridCacheConfiguration.DFLT_CACHE_SIZE;
+
+    /** Admission window size as percentage of maximum size. */
+    private volatile int windowPct = DFLT_WINDOW_PERCENTAGE;
+
+    /** Admission window queue. */
+    private final ConcurrentLinkedDeque8<GridCacheEntry<K, V>> window = new ConcurrentLinkedDeque8<>();
+
+    /** Main queue. */
+    private final ConcurrentLinkedDeque8<GridCacheEntry<K, V>> main = new ConcurrentLinkedDeque8<>();
+
+    /** Frequency sketch. */
+    private volatile FrequencySketch sketch = new FrequencySketch(max);
+
+    /** Hits counter. */
+    private final LongAdder hits = new LongAdder();
+
+    /** Admissions counter. */
+    private final LongAdder admissions = new LongAdder();
+
+    /** Rejections counter. */
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * Constructs W-TinyLFU eviction policy with all defaults.
+     */
+    public GridCacheTinyLfuEvictionPolicy() {
+        // No-op.
+    }
+
+    /**
+     * Constructs W-TinyLFU eviction policy with maximum size.
+     *
+     * @param max Maximum allowed size of cache before entry will start getting evicted.
+     */
+    public GridCacheTinyLfuEvictionPolicy(int max) {
+        A.ensure(max > 0, "max > 0");
+
+        this.max = max;
+
+        sketch = new FrequencySketch(max);
+    }
+
+    /**
+     * Constructs W-TinyLFU eviction policy with maximum size and admission window size.
+     *
+     * @param max Maximum allowed size of cache before entry will start getting evicted.
+     * @param windowPct Admission window size as percentage of maximum size.
+     */
+    public GridCacheTinyLfuEvictionPolicy(int max, int windowPct) {
+        this(max);
+
+        A.ensure(windowPct > 0 && windowPct < 100, "windowPct > 0 && windowPct < 100");
+
+        this.windowPct = windowPct;
+    }
+
+    /**
+     * Gets maximum allowed size of cache before entry will start getting evicted.
+     *
+     * @return Maximum allowed size of cache before entry will start getting evicted.
+     */
+    @Override public int getMaxSize() {
+        return max;
+    }
+
+    /**
+     * Sets maximum allowed size of cache before entry will start getting evicted. Note
+     * that this call resets collected access frequencies.
+     *
+     * @param max Maximum allowed size of cache before entry will start getting evicted.
+     */
+    @Override public void setMaxSize(int max) {
+        A.ensure(max > 0, "max > 0");
+
+        this.max = max;
+
+        sketch = new FrequencySketch(max);
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getWindowPercentage() {
+        return windowPct;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void setWindowPercentage(int windowPct) {
+        A.ensure(windowPct > 0 && windowPct < 100, "windowPct > 0 && windowPct < 100");
+
+        this.windowPct = windowPct;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getCurrentWindowSize() {
+        return window.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getCurrentMainSize() {
+        return main.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getHits() {
+        return hits.longValue();
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getAdmissions() {
+        return admissions.longValue();
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getRejections() {
+        return rejections.longValue();
+    }
+
+    /** {@inheritDoc} */
+    @Override public void resetMetrics() {
+        hits.reset();
+        admissions.reset();
+        rejections.reset();
+    }
+
+    /** {@inheritDoc} */
+    @Override public String getMetaAttributeName() {
+        return meta;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onEntryAccessed(boolean rmv, GridCacheEntry<K, V> entry) {
+        if (!rmv) {
+            if (!entry.isCached())
+                return;
+
+            sketch.increment(hash(entry));
+
+            if (touch(entry))
+                shrink();
+        }
+        else {
+            Position<K, V> pos = entry.removeMeta(meta);
+
+            if (pos != null)
+                queue(pos).unlinkx(pos.node());
+        }
+    }
+
+    /**
+     * @param entry Entry to touch.
+     * @return {@code True} if new node has been added to window queue by this call.
+     */
+    private boolean touch(GridCacheEntry<K, V> entry) {
+        Position<K, V> pos = entry.meta(meta);
+
+        // Entry has not been enqueued yet.
+        if (pos == null) {
+            while (true) {
+                Node<GridCacheEntry<K, V>> node = window.offerLastx(entry);
+
+                pos = new Position<>(node, true);
+
+                if (entry.putMetaIfAbsent(meta, pos) != null) {
+                    // Was concurrently added, need to clear it from queue.
+                    window.unlinkx(node);
+
+                    // Queue has not been changed.
+                    return false;
+                }
+                else if (node.item() != null) {
+                    if (!entry.isCached()) {
+                        // Was concurrently evicted, need to clear it from queue.
+                        window.unlinkx(node);
+
+                        return false;
+                    }
+
+                    return true;
+                }
+                // If node was unlinked by concurrent shrink() call, we must repeat the whole cycle.
+                else if (!entry.removeMeta(meta, pos))
+                    return false;
+            }
+        }
+
+        hits.increment();
+
+        ConcurrentLinkedDeque8<GridCacheEntry<K, V>> queue = queue(pos);
+
+        if (queue.unlinkx(pos.node())) {
+            // Move node to tail of the same queue.
+            Node<GridCacheEntry<K, V>> newNode = queue.offerLastx(entry);
+
+            if (!entry.replaceMeta(meta, pos, new Position<>(newNode, pos.window())))
+                // Was concurrently changed, need to clear it from queue.
+                queue.unlinkx(newNode);
+        }
+
+        // Entry is already in queue.
+        return false;
+    }
+
+    /**
+     * Shrinks admission window to its maximum size moving candidates to main queue
+     * or evicting them, then shrinks main queue if total size still exceeds maximum.
+     */
+    private void shrink() {
+        int max = this.max;
+
+        int winMax = Math.max(1, (int)((long)max * windowPct / 100));
+
+        int mainMax = Math.max(1, max - winMax);
+
+        FrequencySketch sketch = this.sketch;
+
+        int startSize = window.sizex();
+
+        for (int i = 0; i < startSize && window.sizex() > winMax; i++) {
+            GridCacheEntry<K, V> cand = window.poll();
+
+            if (cand == null)
+                break;
+
+            if (main.sizex() < mainMax) {
+                promote(cand);
+
+                continue;
+            }
+
+            GridCacheEntry<K, V> victim = main.peek();
+
+            if (victim == null) {
+                promote(cand);
+
+                continue;
+            }
+
+            if (sketch.frequency(hash(cand)) > sketch.frequency(hash(victim))) {
+                admissions.increment();
+
+                promote(cand);
+
+                Position<K, V> victimPos = victim.meta(meta);
+
+                if (victimPos != null && !victimPos.window() && main.unlinkx(victimPos.node()))
+                    evict(victim);
+            }
+            else {
+                rejections.increment();
+
+                evict(cand);
+            }
+        }
+
+        // Main queue may exceed its limit if maximum size has been decreased.
+        startSize = main.sizex();
+
+        for (int i = 0; i < startSize && main.sizex() + window.sizex() > max; i++) {
+            GridCacheEntry<K, V> entry = main.poll();
+
+            if (entry == null)
+                break;
+
+            evict(entry);
+        }
+    }
+
+    /**
+     * Moves entry polled from admission window to the tail of main queue.
+     *
+     * @param entry Entry polled from admission window.
+     */
+    private void promote(GridCacheEntry<K, V> entry) {
+        Position<K, V> pos = entry.meta(meta);
+
+        Node<GridCacheEntry<K, V>> node = main.offerLastx(entry);
+
+        if (pos == null || !entry.replaceMeta(meta, pos, new Position<>(node, false)))
+            // Was concurrently removed or touched, need to clear it from queue.
+            main.unlinkx(node);
+    }
+
+    /**
+     * Evicts entry which has already been unlinked from its queue.
+     *
+     * @param entry Entry to evict.
+     */
+    private void evict(GridCacheEntry<K, V> entry) {
+        if (!entry.evict()) {
+            entry.removeMeta(meta);
+
+            touch(entry);
+        }
+    }
+
+    /**
+     * @param pos Entry position.
+     * @return Queue holding the entry.
+     */
+    private ConcurrentLinkedDeque8<GridCacheEntry<K, V>> queue(Position<K, V> pos) {
+        return pos.window() ? window : main;
+    }
+
+    /**
+     * @param entry Entry.
+     * @return Hash code of entry key.
+     */
+    private static int hash(GridCacheEntry<?, ?> entry) {
+        Object key = entry.getKey();
+
+        return key == null ? 0 : key.hashCode();
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return S.toString(GridCacheTinyLfuEvictionPolicy.class, this, "windowSize", window.sizex(),
+            "mainSize", main.sizex());
+    }
+
+    /**
+     * Entry position stored in entry metadata.
+     */
+    private static class Position<K, V> {
+        /** Queue node. */
+        private final Node<GridCacheEntry<K, V>> node;
+
+        /** Whether node belongs to admission window. */
+        private final boolean window;
+
+        /**
+         * @param node Queue node.
+         * @param window Whether node belongs to admission window.
+         */
+        private Position(Node<GridCacheEntry<K, V>> node, boolean window) {
+            assert node != null;
+
+            this.node = node;
+            this.window = window;
+        }
+
+        /**
+         * @return Queue node.
+         */
+        private Node<GridCacheEntry<K, V>> node() {
+            return node;
+        }
+
+        /**
+         * @return Whether node belongs to admission window.
+         */
+        private boolean window() {
+            return window;
+        }
+    }
+
+    /**
+     * Count-min sketch with four 4-bit counters per key. Counters are packed sixteen
+     * per {@code long} and are halved once number of increments reaches ten times the
+     * maximum cache size, so that old history fades out.
+     */
+    private static class FrequencySketch {
+        /** Hash seeds. */
+        private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+        };
+
+        /** Mask to halve all counters in a word. */
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        /** Counters table. */
+        private final AtomicLongArray table;
+
+        /** Table mask. */
+        private final int mask;
+
+        /** Number of increments after which counters are halved. */
+        private final int sampleSize;
+
+        /** Number of increments since last reset. */
+        private final AtomicInteger size = new AtomicInteger();
+
+        /**
+         * @param max Maximum cache size.
+         */
+        private FrequencySketch(int max) {
+            int len = U.ceilPow2(Math.max(16, Math.min(max, 1 << 30)));
+
+            table = new AtomicLongArray(len);
+
+            mask = len - 1;
+
+            sampleSize = (int)Math.min(Integer.MAX_VALUE, 10L * max);
+        }
+
+        /**
+         * @param hash Key hash code.
+         */
+        void increment(int hash) {
+            int h = spread(hash);
+
+            int start = (h & 3) << 2;
+
+            boolean added = false;
+
+            for (int i = 0; i < 4; i++)
+                added |= incrementAt(index(h, i), start + i);
+
+            if (added && size.incrementAndGet() == sampleSize)
+                reset();
+        }
+
+        /**
+         * @param hash Key hash code.
+         * @return Estimated access frequency.
+         */
+        int frequency(int hash) {
+            int h = spread(hash);
+
+            int start = (h & 3) << 2;
+
+            int freq = Integer.MAX_VALUE;
+
+            for (int i = 0; i < 4; i++) {
+                int off = (start + i) << 2;
+
+                int cnt = (int)((table.get(index(h, i)) >>> off) & 0xfL);
+
+                freq = Math.min(freq, cnt);
+            }
+
+            return freq;
+        }
+
+        /**
+         * @param idx Word index.
+         * @param cntIdx Counter index within the word.
+         * @return {@code True} if counter has been incremented, {@code false} if it is saturated.
+         */
+        private boolean incrementAt(int idx, int cntIdx) {
+            int off = cntIdx << 2;
+
+            long cntMask = 0xfL << off;
+
+            while (true) {
+                long word = table.get(idx);
+
+                if ((word & cntMask) == cntMask)
+                    return false;
+
+                if (table.compareAndSet(idx, word, word + (1L << off)))
+                    return true;
+            }
+        }
+
+        /**
+         * Halves all counters.
+         */
+        private void reset() {
+            for (int i = 0; i < table.length(); i++) {
+                while (true) {
+                    long word = table.get(i);
+
+                    if (table.compareAndSet(i, word, (word >>> 1) & RESET_MASK))
+                        break;
+                }
+            }
+
+            size.addAndGet(-sampleSize / 2);
+        }
+
+        /**
+         * @param h Spread hash.
+         * @param i Hash function index.
+         * @return Word index.
+         */
+        private int index(int h, int i) {
+            long hash = (h + SEEDS[i]) * SEEDS[i];
+
+            hash += hash >>> 32;
+
+            return (int)hash & mask;
+        }
+
+        /**
+         * @param h Hash code.
+         * @return Spread hash code.
+         */
+        private static int spread(int h) {
+            h = ((h >>> 16) ^ h) * 0x45d9f3b;
+            h = ((h >>> 16) ^ h) * 0x45d9f3b;
+
+            return (h >>> 16) ^ h;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.cache.eviction.tinylfu;
+
+import org.gridgain.grid.util.mbean.*;
+
+/**
+ * MBean for {@code W-TinyLFU} eviction policy.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+@GridMBeanDescription("MBean for W-TinyLFU cache eviction policy.")
+public interface GridCacheTinyLfuEvictionPolicyMBean {
+    /**
+     * Gets name of metadata attribute used to store eviction policy data.
+     *
+     * @return Name of metadata attribute used to store eviction policy data.
+     */
+    @GridMBeanDescription("Name of metadata attribute used to store eviction policy data.")
+    public String getMetaAttributeName();
+
+    /**
+     * Gets maximum allowed cache size.
+     *
+     * @return Maximum allowed cache size.
+     */
+    @GridMBeanDescription("Maximum allowed cache size.")
+    public int getMaxSize();
+
+    /**
+     * Sets maximum allowed cache size.
+     *
+     * @param max Maximum allowed cache size.
+     */
+    @GridMBeanDescription("Sets maximum allowed cache size.")
+    public void setMaxSize(int max);
+
+    /**
+     * Gets admission window size as percentage of maximum cache size.
+     *
+     * @return Admission window size as percentage of maximum cache size.
+     */
+    @GridMBeanDescription("Admission window size as percentage of maximum cache size.")
+    public int getWindowPercentage();
+
+    /**
+     * Sets admission window size as percentage of maximum cache size.
+     *
+     * @param windowPct Admission window size as percentage of maximum cache size.
+     */
+    @GridMBeanDescription("Sets admission window size as percentage of maximum cache size.")
+    public void setWindowPercentage(int windowPct);
+
+    /**
+     * Gets current size of admission window queue.
+     *
+     * @return Current size of admission window queue.
+     */
+    @GridMBeanDescription("Current size of admission window queue.")
+    public int getCurrentWindowSize();
+
+    /**
+     * Gets current size of main queue.
+     *
+     * @return Current size of main queue.
+     */
+    @GridMBeanDescription("Current size of main queue.")
+    public int getCurrentMainSize();
+
+    /**
+     * Gets number of accesses to entries already tracked by the policy.
+     *
+     * @return Number of accesses to entries already tracked by the policy.
+     */
+    @GridMBeanDescription("Number of accesses to entries already tracked by the policy.")
+    public long getHits();
+
+    /**
+     * Gets number of window candidates admitted to main queue in place of a more rarely used entry.
+     *
+     * @return Number of admitted candidates.
+     */
+    @GridMBeanDescription("Number of window candidates admitted to main queue.")
+    public long getAdmissions();
+
+    /**
+     * Gets number of window candidates evicted because they were used less frequently than
+     * main queue victim.
+     *
+     * @return Number of rejected candidates.
+     */
+    @GridMBeanDescription("Number of window candidates rejected by frequency filter.")
+    public long getRejections();
+
+    /**
+     * Resets hit, admission and rejection counters.
+     */
+    @GridMBeanDescription("Resets hit, admission and rejection counters.")
+    public void resetMetrics();
+}
@@ -74,6 +74,18 @@ public interface GridCacheQueries<K, V> {
      */
     public GridCacheQuery<Map.Entry<K, V>> createScanQuery(@Nullable GridBiPredicate<K, V> filter);
 
+    /**
+     * Creates query which scans named index of given class directly, without SQL parsing and planning.
+     * Index is either group index (see {@link GridCacheQueryGroupIndex#name()}) or index of single field
+     * named {@code fieldName_idx}. Range, direction and limit of scan are passed to
+     * {@link GridCacheQuery#execute(Object...)} as {@link GridCacheQueryIndexRange} argument.
+     *
+     * @param cls Query class.
+     * @param idxName Index name.
+     * @return Created query.
+     */
+    public GridCacheQuery<Map.Entry<K, V>> createIndexQuery(Class<?> cls, String idxName);
+
     /**
      * Creates new continuous query.
      * <p>
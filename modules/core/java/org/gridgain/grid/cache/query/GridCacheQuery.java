@@ -61,6 +61,20 @@ import org.jetbrains.annotations.*;
  * It is possible to write custom Java methods and call then form SQL queries. These methods must be public static
  * and annotated with {@link GridCacheQuerySqlFunction}. Classes containing these methods must be registered in
  * {@link GridH2IndexingSpi#setIndexCustomFunctionClasses(Class[])}.
+ * <h2 class="header">Affinity-Aware Queries</h2>
+ * If {@code where} clause of single-table query requires {@code _key} or affinity field to be equal to
+ * given values (e.g. {@code orgId = ? and salary > ?} or {@code _key in (?, ?)}), query is sent only to
+ * nodes owning partitions of these values. Affinity field is a value field annotated with both
+ * {@link GridCacheQuerySqlField} and {@link GridCacheAffinityKeyMapped}, it must be equal to affinity key
+ * of entry and is used only with default affinity mapper:
+ * <pre name="code" class="java">
+ * public class Person {
+ *     &#64;GridCacheQuerySqlField
+ *     &#64;GridCacheAffinityKeyMapped
+ *     private long orgId; // Equal to affinity key of PersonKey.
+ *     ...
+ * }
+ * </pre>
  * <h1 class="header">Full Text Queries</h1>
  * GridGain supports full text queries based on Apache Lucene engine. This queries are created by
  * {@link GridCacheQueries#createFullTextQuery(Class, String)} method. Note that all fields that
@@ -71,6 +85,11 @@ import org.jetbrains.annotations.*;
  * is relatively small, the full scan query may be used. This query will iterate over all cache
  * entries, skipping over entries that don't pass the optionally provided key-value filter
  * (see {@link GridCacheQueries#createScanQuery(GridBiPredicate)} method).
+ * <h1 class="header">Index Queries</h1>
+ * If entries should be selected by range of values of indexed fields and returned in index order, index
+ * can be scanned directly without SQL parsing and planning. This query is created by
+ * {@link GridCacheQueries#createIndexQuery(Class, String)} method and is executed with
+ * {@link GridCacheQueryIndexRange} argument.
  * <h2 class="header">Limitations</h2>
  * Data in GridGain cache is usually distributed across several nodes,
  * so some queries may not work as expected. Keep in mind following limitations
@@ -48,6 +48,14 @@ public @interface GridCacheQueryGroupIndex {
      */
     boolean unique() default false;
 
+    /**
+     * If this index is hash index. Hash index is used only if all fields of the index
+     * are restricted with equality conditions.
+     *
+     * @return True if this index is hash index, false otherwise.
+     */
+    boolean hash() default false;
+
     /**
      * List of group indexes for type.
      */
@@ -0,0 +1,193 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.cache.query;
+
+import org.gridgain.grid.util.typedef.internal.*;
+import org.jetbrains.annotations.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Range of index query created by {@link GridCacheQueries#createIndexQuery(Class, String)}. Range is passed
+ * to query as the only argument of {@link GridCacheQuery#execute(Object...)} method. If no range is passed,
+ * the whole index is scanned.
+ * <p>
+ * Bounds are given as values of indexed fields in the order of index columns. Bound may contain fewer
+ * values than index has columns, in this case only first columns are compared, so
+ * {@link #prefix(Object...)} can be used to select all entries with given values of first columns of
+ * group index. Bounds follow sort order of index, so for descending columns lower bound is the greater value.
+ * <pre name="code" class="java">
+ * GridCacheQuery&lt;Map.Entry&lt;Long, Order&gt;&gt; qry = cache.queries().createIndexQuery(Order.class,
+ *     "customer_date_idx");
+ *
+ * // Last 10 orders of customer sorted by date.
+ * qry.execute(new GridCacheQueryIndexRange().prefix(customerId).descending(true).limit(10));
+ * </pre>
+ * Note that range, direction and limit are applied separately on each queried node, so results from
+ * several nodes are not merged in index order.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+public class GridCacheQueryIndexRange implements Serializable {
+    /** */
+    private static final long serialVersionUID = 0L;
+
+    /** Lower bound values. */
+    private Object[] lower;
+
+    /** Whether lower bound is inclusive. */
+    private boolean lowerIncl = true;
+
+    /** Upper bound values. */
+    private Object[] upper;
+
+    /** Whether upper bound is inclusive. */
+    private boolean upperIncl = true;
+
+    /** Whether index is scanned in reverse order. */
+    private boolean desc;
+
+    /** Maximum number of returned entries per node. */
+    private int limit;
+
+    /**
+     * Sets lower bound.
+     *
+     * @param incl Whether bound is inclusive.
+     * @param vals Values of first index columns.
+     * @return {@code this} range instance for chaining.
+     */
+    public GridCacheQueryIndexRange lower(boolean incl, Object... vals) {
+        A.notNull(vals, "vals");
+
+        lower = vals;
+        lowerIncl = incl;
+
+        return this;
+    }
+
+    /**
+     * Sets upper bound.
+     *
+     * @param incl Whether bound is inclusive.
+     * @param vals Values of first index columns.
+     * @return {@code this} range instance for chaining.
+     */
+    public GridCacheQueryIndexRange upper(boolean incl, Object... vals) {
+        A.notNull(vals, "vals");
+
+        upper = vals;
+        upperIncl = incl;
+
+        return this;
+    }
+
+    /**
+     * Sets both bounds inclusively to given values, so entries with given values of first index columns
+     * are selected.
+     *
+     * @param vals Values of first index columns.
+     * @return {@code this} range instance for chaining.
+     */
+    public GridCacheQueryIndexRange prefix(Object... vals) {
+        return lower(true, vals).upper(true, vals);
+    }
+
+    /**
+     * Sets whether index is scanned in reverse order. Default is {@code false}.
+     *
+     * @param desc Descending flag.
+     * @return {@code this} range instance for chaining.
+     */
+    public GridCacheQueryIndexRange descending(boolean desc) {
+        this.desc = desc;
+
+        return this;
+    }
+
+    /**
+     * Sets maximum number of entries returned by each queried node, {@code 0} for no limit.
+     * Default is {@code 0}.
+     *
+     * @param limit Limit.
+     * @return {@code this} range instance for chaining.
+     */
+    public GridCacheQueryIndexRange limit(int limit) {
+        A.ensure(limit >= 0, "limit >= 0");
+
+        this.limit = limit;
+
+        return this;
+    }
+
+    /**
+     * @return Lower bound values or {@code null} if range is not bounded from below.
+     */
+    @Nullable public Object[] lower() {
+        return lower;
+    }
+
+    /**
+     * @return Whether lower bound is inclusive.
+     */
+    public boolean lowerInclusive() {
+        return lowerIncl;
+    }
+
+    /**
+     * @return Upper bound values or {@code null} if range is not bounded from above.
+     */
+    @Nullable public Object[] upper() {
+        return upper;
+    }
+
+    /**
+     * @return Whether upper bound is inclusive.
+     */
+    public boolean upperInclusive() {
+        return upperIncl;
+    }
+
+    /**
+     * @return Whether index is scanned in reverse order.
+     */
+    public boolean descending() {
+        return desc;
+    }
+
+    /**
+     * @return Maximum number of entries returned by each queried node, {@code 0} for no limit.
+     */
+    public int limit() {
+        return limit;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return S.toString(GridCacheQueryIndexRange.class, this, "lower", Arrays.toString(lower),
+            "upper", Arrays.toString(upper));
+    }
+}
@@ -62,6 +62,16 @@ public @interface GridCacheQuerySqlField {
      */
     boolean descending() default false;
 
+    /**
+     * Specifies whether index should be hash index instead of sorted one. Hash index is faster
+     * for equality conditions (e.g. {@code where id = ?} or {@code where id in (?, ?)}) but is not
+     * used for range conditions and sorting. This property only makes sense if {@link #index()}
+     * property is set to {@code true}.
+     *
+     * @return {@code True} if field index should be hash index.
+     */
+    boolean hash() default false;
+
     /**
      * Array of index groups this field belongs to. Groups are used for compound indexes,
      * whenever index should be created on more than one field. All fields within the same
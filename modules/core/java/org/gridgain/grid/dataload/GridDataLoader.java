@@ -73,6 +73,12 @@ import static org.gridgain.grid.product.GridProductEdition.*;
  *      Default is defined by {@link #DFLT_MAX_PARALLEL_OPS} value.
  *  </li>
  *  <li>
+ *      {@link #adaptive(boolean)} - if enabled, per-node buffer size and number of parallel
+ *      load operations are used only as initial values and are then adjusted for every node
+ *      separately based on observed load request latency and remote node queue depth.
+ *      Disabled by default.
+ *  </li>
+ *  <li>
  *      {@link #autoFlushFrequency(long)} - automatic flush frequency in milliseconds. Essentially,
  *      this is the time after which the loader will make an attempt to submit all data
  *      added so far to remote nodes. Note that there is no guarantee that data will be
@@ -169,6 +175,37 @@ public interface GridDataLoader<K, V> extends AutoCloseable {
      */
     public void perNodeParallelLoadOperations(int parallelOps);
 
+    /**
+     * Gets flag indicating whether per-node buffer size and number of parallel load operations are
+     * adjusted automatically.
+     *
+     * @return {@code True} if loader is adaptive.
+     */
+    public boolean adaptive();
+
+    /**
+     * Sets flag indicating whether per-node buffer size and number of parallel load operations should
+     * be adjusted automatically. If enabled, values set via {@link #perNodeBufferSize(int)} and
+     * {@link #perNodeParallelLoadOperations(int)} are used as initial values, and then for every node
+     * number of parallel operations is decreased whenever node gets congested (its queue grows or load
+     * latency goes up) and increased otherwise, while buffer size is changed as long as it reduces
+     * load time per entry. Current values can be monitored via {@link #metrics()}.
+     * <p>
+     * This method should be called prior to {@link #addData(Object, Object)} call.
+     * <p>
+     * Adaptive mode is disabled by default.
+     *
+     * @param adaptive {@code True} to enable adaptive mode.
+     */
+    public void adaptive(boolean adaptive);
+
+    /**
+     * Gets snapshot of metrics of this data loader.
+     *
+     * @return Data loader metrics.
+     */
+    public GridDataLoaderMetrics metrics();
+
     /**
      * Gets automatic flush frequency. Essentially, this is the time after which the
      * loader will make an attempt to submit all data added so far to remote nodes.
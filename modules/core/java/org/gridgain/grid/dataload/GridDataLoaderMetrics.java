@@ -0,0 +1,96 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.dataload;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Data loader metrics. Use {@link GridDataLoader#metrics()} to obtain metrics for a data loader.
+ * Returned object is a snapshot of metrics at the moment of the call.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+public interface GridDataLoaderMetrics extends Serializable {
+    /**
+     * Gets create time of the data loader.
+     *
+     * @return Create time.
+     */
+    public long createTime();
+
+    /**
+     * Gets total number of entries which have been successfully loaded by data loader.
+     *
+     * @return Number of loaded entries.
+     */
+    public long loadedEntries();
+
+    /**
+     * Gets total size in bytes of marshalled batches which have been successfully loaded on remote nodes.
+     * Batches loaded on local node are not marshalled and are not included.
+     *
+     * @return Number of loaded bytes.
+     */
+    public long loadedBytes();
+
+    /**
+     * Gets average number of entries loaded per second since data loader has been created.
+     *
+     * @return Entries per second.
+     */
+    public double entriesPerSecond();
+
+    /**
+     * Gets average number of bytes loaded on remote nodes per second since data loader has been created.
+     *
+     * @return Bytes per second.
+     */
+    public double bytesPerSecond();
+
+    /**
+     * Gets number of load requests in flight for every node data loader currently sends data to.
+     *
+     * @return Number of requests in flight per node ID.
+     */
+    public Map<UUID, Integer> inFlightRequests();
+
+    /**
+     * Gets current maximum number of parallel load requests for every node data loader currently sends
+     * data to. Unless loader is {@link GridDataLoader#adaptive() adaptive}, it is equal to
+     * {@link GridDataLoader#perNodeParallelLoadOperations()}.
+     *
+     * @return Maximum number of parallel requests per node ID.
+     */
+    public Map<UUID, Integer> parallelLoadOperations();
+
+    /**
+     * Gets current batch size for every node data loader currently sends data to. Unless loader
+     * is {@link GridDataLoader#adaptive() adaptive}, it is equal to {@link GridDataLoader#perNodeBufferSize()}.
+     *
+     * @return Batch size per node ID.
+     */
+    public Map<UUID, Integer> bufferSizes();
+}
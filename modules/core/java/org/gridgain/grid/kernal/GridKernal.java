@@ -70,6 +70,7 @@ import org.gridgain.grid.lang.*;
 import org.gridgain.grid.logger.*;
 import org.gridgain.grid.logger.log4j.*;
 import org.gridgain.grid.marshaller.optimized.*;
+import org.gridgain.grid.marshaller.portable.*;
 import org.gridgain.grid.product.*;
 import org.gridgain.grid.scheduler.*;
 import org.gridgain.grid.spi.*;
@@ -1872,6 +1873,7 @@ public class GridKernal extends GridProjectionAdapter implements GridEx, GridKer
 
             // Clean internal class/classloader caches to avoid stopped contexts held in memory.
             GridOptimizedMarshaller.clearCache();
+            GridPortableMarshaller.clearCache();
 
             gw.writeLock();
 
@@ -30,6 +30,7 @@ import org.gridgain.grid.util.tostring.*;
 
 import java.io.*;
 import java.nio.*;
+import java.util.*;
 
 /**
  * Wrapper for all grid messages.
@@ -174,6 +175,44 @@ public class GridIoMessage extends GridTcpCommunicationMessageAdapter {
         return msgId > 0;
     }
 
+    /**
+     * Gets ordering key. Ordered messages and messages which do not define their own ordering key
+     * share connection with all messages of the same topic. Other messages, e.g. cache messages of
+     * different futures, are striped by their own key within topic.
+     *
+     * @return Ordering key.
+     */
+    @Override public int orderKey() {
+        int topicKey = topicOrderKey();
+
+        int key = isOrdered() ? 0 : msg.orderKey();
+
+        return key != 0 ? 31 * topicKey + key : topicKey;
+    }
+
+    /**
+     * @return Ordering key of topic.
+     */
+    private int topicOrderKey() {
+        if (topicOrd >= 0) {
+            switch (GridTopic.fromOrdinal(topicOrd)) {
+                // Job requests, cancellations, siblings and checkpoints must not overtake each other.
+                case TOPIC_JOB:
+                case TOPIC_JOB_SIBLINGS:
+                case TOPIC_JOB_CANCEL:
+                case TOPIC_TASK:
+                case TOPIC_TASK_CANCEL:
+                case TOPIC_CHECKPOINT:
+                    return GridTopic.TOPIC_JOB.ordinal();
+
+                default:
+                    return topicOrd;
+            }
+        }
+
+        return topic != null ? topic.hashCode() : Arrays.hashCode(topicBytes);
+    }
+
     /** {@inheritDoc} */
     @Override public boolean equals(Object obj) {
         if (obj == this)
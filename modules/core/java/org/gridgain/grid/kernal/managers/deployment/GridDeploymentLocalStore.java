@@ -28,6 +28,7 @@ import org.gridgain.grid.compute.*;
 import org.gridgain.grid.events.*;
 import org.gridgain.grid.kernal.*;
 import org.gridgain.grid.marshaller.optimized.*;
+import org.gridgain.grid.marshaller.portable.*;
 import org.gridgain.grid.spi.*;
 import org.gridgain.grid.spi.deployment.*;
 import org.gridgain.grid.util.*;
@@ -529,8 +530,9 @@ class GridDeploymentLocalStore extends GridDeploymentStoreAdapter {
                 // Resource cleanup.
                 ctx.resource().onUndeployed(dep);
 
-                // Clear optimized marshaller's cache. If another marshaller is used, this is no-op.
+                // Clear optimized and portable marshaller caches. If another marshaller is used, this is no-op.
                 GridOptimizedMarshaller.onUndeploy(ldr);
+                GridPortableMarshaller.onUndeploy(ldr);
 
                 clearSerializationCaches();
 
@@ -29,6 +29,7 @@ import org.gridgain.grid.kernal.*;
 import org.gridgain.grid.kernal.managers.eventstorage.*;
 import org.gridgain.grid.kernal.processors.timeout.*;
 import org.gridgain.grid.marshaller.optimized.*;
+import org.gridgain.grid.marshaller.portable.*;
 import org.gridgain.grid.spi.deployment.*;
 import org.gridgain.grid.util.*;
 import org.gridgain.grid.util.typedef.*;
@@ -1262,8 +1263,9 @@ public class GridDeploymentPerVersionStore extends GridDeploymentStoreAdapter {
                 ctx.cache().onUndeployed(leftNodeId, ldr);
                 ctx.stream().onUndeployed(leftNodeId, ldr);
 
-                // Clear optimized marshaller's cache. If another marshaller is used, this is no-op.
+                // Clear optimized and portable marshaller caches. If another marshaller is used, this is no-op.
                 GridOptimizedMarshaller.onUndeploy(ldr);
+                GridPortableMarshaller.onUndeploy(ldr);
 
                 clearSerializationCaches();
 
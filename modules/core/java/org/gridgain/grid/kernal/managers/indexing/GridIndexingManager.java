@@ -25,10 +25,12 @@ package org.gridgain.grid.kernal.managers.indexing;
 
 import org.gridgain.grid.*;
 import org.gridgain.grid.cache.*;
+import org.gridgain.grid.cache.affinity.*;
 import org.gridgain.grid.cache.query.*;
 import org.gridgain.grid.kernal.*;
 import org.gridgain.grid.kernal.managers.*;
 import org.gridgain.grid.marshaller.*;
+import org.gridgain.grid.marshaller.portable.*;
 import org.gridgain.grid.spi.*;
 import org.gridgain.grid.spi.indexing.*;
 import org.gridgain.grid.util.*;
@@ -68,6 +70,9 @@ public class GridIndexingManager extends GridManagerAdapter<GridIndexingSpi> {
     /** */
     private final AtomicLong ldrIdGen = new AtomicLong();
 
+    /** Classes of portable types by type name. */
+    private final ConcurrentMap<String, Class<?>> portableClss = new ConcurrentHashMap8<>();
+
     /** */
     private final GridSpinBusyLock busyLock = new GridSpinBusyLock();
 
@@ -283,7 +288,16 @@ public class GridIndexingManager extends GridManagerAdapter<GridIndexingSpi> {
             if (log.isDebugEnabled())
                 log.debug("Storing key to cache query index [key=" + key + ", value=" + val + "]");
 
-            final Class<?> valCls = val.getClass();
+            // Portable values are indexed as objects of their classes, fields are read from bytes.
+            final Class<?> valCls = val instanceof GridPortableObject ?
+                portableClass(((GridPortableObject)val).typeName()) : val.getClass();
+
+            if (valCls == null) {
+                if (log.isDebugEnabled())
+                    log.debug("Skipping indexing of portable value with unknown class: " + val);
+
+                return;
+            }
 
             TypeId id = new TypeId(space, valCls);
 
@@ -343,6 +357,28 @@ public class GridIndexingManager extends GridManagerAdapter<GridIndexingSpi> {
         }
     }
 
+    /**
+     * @param typeName Portable type name.
+     * @return Class or {@code null} if class is not available.
+     */
+    @Nullable private Class<?> portableClass(String typeName) {
+        Class<?> cls = portableClss.get(typeName);
+
+        if (cls == null) {
+            try {
+                cls = U.forName(typeName, U.gridClassLoader());
+            }
+            catch (ClassNotFoundException ignored) {
+                // Misses are not cached, class may become available later.
+                return null;
+            }
+
+            portableClss.put(typeName, cls);
+        }
+
+        return cls;
+    }
+
     /**
      * @param spi SPI Name.
      * @param space Space.
@@ -466,6 +502,42 @@ public class GridIndexingManager extends GridManagerAdapter<GridIndexingSpi> {
         }
     }
 
+    /**
+     * @param spi SPI Name.
+     * @param space Space.
+     * @param idxName Index name.
+     * @param range Index range or {@code null} to scan whole index.
+     * @param resType Result type.
+     * @param includeBackups Include or exclude backup entries.
+     * @param filters Key and value filters.
+     * @param <K> Key type.
+     * @param <V> Value type.
+     * @return Key/value rows in index order.
+     * @throws GridException If failed.
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> GridCloseableIterator<GridIndexingKeyValueRow<K, V>> queryIndex(String spi, String space,
+        String idxName, @Nullable GridCacheQueryIndexRange range, Class<? extends V> resType, boolean includeBackups,
+        GridIndexingQueryFilter<K, V>... filters) throws GridException {
+        if (!busyLock.enterBusy())
+            throw new IllegalStateException("Failed to execute query (grid is stopping).");
+
+        try {
+            TypeDescriptor type = types.get(new TypeId(space, resType));
+
+            if (type == null || !type.registered())
+                return new GridEmptyCloseableIterator<>();
+
+            GridIndexingQueryFilter<K, V> backupFilter = backupsFilter(space, includeBackups);
+
+            return new GridSpiCloseableIteratorWrapper<>(getSpi(spi).queryIndex(space, idxName, range, type,
+                backupFilter != null ? F.concat(filters, backupFilter) : filters));
+        }
+        finally {
+            busyLock.leaveBusy();
+        }
+    }
+
     /**
      * @param <K> Key type.
      * @param <V> Value type.
@@ -569,6 +641,11 @@ public class GridIndexingManager extends GridManagerAdapter<GridIndexingSpi> {
                         it.remove();
                     }
                 }
+
+                for (Iterator<Class<?>> clsIt = portableClss.values().iterator(); clsIt.hasNext();) {
+                    if (ldr.equals(U.detectClassLoader(clsIt.next())))
+                        clsIt.remove();
+                }
             }
             finally {
                 Long id = idByLdr.remove(ldr);
@@ -608,13 +685,13 @@ public class GridIndexingManager extends GridManagerAdapter<GridIndexingSpi> {
             GridCacheQueryGroupIndex grpIdx = cls.getAnnotation(GridCacheQueryGroupIndex.class);
 
             if (grpIdx != null)
-                type.addIndex(grpIdx.name(), grpIdx.unique());
+                type.addIndex(grpIdx.name(), grpIdx.unique(), grpIdx.hash());
 
             GridCacheQueryGroupIndex.List grpIdxList = cls.getAnnotation(GridCacheQueryGroupIndex.List.class);
 
             if (grpIdxList != null && !F.isEmpty(grpIdxList.value())) {
                 for (GridCacheQueryGroupIndex idx : grpIdxList.value())
-                    type.addIndex(idx.name(), idx.unique());
+                    type.addIndex(idx.name(), idx.unique(), idx.hash());
             }
         }
 
@@ -631,6 +708,10 @@ public class GridIndexingManager extends GridManagerAdapter<GridIndexingSpi> {
                     processAnnotation(key, sqlAnn, txtAnn, field.getType(), prop, type);
 
                     type.addProperty(key, prop);
+
+                    if (!key && parent == null && sqlAnn != null &&
+                        field.isAnnotationPresent(GridCacheAffinityKeyMapped.class))
+                        type.affinityField(prop.name());
                 }
             }
 
@@ -650,6 +731,10 @@ public class GridIndexingManager extends GridManagerAdapter<GridIndexingSpi> {
                     processAnnotation(key, sqlAnn, txtAnn, mtd.getReturnType(), prop, type);
 
                     type.addProperty(key, prop);
+
+                    if (!key && parent == null && sqlAnn != null &&
+                        mtd.isAnnotationPresent(GridCacheAffinityKeyMapped.class))
+                        type.affinityField(prop.name());
                 }
             }
         }
@@ -677,7 +762,7 @@ public class GridIndexingManager extends GridManagerAdapter<GridIndexingSpi> {
             if (sqlAnn.index() || sqlAnn.unique()) {
                 String idxName = prop.name() + "_idx";
 
-                desc.addIndex(idxName, sqlAnn.unique());
+                desc.addIndex(idxName, sqlAnn.unique(), sqlAnn.hash());
 
                 desc.addFieldToIndex(idxName, prop.name(), 0, sqlAnn.descending());
             }
@@ -717,6 +802,46 @@ public class GridIndexingManager extends GridManagerAdapter<GridIndexingSpi> {
         return spaceTypes;
     }
 
+    /**
+     * Gets registered type by value class.
+     *
+     * @param space Space name.
+     * @param valCls Value class.
+     * @return Descriptor or {@code null} if type is not registered on this node.
+     */
+    @Nullable public GridIndexingTypeDescriptor type(@Nullable String space, Class<?> valCls) {
+        TypeDescriptor desc = types.get(new TypeId(space, valCls));
+
+        return desc != null && desc.registered() ? desc : null;
+    }
+
+    /**
+     * Gets registered type by name ignoring case.
+     *
+     * @param space Space name.
+     * @param typeName Type name.
+     * @return Descriptor or {@code null} if type is not registered on this node.
+     */
+    @Nullable public GridIndexingTypeDescriptor type(@Nullable String space, String typeName) {
+        for (GridIndexingTypeDescriptor desc : types(space)) {
+            if (desc.name().equalsIgnoreCase(typeName))
+                return desc;
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets name of value field annotated with both {@link GridCacheQuerySqlField} and
+     * {@link GridCacheAffinityKeyMapped}. Such field is expected to hold affinity key of entry.
+     *
+     * @param type Type descriptor returned by this manager.
+     * @return Field name or {@code null} if type has no such field.
+     */
+    @Nullable public String affinityField(GridIndexingTypeDescriptor type) {
+        return ((TypeDescriptor)type).affField;
+    }
+
     /**
      * Description of type property.
      */
@@ -757,6 +882,16 @@ public class GridIndexingManager extends GridManagerAdapter<GridIndexingSpi> {
                 return null;
 
             try {
+                if (x instanceof GridPortableObject) {
+                    GridPortableObject po = (GridPortableObject)x;
+
+                    // Read field directly from bytes, getters require deserialized object.
+                    if (member instanceof Field)
+                        return po.field(member.getName());
+
+                    x = po.deserialize(member.getDeclaringClass().getClassLoader());
+                }
+
                 if (member instanceof Field) {
                     Field field = (Field)member;
 
@@ -854,6 +989,9 @@ public class GridIndexingManager extends GridManagerAdapter<GridIndexingSpi> {
         /** */
         private boolean valTextIdx;
 
+        /** Name of value field holding affinity key. */
+        private String affField;
+
         /** To ensure that type was registered in SPI and only once. */
         private final GridAtomicInitializer<Void> initializer = new GridAtomicInitializer<>();
 
@@ -948,7 +1086,20 @@ public class GridIndexingManager extends GridManagerAdapter<GridIndexingSpi> {
          * @throws GridException In case of error.
          */
         public IndexDescriptor addIndex(String idxName, boolean unique) throws GridException {
-            IndexDescriptor idx = new IndexDescriptor(unique, false);
+            return addIndex(idxName, unique, false);
+        }
+
+        /**
+         * Adds index.
+         *
+         * @param idxName Index name.
+         * @param unique Unique index.
+         * @param hash Hash index.
+         * @return Index descriptor.
+         * @throws GridException In case of error.
+         */
+        public IndexDescriptor addIndex(String idxName, boolean unique, boolean hash) throws GridException {
+            IndexDescriptor idx = new IndexDescriptor(unique, hash, false);
 
             if (indexes.put(idxName, idx) != null)
                 throw new GridException("Index with name '" + idxName + "' already exists.");
@@ -982,7 +1133,7 @@ public class GridIndexingManager extends GridManagerAdapter<GridIndexingSpi> {
          */
         public void addFieldToTextIndex(String field) {
             if (fullTextIdx == null) {
-                fullTextIdx = new IndexDescriptor(false, true);
+                fullTextIdx = new IndexDescriptor(false, false, true);
 
                 indexes.put(null, fullTextIdx);
             }
@@ -1037,6 +1188,20 @@ public class GridIndexingManager extends GridManagerAdapter<GridIndexingSpi> {
                 valFields.put(name, prop.type());
         }
 
+        /**
+         * Sets name of value field holding affinity key.
+         *
+         * @param affField Field name.
+         * @throws GridException If affinity field is already set.
+         */
+        void affinityField(String affField) throws GridException {
+            if (this.affField != null)
+                throw new GridException("Only one query field can be annotated with @GridCacheAffinityKeyMapped " +
+                    "[type=" + name + ", fields=" + this.affField + ", " + affField + ']');
+
+            this.affField = affField;
+        }
+
         /** {@inheritDoc} */
         @Override public boolean valueTextIndex() {
             return valTextIdx;
@@ -1075,15 +1240,20 @@ public class GridIndexingManager extends GridManagerAdapter<GridIndexingSpi> {
         /** */
         private final boolean unique;
 
+        /** */
+        private final boolean hash;
+
         /** */
         private final boolean text;
 
         /**
          * @param unique Unique index.
+         * @param hash Hash index.
          * @param text Text index.
          */
-        private IndexDescriptor(boolean unique, boolean text) {
+        private IndexDescriptor(boolean unique, boolean hash, boolean text) {
             this.unique = unique;
+            this.hash = hash;
             this.text = text;
         }
 
@@ -1125,6 +1295,11 @@ public class GridIndexingManager extends GridManagerAdapter<GridIndexingSpi> {
             return unique;
         }
 
+        /** {@inheritDoc} */
+        @Override public boolean hash() {
+            return hash;
+        }
+
         /** {@inheritDoc} */
         @Override public boolean text() {
             return text;
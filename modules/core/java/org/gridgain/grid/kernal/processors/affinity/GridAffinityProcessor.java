@@ -186,6 +186,37 @@ public class GridAffinityProcessor extends GridProcessorAdapter {
         return map != null ? F.first(map.keySet()) : null;
     }
 
+    /**
+     * Maps single key to its primary and backup nodes. Primary node goes first.
+     *
+     * @param cacheName Cache name.
+     * @param key Key to map.
+     * @return Primary and backup nodes, empty collection if there are no nodes with cache.
+     * @throws GridException If failed.
+     */
+    public <K> Collection<GridNode> mapKeyToPrimaryAndBackups(@Nullable String cacheName, K key)
+        throws GridException {
+        GridNode loc = ctx.discovery().localNode();
+
+        if (U.hasCache(loc, cacheName) && ctx.cache().cache(cacheName).configuration().getCacheMode() == LOCAL)
+            return Collections.singletonList(loc);
+
+        GridAffinityCache affCache = affinityCache(cacheName);
+
+        if (affCache == null)
+            return Collections.emptyList();
+
+        try {
+            Collection<GridNode> nodes = affCache.nodes(affCache.partition(key), ctx.discovery().topologyVersion());
+
+            return nodes != null ? nodes : Collections.<GridNode>emptyList();
+        }
+        catch (GridRuntimeException e) {
+            // Affinity calculation may lead to GridRuntimeException if no cache nodes found for pair cacheName+topVer.
+            throw new GridException("Failed to get affinity nodes for key: " + key, e);
+        }
+    }
+
     /**
      * Gets affinity key for cache key.
      *
@@ -62,6 +62,7 @@ import java.util.concurrent.locks.*;
 import static java.util.Collections.*;
 import static org.gridgain.grid.kernal.GridClosureCallMode.*;
 import static org.gridgain.grid.cache.GridCacheFlag.*;
+import static org.gridgain.grid.cache.GridCacheMemoryMode.*;
 import static org.gridgain.grid.cache.GridCachePeekMode.*;
 import static org.gridgain.grid.cache.GridCacheTxConcurrency.*;
 import static org.gridgain.grid.cache.GridCacheTxIsolation.*;
@@ -861,6 +862,49 @@ public abstract class GridCacheAdapter<K, V> extends GridMetadataAwareAdapter im
         return e != null ? F.t(e.value()) : null;
     }
 
+    /**
+     * Reads value directly from off-heap memory without creating cache entry on-heap. Direct
+     * read is possible only if it is enabled by {@link GridCacheConfiguration#isOffHeapDirectReadEnabled()},
+     * cache memory mode is {@link GridCacheMemoryMode#OFFHEAP_TIERED} and entry is not present on-heap.
+     * <p>
+     * Callers must use regular entry-based read path if this method returns {@code null}.
+     *
+     * @param key Key to read.
+     * @return Value or {@code null} if direct read is not possible or entry is not in off-heap memory.
+     * @throws GridException In case of any errors.
+     */
+    @Nullable public V readOffHeapDirect(K key) throws GridException {
+        if (!ctx.config().isOffHeapDirectReadEnabled() || ctx.config().getMemoryMode() != OFFHEAP_TIERED ||
+            !ctx.isOffHeapEnabled())
+            return null;
+
+        // If entry is on-heap, it must be used for read.
+        if (peekEx(key) != null)
+            return null;
+
+        GridCacheSwapEntry<V> e = ctx.swap().read(key);
+
+        if (e == null)
+            return null;
+
+        // Let regular path handle expiration.
+        if (e.expireTime() > 0 && e.expireTime() <= U.currentTimeMillis())
+            return null;
+
+        V val = e.value();
+
+        if (val == null)
+            return null;
+
+        metrics.onOffHeapDirectRead();
+
+        if (ctx.events().isRecordable(EVT_CACHE_OBJECT_READ))
+            ctx.events().addEvent(ctx.affinity().partition(key), key, ctx.nodeId(), (GridUuid)null, null,
+                EVT_CACHE_OBJECT_READ, val, true, val, true);
+
+        return val;
+    }
+
     /**
      * @param key Key to read from persistent store.
      * @return Value from persistent store.
@@ -1694,6 +1738,16 @@ public abstract class GridCacheAdapter<K, V> extends GridMetadataAwareAdapter im
                     if (key == null)
                         continue;
 
+                    if (tx == null && cached == null && F.isEmpty(filter)) {
+                        V val = readOffHeapDirect(key);
+
+                        if (val != null) {
+                            map.put(key, ctx.cloneOnFlag(val));
+
+                            continue;
+                        }
+                    }
+
                     while (true) {
                         GridCacheEntryEx<K, V> entry;
 
@@ -2911,7 +2965,11 @@ public abstract class GridCacheAdapter<K, V> extends GridMetadataAwareAdapter im
 
     /** {@inheritDoc} */
     @Override public GridCacheMetrics metrics() {
-        return GridCacheMetricsAdapter.copyOf(metrics);
+        GridCacheMetricsAdapter m = GridCacheMetricsAdapter.copyOf(metrics);
+
+        m.evictionMemorySize(ctx.evicts().policyMemorySize(), ctx.evicts().policyMaxMemorySize());
+
+        return m;
     }
 
     /**
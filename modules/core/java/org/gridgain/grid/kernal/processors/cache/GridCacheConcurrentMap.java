@@ -27,6 +27,7 @@ import org.gridgain.grid.*;
 import org.gridgain.grid.cache.*;
 import org.gridgain.grid.lang.*;
 import org.gridgain.grid.logger.*;
+import org.gridgain.grid.marshaller.portable.*;
 import org.gridgain.grid.util.*;
 import org.gridgain.grid.util.lang.*;
 import org.gridgain.grid.util.typedef.*;
@@ -476,6 +477,8 @@ public class GridCacheConcurrentMap<K, V> {
 
         checkWeakQueue();
 
+        key = normalize(key);
+
         int hash = hash(key.hashCode());
 
         return segmentFor(hash).put(key, hash, val, topVer, ttl);
@@ -496,11 +499,36 @@ public class GridCacheConcurrentMap<K, V> {
 
         checkWeakQueue();
 
+        key = normalize(key);
+
         int hash = hash(key.hashCode());
 
         return segmentFor(hash).putIfObsolete(key, hash, val, topVer, ttl, create);
     }
 
+    /**
+     * Replaces key received in portable form with instance of its class, so that it is equal
+     * to the same key created locally. Lookups with portable keys find such entries since
+     * {@link GridPortableObject#equals(Object)} compares with deserialized form. If class is
+     * not available, key is stored in portable form.
+     *
+     * @param key Key.
+     * @return Key to store in map.
+     */
+    @SuppressWarnings("unchecked")
+    private K normalize(K key) {
+        if (key instanceof GridPortableObject) {
+            try {
+                return ((GridPortableObject)key).deserialize(ctx.deploy().globalLoader());
+            }
+            catch (GridException ignored) {
+                // Class is not available, keep portable form.
+            }
+        }
+
+        return key;
+    }
+
     /**
      * Copies all of the mappings from the specified map to this map
      * These mappings will replace any mappings that
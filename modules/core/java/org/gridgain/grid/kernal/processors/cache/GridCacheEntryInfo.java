@@ -25,7 +25,6 @@ package org.gridgain.grid.kernal.processors.cache;
 
 import org.gridgain.grid.*;
 import org.gridgain.grid.kernal.*;
-import org.gridgain.grid.marshaller.*;
 import org.gridgain.grid.util.typedef.internal.*;
 import org.gridgain.grid.util.tostring.*;
 
@@ -238,13 +237,11 @@ public class GridCacheEntryInfo<K, V> implements Externalizable {
      * @throws GridException If unmarshalling failed.
      */
     public void unmarshal(GridCacheContext<K, V> ctx, ClassLoader clsLdr) throws GridException {
-        GridMarshaller mrsh = ctx.marshaller();
-
         if (key == null)
-            key = mrsh.unmarshal(keyBytes, clsLdr);
+            key = CU.unmarshal(ctx, keyBytes, clsLdr);
 
         if (ctx.isUnmarshalValues() && val == null && valBytes != null)
-            val = mrsh.unmarshal(valBytes, clsLdr);
+            val = CU.unmarshal(ctx, valBytes, clsLdr);
     }
 
     /** {@inheritDoc} */
@@ -341,6 +341,24 @@ public class GridCacheEvictionManager<K, V> extends GridCacheManagerAdapter<K, V
         return bufEvictQ.sizex();
     }
 
+    /**
+     * @return Current memory size of entries tracked by eviction policy in bytes or {@code -1}
+     *      if eviction policy does not track memory size.
+     */
+    public long policyMemorySize() {
+        return plcEnabled && plc instanceof GridCacheMemoryBoundedEvictionPolicy ?
+            ((GridCacheMemoryBoundedEvictionPolicy)plc).getCurrentMemorySize() : -1;
+    }
+
+    /**
+     * @return Maximum memory size allowed by eviction policy in bytes or {@code -1}
+     *      if eviction policy does not track memory size.
+     */
+    public long policyMaxMemorySize() {
+        return plcEnabled && plc instanceof GridCacheMemoryBoundedEvictionPolicy ?
+            ((GridCacheMemoryBoundedEvictionPolicy)plc).getMaxMemorySize() : -1;
+    }
+
     /**
      * @param nodeId Sender node ID.
      * @param res Response.
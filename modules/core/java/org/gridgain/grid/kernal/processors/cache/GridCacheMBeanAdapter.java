@@ -214,6 +214,21 @@ class GridCacheMBeanAdapter implements GridCacheMBean {
         return store != null ? store.getWriteBehindBufferSize() : -1;
     }
 
+    /** {@inheritDoc} */
+    @Override public long getWriteBehindMedianWriteLag() {
+        return store != null ? store.getWriteBehindWriteLagPercentile(0.5) : -1;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getWriteBehindWriteLag99() {
+        return store != null ? store.getWriteBehindWriteLagPercentile(0.99) : -1;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getWriteBehindMaxWriteLag() {
+        return store != null ? store.getWriteBehindMaxWriteLag() : -1;
+    }
+
     /** {@inheritDoc} */
     @Override public int getContinuousQueryQueueSize() {
         return cctx.continuousQueries().currentQueueSize();
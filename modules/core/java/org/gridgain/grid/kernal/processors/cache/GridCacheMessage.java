@@ -28,7 +28,6 @@ import org.gridgain.grid.cache.*;
 import org.gridgain.grid.kernal.*;
 import org.gridgain.grid.kernal.managers.deployment.*;
 import org.gridgain.grid.lang.*;
-import org.gridgain.grid.marshaller.*;
 import org.gridgain.grid.util.direct.*;
 import org.gridgain.grid.util.tostring.*;
 import org.gridgain.grid.util.typedef.internal.*;
@@ -385,11 +384,9 @@ public abstract class GridCacheMessage<K, V> extends GridTcpCommunicationMessage
 
         GridPredicate<GridCacheEntry<K, V>>[] filter = new GridPredicate[byteCol.length];
 
-        GridMarshaller marsh = ctx.marshaller();
-
         for (int i = 0; i < byteCol.length; i++)
             filter[i] = byteCol[i] == null ? null :
-                marsh.<GridPredicate<GridCacheEntry<K, V>>>unmarshal(byteCol[i], ldr);
+                CU.<GridPredicate<GridCacheEntry<K, V>>>unmarshal(ctx, byteCol[i], ldr);
 
         return filter;
     }
@@ -438,12 +435,10 @@ public abstract class GridCacheMessage<K, V> extends GridTcpCommunicationMessage
 
         List<T> col = new ArrayList<>(byteCol.size());
 
-        GridMarshaller marsh = ctx.marshaller();
-
         for (GridCacheValueBytes item : byteCol) {
             assert item == null || item.get() != null;
 
-            col.add(item != null ? item.isPlain() ? (T)item.get() : marsh.<T>unmarshal(item.get(), ldr) : null);
+            col.add(item != null ? item.isPlain() ? (T)item.get() : CU.<T>unmarshal(ctx, item.get(), ldr) : null);
         }
 
         return col;
@@ -491,10 +486,8 @@ public abstract class GridCacheMessage<K, V> extends GridTcpCommunicationMessage
 
         List<T> col = new ArrayList<>(byteCol.size());
 
-        GridMarshaller marsh = ctx.marshaller();
-
         for (byte[] bytes : byteCol)
-            col.add(bytes == null ? null : marsh.<T>unmarshal(bytes, ldr));
+            col.add(bytes == null ? null : CU.<T>unmarshal(ctx, bytes, ldr));
 
         return col;
     }
@@ -542,10 +535,8 @@ public abstract class GridCacheMessage<K, V> extends GridTcpCommunicationMessage
 
         LinkedHashMap<K1, Boolean> map = new LinkedHashMap<>(byteMap.size());
 
-        GridMarshaller marsh = ctx.marshaller();
-
         for (Map.Entry<byte[], Boolean> e : byteMap.entrySet())
-            map.put(marsh.<K1>unmarshal(e.getKey(), ldr), e.getValue());
+            map.put(CU.<K1>unmarshal(ctx, e.getKey(), ldr), e.getValue());
 
         return map;
     }
@@ -72,6 +72,18 @@ public class GridCacheMetricsAdapter implements GridCacheMetrics, Externalizable
     /** Number of transaction rollbacks. */
     private volatile int txRollbacks;
 
+    /** Number of reads served directly from off-heap memory. */
+    private volatile int offHeapDirectReads;
+
+    /** Number of entries promoted from off-heap memory to on-heap memory. */
+    private volatile int offHeapPromotions;
+
+    /** Memory size tracked by eviction policy. */
+    private long evictMemSize = -1;
+
+    /** Maximum memory size allowed by eviction policy. */
+    private long evictMaxMemSize = -1;
+
     /** DR send data node metrics. */
     private GridCacheDrSenderMetricsAdapter drSndMetrics;
 
@@ -118,6 +130,10 @@ public class GridCacheMetricsAdapter implements GridCacheMetrics, Externalizable
         misses = m.misses();
         txCommits = m.txCommits();
         txRollbacks = m.txRollbacks();
+        offHeapDirectReads = m.offHeapDirectReads();
+        offHeapPromotions = m.offHeapPromotions();
+        evictMemSize = m.evictionMemorySize();
+        evictMaxMemSize = m.evictionMaxMemorySize();
         drSndMetrics = (GridCacheDrSenderMetricsAdapter)m.drSendMetrics();
         drRcvMetrics = (GridCacheDrReceiverMetricsAdapter)m.drReceiveMetrics();
     }
@@ -184,6 +200,38 @@ public class GridCacheMetricsAdapter implements GridCacheMetrics, Externalizable
         return txRollbacks;
     }
 
+    /** {@inheritDoc} */
+    @Override public int offHeapDirectReads() {
+        return offHeapDirectReads;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int offHeapPromotions() {
+        return offHeapPromotions;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long evictionMemorySize() {
+        return evictMemSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long evictionMaxMemorySize() {
+        return evictMaxMemSize;
+    }
+
+    /**
+     * Sets memory sizes tracked by eviction policy. These are gauges rather than
+     * counters, so they are only set on metrics snapshots.
+     *
+     * @param evictMemSize Memory size tracked by eviction policy.
+     * @param evictMaxMemSize Maximum memory size allowed by eviction policy.
+     */
+    public void evictionMemorySize(long evictMemSize, long evictMaxMemSize) {
+        this.evictMemSize = evictMemSize;
+        this.evictMaxMemSize = evictMaxMemSize;
+    }
+
     /** {@inheritDoc} */
     @Nullable @Override public GridDrSenderCacheMetrics drSendMetrics() {
         return drSndMetrics;
@@ -224,6 +272,30 @@ public class GridCacheMetricsAdapter implements GridCacheMetrics, Externalizable
             delegate.onWrite();
     }
 
+    /**
+     * Off-heap direct read callback.
+     */
+    public void onOffHeapDirectRead() {
+        readTime = U.currentTimeMillis();
+
+        reads++;
+        hits++;
+        offHeapDirectReads++;
+
+        if (delegate != null)
+            delegate.onOffHeapDirectRead();
+    }
+
+    /**
+     * Off-heap promotion callback.
+     */
+    public void onOffHeapPromotion() {
+        offHeapPromotions++;
+
+        if (delegate != null)
+            delegate.onOffHeapPromotion();
+    }
+
     /**
      * Transaction commit callback.
      */
@@ -360,6 +432,9 @@ public class GridCacheMetricsAdapter implements GridCacheMetrics, Externalizable
         out.writeInt(misses);
         out.writeInt(txCommits);
         out.writeInt(txRollbacks);
+
+        // Off-heap and eviction memory metrics are local to node and are not written,
+        // so that serialized form stays compatible with nodes of previous versions.
     }
 
     /** {@inheritDoc} */
@@ -415,6 +415,16 @@ public class GridCacheProcessor extends GridProcessorAdapter {
                 throw new IllegalStateException("Unknown memory mode: " + cc.getMemoryMode());
         }
 
+        if (cc.getOffHeapSlabSize() < 0)
+            throw new GridException("Off-heap slab size cannot be negative (fix configuration and restart grid) " +
+                "[cacheName=" + cc.getName() + ", offHeapSlabSize=" + cc.getOffHeapSlabSize() + ']');
+
+        if (cc.getOffHeapMaxMemory() > 0 && cc.getOffHeapSlabSize() > cc.getOffHeapMaxMemory())
+            throw new GridException("Off-heap slab size cannot be greater than off-heap max memory " +
+                "(fix configuration and restart grid) [cacheName=" + cc.getName() +
+                ", offHeapSlabSize=" + cc.getOffHeapSlabSize() +
+                ", offHeapMaxMemory=" + cc.getOffHeapMaxMemory() + ']');
+
         if (cc.getMemoryMode() == GridCacheMemoryMode.OFFHEAP_VALUES) {
             if (cc.isQueryIndexEnabled())
                 throw new GridException("Cannot have query indexing enabled while values are stored off-heap. " +
@@ -132,7 +132,7 @@ public class GridCacheSwapManager<K, V> extends GridCacheManagerAdapter<K, V> {
             }
         };
 
-        offheap.create(spaceName, parts, init, max, lsnr);
+        offheap.create(spaceName, parts, init, max, cctx.config().getOffHeapSlabSize(), lsnr);
     }
 
     /**
@@ -477,6 +477,8 @@ public class GridCacheSwapManager<K, V> extends GridCacheManagerAdapter<K, V> {
                 onOffHeaped(part, key, keyBytes, entry.value(),
                     entry.valueBytes(), entry.version(), entry.ttl(), entry.expireTime());
 
+                cctx.cache().metrics0().onOffHeapPromotion();
+
                 if (cctx.events().isRecordable(EVT_CACHE_OBJECT_FROM_OFFHEAP))
                     cctx.events().addEvent(part, key, cctx.nodeId(), (GridUuid)null, null,
                         EVT_CACHE_OBJECT_FROM_OFFHEAP, null, false, null, true);
@@ -621,6 +623,8 @@ public class GridCacheSwapManager<K, V> extends GridCacheManagerAdapter<K, V> {
                     onOffHeaped(part, key, keyBytes, entry.value(),
                         entry.valueBytes(), entry.version(), entry.ttl(), entry.expireTime());
 
+                    cctx.cache().metrics0().onOffHeapPromotion();
+
                     if (cctx.events().isRecordable(EVT_CACHE_OBJECT_FROM_OFFHEAP))
                         cctx.events().addEvent(part, key, cctx.nodeId(), (GridUuid)null, null,
                             EVT_CACHE_OBJECT_FROM_OFFHEAP, null, false, null, true);
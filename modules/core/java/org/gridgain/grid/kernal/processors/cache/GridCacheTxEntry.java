@@ -717,14 +717,14 @@ public class GridCacheTxEntry<K, V> implements GridPeerDeployAware, Externalizab
         if (depEnabled) {
             // Don't unmarshal more than once by checking key for null.
             if (key == null)
-                key = ctx.marshaller().unmarshal(keyBytes, clsLdr);
+                key = CU.unmarshal(ctx, keyBytes, clsLdr);
 
             // Unmarshal transform closure anyway if it exists.
             if (transformClosBytes != null && transformClosCol == null)
-                transformClosCol = ctx.marshaller().unmarshal(transformClosBytes, clsLdr);
+                transformClosCol = CU.unmarshal(ctx, transformClosBytes, clsLdr);
 
             if (filters == null && filterBytes != null) {
-                filters = ctx.marshaller().unmarshal(filterBytes, clsLdr);
+                filters = CU.unmarshal(ctx, filterBytes, clsLdr);
 
                 if (filters == null)
                     filters = CU.empty();
@@ -962,7 +962,7 @@ public class GridCacheTxEntry<K, V> implements GridPeerDeployAware, Externalizab
          */
         public void unmarshal(GridCacheContext<K, V> ctx, ClassLoader ldr, boolean depEnabled) throws GridException {
             if (valBytes != null && val == null && (ctx.isUnmarshalValues() || op == TRANSFORM || depEnabled))
-                val = ctx.marshaller().unmarshal(valBytes, ldr);
+                val = CU.unmarshal(ctx, valBytes, ldr);
         }
 
         /**
@@ -31,6 +31,7 @@ import org.gridgain.grid.kernal.processors.cache.distributed.*;
 import org.gridgain.grid.kernal.processors.cache.distributed.dht.*;
 import org.gridgain.grid.lang.*;
 import org.gridgain.grid.logger.*;
+import org.gridgain.grid.marshaller.*;
 import org.gridgain.grid.util.*;
 import org.gridgain.grid.util.lang.*;
 import org.gridgain.grid.util.typedef.*;
@@ -38,6 +39,7 @@ import org.gridgain.grid.util.typedef.internal.*;
 import org.jetbrains.annotations.*;
 
 import java.io.*;
+import java.nio.*;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
@@ -1130,6 +1132,24 @@ public class GridCacheUtils {
         return ctx.marshaller().marshal(obj);
     }
 
+    /**
+     * Unmarshals bytes received from remote node with {@link GridMarshaller#unmarshal(ByteBuffer, ClassLoader)},
+     * so that marshaller reads them in place.
+     *
+     * @param ctx Cache context.
+     * @param bytes Bytes to unmarshal.
+     * @param ldr Class loader.
+     * @return Unmarshalled object.
+     * @throws GridException If unmarshalling failed.
+     */
+    @Nullable public static <T> T unmarshal(GridCacheContext ctx, byte[] bytes, @Nullable ClassLoader ldr)
+        throws GridException {
+        assert ctx != null;
+        assert bytes != null;
+
+        return ctx.marshaller().unmarshal(ByteBuffer.wrap(bytes), ldr);
+    }
+
     /**
      * Method executes any Callable out of scope of transaction.
      * If transaction started by this thread {@code cmd} will be executed in another thread.
@@ -56,6 +56,13 @@ import java.util.concurrent.locks.*;
  * <p/>
  * Since write operations to the cache store are deferred, transaction support is lost; no
  * transaction objects are passed to the underlying store.
+ * <p/>
+ * Flushers pass keys of each batch to the underlying store in ascending order if keys are
+ * {@link Comparable}, which improves locality of database updates.
+ * <p/>
+ * Write buffer is bounded by critical size. When buffer grows beyond it, updating threads wait for
+ * flushers to catch up for at most {@link #BACKPRESSURE_TIMEOUT} milliseconds, and flush values
+ * synchronously only if flushers could not free enough space in time (e.g. store is unavailable).
  *
  * @author @java.author
  * @version @java.version
@@ -70,6 +77,9 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
     /** Default concurrency level of write cache. */
     public static final int DFLT_CONCUR_LVL = 64;
 
+    /** Maximum time in milliseconds updating thread waits for free space in write cache. */
+    public static final long BACKPRESSURE_TIMEOUT = 100;
+
     /** Write cache initial capacity. */
     private int initCap = DFLT_INITIAL_CAPACITY;
 
@@ -115,6 +125,15 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
     /** Condition to determine records available for flush. */
     private Condition canFlush = flushLock.newCondition();
 
+    /** Condition to determine that write cache size dropped below critical size. */
+    private Condition canWrite = flushLock.newCondition();
+
+    /** Number of threads waiting on {@link #canWrite}. */
+    private AtomicInteger writeWaitersCnt = new AtomicInteger();
+
+    /** Write lag histogram. */
+    private final LagHistogram lagHist = new LagHistogram();
+
     /** Variable for counting total cache overflows. */
     private AtomicInteger cacheTotalOverflowCntr = new AtomicInteger();
 
@@ -324,6 +343,30 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
         return retryEntriesCnt.get();
     }
 
+    /**
+     * Gets estimated write lag percentile. Write lag is time between the first update of a key
+     * which has not been flushed yet and the moment update is written to the underlying store.
+     * Percentiles are calculated over all values flushed since start and are accurate to the
+     * nearest power of two.
+     *
+     * @param percentile Percentile, must be between {@code 0} and {@code 1}.
+     * @return Write lag in milliseconds, {@code 0} if nothing has been flushed yet.
+     */
+    public long getWriteBehindWriteLagPercentile(double percentile) {
+        A.ensure(percentile >= 0 && percentile <= 1, "percentile >= 0 && percentile <= 1");
+
+        return lagHist.percentile(percentile);
+    }
+
+    /**
+     * Gets maximum write lag observed since start.
+     *
+     * @return Maximum write lag in milliseconds.
+     */
+    public long getWriteBehindMaxWriteLag() {
+        return lagHist.max();
+    }
+
     /**
      * Performs shutdown logic for store. No put, get and remove requests will be processed after
      * this method is called.
@@ -385,26 +428,27 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
             StatefulValue<V> val = writeCache.get(key);
 
             if (val != null) {
-                val.readLock().lock();
+                StoreOperation op;
+                V v;
 
-                try {
-                    switch (val.operation()) {
-                        case PUT:
-                            c.apply(key, val.value());
+                synchronized (val) {
+                    op = val.operation();
+                    v = val.value();
+                }
 
-                            break;
+                switch (op) {
+                    case PUT:
+                        c.apply(key, v);
 
-                        case RMV:
-                            c.apply(key, null);
+                        break;
 
-                            break;
+                    case RMV:
+                        c.apply(key, null);
 
-                        default:
-                            assert false : "Unexpected operation: " + val.status();
-                    }
-                }
-                finally {
-                    val.readLock().unlock();
+                        break;
+
+                    default:
+                        assert false : "Unexpected operation: " + op;
                 }
             }
             else
@@ -424,9 +468,7 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
         StatefulValue<V> val = writeCache.get(key);
 
         if (val != null) {
-            val.readLock().lock();
-
-            try {
+            synchronized (val) {
                 switch (val.operation()) {
                     case PUT:
                         return val.value();
@@ -438,9 +480,6 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
                         assert false : "Unexpected operation: " + val.status();
                 }
             }
-            finally {
-                val.readLock().unlock();
-            }
         }
 
         return store.load(null, key);
@@ -500,9 +539,7 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
         StatefulValue<V> prev;
 
         while ((prev = writeCache.putIfAbsent(key, newVal)) != null) {
-            prev.writeLock().lock();
-
-            try {
+            synchronized (prev) {
                 if (prev.status() == ValueStatus.PENDING) {
                     // Flush process in progress, try again.
                     prev.waitForFlush();
@@ -522,19 +559,72 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
 
                 break;
             }
-            finally {
-                prev.writeLock().unlock();
-            }
         }
 
         // Now check the map size
-        if (writeCache.sizex() > cacheCriticalSize)
-            // Perform single store update in the same thread.
-            flushSingleValue();
+        if (writeCache.sizex() > cacheCriticalSize) {
+            // Give flushers a chance to free space, perform single store update in the same thread if they fail to.
+            if (!awaitCapacity())
+                flushSingleValue();
+        }
         else if (cacheMaxSize > 0 && writeCache.sizex() > cacheMaxSize)
             wakeUp();
     }
 
+    /**
+     * Wakes up flushers and waits until write cache size drops to critical size.
+     *
+     * @return {@code True} if write cache size is not greater than critical size.
+     * @throws GridInterruptedException If interrupted.
+     */
+    private boolean awaitCapacity() throws GridInterruptedException {
+        flushLock.lock();
+
+        try {
+            canFlush.signalAll();
+
+            writeWaitersCnt.incrementAndGet();
+
+            try {
+                long end = U.currentTimeMillis() + BACKPRESSURE_TIMEOUT;
+
+                while (writeCache.sizex() > cacheCriticalSize) {
+                    long left = end - U.currentTimeMillis();
+
+                    if (left <= 0 || stopping.get())
+                        return false;
+
+                    U.await(canWrite, left, TimeUnit.MILLISECONDS);
+                }
+
+                return true;
+            }
+            finally {
+                writeWaitersCnt.decrementAndGet();
+            }
+        }
+        finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Wakes up threads waiting for free space in write cache, if any.
+     */
+    private void signalCapacity() {
+        if (writeWaitersCnt.get() == 0 || writeCache.sizex() > cacheCriticalSize)
+            return;
+
+        flushLock.lock();
+
+        try {
+            canWrite.signalAll();
+        }
+        finally {
+            flushLock.unlock();
+        }
+    }
+
     /**
      * Flushes one upcoming value to the underlying store. Called from
      * {@link #updateCache(Object, Object, StoreOperation)} method in case when current map size exceeds
@@ -549,9 +639,7 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
             for (Map.Entry<K, StatefulValue<V>> e : writeCache.entrySet()) {
                 StatefulValue<V> val = e.getValue();
 
-                val.writeLock().lock();
-
-                try {
+                synchronized (val) {
                     ValueStatus status = val.status();
 
                     if (acquired(status))
@@ -567,9 +655,6 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
 
                     batch = Collections.singletonMap(e.getKey(), val);
                 }
-                finally {
-                    val.writeLock().unlock();
-                }
 
                 if (batch != null && !batch.isEmpty()) {
                     applyBatch(batch);
@@ -595,10 +680,20 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
 
         StoreOperation operation = null;
 
-        // Construct a map for underlying store
-        Map<K, V> batch = new HashMap<>(valMap.size());
+        List<Map.Entry<K, StatefulValue<V>>> entries = new ArrayList<>(valMap.entrySet());
+
+        if (sortable(entries))
+            Collections.sort(entries, new Comparator<Map.Entry<K, StatefulValue<V>>>() {
+                @SuppressWarnings("unchecked")
+                @Override public int compare(Map.Entry<K, StatefulValue<V>> e1, Map.Entry<K, StatefulValue<V>> e2) {
+                    return ((Comparable<Object>)e1.getKey()).compareTo(e2.getKey());
+                }
+            });
 
-        for (Map.Entry<K, StatefulValue<V>> e : valMap.entrySet()) {
+        // Construct a map for underlying store, preserving key order.
+        Map<K, V> batch = new LinkedHashMap<>(valMap.size());
+
+        for (Map.Entry<K, StatefulValue<V>> e : entries) {
             if (operation == null)
                 operation = e.getValue().operation();
 
@@ -610,12 +705,12 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
         }
 
         if (updateStore(operation, batch)) {
+            long now = U.currentTimeMillis();
+
             for (Map.Entry<K, StatefulValue<V>> e : valMap.entrySet()) {
                 StatefulValue<V> val = e.getValue();
 
-                val.writeLock().lock();
-
-                try {
+                synchronized (val) {
                     val.status(ValueStatus.FLUSHED);
 
                     StatefulValue<V> prev = writeCache.remove(e.getKey());
@@ -625,30 +720,49 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
 
                     val.signalFlushed();
                 }
-                finally {
-                    val.writeLock().unlock();
-                }
+
+                lagHist.onFlushed(now - val.createTime());
             }
+
+            signalCapacity();
         }
         else {
             // Exception occurred, we must set RETRY status
             for (StatefulValue<V> val : valMap.values()) {
-                val.writeLock().lock();
-
-                try {
+                synchronized (val) {
                     val.status(ValueStatus.RETRY);
 
                     retryEntriesCnt.incrementAndGet();
 
                     val.signalFlushed();
                 }
-                finally {
-                    val.writeLock().unlock();
-                }
             }
         }
     }
 
+    /**
+     * Checks whether batch can be sorted by key, i.e. whether all keys are mutually comparable.
+     *
+     * @param entries Batch entries.
+     * @return {@code True} if all keys are {@link Comparable} and have the same class.
+     */
+    private boolean sortable(List<Map.Entry<K, StatefulValue<V>>> entries) {
+        if (entries.size() < 2)
+            return false;
+
+        Class<?> cls = entries.get(0).getKey().getClass();
+
+        if (!Comparable.class.isAssignableFrom(cls))
+            return false;
+
+        for (Map.Entry<K, StatefulValue<V>> e : entries) {
+            if (e.getKey().getClass() != cls)
+                return false;
+        }
+
+        return true;
+    }
+
     /**
      * Tries to update store with the given values and returns {@code true} in case of success.
      *
@@ -756,7 +870,9 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
 
         /**
          * Removes values from the write cache and performs corresponding operation
-         * on the underlying store.
+         * on the underlying store. Consecutive values with the same operation are accumulated
+         * in a batch, which is applied once it reaches batch size or operation changes, so that
+         * values stay pending only while their own batch is being written.
          *
          * @param it Iterator for write cache.
          */
@@ -764,16 +880,14 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
             StoreOperation operation = null;
 
             Map<K, StatefulValue<V>> batch = null;
-            Map<K, StatefulValue<V>> pending  = new LinkedHashMap<>(batchSize);
+            Map<K, StatefulValue<V>> pending = new HashMap<>(batchSize);
 
             while (it.hasNext()) {
                 Map.Entry<K, StatefulValue<V>> e = it.next();
 
                 StatefulValue<V> val = e.getValue();
 
-                val.writeLock().lock();
-
-                try {
+                synchronized (val) {
                     ValueStatus status = val.status();
 
                     if (acquired(status))
@@ -794,28 +908,24 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
                     if (operation != val.operation()) {
                         // Operation is changed, so we need to perform a batch.
                         batch = pending;
-                        pending = new LinkedHashMap<>(batchSize);
+                        pending = new HashMap<>(batchSize);
 
                         operation = val.operation();
-
-                        pending.put(e.getKey(), val);
                     }
-                    else
-                        pending.put(e.getKey(), val);
+
+                    pending.put(e.getKey(), val);
 
                     if (pending.size() == batchSize) {
                         batch = pending;
-                        pending = new LinkedHashMap<>(batchSize);
+                        pending = new HashMap<>(batchSize);
 
                         operation = null;
                     }
                 }
-                finally {
-                    val.writeLock().unlock();
-                }
 
                 if (batch != null && !batch.isEmpty()) {
                     applyBatch(batch);
+
                     batch = null;
                 }
             }
@@ -874,11 +984,13 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
     }
 
     /**
-     * A state-value-operation trio.
+     * A state-value-operation trio. All fields except creation time are guarded by value monitor,
+     * which is also used to wait for flush, so that millions of pending keys do not carry a lock
+     * object each.
      *
      * @param <V> Value type.
      */
-    private static class StatefulValue<V> extends ReentrantReadWriteLock {
+    private static class StatefulValue<V> {
         /** Value. */
         @GridToStringInclude
         private V val;
@@ -889,8 +1001,8 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
         /** Value status. */
         private ValueStatus valStatus;
 
-        /** Condition to wait for flush event */
-        private Condition flushCond = writeLock().newCondition();
+        /** Time when value was added to write cache. */
+        private final long createTime;
 
         /**
          * Creates a state-value pair with {@link ValueStatus#NEW} status.
@@ -904,6 +1016,15 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
             this.val = val;
             this.storeOperation = storeOperation;
             valStatus = ValueStatus.NEW;
+
+            createTime = U.currentTimeMillis();
+        }
+
+        /**
+         * @return Time when value was added to write cache.
+         */
+        private long createTime() {
+            return createTime;
         }
 
         /**
@@ -950,20 +1071,23 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
         }
 
         /**
-         * Awaits a signal on flush condition
+         * Awaits a signal on flush condition. Must be called under value monitor.
          *
          * @throws GridInterruptedException If thread was interrupted.
          */
         private void waitForFlush() throws GridInterruptedException {
-            U.await(flushCond);
+            assert Thread.holdsLock(this);
+
+            U.wait(this);
         }
 
         /**
-         * Signals flush condition.
+         * Signals flush condition. Must be called under value monitor.
          */
-        @SuppressWarnings({"SignalWithoutCorrespondingAwait"})
         private void signalFlushed() {
-            flushCond.signalAll();
+            assert Thread.holdsLock(this);
+
+            notifyAll();
         }
 
         /** {@inheritDoc} */
@@ -993,4 +1117,69 @@ public class GridCacheWriteBehindStore<K, V> implements GridCacheStore<K, V>, Gr
             return S.toString(StatefulValue.class, this);
         }
     }
+
+    /**
+     * Histogram of write lags with power of two buckets. Bucket {@code i} counts lags in
+     * range {@code [2^(i-1), 2^i)} milliseconds, bucket {@code 0} counts lags below one millisecond.
+     */
+    private static class LagHistogram {
+        /** Number of buckets. */
+        private static final int BUCKETS = 40;
+
+        /** Buckets. */
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        /** Maximum lag. */
+        private final AtomicLong max = new AtomicLong();
+
+        /**
+         * @param lag Write lag in milliseconds.
+         */
+        void onFlushed(long lag) {
+            if (lag < 0)
+                lag = 0;
+
+            buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(lag)));
+
+            for (long cur = max.get(); lag > cur && !max.compareAndSet(cur, lag); cur = max.get()) {
+                // No-op.
+            }
+        }
+
+        /**
+         * @param percentile Percentile.
+         * @return Upper bound of the bucket the percentile falls into, {@code 0} if histogram is empty.
+         */
+        long percentile(double percentile) {
+            long[] cnts = new long[BUCKETS];
+
+            long total = 0;
+
+            for (int i = 0; i < BUCKETS; i++)
+                total += cnts[i] = buckets.get(i);
+
+            if (total == 0)
+                return 0;
+
+            long target = Math.max(1, (long)Math.ceil(percentile * total));
+
+            long sum = 0;
+
+            for (int i = 0; i < BUCKETS; i++) {
+                sum += cnts[i];
+
+                if (sum >= target)
+                    return Math.min(1L << i, max.get());
+            }
+
+            return max.get();
+        }
+
+        /**
+         * @return Maximum lag.
+         */
+        long max() {
+            return max.get();
+        }
+    }
 }
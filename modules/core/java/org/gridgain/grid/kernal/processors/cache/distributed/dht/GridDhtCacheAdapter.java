@@ -363,6 +363,30 @@ public abstract class GridDhtCacheAdapter<K, V> extends GridDistributedCacheAdap
         return (GridDhtCacheEntry<K, V>)peekEx(key);
     }
 
+    /** {@inheritDoc} */
+    @Nullable @Override public V readOffHeapDirect(K key) throws GridException {
+        GridDhtLocalPartition<K, V> part;
+
+        try {
+            part = top.localPartition(ctx.affinity().partition(key), -1, false);
+        }
+        catch (GridDhtInvalidPartitionException ignored) {
+            return null;
+        }
+
+        // Read directly only from partitions owned by local node and make sure
+        // that partition does not get evicted while reading.
+        if (part == null || part.state() != GridDhtPartitionState.OWNING || !part.reserve())
+            return null;
+
+        try {
+            return super.readOffHeapDirect(key);
+        }
+        finally {
+            part.release();
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -391,6 +391,16 @@ public class GridPartitionedGetFuture<K, V> extends GridCompoundIdentityFuture<M
             try {
                 if (!reload && allowLocRead) {
                     try {
+                        if (tx == null && F.isEmpty(filters)) {
+                            V v = colocated.readOffHeapDirect(key);
+
+                            if (v != null) {
+                                locVals.put(key, v);
+
+                                return false;
+                            }
+                        }
+
                         entry = colocated.context().isSwapEnabled() ? colocated.entryEx(key) : colocated.peekEx(key);
 
                         // If our DHT cache do has value, then we peek it.
@@ -679,6 +679,21 @@ public class GridDhtAtomicCache<K, V> extends GridDhtCacheAdapter<K, V> {
 
             // Optimistically expect that all keys are available locally (avoid creation of get future).
             for (K key : keys) {
+                if (F.isEmpty(filter)) {
+                    try {
+                        V v = readOffHeapDirect(key);
+
+                        if (v != null) {
+                            locVals.put(key, v);
+
+                            continue;
+                        }
+                    }
+                    catch (GridException e) {
+                        return new GridFinishedFuture<>(ctx.kernalContext(), e);
+                    }
+                }
+
                 GridCacheEntryEx<K, V> entry = null;
 
                 while (true) {
@@ -322,6 +322,15 @@ public class GridDhtForceKeysRequest<K, V> extends GridCacheMessage<K, V> implem
         return 41;
     }
 
+    /**
+     * Messages of different futures are independent and may be striped by future ID.
+     *
+     * @return Ordering key.
+     */
+    @Override public int orderKey() {
+        return futId.hashCode();
+    }
+
     /** {@inheritDoc} */
     @Override public String toString() {
         return S.toString(GridDhtForceKeysRequest.class, this, "keyCnt", keyCount(), "super", super.toString());
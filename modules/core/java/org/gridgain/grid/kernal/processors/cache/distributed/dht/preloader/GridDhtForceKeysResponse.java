@@ -334,6 +334,15 @@ public class GridDhtForceKeysResponse<K, V> extends GridCacheMessage<K, V> imple
         return 42;
     }
 
+    /**
+     * Messages of different futures are independent and may be striped by future ID.
+     *
+     * @return Ordering key.
+     */
+    @Override public int orderKey() {
+        return futId.hashCode();
+    }
+
     /** {@inheritDoc} */
     @Override public String toString() {
         return S.toString(GridDhtForceKeysResponse.class, this, super.toString());
@@ -383,6 +383,15 @@ public class GridDhtPartitionDemandMessage<K, V> extends GridCacheMessage<K, V>
         return 43;
     }
 
+    /**
+     * Demand messages of different demand workers are independent and may be striped by worker ID.
+     *
+     * @return Ordering key.
+     */
+    @Override public int orderKey() {
+        return workerId + 1;
+    }
+
     /** {@inheritDoc} */
     @Override public String toString() {
         return S.toString(GridDhtPartitionDemandMessage.class, this, "partCnt", parts.size(), "super",
@@ -467,6 +467,15 @@ public class GridNearGetRequest<K, V> extends GridCacheMessage<K, V> implements
         return 48;
     }
 
+    /**
+     * Messages of different futures are independent and may be striped by future ID.
+     *
+     * @return Ordering key.
+     */
+    @Override public int orderKey() {
+        return futId.hashCode();
+    }
+
     /** {@inheritDoc} */
     @Override public String toString() {
         return S.toString(GridNearGetRequest.class, this);
@@ -412,6 +412,15 @@ public class GridNearGetResponse<K, V> extends GridCacheMessage<K, V> implements
         return 49;
     }
 
+    /**
+     * Messages of different futures are independent and may be striped by future ID.
+     *
+     * @return Ordering key.
+     */
+    @Override public int orderKey() {
+        return futId.hashCode();
+    }
+
     /** {@inheritDoc} */
     @Override public String toString() {
         return S.toString(GridNearGetResponse.class, this);
@@ -88,6 +88,14 @@ public class GridCacheQueriesImpl<K, V> implements GridCacheQueriesEx<K, V> {
             false);
     }
 
+    /** {@inheritDoc} */
+    @Override public GridCacheQuery<Map.Entry<K, V>> createIndexQuery(Class<?> cls, String idxName) {
+        A.notNull(cls, "cls");
+        A.notNull(idxName, "idxName");
+
+        return new GridCacheQueryAdapter<>(ctx, INDEX, filter(), (Class<?>)cls, idxName, null, false);
+    }
+
     /** {@inheritDoc} */
     @Override public GridCacheContinuousQuery<K, V> createContinuousQuery() {
         return ctx.continuousQueries().createQuery(prj == null ? null : prj.predicate());
@@ -113,6 +113,18 @@ public class GridCacheQueriesProxy<K, V> implements GridCacheQueriesEx<K, V> {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override public GridCacheQuery<Map.Entry<K, V>> createIndexQuery(Class<?> cls, String idxName) {
+        GridCacheProjectionImpl<K, V> prev = gate.enter(prj);
+
+        try {
+            return delegate.createIndexQuery(cls, idxName);
+        }
+        finally {
+            gate.leave(prev);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override public GridCacheContinuousQuery<K, V> createContinuousQuery() {
         GridCacheProjectionImpl<K, V> prev = gate.enter(prj);
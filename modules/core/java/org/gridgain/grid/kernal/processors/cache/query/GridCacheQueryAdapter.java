@@ -350,7 +350,7 @@ public class GridCacheQueryAdapter<T> implements GridCacheQuery<T> {
     @SuppressWarnings("IfMayBeConditional")
     private <R> GridCacheQueryFuture<R> execute(@Nullable GridReducer<T, R> rmtReducer,
         @Nullable GridClosure<T, R> rmtTransform, @Nullable Object... args) {
-        Collection<GridNode> nodes = nodes();
+        Collection<GridNode> nodes = nodes(args);
 
         if (log.isDebugEnabled())
             log.debug("Executing query [query=" + this + ", nodes=" + nodes + ']');
@@ -372,30 +372,127 @@ public class GridCacheQueryAdapter<T> implements GridCacheQuery<T> {
 
         boolean loc = nodes.size() == 1 && F.first(nodes).id().equals(cctx.localNodeId());
 
-        if (type == SQL_FIELDS)
+        if (type == SQL_FIELDS) {
+            if (!loc && rmtReducer == null && rmtTransform == null) {
+                GridCacheTwoStepQuery twoStep = GridCacheSqlQuerySplitter.split(clause);
+
+                if (twoStep != null) {
+                    if (log.isDebugEnabled())
+                        log.debug("Executing two-step query [mapQry=" + twoStep.mapQuery() + ']');
+
+                    GridCacheQueryBean mapBean = new GridCacheQueryBean(copy(twoStep.mapQuery()), null, null,
+                        twoStep.mapArguments(args));
+
+                    Collection<GridCacheQueryFuture<List<?>>> mapFuts = new ArrayList<>(nodes.size());
+
+                    // Sorted results are merged per node, so every node is queried separately.
+                    if (twoStep.merging()) {
+                        for (GridNode node : nodes)
+                            mapFuts.add((GridCacheQueryFuture<List<?>>)qryMgr.queryFieldsDistributed(mapBean,
+                                Collections.singleton(node)));
+                    }
+                    else
+                        mapFuts.add((GridCacheQueryFuture<List<?>>)qryMgr.queryFieldsDistributed(mapBean, nodes));
+
+                    GridCacheReduceFieldsQueryFuture fut = new GridCacheReduceFieldsQueryFuture(cctx, mapFuts,
+                        twoStep, args, incMeta);
+
+                    fut.execute();
+
+                    return (GridCacheQueryFuture<R>)fut;
+                }
+            }
+
             return (GridCacheQueryFuture<R>)(loc ? qryMgr.queryFieldsLocal(bean) :
                 qryMgr.queryFieldsDistributed(bean, nodes));
+        }
         else
             return (GridCacheQueryFuture<R>)(loc ? qryMgr.queryLocal(bean) : qryMgr.queryDistributed(bean, nodes));
     }
 
     /**
+     * Creates copy of this query with another clause. Copy does not keep fetched pages and shares metrics
+     * with this query.
+     *
+     * @param clause Clause.
+     * @return Query copy.
+     */
+    private GridCacheQueryAdapter<List<?>> copy(String clause) {
+        GridCacheQueryAdapter<List<?>> cp = new GridCacheQueryAdapter<>(cctx, type, prjPred, cls, clause, filter,
+            incMeta);
+
+        cp.pageSize = pageSize;
+        cp.timeout = timeout;
+        cp.keepAll = false;
+        cp.incBackups = incBackups;
+        cp.dedup = dedup;
+        cp.prj = prj;
+        cp.metrics = metrics;
+
+        return cp;
+    }
+
+    /**
+     * @param args Query arguments.
      * @return Nodes to execute on.
      */
-    private Collection<GridNode> nodes() {
+    private Collection<GridNode> nodes(@Nullable Object[] args) {
         Collection<GridNode> nodes = CU.allNodes(cctx);
 
         if (prj == null) {
             if (cctx.isReplicated())
                 return Collections.singletonList(cctx.localNode());
+        }
+        else {
+            nodes = F.view(nodes, new P1<GridNode>() {
+                @Override public boolean apply(GridNode e) {
+                    return prj.node(e.id()) != null;
+                }
+            });
+        }
 
+        return cctx.isReplicated() || cctx.isLocal() ? nodes : prune(nodes, args);
+    }
+
+    /**
+     * Leaves only nodes owning partitions which can contain query results.
+     *
+     * @param nodes Nodes.
+     * @param args Query arguments.
+     * @return Pruned nodes or given nodes if query can not be pruned.
+     */
+    private Collection<GridNode> prune(Collection<GridNode> nodes, @Nullable Object[] args) {
+        Collection<Integer> parts = GridCacheQueryPartitionPruner.partitions(cctx, type, cls, clause, args);
+
+        if (parts == null)
             return nodes;
-        }
 
-        return F.view(nodes, new P1<GridNode>() {
-            @Override public boolean apply(GridNode e) {
-                return prj.node(e.id()) != null;
+        Collection<UUID> owners = new HashSet<>();
+
+        for (Integer part : parts) {
+            if (incBackups)
+                owners.addAll(F.nodeIds(cctx.affinity().nodes(part)));
+            else {
+                GridNode primary = F.first(cctx.affinity().nodes(part));
+
+                if (primary != null)
+                    owners.add(primary.id());
             }
-        });
+        }
+
+        Collection<GridNode> res = new ArrayList<>(owners.size());
+
+        for (GridNode node : nodes) {
+            if (owners.contains(node.id()))
+                res.add(node);
+        }
+
+        if (res.isEmpty())
+            return nodes;
+
+        if (log.isDebugEnabled())
+            log.debug("Pruned query nodes [parts=" + parts + ", nodes=" + res + ']');
+
+        return res;
     }
 }
@@ -33,6 +33,7 @@ import org.gridgain.grid.kernal.managers.indexing.*;
 import org.gridgain.grid.kernal.processors.cache.*;
 import org.gridgain.grid.kernal.processors.cache.distributed.dht.*;
 import org.gridgain.grid.kernal.processors.task.*;
+import org.gridgain.grid.kernal.processors.timeout.*;
 import org.gridgain.grid.lang.*;
 import org.gridgain.grid.resources.*;
 import org.gridgain.grid.spi.*;
@@ -83,6 +84,9 @@ public abstract class GridCacheQueryManager<K, V> extends GridCacheManagerAdapte
     /** */
     private int maxIterCnt;
 
+    /** */
+    private long iterIdleTimeout;
+
     /** */
     private volatile GridCacheQueryMetricsAdapter metrics = new GridCacheQueryMetricsAdapter();
 
@@ -94,12 +98,16 @@ public abstract class GridCacheQueryManager<K, V> extends GridCacheManagerAdapte
     private final ConcurrentMap<UUID, Map<Long, GridFutureAdapter<GridIndexingFieldsResult>>> fieldsQryRes =
         new ConcurrentHashMap8<>();
 
+    /** Idle timeouts of stored fields query results. */
+    private final ConcurrentMap<T2<UUID, Long>, GridTimeoutObject> fieldsQryTimeouts = new ConcurrentHashMap8<>();
+
     /** {@inheritDoc} */
     @Override public void start0() throws GridException {
         idxMgr = cctx.kernalContext().indexing();
         spi = cctx.config().getIndexingSpiName();
         space = cctx.name();
         maxIterCnt = cctx.config().getMaximumQueryIteratorCount();
+        iterIdleTimeout = cctx.config().getQueryIteratorIdleTimeout();
 
         cctx.events().addListener(new GridLocalEventListener() {
             @Override public void onEvent(GridEvent evt) {
@@ -372,6 +380,10 @@ public abstract class GridCacheQueryManager<K, V> extends GridCacheManagerAdapte
                 return idxMgr.queryText(spi, space, qry.clause(), (Class<? extends V>)U.box(qry.queryClass()),
                     qry.includeBackups(), projectionFilter(qry));
 
+            case INDEX:
+                return idxMgr.queryIndex(spi, space, qry.clause(), indexRange(args),
+                    (Class<? extends V>)U.box(qry.queryClass()), qry.includeBackups(), projectionFilter(qry));
+
             case SQL_FIELDS:
                 assert false : "SQL fields query is incorrectly processed.";
 
@@ -380,6 +392,22 @@ public abstract class GridCacheQueryManager<K, V> extends GridCacheManagerAdapte
         }
     }
 
+    /**
+     * @param args Index query arguments.
+     * @return Index range or {@code null} if whole index should be scanned.
+     * @throws GridException If arguments are invalid.
+     */
+    @Nullable private GridCacheQueryIndexRange indexRange(@Nullable Object[] args) throws GridException {
+        if (F.isEmpty(args))
+            return null;
+
+        if (args.length > 1 || (args[0] != null && !(args[0] instanceof GridCacheQueryIndexRange)))
+            throw new GridException("Index query accepts single argument of type " +
+                GridCacheQueryIndexRange.class.getSimpleName() + ": " + Arrays.toString(args));
+
+        return (GridCacheQueryIndexRange)args[0];
+    }
+
     /**
      * Performs fields query.
      *
@@ -504,6 +532,9 @@ public abstract class GridCacheQueryManager<K, V> extends GridCacheManagerAdapte
 
         boolean rmvRes = true;
 
+        // Stored result is used by this request, so it must not be closed by idle timeout.
+        cancelFieldsQueryResultTimeout(qryInfo.senderId(), qryInfo.requestId());
+
         try {
             // Preparing query closures.
             GridPredicate<GridCacheEntry<Object, Object>> prjFilter = qryInfo.projectionPredicate();
@@ -654,6 +685,8 @@ public abstract class GridCacheQueryManager<K, V> extends GridCacheManagerAdapte
         finally {
             if (rmvRes)
                 removeFieldsQueryResult(qryInfo.senderId(), qryInfo.requestId());
+            else
+                scheduleFieldsQueryResultTimeout(qryInfo.senderId(), qryInfo.requestId());
         }
     }
 
@@ -1013,6 +1046,8 @@ public abstract class GridCacheQueryManager<K, V> extends GridCacheManagerAdapte
         if (sndId == null)
             return;
 
+        cancelFieldsQueryResultTimeout(sndId, reqId);
+
         Map<Long, GridFutureAdapter<GridIndexingFieldsResult>> futs = fieldsQryRes.get(sndId);
 
         if (futs != null) {
@@ -1033,6 +1068,52 @@ public abstract class GridCacheQueryManager<K, V> extends GridCacheManagerAdapte
         }
     }
 
+    /**
+     * Schedules closing of stored fields query result if next page is not requested within
+     * {@link GridCacheConfiguration#getQueryIteratorIdleTimeout()}.
+     *
+     * @param sndId Sender node ID.
+     * @param reqId Request ID.
+     */
+    private void scheduleFieldsQueryResultTimeout(@Nullable final UUID sndId, final long reqId) {
+        if (sndId == null || iterIdleTimeout <= 0)
+            return;
+
+        final T2<UUID, Long> key = new T2<>(sndId, reqId);
+
+        GridTimeoutObject timeoutObj = new GridTimeoutObjectAdapter(iterIdleTimeout) {
+            @Override public void onTimeout() {
+                if (fieldsQryTimeouts.remove(key, this)) {
+                    if (log.isDebugEnabled())
+                        log.debug("Closing idle fields query result [sndId=" + sndId + ", reqId=" + reqId + ']');
+
+                    removeFieldsQueryResult(sndId, reqId);
+                }
+            }
+        };
+
+        GridTimeoutObject old = fieldsQryTimeouts.put(key, timeoutObj);
+
+        if (old != null)
+            cctx.time().removeTimeoutObject(old);
+
+        cctx.time().addTimeoutObject(timeoutObj);
+    }
+
+    /**
+     * @param sndId Sender node ID.
+     * @param reqId Request ID.
+     */
+    private void cancelFieldsQueryResultTimeout(@Nullable UUID sndId, long reqId) {
+        if (sndId == null)
+            return;
+
+        GridTimeoutObject timeoutObj = fieldsQryTimeouts.remove(new T2<>(sndId, reqId));
+
+        if (timeoutObj != null)
+            cctx.time().removeTimeoutObject(timeoutObj);
+    }
+
     /**
      * Called when data for page is ready.
      *
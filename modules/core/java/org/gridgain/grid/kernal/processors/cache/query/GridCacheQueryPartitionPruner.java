@@ -0,0 +1,472 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.kernal.processors.cache.query;
+
+import org.gridgain.grid.cache.affinity.*;
+import org.gridgain.grid.cache.query.*;
+import org.gridgain.grid.kernal.managers.indexing.*;
+import org.gridgain.grid.kernal.processors.cache.*;
+import org.gridgain.grid.spi.indexing.*;
+import org.gridgain.grid.util.typedef.*;
+import org.gridgain.grid.util.typedef.internal.*;
+import org.jetbrains.annotations.*;
+
+import java.math.*;
+import java.util.*;
+
+import static org.gridgain.grid.kernal.processors.cache.query.GridCacheQueryType.*;
+import static org.gridgain.grid.kernal.processors.cache.query.GridCacheSqlQuerySplitter.*;
+
+/**
+ * Finds partitions which can contain results of SQL query, so query is sent only to nodes owning them.
+ * <p>
+ * Query is pruned if it selects from single table and its {@code WHERE} clause is a conjunction
+ * containing condition {@code col = val} or {@code col IN (val1, val2, ...)}, where values are literals or
+ * query parameters and column is either {@code _KEY} or value field annotated with both
+ * {@link GridCacheQuerySqlField} and {@link GridCacheAffinityKeyMapped}. Such value field must hold
+ * affinity key of entry (i.e. value of key field annotated with {@link GridCacheAffinityKeyMapped}) and
+ * is taken into account only if cache uses default affinity mapper. Type of query must be registered on
+ * local node. For all other queries pruner returns {@code null} and query is executed on all nodes.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+final class GridCacheQueryPartitionPruner {
+    /** Key column name. */
+    private static final String KEY_COL = "_KEY";
+
+    /** Keywords which end {@code WHERE} clause. */
+    private static final Collection<String> WHERE_END = new HashSet<>(F.asList("GROUP", "HAVING", "ORDER",
+        "LIMIT", "OFFSET", "FOR"));
+
+    /** Keywords which make query not prunable. */
+    private static final Collection<String> UNSUPPORTED = new HashSet<>(F.asList("JOIN", "UNION", "INTERSECT",
+        "EXCEPT", "MINUS"));
+
+    /** Cache context. */
+    private final GridCacheContext<?, ?> cctx;
+
+    /** Tokens. */
+    private final List<Token> toks;
+
+    /** Number of parameters preceding each token. */
+    private final int[] params;
+
+    /** Query arguments. */
+    private final Object[] args;
+
+    /** Names which can qualify column. */
+    private final Collection<String> names = new HashSet<>();
+
+    /** Key class. */
+    private Class<?> keyCls;
+
+    /** Affinity field name. */
+    private String affField;
+
+    /** Affinity field class. */
+    private Class<?> affFieldCls;
+
+    /**
+     * @param cctx Cache context.
+     * @param toks Tokens.
+     * @param args Query arguments.
+     */
+    private GridCacheQueryPartitionPruner(GridCacheContext<?, ?> cctx, List<Token> toks, @Nullable Object[] args) {
+        this.cctx = cctx;
+        this.toks = toks;
+        this.args = args;
+
+        params = new int[toks.size()];
+
+        for (int i = 1; i < params.length; i++)
+            params[i] = params[i - 1] + (toks.get(i - 1).type == PARAM ? 1 : 0);
+    }
+
+    /**
+     * @param cctx Cache context.
+     * @param type Query type.
+     * @param cls Value class of {@link GridCacheQueryType#SQL} query.
+     * @param clause Query clause.
+     * @param args Query arguments.
+     * @return Partitions or {@code null} if query can not be pruned.
+     */
+    @Nullable static Collection<Integer> partitions(GridCacheContext<?, ?> cctx, GridCacheQueryType type,
+        @Nullable Class<?> cls, @Nullable String clause, @Nullable Object[] args) {
+        if (clause == null || (type != SQL && type != SQL_FIELDS) || (type == SQL && cls == null))
+            return null;
+
+        List<Token> toks = tokenize(clause);
+
+        if (F.isEmpty(toks))
+            return null;
+
+        for (int i = 0; i < toks.size(); i++) {
+            Token t = toks.get(i);
+
+            if (t.type == IDENT && UNSUPPORTED.contains(t.text))
+                return null;
+
+            // Numbered parameters can not be matched to arguments by position.
+            if (t.type == PARAM && i + 1 < toks.size() && toks.get(i + 1).type == NUMBER &&
+                toks.get(i + 1).start == t.end)
+                return null;
+        }
+
+        return new GridCacheQueryPartitionPruner(cctx, toks, args).partitions(type, cls);
+    }
+
+    /**
+     * @param type Query type.
+     * @param cls Value class of {@link GridCacheQueryType#SQL} query.
+     * @return Partitions or {@code null} if query can not be pruned.
+     */
+    @Nullable private Collection<Integer> partitions(GridCacheQueryType type, @Nullable Class<?> cls) {
+        int from = -1;
+
+        if (type == SQL_FIELDS) {
+            if (!toks.get(0).isKeyword("SELECT"))
+                return null;
+
+            for (int i = 1; i < toks.size() && from < 0; i++) {
+                if (toks.get(i).depth == 0 && toks.get(i).isKeyword("FROM"))
+                    from = i;
+            }
+
+            if (from < 0)
+                return null;
+        }
+        else if (toks.get(0).isKeyword("FROM"))
+            from = 0;
+        else if (toks.get(0).isKeyword("SELECT") || toks.get(0).type == IDENT && WHERE_END.contains(toks.get(0).text))
+            return null;
+
+        int whereStart = 0;
+        String tbl = null;
+
+        if (from >= 0) {
+            int i = from + 1;
+
+            // Parse [schema.]table [[AS] alias] WHERE.
+            if (i < toks.size() && isName(toks.get(i))) {
+                tbl = toks.get(i++).text;
+
+                if (i + 1 < toks.size() && toks.get(i).isPunct('.') && isName(toks.get(i + 1))) {
+                    tbl = toks.get(i + 1).text;
+
+                    i += 2;
+                }
+            }
+
+            if (i < toks.size() && toks.get(i).isKeyword("AS"))
+                i++;
+
+            if (i < toks.size() && isName(toks.get(i)) && !toks.get(i).isKeyword("WHERE"))
+                names.add(toks.get(i++).text);
+
+            if (tbl == null || i == toks.size() || !toks.get(i).isKeyword("WHERE"))
+                return null;
+
+            names.add(tbl);
+
+            whereStart = i + 1;
+        }
+
+        GridIndexingManager idxMgr = cctx.kernalContext().indexing();
+
+        GridIndexingTypeDescriptor desc = type == SQL ? idxMgr.type(cctx.name(), cls) :
+            idxMgr.type(cctx.name(), tbl);
+
+        if (desc == null)
+            return null;
+
+        names.add(desc.name());
+
+        keyCls = U.box(desc.keyClass());
+
+        if (cctx.config().getAffinityMapper() instanceof GridCacheDefaultAffinityKeyMapper) {
+            affField = idxMgr.affinityField(desc);
+
+            if (affField != null)
+                affFieldCls = U.box(desc.valueFields().get(affField));
+        }
+
+        int whereEnd = whereStart;
+
+        while (whereEnd < toks.size() && !(toks.get(whereEnd).depth == 0 && toks.get(whereEnd).type == IDENT &&
+            WHERE_END.contains(toks.get(whereEnd).text)))
+            whereEnd++;
+
+        Collection<Integer> res = null;
+
+        boolean between = false;
+
+        for (int i = whereStart, start = whereStart; i <= whereEnd; i++) {
+            if (i < whereEnd) {
+                Token t = toks.get(i);
+
+                if (t.depth != 0)
+                    continue;
+
+                if (t.isKeyword("OR") || t.isKeyword("CASE"))
+                    return null;
+
+                if (t.isKeyword("BETWEEN"))
+                    between = true;
+
+                if (!t.isKeyword("AND"))
+                    continue;
+
+                if (between) {
+                    between = false;
+
+                    continue;
+                }
+            }
+
+            Collection<Integer> parts = conditionPartitions(start, i);
+
+            if (parts != null) {
+                if (res == null)
+                    res = parts;
+                else
+                    res.retainAll(parts);
+            }
+
+            start = i + 1;
+        }
+
+        return F.isEmpty(res) ? null : res;
+    }
+
+    /**
+     * @param start Start of condition.
+     * @param end End of condition.
+     * @return Partitions or {@code null} if condition is not supported.
+     */
+    @Nullable private Collection<Integer> conditionPartitions(int start, int end) {
+        if (start >= end)
+            return null;
+
+        Collection<Object> vals = new ArrayList<>();
+
+        Class<?> colCls;
+
+        int colEnd = column(start, end);
+
+        if (colEnd > 0) {
+            colCls = columnClass(start, colEnd);
+
+            if (colEnd + 1 < end && toks.get(colEnd).isPunct('=')) {
+                if (value(colEnd + 1, end, colCls, vals) != end)
+                    return null;
+            }
+            else if (colEnd + 3 < end && toks.get(colEnd).isKeyword("IN") && toks.get(colEnd + 1).isPunct('(') &&
+                toks.get(end - 1).isPunct(')') && toks.get(end - 1).depth == 0) {
+                for (int i = colEnd + 2; i < end - 1; i++) {
+                    i = value(i, end - 1, colCls, vals);
+
+                    if (i < 0 || i < end - 1 && !toks.get(i).isPunct(','))
+                        return null;
+                }
+            }
+            else
+                return null;
+        }
+        else {
+            // Value on the left side.
+            int valEnd = value(start, end, null, null);
+
+            if (valEnd < 0 || valEnd + 1 >= end || !toks.get(valEnd).isPunct('=') || column(valEnd + 1, end) != end)
+                return null;
+
+            colCls = columnClass(valEnd + 1, end);
+
+            value(start, valEnd, colCls, vals);
+        }
+
+        if (colCls == null || vals.isEmpty())
+            return null;
+
+        Collection<Integer> parts = new HashSet<>();
+
+        for (Object val : vals) {
+            if (val == null)
+                return null;
+
+            parts.add(cctx.affinity().partition(val));
+        }
+
+        return parts;
+    }
+
+    /**
+     * @param start Start of column reference.
+     * @param end End of condition.
+     * @return End of column reference or {@code -1} if there is no column reference at given position.
+     */
+    private int column(int start, int end) {
+        if (!isName(toks.get(start)) || toks.get(start).type == IDENT && KEYWORDS.contains(toks.get(start).text))
+            return -1;
+
+        if (start + 2 < end && toks.get(start + 1).isPunct('.')) {
+            if (!isName(toks.get(start + 2)) || !containsIgnoreCase(names, toks.get(start).text))
+                return -1;
+
+            return start + 3;
+        }
+
+        return start + 1;
+    }
+
+    /**
+     * @param start Start of column reference.
+     * @param end End of column reference.
+     * @return Class of column values used for affinity or {@code null} if column can not be used for pruning.
+     */
+    @Nullable private Class<?> columnClass(int start, int end) {
+        String col = toks.get(end - 1).text;
+
+        if (KEY_COL.equalsIgnoreCase(col))
+            return keyCls;
+
+        if (affField != null && affField.equalsIgnoreCase(col))
+            return affFieldCls;
+
+        return null;
+    }
+
+    /**
+     * Parses single value.
+     *
+     * @param start Start of value.
+     * @param end End of condition.
+     * @param cls Class to convert value to.
+     * @param vals Collection to add converted value to, {@code null} if value should only be parsed.
+     * @return End of value or {@code -1} if there is no supported value at given position.
+     */
+    private int value(int start, int end, @Nullable Class<?> cls, @Nullable Collection<Object> vals) {
+        Token t = toks.get(start);
+
+        Object val;
+        int valEnd = start + 1;
+
+        if (t.type == PARAM) {
+            int idx = params[start];
+
+            val = args != null && idx < args.length ? args[idx] : null;
+        }
+        else if (t.type == STRING)
+            val = t.text.substring(1, t.text.length() - 1).replace("''", "'");
+        else if (t.type == NUMBER || t.isPunct('-') && start + 1 < end && toks.get(start + 1).type == NUMBER) {
+            valEnd = t.type == NUMBER ? start + 1 : start + 2;
+
+            try {
+                val = new BigDecimal(toks.get(valEnd - 1).text);
+            }
+            catch (NumberFormatException ignored) {
+                return -1;
+            }
+
+            if (t.isPunct('-'))
+                val = ((BigDecimal)val).negate();
+        }
+        else
+            return -1;
+
+        if (vals != null)
+            vals.add(cls != null && val != null ? convert(val, cls) : null);
+
+        return valEnd;
+    }
+
+    /**
+     * @param t Token.
+     * @return {@code True} if token can be table, alias or column name.
+     */
+    private static boolean isName(Token t) {
+        return t.type == IDENT || t.type == QUOTED;
+    }
+
+    /**
+     * @param c Collection.
+     * @param s String.
+     * @return {@code True} if collection contains given string ignoring case.
+     */
+    private static boolean containsIgnoreCase(Iterable<String> c, String s) {
+        for (String e : c) {
+            if (e.equalsIgnoreCase(s))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Converts value to class of column, so it has the same affinity as stored values.
+     *
+     * @param val Value.
+     * @param cls Boxed class.
+     * @return Converted value or {@code null} if value can not be converted.
+     */
+    @Nullable private static Object convert(Object val, Class<?> cls) {
+        // Equal decimals can have different scale and hash code.
+        if (cls == BigDecimal.class)
+            return null;
+
+        if (cls.isInstance(val))
+            return val;
+
+        try {
+            if (val instanceof Number && Number.class.isAssignableFrom(cls)) {
+                BigDecimal d = val instanceof BigDecimal ? (BigDecimal)val : new BigDecimal(val.toString());
+
+                if (cls == Long.class)
+                    return d.longValueExact();
+
+                if (cls == Integer.class)
+                    return d.intValueExact();
+
+                if (cls == Short.class)
+                    return d.shortValueExact();
+
+                if (cls == Byte.class)
+                    return d.byteValueExact();
+
+                if (cls == Double.class)
+                    return d.doubleValue();
+
+                if (cls == Float.class)
+                    return d.floatValue();
+            }
+            else if (val instanceof String && cls == UUID.class)
+                return UUID.fromString((String)val);
+        }
+        catch (IllegalArgumentException | ArithmeticException ignored) {
+            // No-op.
+        }
+
+        return null;
+    }
+}
@@ -767,6 +767,15 @@ public class GridCacheQueryRequest<K, V> extends GridCacheMessage<K, V> implemen
         return 57;
     }
 
+    /**
+     * Requests of different queries are independent and may be striped by request ID.
+     *
+     * @return Ordering key.
+     */
+    @Override public int orderKey() {
+        return (int)(id ^ (id >>> 32));
+    }
+
     /** {@inheritDoc} */
     @Override public String toString() {
         return S.toString(GridCacheQueryRequest.class, this, super.toString());
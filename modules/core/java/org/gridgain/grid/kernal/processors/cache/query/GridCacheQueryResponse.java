@@ -568,6 +568,15 @@ public class GridCacheQueryResponse<K, V> extends GridCacheMessage<K, V> impleme
         return 58;
     }
 
+    /**
+     * Responses to different queries are independent and may be striped by request ID.
+     *
+     * @return Ordering key.
+     */
+    @Override public int orderKey() {
+        return (int)(reqId ^ (reqId >>> 32));
+    }
+
     /** {@inheritDoc} */
     @Override public String toString() {
         return S.toString(GridCacheQueryResponse.class, this);
@@ -53,7 +53,12 @@ public enum GridCacheQueryType {
     /**
      * Text search query.
      */
-    TEXT;
+    TEXT,
+
+    /**
+     * Direct range scan of named index.
+     */
+    INDEX;
 
     /** Enumerated values. */
     private static final GridCacheQueryType[] VALS = values();
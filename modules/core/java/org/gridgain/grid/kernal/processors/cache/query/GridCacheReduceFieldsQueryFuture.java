@@ -0,0 +1,230 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.kernal.processors.cache.query;
+
+import org.gridgain.grid.*;
+import org.gridgain.grid.cache.query.*;
+import org.gridgain.grid.kernal.processors.cache.*;
+import org.gridgain.grid.spi.indexing.*;
+import org.gridgain.grid.util.future.*;
+import org.gridgain.grid.util.typedef.*;
+import org.gridgain.grid.util.typedef.internal.*;
+import org.jetbrains.annotations.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Future of two-step fields query. Fetches results of map query from all nodes page by page and
+ * reduces them on the local node according to {@link GridCacheTwoStepQuery}. Map queries are cancelled
+ * as soon as reduction does not need more rows.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+public class GridCacheReduceFieldsQueryFuture extends GridFutureAdapter<Collection<List<?>>>
+    implements GridCacheQueryFuture<List<?>>, GridCacheQueryMetadataAware {
+    /** Cache context. */
+    private GridCacheContext<?, ?> cctx;
+
+    /** Map query futures. */
+    private Collection<GridCacheQueryFuture<List<?>>> mapFuts;
+
+    /** Two-step query. */
+    private GridCacheTwoStepQuery qry;
+
+    /** Query arguments. */
+    private Object[] args;
+
+    /** Meta data future. */
+    private GridFutureAdapter<List<GridIndexingFieldMetadata>> metaFut;
+
+    /** Iterator over reduced rows. */
+    private Iterator<List<?>> it;
+
+    /** Number of rows not returned by {@link #next()} yet. */
+    private int avail;
+
+    /**
+     * Required by {@link Externalizable}.
+     */
+    public GridCacheReduceFieldsQueryFuture() {
+        // No-op.
+    }
+
+    /**
+     * @param cctx Cache context.
+     * @param mapFuts Map query futures, one per node if two-step query merges sorted results of nodes.
+     * @param qry Two-step query.
+     * @param args Query arguments.
+     * @param incMeta Include metadata flag.
+     */
+    GridCacheReduceFieldsQueryFuture(GridCacheContext<?, ?> cctx, Collection<GridCacheQueryFuture<List<?>>> mapFuts,
+        GridCacheTwoStepQuery qry, @Nullable Object[] args, boolean incMeta) {
+        super(cctx.kernalContext());
+
+        assert !mapFuts.isEmpty();
+        assert F.first(mapFuts) instanceof GridCacheQueryMetadataAware;
+
+        this.cctx = cctx;
+        this.mapFuts = mapFuts;
+        this.qry = qry;
+        this.args = args;
+
+        metaFut = new GridFutureAdapter<>(cctx.kernalContext());
+
+        if (!incMeta)
+            metaFut.onDone();
+    }
+
+    /**
+     * Starts reduction of map query results.
+     */
+    void execute() {
+        if (!metaFut.isDone()) {
+            ((GridCacheQueryMetadataAware)F.first(mapFuts)).metadata().listenAsync(
+                new CI1<GridFuture<List<GridIndexingFieldMetadata>>>() {
+                    @Override public void apply(GridFuture<List<GridIndexingFieldMetadata>> f) {
+                        try {
+                            metaFut.onDone(qry.metadata(f.get()));
+                        }
+                        catch (GridException e) {
+                            metaFut.onDone(e);
+                        }
+                    }
+                });
+        }
+
+        // Fetching pages of map query blocks, so do it in pool.
+        GridFuture<?> f = cctx.closures().runLocalSafe(new Runnable() {
+            @Override public void run() {
+                try {
+                    onDone(qry.reduce(mapFuts, args));
+                }
+                catch (GridException | RuntimeException e) {
+                    onDone(e);
+                }
+                finally {
+                    // Stop map queries which have not been read to the end.
+                    cancelMapQueries();
+                }
+            }
+        }, false);
+
+        f.listenAsync(new CI1<GridFuture<?>>() {
+            @Override public void apply(GridFuture<?> t) {
+                try {
+                    t.get();
+                }
+                catch (GridException e) {
+                    // Task was not executed.
+                    onDone(e);
+                }
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    @Override public synchronized int available() throws GridException {
+        return isDone() ? avail : 0;
+    }
+
+    /** {@inheritDoc} */
+    @Nullable @Override public List<?> next() throws GridException {
+        Collection<List<?>> res = get();
+
+        synchronized (this) {
+            if (it == null)
+                it = res.iterator();
+
+            if (!it.hasNext())
+                return null;
+
+            avail--;
+
+            return it.next();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean onDone(@Nullable Collection<List<?>> res, @Nullable Throwable err) {
+        synchronized (this) {
+            if (res != null && !isDone())
+                avail = res.size();
+        }
+
+        // On success metadata is set by map query metadata listener.
+        if (err != null && !metaFut.isDone())
+            metaFut.onDone(err);
+
+        return super.onDone(res, err);
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean cancel() throws GridException {
+        if (onCancelled()) {
+            cancelMapQueries();
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Cancels map queries which are not done yet.
+     */
+    private void cancelMapQueries() {
+        for (GridCacheQueryFuture<List<?>> mapFut : mapFuts) {
+            if (mapFut.isDone())
+                continue;
+
+            try {
+                mapFut.cancel();
+            }
+            catch (GridException e) {
+                U.error(cctx.logger(GridCacheReduceFieldsQueryFuture.class), "Failed to cancel map query: " +
+                    mapFut, e);
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean onCancelled() {
+        if (!metaFut.isDone())
+            metaFut.onDone();
+
+        return super.onCancelled();
+    }
+
+    /** {@inheritDoc} */
+    @Override public GridFuture<List<GridIndexingFieldMetadata>> metadata() {
+        return metaFut;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return S.toString(GridCacheReduceFieldsQueryFuture.class, this, "qry", qry);
+    }
+}
@@ -0,0 +1,969 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.kernal.processors.cache.query;
+
+import org.gridgain.grid.util.typedef.*;
+import org.gridgain.grid.util.typedef.internal.*;
+import org.jetbrains.annotations.*;
+
+import java.util.*;
+
+import static org.gridgain.grid.kernal.processors.cache.query.GridCacheTwoStepQuery.*;
+
+/**
+ * Splits SQL fields query into map query executed on every node and reduce step executed on the
+ * originating node (see {@link GridCacheTwoStepQuery}).
+ * <p>
+ * Supported queries have form
+ * {@code SELECT [DISTINCT] items FROM ... [WHERE ...] [GROUP BY ...] [ORDER BY ...] [LIMIT n [OFFSET m]]}
+ * where aggregates are top-level {@code SUM}, {@code COUNT}, {@code MIN}, {@code MAX} or {@code AVG}
+ * select items. Query parameters are allowed only in {@code FROM} and {@code WHERE} clauses and as
+ * limit and offset. For all other queries splitter returns {@code null} and query is executed as is.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+final class GridCacheSqlQuerySplitter {
+    /** Identifier or keyword. */
+    static final int IDENT = 0;
+
+    /** Quoted identifier. */
+    static final int QUOTED = 1;
+
+    /** String literal. */
+    static final int STRING = 2;
+
+    /** Number. */
+    static final int NUMBER = 3;
+
+    /** Query parameter. */
+    static final int PARAM = 4;
+
+    /** Punctuation or operator character. */
+    static final int PUNCT = 5;
+
+    /** Aggregate functions which can not be split. */
+    private static final Collection<String> UNSUPPORTED_AGGS = new HashSet<>(F.asList("GROUP_CONCAT",
+        "STDDEV", "STDDEV_POP", "STDDEV_SAMP", "VAR", "VARIANCE", "VAR_POP", "VAR_SAMP", "BOOL_AND", "BOOL_OR",
+        "BIT_AND", "BIT_OR", "EVERY", "SOME", "SELECTIVITY", "HISTOGRAM"));
+
+    /** Keywords which can not precede column alias. */
+    static final Collection<String> KEYWORDS = new HashSet<>(F.asList("AND", "OR", "NOT", "IS", "IN",
+        "LIKE", "REGEXP", "ESCAPE", "BETWEEN", "CASE", "WHEN", "THEN", "ELSE", "AS", "DISTINCT", "ALL", "EXISTS",
+        "END", "NULL", "TRUE", "FALSE"));
+
+    /**
+     * Ensure singleton.
+     */
+    private GridCacheSqlQuerySplitter() {
+        // No-op.
+    }
+
+    /**
+     * @param sql SQL query.
+     * @return Two-step query or {@code null} if query can not be split or does not need reduction.
+     */
+    @Nullable static GridCacheTwoStepQuery split(String sql) {
+        List<Token> toks = tokenize(sql);
+
+        if (toks == null || toks.isEmpty())
+            return null;
+
+        if (F.last(toks).isPunct(';'))
+            toks.remove(toks.size() - 1);
+
+        for (int i = 0; i < toks.size(); i++) {
+            Token t = toks.get(i);
+
+            if (t.isPunct(';'))
+                return null;
+
+            // Numbered parameters break positional argument indexes.
+            if (t.type == PARAM && i + 1 < toks.size() && toks.get(i + 1).type == NUMBER &&
+                toks.get(i + 1).start == t.end)
+                return null;
+        }
+
+        if (!toks.get(0).isKeyword("SELECT"))
+            return null;
+
+        int selStart = 1;
+
+        boolean distinct = false;
+
+        if (selStart < toks.size() && toks.get(selStart).isKeyword("DISTINCT")) {
+            distinct = true;
+
+            selStart++;
+        }
+        else if (selStart < toks.size() && toks.get(selStart).isKeyword("ALL"))
+            selStart++;
+
+        int from = -1;
+        int where = -1;
+        int grp = -1;
+        int order = -1;
+        int limit = -1;
+        int off = -1;
+
+        int last = 0;
+
+        for (int i = selStart; i < toks.size(); i++) {
+            Token t = toks.get(i);
+
+            if (t.depth != 0 || t.type != IDENT)
+                continue;
+
+            int pos;
+
+            switch (t.text) {
+                case "FROM":
+                    pos = from = i;
+
+                    break;
+
+                case "WHERE":
+                    pos = where = i;
+
+                    break;
+
+                case "GROUP":
+                    if (i + 1 == toks.size() || !toks.get(i + 1).isKeyword("BY"))
+                        return null;
+
+                    pos = grp = i;
+
+                    break;
+
+                case "ORDER":
+                    if (i + 1 == toks.size() || !toks.get(i + 1).isKeyword("BY"))
+                        return null;
+
+                    pos = order = i;
+
+                    break;
+
+                case "LIMIT":
+                    pos = limit = i;
+
+                    break;
+
+                case "OFFSET":
+                    if (limit < 0)
+                        return null;
+
+                    pos = off = i;
+
+                    break;
+
+                case "TOP":
+                case "HAVING":
+                case "UNION":
+                case "INTERSECT":
+                case "EXCEPT":
+                case "MINUS":
+                case "FOR":
+                case "FETCH":
+                case "SAMPLE_SIZE":
+                    return null;
+
+                default:
+                    continue;
+            }
+
+            // Clauses must go in standard order and appear once.
+            if (pos <= last || from < 0)
+                return null;
+
+            last = pos;
+        }
+
+        if (from < 0)
+            return null;
+
+        int[] clauses = {from, where, grp, order, limit, off};
+
+        int fromEnd = clauseEnd(new int[] {grp, order, limit}, from, toks.size());
+
+        // Parameters are allowed only in FROM and WHERE clauses.
+        int params = 0;
+
+        for (int i = 0; i < toks.size(); i++) {
+            if (toks.get(i).type == PARAM) {
+                if (i < from || i >= fromEnd && i != limit + 1 && i != off + 1)
+                    return null;
+
+                if (i < fromEnd)
+                    params++;
+            }
+        }
+
+        List<Item> items = new ArrayList<>();
+
+        for (int[] r : splitByCommas(toks, selStart, from)) {
+            Item item = item(sql, toks, r[0], r[1]);
+
+            if (item == null)
+                return null;
+
+            items.add(item);
+        }
+
+        if (items.isEmpty())
+            return null;
+
+        List<int[]> grpExprs = grp >= 0 ? splitByCommas(toks, grp + 2, clauseEnd(clauses, grp, toks.size())) :
+            Collections.<int[]>emptyList();
+
+        List<int[]> sortExprs = new ArrayList<>();
+        List<Boolean> descs = new ArrayList<>();
+        List<Boolean> nullsFirst = new ArrayList<>();
+
+        if (order >= 0) {
+            for (int[] r : splitByCommas(toks, order + 2, clauseEnd(clauses, order, toks.size()))) {
+                int end = r[1];
+
+                Boolean nf = null;
+
+                if (end - r[0] > 2 && toks.get(end - 2).isKeyword("NULLS")) {
+                    if (toks.get(end - 1).isKeyword("FIRST"))
+                        nf = true;
+                    else if (toks.get(end - 1).isKeyword("LAST"))
+                        nf = false;
+                    else
+                        return null;
+
+                    end -= 2;
+                }
+
+                boolean desc = false;
+
+                if (end - r[0] > 1 && (toks.get(end - 1).isKeyword("ASC") || toks.get(end - 1).isKeyword("DESC"))) {
+                    desc = toks.get(end - 1).isKeyword("DESC");
+
+                    end--;
+                }
+
+                if (containsAggregate(toks, r[0], end) && !matchesAggregate(items, toks, r[0], end))
+                    return null;
+
+                sortExprs.add(new int[] {r[0], end});
+                descs.add(desc);
+                nullsFirst.add(nf != null ? nf : !desc);
+            }
+        }
+
+        long lim = -1;
+        int limArg = -1;
+        long offVal = 0;
+        int offArg = -1;
+
+        if (limit >= 0) {
+            Token t = single(toks, limit + 1, off >= 0 ? off : toks.size());
+
+            if (t == null)
+                return null;
+
+            if (t.type == PARAM)
+                limArg = params;
+            else if ((lim = number(t)) < 0)
+                return null;
+
+            if (off >= 0) {
+                Token o = single(toks, off + 1, toks.size());
+
+                if (o == null)
+                    return null;
+
+                if (o.type == PARAM)
+                    offArg = limArg >= 0 ? params + 1 : params;
+                else if ((offVal = number(o)) < 0)
+                    return null;
+            }
+        }
+
+        boolean aggregate = grp >= 0;
+
+        for (Item item : items)
+            aggregate |= item.agg != null;
+
+        String fromText = text(sql, toks, from, fromEnd);
+
+        int[] sortCols = new int[sortExprs.size()];
+        boolean[] desc = new boolean[sortCols.length];
+        boolean[] nf = new boolean[sortCols.length];
+
+        for (int i = 0; i < sortCols.length; i++) {
+            desc[i] = descs.get(i);
+            nf[i] = nullsFirst.get(i);
+        }
+
+        List<String> hidden = new ArrayList<>();
+
+        if (!aggregate) {
+            if (order < 0 && limit < 0 && !distinct)
+                return null;
+
+            boolean star = false;
+
+            for (Item item : items)
+                star |= item.star;
+
+            for (int i = 0; i < sortCols.length; i++) {
+                int[] r = sortExprs.get(i);
+
+                int idx = visibleIndex(items, toks, r[0], r[1]);
+
+                if (idx == -2)
+                    return null;
+
+                if (idx >= 0 && !star)
+                    sortCols[i] = idx;
+                else {
+                    // Position of visible column is unknown if select list contains '*'.
+                    if (distinct || isOrdinal(toks, r[0], r[1]))
+                        return null;
+
+                    hidden.add(idx >= 0 ? items.get(idx).expr : text(sql, toks, r[0], r[1]));
+
+                    sortCols[i] = -hidden.size();
+                }
+            }
+
+            SB map = new SB("SELECT ");
+
+            if (distinct)
+                map.a("DISTINCT ");
+
+            map.a(text(sql, toks, selStart, from));
+
+            for (String h : hidden)
+                map.a(", ").a(h);
+
+            map.a(' ').a(fromText);
+
+            if (order >= 0)
+                map.a(" ORDER BY ").a(text(sql, toks, order + 2, clauseEnd(clauses, order, toks.size())));
+
+            if (limit >= 0) {
+                String limText = text(sql, toks, limit + 1, limit + 2);
+
+                map.a(" LIMIT ");
+
+                if (off >= 0)
+                    map.a('(').a(limText).a(") + (").a(text(sql, toks, off + 1, off + 2)).a(')');
+                else
+                    map.a(limText);
+            }
+
+            fixHidden(sortCols, hidden.size());
+
+            // Map query keeps limit and offset parameters, so it uses all arguments.
+            return new GridCacheTwoStepQuery(map.toString(), -1, hidden.size(), null, null, null, new int[0],
+                sortCols, desc, nf, distinct, lim, limArg, offVal, offArg);
+        }
+
+        List<String> grpNorm = new ArrayList<>(grpExprs.size());
+
+        for (int[] r : grpExprs) {
+            if (isOrdinal(toks, r[0], r[1]) || containsAggregate(toks, r[0], r[1]))
+                return null;
+
+            grpNorm.add(normalize(toks, r[0], r[1]));
+        }
+
+        Aggregate[] aggs = new Aggregate[items.size()];
+        String[] labels = new String[items.size()];
+        List<Integer> avgCnts = new ArrayList<>();
+        List<String> mapItems = new ArrayList<>(items.size());
+
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+
+            if (item.star)
+                return null;
+
+            aggs[i] = item.agg;
+            labels[i] = item.alias != null ? item.alias : item.text;
+
+            if (item.agg == null) {
+                if (!grpNorm.contains(item.norm) && (item.alias == null || !grpNorm.contains(item.alias)))
+                    return null;
+
+                mapItems.add(item.text);
+            }
+            else if (item.agg == Aggregate.AVG) {
+                mapItems.add("SUM(" + item.args + ')');
+
+                hidden.add("COUNT(" + item.args + ')');
+
+                avgCnts.add(-hidden.size());
+            }
+            else
+                mapItems.add(item.text);
+        }
+
+        int[] grpCols = new int[grpExprs.size()];
+
+        for (int i = 0; i < grpCols.length; i++) {
+            int idx = -1;
+
+            for (int j = 0; j < items.size() && idx < 0; j++) {
+                Item item = items.get(j);
+
+                if (item.agg == null && (grpNorm.get(i).equals(item.norm) || grpNorm.get(i).equals(item.alias)))
+                    idx = j;
+            }
+
+            if (idx < 0) {
+                hidden.add(text(sql, toks, grpExprs.get(i)[0], grpExprs.get(i)[1]));
+
+                idx = -hidden.size();
+            }
+
+            grpCols[i] = idx;
+        }
+
+        for (int i = 0; i < sortCols.length; i++) {
+            int[] r = sortExprs.get(i);
+
+            int idx = visibleIndex(items, toks, r[0], r[1]);
+
+            if (idx == -2)
+                return null;
+
+            if (idx < 0) {
+                int g = grpNorm.indexOf(normalize(toks, r[0], r[1]));
+
+                if (g < 0)
+                    return null;
+
+                idx = grpCols[g];
+            }
+
+            sortCols[i] = idx;
+        }
+
+        SB map = new SB("SELECT ");
+
+        for (int i = 0; i < mapItems.size(); i++)
+            map.a(i == 0 ? "" : ", ").a(mapItems.get(i));
+
+        for (String h : hidden)
+            map.a(", ").a(h);
+
+        map.a(' ').a(fromText);
+
+        if (grp >= 0)
+            map.a(" GROUP BY ").a(text(sql, toks, grp + 2, clauseEnd(clauses, grp, toks.size())));
+
+        int[] avg = new int[avgCnts.size()];
+
+        for (int i = 0; i < avg.length; i++)
+            avg[i] = avgCnts.get(i);
+
+        fixHidden(avg, hidden.size());
+        fixHidden(grpCols, hidden.size());
+        fixHidden(sortCols, hidden.size());
+
+        // Limit and offset are applied on reduce only, so map query uses arguments of FROM and WHERE clauses.
+        return new GridCacheTwoStepQuery(map.toString(), params, hidden.size(), aggs, avg, labels, grpCols,
+            sortCols, desc, nf, distinct, lim, limArg, offVal, offArg);
+    }
+
+    /**
+     * Converts references to hidden columns in order of addition ({@code -1} is the first one)
+     * to references from the end of the row.
+     *
+     * @param refs Column references.
+     * @param hidden Number of hidden columns.
+     */
+    private static void fixHidden(int[] refs, int hidden) {
+        for (int i = 0; i < refs.length; i++) {
+            if (refs[i] < 0)
+                refs[i] = -(hidden + refs[i] + 1);
+        }
+    }
+
+    /**
+     * @param clauses Clause start indexes, {@code -1} for absent clauses.
+     * @param start Clause start index.
+     * @param size Number of tokens.
+     * @return Index of first token after clause.
+     */
+    private static int clauseEnd(int[] clauses, int start, int size) {
+        int end = size;
+
+        for (int c : clauses) {
+            if (c > start && c < end)
+                end = c;
+        }
+
+        return end;
+    }
+
+    /**
+     * Finds visible select item for sort expression.
+     *
+     * @param items Select items.
+     * @param toks Tokens.
+     * @param start Expression start.
+     * @param end Expression end.
+     * @return Item index, {@code -1} if not found or {@code -2} if ordinal is out of range.
+     */
+    private static int visibleIndex(List<Item> items, List<Token> toks, int start, int end) {
+        if (isOrdinal(toks, start, end)) {
+            long ord = number(toks.get(start));
+
+            return ord >= 1 && ord <= items.size() && !items.get((int)ord - 1).star ? (int)ord - 1 : -2;
+        }
+
+        String norm = normalize(toks, start, end);
+
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+
+            if (norm.equals(item.alias) || !item.star && norm.equals(item.norm))
+                return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param items Select items.
+     * @param toks Tokens.
+     * @param start Expression start.
+     * @param end Expression end.
+     * @return {@code True} if expression is an aggregate select item or a reference to it.
+     */
+    private static boolean matchesAggregate(List<Item> items, List<Token> toks, int start, int end) {
+        int idx = visibleIndex(items, toks, start, end);
+
+        return idx >= 0 && items.get(idx).agg != null;
+    }
+
+    /**
+     * @param sql SQL.
+     * @param toks Tokens.
+     * @param start Item start.
+     * @param end Item end.
+     * @return Select item or {@code null} if it is not supported.
+     */
+    @Nullable private static Item item(String sql, List<Token> toks, int start, int end) {
+        if (start >= end)
+            return null;
+
+        Item item = new Item();
+
+        item.text = text(sql, toks, start, end);
+
+        int exprEnd = end;
+
+        Token lastTok = toks.get(end - 1);
+
+        if (end - start >= 3 && toks.get(end - 2).isKeyword("AS")) {
+            if (lastTok.type != IDENT && lastTok.type != QUOTED)
+                return null;
+
+            item.alias = lastTok.text;
+
+            exprEnd = end - 2;
+        }
+        else if (end - start >= 2 && (lastTok.type == QUOTED || lastTok.type == IDENT &&
+            !KEYWORDS.contains(lastTok.text))) {
+            Token prev = toks.get(end - 2);
+
+            if (prev.isPunct(')') || prev.type == QUOTED || prev.type == NUMBER || prev.type == STRING ||
+                prev.type == IDENT && (!KEYWORDS.contains(prev.text) || prev.isKeyword("END") ||
+                prev.isKeyword("NULL") || prev.isKeyword("TRUE") || prev.isKeyword("FALSE"))) {
+                item.alias = lastTok.text;
+
+                exprEnd = end - 1;
+            }
+        }
+
+        item.expr = text(sql, toks, start, exprEnd);
+        item.norm = normalize(toks, start, exprEnd);
+
+        Token first = toks.get(start);
+
+        if (toks.get(exprEnd - 1).isPunct('*') && (exprEnd - start == 1 ||
+            exprEnd - start == 3 && toks.get(start + 1).isPunct('.'))) {
+            item.star = true;
+
+            return item;
+        }
+
+        if (first.type == IDENT && exprEnd - start >= 3 && toks.get(start + 1).isPunct('(') &&
+            closing(toks, start + 1) == exprEnd - 1) {
+            Aggregate agg = null;
+
+            for (Aggregate a : Aggregate.values()) {
+                if (a.name().equals(first.text))
+                    agg = a;
+            }
+
+            if (agg != null) {
+                // Distinct aggregates can not be merged.
+                if (toks.get(start + 2).isKeyword("DISTINCT") || containsAggregate(toks, start + 2, exprEnd - 1))
+                    return null;
+
+                item.agg = agg;
+                item.args = text(sql, toks, start + 2, exprEnd - 1);
+
+                if (item.args.isEmpty())
+                    return null;
+
+                return item;
+            }
+        }
+
+        // Aggregates nested in expressions are not supported.
+        return containsAggregate(toks, start, exprEnd) ? null : item;
+    }
+
+    /**
+     * @param toks Tokens.
+     * @param open Index of opening parenthesis.
+     * @return Index of matching closing parenthesis.
+     */
+    private static int closing(List<Token> toks, int open) {
+        int depth = toks.get(open).depth;
+
+        for (int i = open + 1; i < toks.size(); i++) {
+            Token t = toks.get(i);
+
+            if (t.depth == depth && t.isPunct(')'))
+                return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param toks Tokens.
+     * @param start Start index.
+     * @param end End index.
+     * @return {@code True} if range contains aggregate function call.
+     */
+    private static boolean containsAggregate(List<Token> toks, int start, int end) {
+        for (int i = start; i < end - 1; i++) {
+            Token t = toks.get(i);
+
+            if (t.type == IDENT && toks.get(i + 1).isPunct('(')) {
+                if (UNSUPPORTED_AGGS.contains(t.text))
+                    return true;
+
+                for (Aggregate a : Aggregate.values()) {
+                    if (a.name().equals(t.text))
+                        return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @param toks Tokens.
+     * @param start Start index.
+     * @param end End index.
+     * @return {@code True} if range is a column ordinal.
+     */
+    private static boolean isOrdinal(List<Token> toks, int start, int end) {
+        return end - start == 1 && toks.get(start).type == NUMBER;
+    }
+
+    /**
+     * @param toks Tokens.
+     * @param start Start index.
+     * @param end End index.
+     * @return Single number or parameter token or {@code null}.
+     */
+    @Nullable private static Token single(List<Token> toks, int start, int end) {
+        if (end - start != 1)
+            return null;
+
+        Token t = toks.get(start);
+
+        return t.type == NUMBER || t.type == PARAM ? t : null;
+    }
+
+    /**
+     * @param t Number token.
+     * @return Non-negative integer value or {@code -1}.
+     */
+    private static long number(Token t) {
+        try {
+            return Long.parseLong(t.text);
+        }
+        catch (NumberFormatException ignored) {
+            return -1;
+        }
+    }
+
+    /**
+     * @param toks Tokens.
+     * @param start Start index.
+     * @param end End index.
+     * @return Ranges of top level comma separated items.
+     */
+    private static List<int[]> splitByCommas(List<Token> toks, int start, int end) {
+        List<int[]> res = new ArrayList<>();
+
+        if (start >= end)
+            return res;
+
+        int itemStart = start;
+
+        for (int i = start; i < end; i++) {
+            Token t = toks.get(i);
+
+            if (t.depth == 0 && t.isPunct(',')) {
+                res.add(new int[] {itemStart, i});
+
+                itemStart = i + 1;
+            }
+        }
+
+        res.add(new int[] {itemStart, end});
+
+        return res;
+    }
+
+    /**
+     * @param sql SQL.
+     * @param toks Tokens.
+     * @param start Start index.
+     * @param end End index.
+     * @return Original text of tokens range.
+     */
+    private static String text(String sql, List<Token> toks, int start, int end) {
+        return start >= end ? "" : sql.substring(toks.get(start).start, toks.get(end - 1).end);
+    }
+
+    /**
+     * @param toks Tokens.
+     * @param start Start index.
+     * @param end End index.
+     * @return Text of tokens range suitable for comparison.
+     */
+    private static String normalize(List<Token> toks, int start, int end) {
+        SB sb = new SB();
+
+        for (int i = start; i < end; i++) {
+            if (i > start)
+                sb.a(' ');
+
+            sb.a(toks.get(i).text);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @param sql SQL.
+     * @return Tokens or {@code null} if query is malformed.
+     */
+    @Nullable static List<Token> tokenize(String sql) {
+        List<Token> res = new ArrayList<>();
+
+        int depth = 0;
+        int len = sql.length();
+
+        for (int i = 0; i < len;) {
+            char c = sql.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+
+                continue;
+            }
+
+            if (c == '-' && i + 1 < len && sql.charAt(i + 1) == '-') {
+                int e = sql.indexOf('\n', i);
+
+                i = e < 0 ? len : e + 1;
+
+                continue;
+            }
+
+            if (c == '/' && i + 1 < len && sql.charAt(i + 1) == '*') {
+                int e = sql.indexOf("*/", i + 2);
+
+                if (e < 0)
+                    return null;
+
+                i = e + 2;
+
+                continue;
+            }
+
+            int start = i;
+
+            int type;
+            String text;
+
+            if (c == '\'' || c == '"') {
+                i = closingQuote(sql, i);
+
+                if (i < 0)
+                    return null;
+
+                type = c == '\'' ? STRING : QUOTED;
+                text = c == '\'' ? sql.substring(start, i) : sql.substring(start + 1, i - 1).replace("\"\"", "\"");
+            }
+            else if (Character.isLetter(c) || c == '_' || c == '$') {
+                while (i < len && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_' ||
+                    sql.charAt(i) == '$'))
+                    i++;
+
+                type = IDENT;
+                text = sql.substring(start, i).toUpperCase();
+            }
+            else if (Character.isDigit(c) || c == '.' && i + 1 < len && Character.isDigit(sql.charAt(i + 1))) {
+                while (i < len && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.'))
+                    i++;
+
+                type = NUMBER;
+                text = sql.substring(start, i);
+            }
+            else {
+                i++;
+
+                type = c == '?' ? PARAM : PUNCT;
+                text = String.valueOf(c);
+            }
+
+            if (type == PUNCT && c == ')' && --depth < 0)
+                return null;
+
+            res.add(new Token(type, start, i, depth, text));
+
+            if (type == PUNCT && c == '(')
+                depth++;
+        }
+
+        return depth == 0 ? res : null;
+    }
+
+    /**
+     * @param sql SQL.
+     * @param start Index of opening quote.
+     * @return Index after closing quote or {@code -1}.
+     */
+    private static int closingQuote(String sql, int start) {
+        char q = sql.charAt(start);
+
+        for (int i = start + 1; i < sql.length(); i++) {
+            if (sql.charAt(i) == q) {
+                // Doubled quote is an escaped one.
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == q)
+                    i++;
+                else
+                    return i + 1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * SQL token.
+     */
+    static class Token {
+        /** Type. */
+        final int type;
+
+        /** Start offset. */
+        final int start;
+
+        /** End offset. */
+        final int end;
+
+        /** Parentheses depth. */
+        final int depth;
+
+        /** Normalized text. */
+        final String text;
+
+        /**
+         * @param type Type.
+         * @param start Start offset.
+         * @param end End offset.
+         * @param depth Parentheses depth.
+         * @param text Normalized text.
+         */
+        private Token(int type, int start, int end, int depth, String text) {
+            this.type = type;
+            this.start = start;
+            this.end = end;
+            this.depth = depth;
+            this.text = text;
+        }
+
+        /**
+         * @param kw Keyword in upper case.
+         * @return {@code True} if token is the given keyword.
+         */
+        boolean isKeyword(String kw) {
+            return type == IDENT && text.equals(kw);
+        }
+
+        /**
+         * @param c Character.
+         * @return {@code True} if token is the given punctuation character.
+         */
+        boolean isPunct(char c) {
+            return type == PUNCT && text.charAt(0) == c;
+        }
+    }
+
+    /**
+     * Select item.
+     */
+    private static class Item {
+        /** Original text. */
+        private String text;
+
+        /** Original text of expression without alias. */
+        private String expr;
+
+        /** Normalized expression. */
+        private String norm;
+
+        /** Normalized alias. */
+        private String alias;
+
+        /** Aggregate. */
+        private Aggregate agg;
+
+        /** Original text of aggregate arguments. */
+        private String args;
+
+        /** Whether item is '*' or 't.*'. */
+        private boolean star;
+    }
+}
@@ -0,0 +1,610 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.kernal.processors.cache.query;
+
+import org.gridgain.grid.*;
+import org.gridgain.grid.cache.query.*;
+import org.gridgain.grid.lang.*;
+import org.gridgain.grid.spi.indexing.*;
+import org.gridgain.grid.util.typedef.internal.*;
+import org.jetbrains.annotations.*;
+
+import java.io.*;
+import java.math.*;
+import java.util.*;
+
+/**
+ * Two-step plan of SQL fields query produced by {@link GridCacheSqlQuerySplitter}. Map query is executed
+ * on every node, results are reduced on the originating node: partial aggregates are merged by groups,
+ * rows are sorted, deduplicated and limited. Sorted results of non-aggregating queries are merged from
+ * per-node results, which are already sorted by map query, and are fetched only as far as limit requires.
+ * <p>
+ * Map query returns visible columns of original query followed by hidden columns which are needed only
+ * for reduction (group expressions and sort expressions absent in select list, row counts of {@code AVG}).
+ * Hidden columns are addressed from the end of the row, so number of visible columns may be unknown
+ * (e.g. for {@code SELECT *}).
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+class GridCacheTwoStepQuery {
+    /** Aggregate function. */
+    enum Aggregate {
+        /** */
+        SUM,
+
+        /** */
+        COUNT,
+
+        /** */
+        MIN,
+
+        /** */
+        MAX,
+
+        /** */
+        AVG
+    }
+
+    /** Map query. */
+    private final String mapQry;
+
+    /** Number of leading query arguments used by map query or {@code -1} if map query uses all of them. */
+    private final int mapArgs;
+
+    /** Number of hidden columns. */
+    private final int hidden;
+
+    /** Aggregates of visible columns, {@code null} if query is not aggregating. */
+    private final Aggregate[] aggs;
+
+    /** Column references of row counts for {@code AVG} columns. */
+    private final int[] avgCnts;
+
+    /** Column references of group expressions. */
+    private final int[] grpCols;
+
+    /** Column references of sort expressions. */
+    private final int[] sortCols;
+
+    /** Descending sort flags. */
+    private final boolean[] desc;
+
+    /** Nulls first flags. */
+    private final boolean[] nullsFirst;
+
+    /** Distinct flag. */
+    private final boolean distinct;
+
+    /** Limit or {@code -1}. */
+    private final long limit;
+
+    /** Index of argument holding limit or {@code -1}. */
+    private final int limitArg;
+
+    /** Offset. */
+    private final long off;
+
+    /** Index of argument holding offset or {@code -1}. */
+    private final int offArg;
+
+    /** Visible column labels, used for metadata of rewritten columns. */
+    private final String[] labels;
+
+    /**
+     * @param mapQry Map query.
+     * @param mapArgs Number of leading query arguments used by map query or {@code -1} if all.
+     * @param hidden Number of hidden columns.
+     * @param aggs Aggregates of visible columns or {@code null} if query is not aggregating.
+     * @param avgCnts Column references of row counts for {@code AVG} columns.
+     * @param labels Visible column labels.
+     * @param grpCols Column references of group expressions.
+     * @param sortCols Column references of sort expressions.
+     * @param desc Descending sort flags.
+     * @param nullsFirst Nulls first flags.
+     * @param distinct Distinct flag.
+     * @param limit Limit or {@code -1}.
+     * @param limitArg Index of argument holding limit or {@code -1}.
+     * @param off Offset.
+     * @param offArg Index of argument holding offset or {@code -1}.
+     */
+    GridCacheTwoStepQuery(String mapQry, int mapArgs, int hidden, @Nullable Aggregate[] aggs, @Nullable int[] avgCnts,
+        @Nullable String[] labels, int[] grpCols, int[] sortCols, boolean[] desc, boolean[] nullsFirst,
+        boolean distinct, long limit, int limitArg, long off, int offArg) {
+        assert mapQry != null;
+        assert sortCols.length == desc.length && sortCols.length == nullsFirst.length;
+
+        this.mapQry = mapQry;
+        this.mapArgs = mapArgs;
+        this.hidden = hidden;
+        this.aggs = aggs;
+        this.avgCnts = avgCnts;
+        this.labels = labels;
+        this.grpCols = grpCols;
+        this.sortCols = sortCols;
+        this.desc = desc;
+        this.nullsFirst = nullsFirst;
+        this.distinct = distinct;
+        this.limit = limit;
+        this.limitArg = limitArg;
+        this.off = off;
+        this.offArg = offArg;
+    }
+
+    /**
+     * @return Map query.
+     */
+    String mapQuery() {
+        return mapQry;
+    }
+
+    /**
+     * @param args Query arguments.
+     * @return Arguments of map query.
+     */
+    @Nullable Object[] mapArguments(@Nullable Object[] args) {
+        return args == null || mapArgs < 0 || args.length <= mapArgs ? args : Arrays.copyOf(args, mapArgs);
+    }
+
+    /**
+     * @return {@code True} if map query must be executed on every node separately, so that sorted
+     *      results of nodes can be merged.
+     */
+    boolean merging() {
+        return aggs == null && sortCols.length > 0;
+    }
+
+    /**
+     * Reduces rows returned by map queries. Rows are fetched from map query futures page by page,
+     * and no more rows are fetched once limit is reached.
+     *
+     * @param srcs Map query futures, one per node if {@link #merging()} returns {@code true}.
+     * @param args Query arguments.
+     * @return Final rows.
+     * @throws GridException If limit or offset argument is invalid or map query failed.
+     */
+    Collection<List<?>> reduce(Collection<? extends GridCacheQueryFuture<List<?>>> srcs, @Nullable Object[] args)
+        throws GridException {
+        long lim = limitArg >= 0 ? longArgument(args, limitArg) : limit;
+        long skip = offArg >= 0 ? longArgument(args, offArg) : off;
+
+        Collection<List<?>> out = distinct ? new LinkedHashSet<List<?>>() : new ArrayList<List<?>>();
+
+        if (lim == 0)
+            return out;
+
+        if (aggs != null) {
+            List<List<?>> res = aggregate(srcs);
+
+            if (sortCols.length > 0)
+                Collections.sort(res, new RowComparator());
+
+            for (List<?> row : res) {
+                if (!add(out, row, lim, skip))
+                    break;
+            }
+        }
+        else if (merging()) {
+            final Comparator<List<?>> cmp = new RowComparator();
+
+            // K-way merge of sorted results of nodes.
+            Queue<GridBiTuple<List<?>, GridCacheQueryFuture<List<?>>>> heads = new PriorityQueue<>(
+                Math.max(1, srcs.size()), new Comparator<GridBiTuple<List<?>, GridCacheQueryFuture<List<?>>>>() {
+                    @Override public int compare(GridBiTuple<List<?>, GridCacheQueryFuture<List<?>>> h1,
+                        GridBiTuple<List<?>, GridCacheQueryFuture<List<?>>> h2) {
+                        return cmp.compare(h1.get1(), h2.get1());
+                    }
+                });
+
+            for (GridCacheQueryFuture<List<?>> src : srcs) {
+                List<?> row = src.next();
+
+                if (row != null)
+                    heads.add(new GridBiTuple<List<?>, GridCacheQueryFuture<List<?>>>(row, src));
+            }
+
+            while (!heads.isEmpty()) {
+                GridBiTuple<List<?>, GridCacheQueryFuture<List<?>>> h = heads.poll();
+
+                if (!add(out, h.get1(), lim, skip))
+                    break;
+
+                List<?> row = h.get2().next();
+
+                if (row != null) {
+                    h.set1(row);
+
+                    heads.add(h);
+                }
+            }
+        }
+        else {
+            outer:
+            for (GridCacheQueryFuture<List<?>> src : srcs) {
+                for (List<?> row = src.next(); row != null; row = src.next()) {
+                    if (!add(out, row, lim, skip))
+                        break outer;
+                }
+            }
+        }
+
+        if (skip <= 0)
+            return out;
+
+        Collection<List<?>> page = new ArrayList<>(out.size());
+
+        int i = 0;
+
+        for (List<?> row : out) {
+            if (i++ >= skip)
+                page.add(row);
+        }
+
+        return page;
+    }
+
+    /**
+     * Adds visible columns of row to result.
+     *
+     * @param out Result.
+     * @param row Row.
+     * @param lim Limit or negative value if there is no limit.
+     * @param skip Offset.
+     * @return {@code False} if result is complete and no more rows are needed.
+     */
+    private boolean add(Collection<List<?>> out, List<?> row, long lim, long skip) {
+        out.add(hidden == 0 ? row : new ArrayList<>(row.subList(0, row.size() - hidden)));
+
+        return lim < 0 || out.size() < skip + lim;
+    }
+
+    /**
+     * Merges partial aggregates by groups.
+     *
+     * @param srcs Map query futures.
+     * @return Aggregated rows including hidden columns.
+     * @throws GridException If map query failed.
+     */
+    private List<List<?>> aggregate(Collection<? extends GridCacheQueryFuture<List<?>>> srcs)
+        throws GridException {
+        Map<List<Object>, Object[]> grps = new LinkedHashMap<>();
+
+        for (GridCacheQueryFuture<List<?>> src : srcs) {
+            for (List<?> row = src.next(); row != null; row = src.next()) {
+                List<Object> key = new ArrayList<>(grpCols.length);
+
+                for (int col : grpCols)
+                    key.add(column(row, col));
+
+                Object[] acc = grps.get(key);
+
+                if (acc == null) {
+                    grps.put(key, row.toArray());
+
+                    continue;
+                }
+
+                for (int i = 0; i < aggs.length; i++) {
+                    if (aggs[i] != null)
+                        acc[i] = merge(aggs[i] == Aggregate.AVG ? Aggregate.SUM : aggs[i], acc[i], row.get(i));
+                }
+
+                for (int col : avgCnts)
+                    acc[acc.length + col] = merge(Aggregate.COUNT, acc[acc.length + col], row.get(row.size() + col));
+            }
+        }
+
+        // Aggregation without grouping always returns one row.
+        if (grps.isEmpty() && grpCols.length == 0) {
+            Object[] acc = new Object[aggs.length + hidden];
+
+            for (int i = 0; i < aggs.length; i++)
+                acc[i] = aggs[i] == Aggregate.COUNT ? 0L : null;
+
+            for (int col : avgCnts)
+                acc[acc.length + col] = 0L;
+
+            grps.put(Collections.<Object>emptyList(), acc);
+        }
+
+        List<List<?>> res = new ArrayList<>(grps.size());
+
+        for (Object[] acc : grps.values()) {
+            for (int i = 0, j = 0; i < aggs.length; i++) {
+                if (aggs[i] == Aggregate.AVG)
+                    acc[i] = average(acc[i], acc[acc.length + avgCnts[j++]]);
+            }
+
+            res.add(Arrays.asList(acc));
+        }
+
+        return res;
+    }
+
+    /**
+     * @param mapMeta Metadata of map query.
+     * @return Metadata of final result.
+     */
+    @Nullable List<GridIndexingFieldMetadata> metadata(@Nullable List<GridIndexingFieldMetadata> mapMeta) {
+        if (mapMeta == null)
+            return null;
+
+        List<GridIndexingFieldMetadata> res = new ArrayList<>(mapMeta.subList(0, mapMeta.size() - hidden));
+
+        if (aggs != null) {
+            for (int i = 0; i < aggs.length && i < res.size(); i++) {
+                if (aggs[i] == Aggregate.AVG) {
+                    GridIndexingFieldMetadata m = res.get(i);
+
+                    String type = BigDecimal.class.getName().equals(m.fieldTypeName()) ?
+                        BigDecimal.class.getName() : Double.class.getName();
+
+                    res.set(i, new FieldMetadata(m.schemaName(), m.typeName(), labels[i], type));
+                }
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * @param row Row.
+     * @param col Column reference, negative references address hidden columns from the end of the row.
+     * @return Column value.
+     */
+    private static Object column(List<?> row, int col) {
+        return row.get(col >= 0 ? col : row.size() + col);
+    }
+
+    /**
+     * @param args Arguments.
+     * @param idx Argument index.
+     * @return Argument value.
+     * @throws GridException If argument is not a number.
+     */
+    private static long longArgument(@Nullable Object[] args, int idx) throws GridException {
+        Object arg = args != null && idx < args.length ? args[idx] : null;
+
+        if (arg == null)
+            return -1;
+
+        if (!(arg instanceof Number))
+            throw new GridException("Limit and offset arguments must be numbers: " + arg);
+
+        return ((Number)arg).longValue();
+    }
+
+    /**
+     * @param agg Aggregate.
+     * @param a Accumulated value.
+     * @param b Partial value.
+     * @return Merged value.
+     */
+    @Nullable private static Object merge(Aggregate agg, @Nullable Object a, @Nullable Object b) {
+        if (a == null)
+            return b;
+
+        if (b == null)
+            return a;
+
+        switch (agg) {
+            case MIN:
+                return compare(a, b) <= 0 ? a : b;
+
+            case MAX:
+                return compare(a, b) >= 0 ? a : b;
+
+            default:
+                return add((Number)a, (Number)b);
+        }
+    }
+
+    /**
+     * @param a First number.
+     * @param b Second number.
+     * @return Sum of the same type as arguments.
+     */
+    private static Number add(Number a, Number b) {
+        if (a instanceof BigDecimal || b instanceof BigDecimal)
+            return decimal(a).add(decimal(b));
+
+        if (a instanceof Double || a instanceof Float || b instanceof Double || b instanceof Float)
+            return a.doubleValue() + b.doubleValue();
+
+        if (a instanceof BigInteger || b instanceof BigInteger)
+            return decimal(a).add(decimal(b)).toBigInteger();
+
+        if (a instanceof Long || b instanceof Long)
+            return a.longValue() + b.longValue();
+
+        return a.intValue() + b.intValue();
+    }
+
+    /**
+     * @param sum Sum.
+     * @param cnt Count.
+     * @return Average.
+     */
+    @Nullable private static Object average(@Nullable Object sum, @Nullable Object cnt) {
+        long n = cnt == null ? 0 : ((Number)cnt).longValue();
+
+        if (sum == null || n == 0)
+            return null;
+
+        if (sum instanceof BigDecimal)
+            return ((BigDecimal)sum).divide(BigDecimal.valueOf(n), MathContext.DECIMAL128);
+
+        return ((Number)sum).doubleValue() / n;
+    }
+
+    /**
+     * @param n Number.
+     * @return Decimal.
+     */
+    private static BigDecimal decimal(Number n) {
+        if (n instanceof BigDecimal)
+            return (BigDecimal)n;
+
+        if (n instanceof BigInteger)
+            return new BigDecimal((BigInteger)n);
+
+        if (n instanceof Double || n instanceof Float)
+            return BigDecimal.valueOf(n.doubleValue());
+
+        return BigDecimal.valueOf(n.longValue());
+    }
+
+    /**
+     * @param a First not null value.
+     * @param b Second not null value.
+     * @return Comparison result.
+     */
+    @SuppressWarnings("unchecked")
+    private static int compare(Object a, Object b) {
+        if (a.getClass() == b.getClass() && a instanceof Comparable)
+            return ((Comparable<Object>)a).compareTo(b);
+
+        if (a instanceof Number && b instanceof Number)
+            return decimal((Number)a).compareTo(decimal((Number)b));
+
+        return a.toString().compareTo(b.toString());
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return S.toString(GridCacheTwoStepQuery.class, this);
+    }
+
+    /**
+     * Compares rows by sort expressions.
+     */
+    private class RowComparator implements Comparator<List<?>> {
+        /** {@inheritDoc} */
+        @Override public int compare(List<?> r1, List<?> r2) {
+            for (int i = 0; i < sortCols.length; i++) {
+                Object a = column(r1, sortCols[i]);
+                Object b = column(r2, sortCols[i]);
+
+                int c;
+
+                if (a == null || b == null) {
+                    if (a == b)
+                        continue;
+
+                    // Nulls placement does not depend on sort direction.
+                    c = (a == null) == nullsFirst[i] ? -1 : 1;
+                }
+                else {
+                    c = GridCacheTwoStepQuery.compare(a, b);
+
+                    if (desc[i])
+                        c = -c;
+                }
+
+                if (c != 0)
+                    return c;
+            }
+
+            return 0;
+        }
+    }
+
+    /**
+     * Metadata of column rewritten by splitter.
+     */
+    private static class FieldMetadata implements GridIndexingFieldMetadata {
+        /** Schema name. */
+        private String schemaName;
+
+        /** Type name. */
+        private String typeName;
+
+        /** Name. */
+        private String name;
+
+        /** Type. */
+        private String type;
+
+        /**
+         * Required by {@link Externalizable}.
+         */
+        public FieldMetadata() {
+            // No-op.
+        }
+
+        /**
+         * @param schemaName Schema name.
+         * @param typeName Type name.
+         * @param name Name.
+         * @param type Type.
+         */
+        FieldMetadata(@Nullable String schemaName, @Nullable String typeName, String name, String type) {
+            this.schemaName = schemaName;
+            this.typeName = typeName;
+            this.name = name;
+            this.type = type;
+        }
+
+        /** {@inheritDoc} */
+        @Override public String schemaName() {
+            return schemaName;
+        }
+
+        /** {@inheritDoc} */
+        @Override public String typeName() {
+            return typeName;
+        }
+
+        /** {@inheritDoc} */
+        @Override public String fieldName() {
+            return name;
+        }
+
+        /** {@inheritDoc} */
+        @Override public String fieldTypeName() {
+            return type;
+        }
+
+        /** {@inheritDoc} */
+        @Override public void writeExternal(ObjectOutput out) throws IOException {
+            U.writeString(out, schemaName);
+            U.writeString(out, typeName);
+            U.writeString(out, name);
+            U.writeString(out, type);
+        }
+
+        /** {@inheritDoc} */
+        @Override public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            schemaName = U.readString(in);
+            typeName = U.readString(in);
+            name = U.readString(in);
+            type = U.readString(in);
+        }
+
+        /** {@inheritDoc} */
+        @Override public String toString() {
+            return S.toString(FieldMetadata.class, this);
+        }
+    }
+}
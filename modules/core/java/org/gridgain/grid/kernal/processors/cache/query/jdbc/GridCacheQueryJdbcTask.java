@@ -202,6 +202,9 @@ public class GridCacheQueryJdbcTask extends GridComputeTaskAdapter<byte[], byte[
                 qry.pageSize(pageSize);
                 qry.timeout(timeout);
 
+                // Rows are streamed to driver page by page, do not accumulate them in future.
+                qry.keepAll(false);
+
                 // Query local and replicated caches only locally.
                 if (cache.configuration().getCacheMode() != PARTITIONED)
                     qry = qry.projection(grid.forLocal());
@@ -259,9 +262,13 @@ public class GridCacheQueryJdbcTask extends GridComputeTaskAdapter<byte[], byte[
             int pageCnt = 0;
             int totalCnt = t.get2();
 
-            List<?> next;
+            List<?> next = null;
+
+            // Do not fetch more rows than requested, so no row is lost between pages.
+            while (pageCnt < pageSize && (maxRows == 0 || totalCnt < maxRows) && (next = fut.next()) != null) {
+                pageCnt++;
+                totalCnt++;
 
-            while ((next = fut.next()) != null && pageCnt++ < pageSize && (maxRows == 0 || totalCnt++ < maxRows)) {
                 fields.add(F.transformList(next, new C1<Object, Object>() {
                     @Override public Object apply(Object val) {
                         if (val != null && !sqlType(val))
@@ -272,13 +279,18 @@ public class GridCacheQueryJdbcTask extends GridComputeTaskAdapter<byte[], byte[
                 }));
             }
 
-            boolean finished = next == null || totalCnt == maxRows;
+            boolean finished = (pageCnt < pageSize && next == null) || (maxRows > 0 && totalCnt == maxRows);
 
             if (!finished)
                 grid.nodeLocalMap().put(futId, F.t(fut, totalCnt, true, cols));
-            else
+            else {
                 grid.nodeLocalMap().remove(futId);
 
+                // Release cursors on remote nodes if max rows limit is reached.
+                if (!fut.isDone())
+                    fut.cancel();
+            }
+
             return first ? F.asList(grid.localNode().id(), futId, tbls, cols, types, fields, finished) :
                 F.asList(fields, finished);
         }
@@ -292,8 +304,9 @@ public class GridCacheQueryJdbcTask extends GridComputeTaskAdapter<byte[], byte[
         private void scheduleRemoval(final UUID id) throws GridException {
             grid.scheduler().scheduleLocal(new CAX() {
                 @Override public void applyx() throws GridException {
-                    GridTuple3<GridCacheQueryFuture<List<?>>, Integer, Boolean> t =
-                        grid.<UUID, GridTuple3<GridCacheQueryFuture<List<?>>, Integer, Boolean>>nodeLocalMap().get(id);
+                    GridTuple4<GridCacheQueryFuture<List<?>>, Integer, Boolean, Collection<String>> t =
+                        grid.<UUID, GridTuple4<GridCacheQueryFuture<List<?>>, Integer, Boolean,
+                            Collection<String>>>nodeLocalMap().get(id);
 
                     if (t != null) {
                         // If future was accessed since last scheduling,
@@ -303,9 +316,9 @@ public class GridCacheQueryJdbcTask extends GridComputeTaskAdapter<byte[], byte[
 
                             scheduleRemoval(id);
                         }
-                        // Remove stored future otherwise.
-                        else
-                            grid.nodeLocalMap().remove(id);
+                        // Remove and cancel stored future otherwise, so remote cursors are closed.
+                        else if (grid.nodeLocalMap().remove(id, t))
+                            t.get1().cancel();
                     }
                 }
             }, "{" + RMV_DELAY + ", 1} * * * * *");
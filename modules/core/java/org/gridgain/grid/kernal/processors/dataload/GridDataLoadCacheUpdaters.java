@@ -26,6 +26,8 @@ package org.gridgain.grid.kernal.processors.dataload;
 import org.gridgain.grid.*;
 import org.gridgain.grid.cache.*;
 import org.gridgain.grid.dataload.*;
+import org.gridgain.grid.kernal.processors.cache.*;
+import org.gridgain.grid.kernal.processors.cache.distributed.dht.*;
 import org.gridgain.grid.lang.*;
 import org.gridgain.grid.util.typedef.*;
 import org.jetbrains.annotations.*;
@@ -35,6 +37,7 @@ import java.util.*;
 import static org.gridgain.grid.cache.GridCacheAtomicityMode.*;
 import static org.gridgain.grid.cache.GridCacheTxConcurrency.*;
 import static org.gridgain.grid.cache.GridCacheTxIsolation.*;
+import static org.gridgain.grid.kernal.processors.dr.GridDrType.*;
 
 /**
  * Bundled factory for cache updaters.
@@ -55,6 +58,9 @@ public class GridDataLoadCacheUpdaters {
     /** */
     private static final GridDataLoadCacheUpdater GROUP_LOCKED = new GroupLocked();
 
+    /** */
+    private static final GridDataLoadCacheUpdater PARTITION_STREAMING = new PartitionStreaming();
+
     /**
      * Updates cache using independent {@link GridCache#put(Object, Object, GridPredicate[])} and
      * {@link GridCache#remove(Object, GridPredicate[])} operations. Thus it is safe from deadlocks but performance
@@ -99,6 +105,33 @@ public class GridDataLoadCacheUpdaters {
         return GROUP_LOCKED;
     }
 
+    /**
+     * Sets initial values of entries in local partitions of the cache, bypassing locks, transactions and
+     * events. Entries are grouped by partition and every partition is reserved only once per batch. Data loader
+     * sends entries to primary and all backup nodes at once and considers entry loaded only when all of them
+     * acknowledge it. If a node fails, its entries are resent only to the nodes which replace it.
+     * <p>
+     * Entries are still created in the regular cache map and indexed one by one as they are written, there is
+     * no bulk index build. Reads are not blocked while loading, so readers may observe partially loaded cache
+     * until futures returned by data loader complete or {@link GridDataLoader#close(boolean)} returns.
+     * <p>
+     * This updater is intended for initial load of empty cache, or of cache which is not accessed until
+     * load is finished: existing entries are never overwritten and removals are not supported.
+     *
+     * @return Partition streaming updater.
+     */
+    public static <K, V> GridDataLoadCacheUpdater<K, V> partitionStreaming() {
+        return PARTITION_STREAMING;
+    }
+
+    /**
+     * @param updater Updater.
+     * @return {@code True} if updater streams entries directly into partitions.
+     */
+    static boolean isPartitionStreaming(GridDataLoadCacheUpdater<?, ?> updater) {
+        return updater instanceof PartitionStreaming;
+    }
+
     /**
      * Updates cache.
      *
@@ -283,4 +316,99 @@ public class GridDataLoadCacheUpdaters {
             }
         }
     }
+
+    /**
+     * Partition streaming updater. Sets initial values of entries in reserved partitions of the local node.
+     */
+    private static class PartitionStreaming<K, V> implements GridDataLoadCacheUpdater<K, V> {
+        /** {@inheritDoc} */
+        @Override public void update(GridCache<K, V> cache, Collection<Map.Entry<K, V>> entries)
+            throws GridException {
+            assert cache instanceof GridCacheAdapter;
+            assert !F.isEmpty(entries);
+
+            GridCacheContext<K, V> cctx = ((GridCacheAdapter<K, V>)cache).context();
+
+            if (cctx.isLocal()) {
+                GridCacheVersion ver = cctx.versions().next();
+
+                for (Map.Entry<K, V> e : entries)
+                    put(cctx.cache(), e.getKey(), e.getValue(), ver, false);
+
+                return;
+            }
+
+            GridDhtCacheAdapter<K, V> dht = cctx.isNear() ? cctx.near().dht() : cctx.dht();
+
+            GridDhtPartitionTopology<K, V> top = dht.topology();
+
+            // Group by partition ID, so that each partition is reserved once.
+            Map<Integer, Collection<Map.Entry<K, V>>> partMap = new TreeMap<>();
+
+            for (Map.Entry<K, V> e : entries) {
+                assert e.getKey() != null;
+
+                if (e.getValue() == null)
+                    throw new GridException("Partition streaming updater does not support removals: " + e.getKey());
+
+                F.addIfAbsent(partMap, cctx.affinity().partition(e.getKey()),
+                    F.<Map.Entry<K, V>>newList()).add(e);
+            }
+
+            GridCacheVersion ver = cctx.versions().next(top.topologyVersion());
+
+            boolean replicate = cctx.isReplicationEnabled();
+
+            for (Map.Entry<Integer, Collection<Map.Entry<K, V>>> p : partMap.entrySet()) {
+                GridDhtLocalPartition<K, V> part;
+
+                try {
+                    part = top.localPartition(p.getKey(), -1, true);
+                }
+                catch (GridDhtInvalidPartitionException ignored) {
+                    part = null;
+                }
+
+                // Reserve to make sure that partition does not get unloaded. Loader remaps entries on error.
+                if (part == null || !part.reserve())
+                    throw new GridTopologyException("Partition does not belong to local node [part=" + p.getKey() +
+                        ", cacheName=" + cctx.name() + ']');
+
+                try {
+                    for (Map.Entry<K, V> e : p.getValue())
+                        put(dht, e.getKey(), e.getValue(), ver, replicate);
+                }
+                finally {
+                    part.release();
+                }
+            }
+        }
+
+        /**
+         * @param cache Cache.
+         * @param key Key.
+         * @param val Value.
+         * @param ver Version.
+         * @param replicate Whether entry should be replicated to remote data centers.
+         * @throws GridException If failed.
+         */
+        private void put(GridCacheAdapter<K, V> cache, K key, V val, GridCacheVersion ver, boolean replicate)
+            throws GridException {
+            while (true) {
+                GridCacheEntryEx<K, V> entry = cache.entryEx(key, false);
+
+                try {
+                    entry.initialValue(val, null, ver, 0, -1, false, replicate ? DR_LOAD : DR_NONE);
+
+                    return;
+                }
+                catch (GridCacheEntryRemovedException ignored) {
+                    // Retry with new entry.
+                }
+                finally {
+                    cache.context().evicts().touch(entry);
+                }
+            }
+        }
+    }
 }
@@ -42,15 +42,20 @@ public class GridDataLoadResponse extends GridTcpCommunicationMessageAdapter {
     /** */
     private boolean forceLocDep;
 
+    /** Size of responding node queue. */
+    private int queueSize;
+
     /**
      * @param reqId Request ID.
      * @param errBytes Error bytes.
      * @param forceLocDep Force local deployment.
+     * @param queueSize Size of responding node queue, {@code -1} if unknown.
      */
-    public GridDataLoadResponse(long reqId, byte[] errBytes, boolean forceLocDep) {
+    public GridDataLoadResponse(long reqId, byte[] errBytes, boolean forceLocDep, int queueSize) {
         this.reqId = reqId;
         this.errBytes = errBytes;
         this.forceLocDep = forceLocDep;
+        this.queueSize = queueSize;
     }
 
     /**
@@ -81,6 +86,13 @@ public class GridDataLoadResponse extends GridTcpCommunicationMessageAdapter {
         return forceLocDep;
     }
 
+    /**
+     * @return Size of responding node queue at the moment request was processed, {@code -1} if unknown.
+     */
+    public int queueSize() {
+        return queueSize;
+    }
+
     /** {@inheritDoc} */
     @Override public String toString() {
         return S.toString(GridDataLoadResponse.class, this);
@@ -103,6 +115,7 @@ public class GridDataLoadResponse extends GridTcpCommunicationMessageAdapter {
         _clone.reqId = reqId;
         _clone.errBytes = errBytes;
         _clone.forceLocDep = forceLocDep;
+        _clone.queueSize = queueSize;
     }
 
     /** {@inheritDoc} */
@@ -136,6 +149,12 @@ public class GridDataLoadResponse extends GridTcpCommunicationMessageAdapter {
 
                 commState.idx++;
 
+            case 3:
+                if (!commState.putInt(queueSize))
+                    return false;
+
+                commState.idx++;
+
         }
 
         return true;
@@ -173,6 +192,14 @@ public class GridDataLoadResponse extends GridTcpCommunicationMessageAdapter {
 
                 commState.idx++;
 
+            case 3:
+                if (buf.remaining() < 4)
+                    return false;
+
+                queueSize = commState.getInt();
+
+                commState.idx++;
+
         }
 
         return true;
@@ -0,0 +1,266 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.kernal.processors.dataload;
+
+import org.gridgain.grid.*;
+import org.gridgain.grid.util.typedef.internal.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Per-node flow control of data loader. Limits number of load requests which are in flight to
+ * the node and, if adaptive mode is enabled, adjusts both this limit and batch size based on
+ * observed request latency and depth of remote node queue.
+ * <p>
+ * Number of parallel requests follows additive-increase/multiplicative-decrease rule: it grows by one
+ * whenever a request finishes while all permits are taken and node shows no signs of congestion, and it
+ * shrinks by a quarter whenever node is congested. Node is considered congested if request failed, if
+ * its queue holds at least as many tasks as there are requests in flight (i.e. requests are queued rather
+ * than executed), or if per-entry latency is several times higher than the best one observed.
+ * <p>
+ * Batch size is adjusted by hill climbing: after every {@link #WINDOW} uncongested responses average
+ * per-entry latency is compared with the one observed for previous batch size. Batch keeps changing in
+ * the same direction while per-entry latency improves, and reverses direction otherwise. This lets batch
+ * grow while fixed per-request cost (network round trip) dominates and stop once it does not pay off.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+class GridDataLoaderFlowControl {
+    /** Minimum adaptive batch size. */
+    static final int MIN_BATCH_SIZE = 64;
+
+    /** Maximum adaptive batch size. */
+    static final int MAX_BATCH_SIZE = 64 * 1024;
+
+    /** Maximum adaptive number of parallel operations. */
+    static final int MAX_PARALLEL_OPS = 256;
+
+    /** Number of responses batch size is evaluated on. */
+    static final int WINDOW = 8;
+
+    /** Per-entry latency exceeding best observed one this many times is treated as congestion. */
+    private static final int LATENCY_FACTOR = 4;
+
+    /** Minimum per-entry latency improvement to keep changing batch size in the same direction. */
+    private static final double MIN_IMPROVEMENT = 0.05;
+
+    /** In-flight permits. */
+    private final ResizableSemaphore sem;
+
+    /** Whether limits are adjusted. */
+    private final boolean adaptive;
+
+    /** Current batch size. */
+    private volatile int batchSize;
+
+    /** Current limit of parallel operations. */
+    private volatile int parallelOps;
+
+    /** Best observed per-entry latency in nanoseconds, slowly aged towards recent samples. */
+    private double bestLatency;
+
+    /** Sum of per-entry latencies observed for current batch size. */
+    private double latencySum;
+
+    /** Number of samples in {@link #latencySum}. */
+    private int samples;
+
+    /** Average per-entry latency observed for previous batch size. */
+    private double prevLatency;
+
+    /** Whether batch size is currently growing. */
+    private boolean grow = true;
+
+    /**
+     * @param batchSize Initial batch size.
+     * @param parallelOps Initial limit of parallel operations.
+     * @param adaptive Whether limits should be adjusted.
+     */
+    GridDataLoaderFlowControl(int batchSize, int parallelOps, boolean adaptive) {
+        assert batchSize > 0;
+        assert parallelOps > 0;
+
+        this.adaptive = adaptive;
+
+        this.batchSize = adaptive ? Math.max(MIN_BATCH_SIZE, Math.min(MAX_BATCH_SIZE, batchSize)) : batchSize;
+        this.parallelOps = adaptive ? Math.min(MAX_PARALLEL_OPS, parallelOps) : parallelOps;
+
+        sem = new ResizableSemaphore(this.parallelOps);
+    }
+
+    /**
+     * @return Whether limits are adjusted.
+     */
+    boolean adaptive() {
+        return adaptive;
+    }
+
+    /**
+     * @return Current batch size.
+     */
+    int batchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return Current limit of parallel operations.
+     */
+    int parallelOperations() {
+        return parallelOps;
+    }
+
+    /**
+     * @return Number of operations in flight.
+     */
+    int inFlight() {
+        return Math.max(0, parallelOps - sem.availablePermits());
+    }
+
+    /**
+     * Waits until operation may be started.
+     *
+     * @throws GridInterruptedException If thread has been interrupted.
+     */
+    void acquire() throws GridInterruptedException {
+        U.acquire(sem);
+    }
+
+    /**
+     * Signals that operation finished.
+     */
+    void release() {
+        sem.release();
+    }
+
+    /**
+     * Adjusts limits after batch is processed.
+     *
+     * @param cnt Number of entries in batch.
+     * @param latency Batch latency in nanoseconds.
+     * @param queueSize Size of node queue at the moment batch was processed, {@code -1} if unknown.
+     * @param err Whether batch failed.
+     */
+    void onBatchFinished(int cnt, long latency, int queueSize, boolean err) {
+        if (!adaptive || cnt <= 0)
+            return;
+
+        double perEntry = (double)Math.max(1, latency) / cnt;
+
+        synchronized (this) {
+            if (bestLatency == 0 || perEntry < bestLatency)
+                bestLatency = perEntry;
+            else
+                // Age best latency, so that single lucky sample does not keep loader congested forever.
+                bestLatency += (perEntry - bestLatency) / 64;
+
+            int ops = parallelOps;
+
+            boolean congested = err || (queueSize > 0 && queueSize >= ops) || perEntry > LATENCY_FACTOR * bestLatency;
+
+            if (congested) {
+                resize(Math.max(1, ops - Math.max(1, ops / 4)));
+
+                if (perEntry > LATENCY_FACTOR * bestLatency)
+                    // Node spends more time per entry than before, smaller batches put less pressure on it.
+                    changeBatchSize(false);
+
+                return;
+            }
+
+            if (sem.availablePermits() <= 0 && ops < MAX_PARALLEL_OPS)
+                resize(ops + 1);
+
+            latencySum += perEntry;
+
+            if (++samples < WINDOW)
+                return;
+
+            double avg = latencySum / samples;
+
+            latencySum = 0;
+            samples = 0;
+
+            if (prevLatency != 0 && avg > prevLatency * (1 - MIN_IMPROVEMENT))
+                grow = !grow;
+
+            prevLatency = avg;
+
+            changeBatchSize(grow);
+        }
+    }
+
+    /**
+     * @param up {@code True} to grow batch, {@code false} to shrink.
+     */
+    private void changeBatchSize(boolean up) {
+        assert Thread.holdsLock(this);
+
+        int size = batchSize;
+
+        batchSize = up ? Math.min(MAX_BATCH_SIZE, size + Math.max(1, size / 4)) :
+            Math.max(MIN_BATCH_SIZE, size - Math.max(1, size / 5));
+    }
+
+    /**
+     * @param ops New limit of parallel operations.
+     */
+    private void resize(int ops) {
+        assert Thread.holdsLock(this);
+
+        int delta = ops - parallelOps;
+
+        if (delta > 0)
+            sem.release(delta);
+        else if (delta < 0)
+            sem.reducePermits(-delta);
+
+        parallelOps = ops;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return S.toString(GridDataLoaderFlowControl.class, this, "inFlight", inFlight());
+    }
+
+    /**
+     * Semaphore which permits number can be reduced.
+     */
+    private static class ResizableSemaphore extends Semaphore {
+        /** */
+        private static final long serialVersionUID = 0L;
+
+        /**
+         * @param permits Initial number of permits.
+         */
+        private ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        /** {@inheritDoc} */
+        @Override protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
@@ -35,6 +35,7 @@ import org.gridgain.grid.kernal.processors.cache.*;
 import org.gridgain.grid.lang.*;
 import org.gridgain.grid.logger.*;
 import org.gridgain.grid.util.*;
+import org.gridgain.grid.util.LongAdder;
 import org.gridgain.grid.util.future.*;
 import org.gridgain.grid.util.tostring.*;
 import org.gridgain.grid.util.typedef.*;
@@ -79,6 +80,18 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
     /** */
     private int parallelOps = DFLT_MAX_PARALLEL_OPS;
 
+    /** Whether buffer size and parallel operations are adjusted per node. */
+    private volatile boolean adaptive;
+
+    /** Create time. */
+    private final long createTime = U.currentTimeMillis();
+
+    /** Number of successfully loaded entries. */
+    private final LongAdder loadedEntries = new LongAdder();
+
+    /** Size of successfully loaded remote batches. */
+    private final LongAdder loadedBytes = new LongAdder();
+
     /** */
     private long autoFlushFreq;
 
@@ -295,6 +308,34 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
         this.parallelOps = parallelOps;
     }
 
+    /** {@inheritDoc} */
+    @Override public boolean adaptive() {
+        return adaptive;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void adaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    /** {@inheritDoc} */
+    @Override public GridDataLoaderMetrics metrics() {
+        Map<UUID, Integer> inFlight = new HashMap<>();
+        Map<UUID, Integer> ops = new HashMap<>();
+        Map<UUID, Integer> sizes = new HashMap<>();
+
+        for (Map.Entry<UUID, Buffer> e : bufMappings.entrySet()) {
+            GridDataLoaderFlowControl flowCtrl = e.getValue().flowCtrl;
+
+            inFlight.put(e.getKey(), flowCtrl.inFlight());
+            ops.put(e.getKey(), flowCtrl.parallelOperations());
+            sizes.put(e.getKey(), e.getValue().batchSize());
+        }
+
+        return new GridDataLoaderMetricsAdapter(createTime, loadedEntries.sum(), loadedBytes.sum(), inFlight, ops,
+            sizes);
+    }
+
     /** {@inheritDoc} */
     @Override public long autoFlushFrequency() {
         return autoFlushFreq;
@@ -338,10 +379,20 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
 
             Collection<K> keys = new GridConcurrentHashSet<>(entries.size(), 1.0f, 16);
 
+            ConcurrentMap<K, KeyNodes> keyNodes = null;
+
+            if (GridDataLoadCacheUpdaters.isPartitionStreaming(updater)) {
+                // Key is complete only when it is loaded on primary and all backup nodes.
+                keyNodes = new ConcurrentHashMap8<>(entries.size(), 1.0f, 16);
+
+                for (Map.Entry<K, V> entry : entries)
+                    keyNodes.putIfAbsent(entry.getKey(), new KeyNodes());
+            }
+
             for (Map.Entry<K, V> entry : entries)
                 keys.add(entry.getKey());
 
-            load0(entries, resFut, keys, 0);
+            load0(entries, resFut, keys, keyNodes, 0);
 
             return resFut;
         }
@@ -373,12 +424,15 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
      * @param entries Entries.
      * @param resFut Result future.
      * @param activeKeys Active keys.
+     * @param keyNodes Nodes each active key is loaded to, {@code null} if every key is loaded to its
+     *      primary node only. Entries are sent only to nodes which do not have them yet.
      * @param remaps Remaps count.
      */
     private void load0(
         Collection<? extends Map.Entry<K, V>> entries,
         final GridFutureAdapter<Object> resFut,
         final Collection<K> activeKeys,
+        @Nullable final ConcurrentMap<K, KeyNodes> keyNodes,
         final int remaps
     ) {
         assert entries != null;
@@ -394,7 +448,7 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
         boolean initPda = ctx.deploy().enabled() && jobPda == null;
 
         for (Map.Entry<K, V> entry : entries) {
-            GridNode node;
+            Collection<GridNode> nodes;
 
             try {
                 K key = entry.getKey();
@@ -407,7 +461,13 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
                     initPda = false;
                 }
 
-                node = ctx.affinity().mapKeyToNode(cacheName, key);
+                if (keyNodes != null)
+                    nodes = ctx.affinity().mapKeyToPrimaryAndBackups(cacheName, key);
+                else {
+                    GridNode node = ctx.affinity().mapKeyToNode(cacheName, key);
+
+                    nodes = node != null ? Collections.singletonList(node) : null;
+                }
             }
             catch (GridException e) {
                 resFut.onDone(e);
@@ -415,7 +475,7 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
                 return;
             }
 
-            if (node == null) {
+            if (F.isEmpty(nodes)) {
                 resFut.onDone(new GridTopologyException("Failed to map key to node " +
                     "(no nodes with cache found in topology) [infos=" + entries.size() +
                     ", cacheName=" + cacheName + ']'));
@@ -423,12 +483,30 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
                 return;
             }
 
-            Collection<Map.Entry<K, V>> col = mappings.get(node);
+            if (keyNodes != null) {
+                KeyNodes kn = keyNodes.get(entry.getKey());
+
+                Collection<GridNode> newNodes = new ArrayList<>(nodes.size());
+
+                // On remap, skip nodes which already have or are receiving the key.
+                for (GridNode node : nodes) {
+                    if (kn.nodes.add(node.id()))
+                        newNodes.add(node);
+                }
+
+                kn.pending.addAndGet(newNodes.size());
+
+                nodes = newNodes;
+            }
+
+            for (GridNode node : nodes) {
+                Collection<Map.Entry<K, V>> col = mappings.get(node);
 
-            if (col == null)
-                mappings.put(node, col = new ArrayList<>());
+                if (col == null)
+                    mappings.put(node, col = new ArrayList<>());
 
-            col.add(entry);
+                col.add(entry);
+            }
         }
 
         for (final Map.Entry<GridNode, Collection<Map.Entry<K, V>>> e : mappings.entrySet()) {
@@ -450,8 +528,10 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
                     try {
                         t.get();
 
-                        for (Map.Entry<K, V> e : entriesForNode)
-                            activeKeys.remove(e.getKey());
+                        for (Map.Entry<K, V> e : entriesForNode) {
+                            if (keyNodes == null || keyNodes.get(e.getKey()).pending.decrementAndGet() == 0)
+                                activeKeys.remove(e.getKey());
+                        }
 
                         if (activeKeys.isEmpty())
                             resFut.onDone();
@@ -464,8 +544,27 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
                             resFut.onDone(new GridException("Data loader has been cancelled: " +
                                 GridDataLoaderImpl.this, e1));
                         }
-                        else
-                            load0(entriesForNode, resFut, activeKeys, remaps + 1);
+                        else {
+                            // Only failed node has to be replaced, other owners keep their copies.
+                            if (keyNodes != null) {
+                                for (Map.Entry<K, V> e : entriesForNode)
+                                    keyNodes.get(e.getKey()).nodes.remove(nodeId);
+                            }
+
+                            load0(entriesForNode, resFut, activeKeys, keyNodes, remaps + 1);
+
+                            // Release references of failed node only after entries have been remapped,
+                            // remapped requests may have already finished by now.
+                            if (keyNodes != null) {
+                                for (Map.Entry<K, V> e : entriesForNode) {
+                                    if (keyNodes.get(e.getKey()).pending.decrementAndGet() == 0)
+                                        activeKeys.remove(e.getKey());
+                                }
+
+                                if (activeKeys.isEmpty())
+                                    resFut.onDone();
+                            }
+                        }
                     }
                 }
             };
@@ -715,8 +814,11 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
         /** Active futures. */
         private final ConcurrentMap<Long, GridFutureAdapter<Object>> reqs;
 
-        /** */
-        private final Semaphore sem;
+        /** Statistics of active requests. */
+        private final ConcurrentMap<Long, RequestStatistics> reqStats;
+
+        /** Flow control. */
+        private final GridDataLoaderFlowControl flowCtrl;
 
         /** Closure to signal on task finish. */
         @GridToStringExclude
@@ -736,15 +838,23 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
 
             locFuts = new GridConcurrentHashSet<>();
             reqs = new ConcurrentHashMap8<>();
+            reqStats = new ConcurrentHashMap8<>();
 
             // Cache local node flag.
             isLocNode = node.equals(ctx.discovery().localNode());
 
+            flowCtrl = new GridDataLoaderFlowControl(bufSize, parallelOps, adaptive);
+
             entries = newEntries();
             curFut = new GridFutureAdapter<>(ctx);
             curFut.listenAsync(signalC);
+        }
 
-            sem = new Semaphore(parallelOps);
+        /**
+         * @return Number of entries buffered before batch is sent to node.
+         */
+        int batchSize() {
+            return flowCtrl.adaptive() ? flowCtrl.batchSize() : bufSize;
         }
 
         /**
@@ -766,7 +876,7 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
                 for (Map.Entry<K, V> entry : newEntries)
                     entries.add(entry);
 
-                if (entries.size() >= bufSize) {
+                if (entries.size() >= batchSize()) {
                     entries0 = entries;
 
                     entries = newEntries();
@@ -789,7 +899,7 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
          * @return Fresh collection with some space for outgrowth.
          */
         private List<Map.Entry<K, V>> newEntries() {
-            return new ArrayList<>((int)(bufSize * 1.2));
+            return new ArrayList<>((int)(batchSize() * 1.2));
         }
 
         /**
@@ -844,7 +954,7 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
          * @throws GridInterruptedException If thread has been interrupted.
          */
         private void incrementActiveTasks() throws GridInterruptedException {
-            U.acquire(sem);
+            flowCtrl.acquire();
         }
 
         /**
@@ -853,7 +963,7 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
         private void signalTaskFinished(GridFuture<Object> f) {
             assert f != null;
 
-            sem.release();
+            flowCtrl.release();
         }
 
         /**
@@ -871,6 +981,9 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
 
             GridFuture<Object> fut;
             if (isLocNode) {
+                final int cnt = entries.size();
+                final long startTime = System.nanoTime();
+
                 fut = ctx.closure().callLocalSafe(
                     new GridDataLoadUpdateJob<>(ctx, log, cacheName, entries, false, updater), false);
 
@@ -878,14 +991,24 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
 
                 fut.listenAsync(new GridInClosure<GridFuture<Object>>() {
                     @Override public void apply(GridFuture<Object> t) {
+                        long latency = System.nanoTime() - startTime;
+
                         try {
                             boolean rmv = locFuts.remove(t);
 
                             assert rmv;
 
-                            curFut.onDone(t.get());
+                            Object res = t.get();
+
+                            loadedEntries.add(cnt);
+
+                            flowCtrl.onBatchFinished(cnt, latency, GridDataLoaderProcessor.queueSize(ctx), false);
+
+                            curFut.onDone(res);
                         }
                         catch (GridException e) {
+                            flowCtrl.onBatchFinished(cnt, latency, GridDataLoaderProcessor.queueSize(ctx), true);
+
                             curFut.onDone(e);
                         }
                     }
@@ -939,6 +1062,8 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
 
                 reqs.put(reqId, (GridFutureAdapter<Object>)fut);
 
+                reqStats.put(reqId, new RequestStatistics(entries.size(), entriesBytes.length));
+
                 GridDataLoadRequest<Object, Object> req = new GridDataLoadRequest<>(
                     reqId,
                     topicBytes,
@@ -960,6 +1085,8 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
                         log.debug("Sent request to node [nodeId=" + node.id() + ", req=" + req + ']');
                 }
                 catch (GridException e) {
+                    reqStats.remove(reqId);
+
                     if (ctx.discovery().alive(node) && ctx.discovery().pingNode(node.id()))
                         ((GridFutureAdapter<Object>)fut).onDone(e);
                     else
@@ -1004,6 +1131,8 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
 
             GridFutureAdapter<?> f = reqs.remove(res.requestId());
 
+            RequestStatistics stats = reqStats.remove(res.requestId());
+
             if (f == null) {
                 if (log.isDebugEnabled())
                     log.debug("Future for request has not been found: " + res.requestId());
@@ -1030,6 +1159,16 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
                 }
             }
 
+            if (stats != null) {
+                if (err == null) {
+                    loadedEntries.add(stats.cnt);
+                    loadedBytes.add(stats.bytes);
+                }
+
+                flowCtrl.onBatchFinished(stats.cnt, System.nanoTime() - stats.startTime, res.queueSize(),
+                    err != null);
+            }
+
             f.onDone(null, err);
 
             if (log.isDebugEnabled())
@@ -1070,6 +1209,40 @@ public class GridDataLoaderImpl<K, V> implements GridDataLoader<K, V>, Delayed {
         }
     }
 
+    /**
+     * Statistics of request sent to remote node.
+     */
+    private static class RequestStatistics {
+        /** Send time in nanoseconds. */
+        private final long startTime = System.nanoTime();
+
+        /** Number of entries. */
+        private final int cnt;
+
+        /** Size of marshalled entries. */
+        private final int bytes;
+
+        /**
+         * @param cnt Number of entries.
+         * @param bytes Size of marshalled entries.
+         */
+        private RequestStatistics(int cnt, int bytes) {
+            this.cnt = cnt;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Nodes key is loaded to by partition streaming updater.
+     */
+    private static class KeyNodes {
+        /** IDs of nodes key has been sent to, except failed ones. */
+        private final Collection<UUID> nodes = new GridConcurrentHashSet<>();
+
+        /** Number of nodes which have not acknowledged the key yet. */
+        private final AtomicInteger pending = new AtomicInteger();
+    }
+
     /**
      * Data loader peer-deploy aware.
      */
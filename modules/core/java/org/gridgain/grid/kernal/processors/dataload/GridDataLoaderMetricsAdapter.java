@@ -0,0 +1,142 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.kernal.processors.dataload;
+
+import org.gridgain.grid.dataload.*;
+import org.gridgain.grid.util.tostring.*;
+import org.gridgain.grid.util.typedef.internal.*;
+
+import java.util.*;
+
+/**
+ * Snapshot of data loader metrics.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+class GridDataLoaderMetricsAdapter implements GridDataLoaderMetrics {
+    /** */
+    private static final long serialVersionUID = 0L;
+
+    /** Create time. */
+    private final long createTime;
+
+    /** Snapshot time. */
+    private final long snapshotTime;
+
+    /** Loaded entries. */
+    private final long entries;
+
+    /** Loaded bytes. */
+    private final long bytes;
+
+    /** Requests in flight. */
+    @GridToStringInclude
+    private final Map<UUID, Integer> inFlight;
+
+    /** Parallel operations limits. */
+    @GridToStringInclude
+    private final Map<UUID, Integer> parallelOps;
+
+    /** Batch sizes. */
+    @GridToStringInclude
+    private final Map<UUID, Integer> bufSizes;
+
+    /**
+     * @param createTime Create time.
+     * @param entries Loaded entries.
+     * @param bytes Loaded bytes.
+     * @param inFlight Requests in flight.
+     * @param parallelOps Parallel operations limits.
+     * @param bufSizes Batch sizes.
+     */
+    GridDataLoaderMetricsAdapter(long createTime, long entries, long bytes, Map<UUID, Integer> inFlight,
+        Map<UUID, Integer> parallelOps, Map<UUID, Integer> bufSizes) {
+        this.createTime = createTime;
+        this.entries = entries;
+        this.bytes = bytes;
+        this.inFlight = inFlight;
+        this.parallelOps = parallelOps;
+        this.bufSizes = bufSizes;
+
+        snapshotTime = U.currentTimeMillis();
+    }
+
+    /** {@inheritDoc} */
+    @Override public long createTime() {
+        return createTime;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long loadedEntries() {
+        return entries;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long loadedBytes() {
+        return bytes;
+    }
+
+    /** {@inheritDoc} */
+    @Override public double entriesPerSecond() {
+        return perSecond(entries);
+    }
+
+    /** {@inheritDoc} */
+    @Override public double bytesPerSecond() {
+        return perSecond(bytes);
+    }
+
+    /**
+     * @param val Value.
+     * @return Value per second since create time.
+     */
+    private double perSecond(long val) {
+        long dur = snapshotTime - createTime;
+
+        return dur <= 0 ? 0 : val * 1000.0 / dur;
+    }
+
+    /** {@inheritDoc} */
+    @Override public Map<UUID, Integer> inFlightRequests() {
+        return inFlight;
+    }
+
+    /** {@inheritDoc} */
+    @Override public Map<UUID, Integer> parallelLoadOperations() {
+        return parallelOps;
+    }
+
+    /** {@inheritDoc} */
+    @Override public Map<UUID, Integer> bufferSizes() {
+        return bufSizes;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return S.toString(GridDataLoaderMetricsAdapter.class, this,
+            "entriesPerSec", entriesPerSecond(),
+            "bytesPerSec", bytesPerSecond());
+    }
+}
@@ -288,7 +288,7 @@ public class GridDataLoaderProcessor<K, V> extends GridProcessorAdapter {
             return;
         }
 
-        GridDataLoadResponse res = new GridDataLoadResponse(reqId, errBytes, forceLocDep);
+        GridDataLoadResponse res = new GridDataLoadResponse(reqId, errBytes, forceLocDep, queueSize(ctx));
 
         try {
             ctx.io().send(nodeId, resTopic, res, PUBLIC_POOL);
@@ -301,6 +301,19 @@ public class GridDataLoaderProcessor<K, V> extends GridProcessorAdapter {
         }
     }
 
+    /**
+     * Gets size of the queue of public pool load requests are processed in. It is reported back to
+     * loaders, so that they can slow down when this node gets congested.
+     *
+     * @param ctx Kernal context.
+     * @return Queue size or {@code -1} if it cannot be obtained.
+     */
+    static int queueSize(GridKernalContext ctx) {
+        ExecutorService exec = ctx.config().getExecutorService();
+
+        return exec instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor)exec).getQueue().size() : -1;
+    }
+
     /** {@inheritDoc} */
     @Override public void printMemoryStats() {
         X.println(">>>");
@@ -67,11 +67,26 @@ public class GridOffHeapProcessor extends GridProcessorAdapter {
      * @param lsnr Eviction listener.
      */
     public void create(@Nullable String spaceName, int parts, long init, long max,
+        @Nullable GridOffHeapEvictListener lsnr) {
+        create(spaceName, parts, init, max, 0, lsnr);
+    }
+
+    /**
+     * Creates offheap map for given space name. Previous one will be destructed if it exists.
+     *
+     * @param spaceName Space name.
+     * @param parts Partitions number.
+     * @param init Initial size.
+     * @param max Maximum size.
+     * @param slabSize Slab size of arena allocator, {@code 0} to allocate every entry separately.
+     * @param lsnr Eviction listener.
+     */
+    public void create(@Nullable String spaceName, int parts, long init, long max, int slabSize,
         @Nullable GridOffHeapEvictListener lsnr) {
         spaceName = maskNull(spaceName);
 
         GridOffHeapPartitionedMap m = GridOffHeapMapFactory.unsafePartitionedMap(parts, 1024, 0.75f, init, max,
-            (short)512, lsnr);
+            (short)512, lsnr, slabSize);
 
         GridOffHeapPartitionedMap old = offheap.put(spaceName, m);
 
@@ -267,6 +282,56 @@ public class GridOffHeapProcessor extends GridProcessorAdapter {
         return m == null ? -1 : m.allocatedSize();
     }
 
+    /**
+     * Gets size of a memory allocated for slabs of the given space. Slabs are used only if space
+     * has been created with non-zero slab size.
+     *
+     * @param spaceName Space name. Optional.
+     * @return Slab memory size or {@code -1} if no space with the given name has been found.
+     */
+    public long slabAllocatedSize(@Nullable String spaceName) {
+        GridOffHeapPartitionedMap m = offheap(spaceName);
+
+        return m == null ? -1 : m.slabAllocatedSize();
+    }
+
+    /**
+     * Gets fraction of slab memory of the given space occupied by entry chunks.
+     *
+     * @param spaceName Space name. Optional.
+     * @return Slab utilization between {@code 0} and {@code 1}, {@code 1} if space has no slabs, or {@code -1}
+     *      if no space with the given name has been found.
+     */
+    public double slabUtilization(@Nullable String spaceName) {
+        GridOffHeapPartitionedMap m = offheap(spaceName);
+
+        if (m == null)
+            return -1;
+
+        long slabs = m.slabAllocatedSize();
+
+        return slabs == 0 ? 1 : (double)m.slabUsedSize() / slabs;
+    }
+
+    /**
+     * Gets fraction of slab memory of the given space which is not occupied by entry data. It includes
+     * both free chunks of partially used slabs and space lost to rounding of entry sizes to size classes.
+     *
+     * @param spaceName Space name. Optional.
+     * @return Fragmentation between {@code 0} and {@code 1}, {@code 0} if space has no slabs, or {@code -1}
+     *      if no space with the given name has been found.
+     */
+    public double slabFragmentation(@Nullable String spaceName) {
+        GridOffHeapPartitionedMap m = offheap(spaceName);
+
+        if (m == null)
+            return -1;
+
+        long slabs = m.slabAllocatedSize();
+
+        return slabs == 0 ? 0 : 1 - (double)m.slabRequestedSize() / slabs;
+    }
+
     /**
      * Gets iterator over contents of partition.
      *
@@ -25,15 +25,18 @@ package org.gridgain.grid.marshaller;
 
 import org.gridgain.grid.*;
 import org.gridgain.grid.util.*;
+import org.gridgain.grid.util.typedef.*;
 import org.gridgain.grid.util.typedef.internal.*;
 import org.gridgain.grid.util.io.*;
 import org.jetbrains.annotations.*;
 
+import java.nio.*;
+
 /**
  * Base class for marshallers. Provides default implementations of methods
- * that work with byte array or {@link GridByteArrayList}. These implementations
- * use {@link GridByteArrayInputStream} or {@link GridByteArrayOutputStream}
- * to marshal and unmarshal objects.
+ * that work with byte array, {@link GridByteArrayList} or {@link ByteBuffer}. These implementations
+ * use {@link GridByteArrayInputStream}, {@link GridByteArrayOutputStream}, {@link GridByteBufferInputStream}
+ * or {@link GridByteBufferOutputStream} to marshal and unmarshal objects.
  *
  * @author @java.author
  * @version @java.version
@@ -58,6 +61,41 @@ public abstract class GridAbstractMarshaller implements GridMarshaller {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override public boolean marshal(@Nullable Object obj, ByteBuffer buf) throws GridException {
+        int pos = buf.position();
+
+        try {
+            marshal(obj, new GridByteBufferOutputStream(buf));
+
+            return true;
+        }
+        catch (BufferOverflowException ignored) {
+            buf.position(pos);
+
+            return false;
+        }
+        catch (GridException e) {
+            if (X.hasCause(e, BufferOverflowException.class)) {
+                buf.position(pos);
+
+                return false;
+            }
+
+            throw e;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public <T> T unmarshal(ByteBuffer buf, @Nullable ClassLoader clsLdr) throws GridException {
+        try {
+            return unmarshal(new GridByteBufferInputStream(buf), clsLdr);
+        }
+        finally {
+            buf.position(buf.limit());
+        }
+    }
+
     /** {@inheritDoc} */
     @Override public <T> T unmarshal(byte[] arr, @Nullable ClassLoader clsLdr) throws GridException {
         GridByteArrayInputStream in = null;
@@ -26,9 +26,11 @@ package org.gridgain.grid.marshaller;
 import org.gridgain.grid.*;
 import org.gridgain.grid.marshaller.jdk.*;
 import org.gridgain.grid.marshaller.optimized.*;
+import org.gridgain.grid.marshaller.portable.*;
 import org.jetbrains.annotations.*;
 
 import java.io.*;
+import java.nio.*;
 
 /**
  * {@code GridMarshaller} allows to marshal or unmarshal objects in grid. It provides
@@ -39,6 +41,7 @@ import java.io.*;
  * <ul>
  * <li>{@link GridOptimizedMarshaller} - default</li>
  * <li>{@link GridJdkMarshaller}</li>
+ * <li>{@link GridPortableMarshaller}</li>
  * </ul>
  * <p>
  * Below are examples of marshaller configuration, usage, and injection into tasks, jobs,
@@ -122,6 +125,18 @@ public interface GridMarshaller {
      */
     public byte[] marshal(@Nullable Object obj) throws GridException;
 
+    /**
+     * Marshals object into byte buffer starting at its current position. If buffer is direct,
+     * marshaller may write object directly into buffer memory without intermediate heap arrays.
+     *
+     * @param obj Object to marshal.
+     * @param buf Byte buffer to marshal into. Its position is advanced by number of written bytes.
+     * @return {@code True} if object was written, {@code false} if buffer has not enough remaining
+     *      space (buffer position is not changed in this case, but bytes after it may be overwritten).
+     * @throws GridException If marshalling failed.
+     */
+    public boolean marshal(@Nullable Object obj, ByteBuffer buf) throws GridException;
+
     /**
      * Unmarshals object from the output stream using given class loader.
      * This method should not close given input stream.
@@ -144,4 +159,17 @@ public interface GridMarshaller {
      * @throws GridException If unmarshalling failed.
      */
     public <T> T unmarshal(byte[] arr, @Nullable ClassLoader clsLdr) throws GridException;
+
+    /**
+     * Unmarshals object from remaining bytes of byte buffer using given class loader. If buffer
+     * is direct, marshaller may read object directly from buffer memory without intermediate heap arrays.
+     * Buffer position is set to its limit.
+     *
+     * @param <T> Type of unmarshalled object.
+     * @param buf Byte buffer.
+     * @param clsLdr Class loader to use.
+     * @return Unmarshalled object.
+     * @throws GridException If unmarshalling failed.
+     */
+    public <T> T unmarshal(ByteBuffer buf, @Nullable ClassLoader clsLdr) throws GridException;
 }
@@ -30,9 +30,11 @@ import org.gridgain.grid.util.typedef.*;
 import org.gridgain.grid.util.*;
 import org.jetbrains.annotations.*;
 import sun.misc.*;
+import sun.nio.ch.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.*;
 import java.util.*;
 
 import static org.gridgain.grid.marshaller.optimized.GridOptimizedMarshallerUtils.*;
@@ -322,6 +324,48 @@ public class GridOptimizedMarshaller extends GridAbstractMarshaller {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override public boolean marshal(@Nullable Object obj, ByteBuffer buf) throws GridException {
+        GridOptimizedObjectOutputStream objOut = null;
+
+        try {
+            objOut = GridOptimizedObjectStreamRegistry.out();
+
+            objOut.requireSerializable(requireSer);
+
+            // Direct buffer is written in place, heap one receives copy of pooled stream array.
+            if (buf.isDirect())
+                objOut.out().memory(((DirectBuffer)buf).address() + buf.position(), buf.remaining());
+
+            objOut.writeObject(obj);
+
+            int len = objOut.out().offset();
+
+            if (buf.isDirect())
+                buf.position(buf.position() + len);
+            else {
+                if (len > buf.remaining())
+                    return false;
+
+                buf.put(objOut.out().internalArray(), 0, len);
+            }
+
+            return true;
+        }
+        catch (BufferOverflowException ignored) {
+            return false;
+        }
+        catch (IOException e) {
+            if (X.hasCause(e, BufferOverflowException.class))
+                return false;
+
+            throw new GridException("Failed to serialize object: " + obj, e);
+        }
+        finally {
+            GridOptimizedObjectStreamRegistry.closeOut(objOut);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override public <T> T unmarshal(InputStream in, @Nullable ClassLoader clsLdr) throws GridException {
         assert in != null;
@@ -378,6 +422,40 @@ public class GridOptimizedMarshaller extends GridAbstractMarshaller {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override public <T> T unmarshal(ByteBuffer buf, @Nullable ClassLoader clsLdr) throws GridException {
+        if (!buf.isDirect() && buf.arrayOffset() + buf.position() != 0)
+            return super.unmarshal(buf, clsLdr);
+
+        GridOptimizedObjectInputStream objIn = null;
+
+        try {
+            objIn = GridOptimizedObjectStreamRegistry.in();
+
+            objIn.classLoader(clsLdr != null ? clsLdr : dfltClsLdr);
+
+            if (buf.isDirect())
+                objIn.in().memory(((DirectBuffer)buf).address() + buf.position(), buf.remaining());
+            else
+                objIn.in().bytes(buf.array(), buf.remaining());
+
+            return (T)objIn.readObject();
+        }
+        catch (IOException e) {
+            throw new GridException("Failed to deserialize object with given class loader: " + clsLdr, e);
+        }
+        catch (ClassNotFoundException e) {
+            throw new GridException("Failed to find class with given class loader for unmarshalling " +
+                "(make sure same version of all classes are available on all nodes or enable peer-class-loading): " +
+                clsLdr, e);
+        }
+        finally {
+            GridOptimizedObjectStreamRegistry.closeIn(objIn);
+
+            buf.position(buf.limit());
+        }
+    }
+
     /**
      * Checks whether {@code GridOptimizedMarshaller} is able to work on the current JVM.
      * <p>
@@ -0,0 +1,156 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.marshaller.portable;
+
+import org.gridgain.grid.*;
+import org.gridgain.grid.util.typedef.internal.*;
+import org.jetbrains.annotations.*;
+
+import java.util.*;
+
+/**
+ * Builder of {@link GridPortableObject}. Builder does not require object class on classpath, so it
+ * can be used to create objects of types unknown to the node or to modify fields of existing portable
+ * objects. Fields which are not modified are copied to the new object in serialized form.
+ * <pre name="code" class="java">
+ * GridPortableObject person = new GridPortableBuilder("org.example.Person")
+ *     .setField("name", "John")
+ *     .setField("age", 30)
+ *     .build();
+ *
+ * GridPortableObject older = person.toBuilder().setField("age", 31).build();
+ * </pre>
+ * Hash code of built object is computed from its bytes unless it is set with {@link #setHashCode(int)}.
+ * Objects used as cache keys on nodes which deserialize portable objects must have hash code of
+ * the corresponding class instance, otherwise they are mapped to wrong partitions.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+public class GridPortableBuilder {
+    /** Type name. */
+    private final String typeName;
+
+    /** Field values with preserved order. */
+    private final Map<String, Object> fields = new LinkedHashMap<>();
+
+    /** Hash code. */
+    private Integer hash;
+
+    /**
+     * Creates builder of empty object.
+     *
+     * @param typeName Type name. If object of this type should be deserialized, it must be class name.
+     */
+    public GridPortableBuilder(String typeName) {
+        A.notNull(typeName, "typeName");
+
+        this.typeName = typeName;
+    }
+
+    /**
+     * Creates builder initialized with fields of given object.
+     *
+     * @param obj Portable object.
+     */
+    public GridPortableBuilder(GridPortableObject obj) {
+        A.notNull(obj, "obj");
+
+        typeName = obj.typeName();
+
+        for (String name : obj.fields())
+            fields.put(name, obj.rawField(name));
+    }
+
+    /**
+     * @return Type name.
+     */
+    public String typeName() {
+        return typeName;
+    }
+
+    /**
+     * Sets hash code of built object.
+     *
+     * @param hash Hash code.
+     * @return This builder for chaining.
+     */
+    public GridPortableBuilder setHashCode(int hash) {
+        this.hash = hash;
+
+        return this;
+    }
+
+    /**
+     * Sets field value. Objects of user classes are written as nested portable objects.
+     *
+     * @param name Field name.
+     * @param val Field value.
+     * @return This builder for chaining.
+     */
+    public GridPortableBuilder setField(String name, @Nullable Object val) {
+        A.notNull(name, "name");
+
+        fields.put(name, val);
+
+        return this;
+    }
+
+    /**
+     * Removes field.
+     *
+     * @param name Field name.
+     * @return This builder for chaining.
+     */
+    public GridPortableBuilder removeField(String name) {
+        fields.remove(name);
+
+        return this;
+    }
+
+    /**
+     * @param name Field name.
+     * @return {@code True} if builder has field with given name.
+     */
+    public boolean hasField(String name) {
+        return fields.containsKey(name);
+    }
+
+    /**
+     * Builds portable object.
+     *
+     * @return Portable object.
+     * @throws GridException If some field value could not be serialized.
+     */
+    public GridPortableObject build() throws GridException {
+        return new GridPortableObject(GridPortableWriter.write(typeName, hash, fields), 0);
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return S.toString(GridPortableBuilder.class, this, "fields", fields.keySet());
+    }
+}
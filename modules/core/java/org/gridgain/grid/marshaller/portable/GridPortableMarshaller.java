@@ -0,0 +1,243 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.marshaller.portable;
+
+import org.gridgain.grid.*;
+import org.gridgain.grid.marshaller.*;
+import org.gridgain.grid.marshaller.optimized.*;
+import org.gridgain.grid.util.typedef.internal.*;
+import org.jetbrains.annotations.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Marshaller which writes objects of user classes in portable format (see {@link GridPortableObject}).
+ * Only classes listed in {@link #setClassNames(Collection)} are written in portable format, usually
+ * these are classes of cache keys and values. Objects of other classes, including jobs, closures and
+ * task results, as well as JDK and GridGain classes, arrays, enums and classes with custom serialization
+ * ({@link Externalizable}, {@code writeObject()}, {@code writeReplace()}, etc.) are written by
+ * {@link GridOptimizedMarshaller}.
+ * <p>
+ * By default unmarshalled portable objects are deserialized to instances of their classes. If
+ * {@link #setKeepPortable(boolean)} is {@code true}, {@link GridPortableObject} is returned instead,
+ * so fields can be read without deserialization and without class on classpath. Portable object
+ * keeps hash code of the object it was created from, so portable cache keys are mapped to the same
+ * partitions as deserialized ones. Cache keys received in portable form are stored in cache as instances
+ * of their classes if classes are available.
+ * <p>
+ * <h1 class="header">Configuration</h1>
+ * <h2 class="header">Mandatory</h2>
+ * This marshaller has no mandatory configuration parameters.
+ * <h2 class="header">Java Example</h2>
+ * <pre name="code" class="java">
+ * GridPortableMarshaller marshaller = new GridPortableMarshaller();
+ *
+ * // Write persons in portable format.
+ * marshaller.setClassNames(Collections.singleton("org.example.Person"));
+ *
+ * GridConfiguration cfg = new GridConfiguration();
+ *
+ * // Override marshaller.
+ * cfg.setMarshaller(marshaller);
+ *
+ * // Starts grid.
+ * G.start(cfg);
+ * </pre>
+ * <h2 class="header">Spring Example</h2>
+ * GridPortableMarshaller can be configured from Spring XML configuration file:
+ * <pre name="code" class="xml">
+ * &lt;bean id="grid.custom.cfg" class="org.gridgain.grid.GridConfiguration" singleton="true"&gt;
+ *     ...
+ *     &lt;property name="marshaller"&gt;
+ *         &lt;bean class="org.gridgain.grid.marshaller.portable.GridPortableMarshaller"&gt;
+ *             &lt;property name="classNames"&gt;
+ *                 &lt;list&gt;
+ *                     &lt;value&gt;org.example.Person&lt;/value&gt;
+ *                 &lt;/list&gt;
+ *             &lt;/property&gt;
+ *         &lt;/bean&gt;
+ *     &lt;/property&gt;
+ *     ...
+ * &lt;/bean&gt;
+ * </pre>
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+public class GridPortableMarshaller extends GridAbstractMarshaller {
+    /** Stream header of portable object. */
+    private static final int HDR_PORTABLE = 1;
+
+    /** Stream header of object written by delegate marshaller. */
+    private static final int HDR_DELEGATE = 2;
+
+    /** Whether portable objects are returned without deserialization. */
+    private boolean keepPortable;
+
+    /** Names of classes written in portable format. */
+    private Set<String> clsNames = Collections.emptySet();
+
+    /**
+     * Gets names of classes written in portable format.
+     *
+     * @return Class names.
+     */
+    public Collection<String> getClassNames() {
+        return clsNames;
+    }
+
+    /**
+     * Sets names of classes written in portable format. Objects of other classes are written
+     * by {@link GridOptimizedMarshaller}. By default no classes are written in portable format.
+     *
+     * @param clsNames Class names.
+     */
+    public void setClassNames(Collection<String> clsNames) {
+        A.notNull(clsNames, "clsNames");
+
+        this.clsNames = new HashSet<>(clsNames);
+    }
+
+    /**
+     * Gets flag indicating whether portable objects are returned by unmarshal methods as is.
+     *
+     * @return Keep portable flag.
+     */
+    public boolean isKeepPortable() {
+        return keepPortable;
+    }
+
+    /**
+     * Sets flag indicating whether portable objects are returned by unmarshal methods as is,
+     * without deserialization. Default is {@code false}.
+     *
+     * @param keepPortable Keep portable flag.
+     */
+    public void setKeepPortable(boolean keepPortable) {
+        this.keepPortable = keepPortable;
+    }
+
+    /**
+     * Converts object to portable form. Object class does not have to be listed in
+     * {@link #setClassNames(Collection)}.
+     *
+     * @param obj Object of user class.
+     * @return Portable object.
+     * @throws GridException If class of object can not be written in portable format or if failed.
+     */
+    public GridPortableObject toPortable(Object obj) throws GridException {
+        A.notNull(obj, "obj");
+
+        if (obj instanceof GridPortableObject)
+            return (GridPortableObject)obj;
+
+        if (!GridPortableWriter.portable(obj.getClass()))
+            throw new GridException("Class can not be written in portable format: " + obj.getClass().getName());
+
+        return new GridPortableObject(GridPortableWriter.write(obj, null), 0);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void marshal(@Nullable Object obj, OutputStream out) throws GridException {
+        try {
+            if (obj instanceof GridPortableObject) {
+                GridPortableObject po = (GridPortableObject)obj;
+
+                out.write(HDR_PORTABLE);
+                out.write(po.array(), po.start(), po.length());
+            }
+            else if (obj != null && GridPortableWriter.portable(obj.getClass(), clsNames)) {
+                out.write(HDR_PORTABLE);
+                out.write(GridPortableWriter.write(obj, clsNames));
+            }
+            else {
+                out.write(HDR_DELEGATE);
+
+                GridPortableWriter.DELEGATE.marshal(obj, out);
+            }
+        }
+        catch (IOException e) {
+            throw new GridException("Failed to marshal object: " + obj, e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @SuppressWarnings("unchecked")
+    @Override public <T> T unmarshal(InputStream in, @Nullable ClassLoader clsLdr) throws GridException {
+        try {
+            int hdr = in.read();
+
+            if (hdr == HDR_DELEGATE)
+                return GridPortableWriter.DELEGATE.unmarshal(in, clsLdr);
+
+            if (hdr != HDR_PORTABLE)
+                throw new GridException("Invalid stream header: " + hdr);
+
+            DataInputStream din = new DataInputStream(in);
+
+            byte ver = din.readByte();
+            int len = din.readInt();
+
+            if (ver != GridPortableWriter.VER || len < GridPortableWriter.TYPE_NAME_OFF + 4)
+                throw new GridException("Invalid portable object header [ver=" + ver + ", len=" + len + ']');
+
+            byte[] arr = new byte[len];
+
+            arr[0] = ver;
+
+            U.intToBytes(len, arr, GridPortableWriter.LEN_OFF);
+
+            din.readFully(arr, GridPortableWriter.TYPE_ID_OFF, len - GridPortableWriter.TYPE_ID_OFF);
+
+            GridPortableObject po = new GridPortableObject(arr, 0);
+
+            return keepPortable ? (T)po : po.<T>deserialize(clsLdr);
+        }
+        catch (IOException e) {
+            throw new GridException("Failed to unmarshal object.", e);
+        }
+    }
+
+    /**
+     * Undeployment callback invoked when class loader is being undeployed.
+     *
+     * @param ldr Undeployed class loader.
+     */
+    public static void onUndeploy(ClassLoader ldr) {
+        GridPortableWriter.onUndeploy(ldr);
+    }
+
+    /**
+     * Clears internal caches and frees memory. Usually called on system stop.
+     */
+    public static void clearCache() {
+        GridPortableWriter.clearCache();
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return S.toString(GridPortableMarshaller.class, this);
+    }
+}
@@ -0,0 +1,569 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.marshaller.portable;
+
+import org.gridgain.grid.*;
+import org.gridgain.grid.marshaller.optimized.*;
+import org.gridgain.grid.util.*;
+import org.gridgain.grid.util.tostring.*;
+import org.gridgain.grid.util.typedef.internal.*;
+import org.jetbrains.annotations.*;
+import sun.misc.*;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.math.*;
+import java.util.*;
+
+import static org.gridgain.grid.marshaller.portable.GridPortableWriter.*;
+
+/**
+ * Object in portable format. Portable object keeps fields in serialized form together with
+ * a schema header, so that any field can be read directly from bytes without deserialization
+ * of the whole object and without object class on classpath.
+ * <p>
+ * Portable objects can be stored in cache instead of regular objects. Indexing reads SQL fields of
+ * portable values directly from bytes, scan query filters and transformers receive portable objects
+ * and can access required fields via {@link #field(String)}:
+ * <pre name="code" class="java">
+ * GridCacheQuery&lt;Map.Entry&lt;Long, GridPortableObject&gt;&gt; qry =
+ *     cache.queries().createScanQuery(new GridBiPredicate&lt;Long, GridPortableObject&gt;() {
+ *         &#64;Override public boolean apply(Long key, GridPortableObject person) {
+ *             return person.&lt;Integer&gt;field("age") &gt; 30;
+ *         }
+ *     });
+ * </pre>
+ * Portable objects are created by {@link GridPortableMarshaller#toPortable(Object)} from regular objects
+ * or by {@link GridPortableBuilder}, which also allows to modify fields of existing portable object.
+ * <h1 class="header">Format</h1>
+ * <ul>
+ * <li>Header: format version (1 byte), total length, type ID (hash code of type name),
+ *     hash code of object, number of fields and type name (length-prefixed UTF-8).</li>
+ * <li>Field table: for every field hash code of field name, offset of field name and offset of
+ *     field value. Table is sorted by name hash code, so field is found by binary search.</li>
+ * <li>Field names (2-byte length-prefixed UTF-8).</li>
+ * <li>Field values: type code followed by value. Primitives and their wrappers, strings, {@link UUID},
+ *     {@link Date}, {@link BigDecimal} and byte arrays are written natively, nested objects of user
+ *     classes are written as nested portable objects, everything else is written by
+ *     {@link GridOptimizedMarshaller}.</li>
+ * </ul>
+ * All numbers are written in big-endian order, all offsets are relative to object start.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+public final class GridPortableObject implements Externalizable {
+    /** */
+    private static final long serialVersionUID = 0L;
+
+    /** */
+    private static final Unsafe UNSAFE = GridUnsafe.unsafe();
+
+    /** Array containing object. */
+    @GridToStringExclude
+    private byte[] arr;
+
+    /** Object start in array. */
+    private int start;
+
+    /**
+     * Required by {@link Externalizable}.
+     */
+    public GridPortableObject() {
+        // No-op.
+    }
+
+    /**
+     * @param arr Array containing object.
+     * @param start Object start in array.
+     */
+    GridPortableObject(byte[] arr, int start) {
+        assert arr != null;
+
+        this.arr = arr;
+        this.start = start;
+
+        if (arr.length - start < TYPE_NAME_OFF + 4 || arr[start] != VER)
+            throw new GridRuntimeException("Invalid portable object format [ver=" + arr[start] + ']');
+    }
+
+    /**
+     * Gets type name. For objects converted from regular objects it is the class name.
+     *
+     * @return Type name.
+     */
+    public String typeName() {
+        return new String(arr, start + TYPE_NAME_OFF + 4, readInt(TYPE_NAME_OFF), UTF_8);
+    }
+
+    /**
+     * Gets type ID which is hash code of type name.
+     *
+     * @return Type ID.
+     */
+    public int typeId() {
+        return readInt(TYPE_ID_OFF);
+    }
+
+    /**
+     * Gets names of fields.
+     *
+     * @return Field names in order of field table.
+     */
+    public Collection<String> fields() {
+        int cnt = fieldsCount();
+
+        Collection<String> res = new ArrayList<>(cnt);
+
+        for (int i = 0; i < cnt; i++)
+            res.add(fieldName(i));
+
+        return res;
+    }
+
+    /**
+     * @param name Field name.
+     * @return {@code True} if object has field with given name.
+     */
+    public boolean hasField(String name) {
+        return fieldIndex(name) >= 0;
+    }
+
+    /**
+     * Reads field value directly from bytes. Nested objects of user classes are returned as
+     * portable objects. Values written by delegate marshaller are unmarshalled with context class loader.
+     *
+     * @param name Field name.
+     * @param <T> Value type.
+     * @return Field value or {@code null} if there is no such field.
+     * @throws GridRuntimeException If field value can not be unmarshalled.
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable public <T> T field(String name) {
+        int idx = fieldIndex(name);
+
+        if (idx < 0)
+            return null;
+
+        try {
+            return (T)readValue(valueOffset(idx), null);
+        }
+        catch (GridException e) {
+            throw new GridRuntimeException("Failed to read field [type=" + typeName() + ", field=" + name + ']', e);
+        }
+    }
+
+    /**
+     * Deserializes object using context class loader.
+     *
+     * @param <T> Object type.
+     * @return Object.
+     * @throws GridException If failed.
+     */
+    public <T> T deserialize() throws GridException {
+        return deserialize(null);
+    }
+
+    /**
+     * Deserializes object. Class with name {@link #typeName()} must be available in given class loader.
+     * Fields of class which are absent in portable object are left with default values.
+     *
+     * @param ldr Class loader, if {@code null} context class loader is used.
+     * @param <T> Object type.
+     * @return Object.
+     * @throws GridException If failed.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T deserialize(@Nullable ClassLoader ldr) throws GridException {
+        ldr = loader(ldr);
+
+        String typeName = typeName();
+
+        try {
+            Class<?> cls = U.forName(typeName, ldr);
+
+            if (!portable(cls))
+                throw new GridException("Class can not be deserialized from portable object: " + typeName);
+
+            Object obj = UNSAFE.allocateInstance(cls);
+
+            for (Field f : GridPortableWriter.fields(cls)) {
+                int idx = fieldIndex(f.getName());
+
+                if (idx < 0)
+                    continue;
+
+                Object val = readValue(valueOffset(idx), ldr);
+
+                if (val instanceof GridPortableObject && !f.getType().isAssignableFrom(GridPortableObject.class))
+                    val = ((GridPortableObject)val).deserialize(ldr);
+
+                if (val != null || !f.getType().isPrimitive())
+                    f.set(obj, val);
+            }
+
+            return (T)obj;
+        }
+        catch (ClassNotFoundException e) {
+            throw new GridException("Failed to find class for portable object [type=" + typeName +
+                ", ldr=" + ldr + ']', e);
+        }
+        catch (InstantiationException | IllegalAccessException | IllegalArgumentException e) {
+            throw new GridException("Failed to deserialize portable object: " + typeName, e);
+        }
+    }
+
+    /**
+     * Creates builder initialized with fields of this object.
+     *
+     * @return Builder.
+     */
+    public GridPortableBuilder toBuilder() {
+        return new GridPortableBuilder(this);
+    }
+
+    /**
+     * @return Length of object in bytes.
+     */
+    public int length() {
+        return readInt(LEN_OFF);
+    }
+
+    /**
+     * @return Copy of object bytes.
+     */
+    public byte[] bytes() {
+        return Arrays.copyOfRange(arr, start, start + length());
+    }
+
+    /**
+     * @return Array containing object.
+     */
+    byte[] array() {
+        return arr;
+    }
+
+    /**
+     * @return Object start in array.
+     */
+    int start() {
+        return start;
+    }
+
+    /**
+     * @param name Field name.
+     * @return Encoded field value or {@code null} if there is no such field.
+     */
+    @Nullable Raw rawField(String name) {
+        int idx = fieldIndex(name);
+
+        if (idx < 0)
+            return null;
+
+        int off = valueOffset(idx);
+
+        return new Raw(arr, start + off, valueLength(off));
+    }
+
+    /**
+     * @return Number of fields.
+     */
+    private int fieldsCount() {
+        return readInt(FIELDS_CNT_OFF);
+    }
+
+    /**
+     * @return Offset of field table.
+     */
+    private int tableOffset() {
+        return TYPE_NAME_OFF + 4 + readInt(TYPE_NAME_OFF);
+    }
+
+    /**
+     * @param idx Field index in table.
+     * @return Field name.
+     */
+    private String fieldName(int idx) {
+        int off = readInt(tableOffset() + idx * FIELD_ENTRY_SIZE + 4);
+
+        return new String(arr, start + off + 2, readShort(off), UTF_8);
+    }
+
+    /**
+     * @param idx Field index in table.
+     * @return Offset of field value.
+     */
+    private int valueOffset(int idx) {
+        return readInt(tableOffset() + idx * FIELD_ENTRY_SIZE + 8);
+    }
+
+    /**
+     * @param name Field name.
+     * @return Field index in table or {@code -1}.
+     */
+    private int fieldIndex(String name) {
+        int hash = name.hashCode();
+        int tbl = tableOffset();
+
+        int lo = 0;
+        int hi = fieldsCount() - 1;
+
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+
+            int h = readInt(tbl + mid * FIELD_ENTRY_SIZE);
+
+            if (h < hash)
+                lo = mid + 1;
+            else if (h > hash)
+                hi = mid - 1;
+            else {
+                // Find first entry with the same hash and check names.
+                while (mid > 0 && readInt(tbl + (mid - 1) * FIELD_ENTRY_SIZE) == hash)
+                    mid--;
+
+                for (int i = mid; i <= hi && readInt(tbl + i * FIELD_ENTRY_SIZE) == hash; i++) {
+                    if (fieldName(i).equals(name))
+                        return i;
+                }
+
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param off Value offset.
+     * @param ldr Class loader for values written by delegate marshaller.
+     * @return Value.
+     * @throws GridException If failed.
+     */
+    @Nullable private Object readValue(int off, @Nullable ClassLoader ldr) throws GridException {
+        int p = start + off + 1;
+
+        switch (arr[start + off]) {
+            case NULL:
+                return null;
+
+            case BYTE:
+                return arr[p];
+
+            case SHORT:
+                return (short)readShort(off + 1);
+
+            case INT:
+                return readInt(off + 1);
+
+            case LONG:
+                return U.bytesToLong(arr, p);
+
+            case FLOAT:
+                return Float.intBitsToFloat(readInt(off + 1));
+
+            case DOUBLE:
+                return Double.longBitsToDouble(U.bytesToLong(arr, p));
+
+            case CHAR:
+                return (char)readShort(off + 1);
+
+            case BOOLEAN:
+                return arr[p] != 0;
+
+            case STRING:
+                return new String(arr, p + 4, readInt(off + 1), UTF_8);
+
+            case UUID_:
+                return new UUID(U.bytesToLong(arr, p), U.bytesToLong(arr, p + 8));
+
+            case DATE:
+                return new Date(U.bytesToLong(arr, p));
+
+            case DECIMAL:
+                return new BigDecimal(new BigInteger(Arrays.copyOfRange(arr, p + 8, p + 8 + readInt(off + 5))),
+                    readInt(off + 1));
+
+            case BYTE_ARR:
+                return Arrays.copyOfRange(arr, p + 4, p + 4 + readInt(off + 1));
+
+            case PORTABLE:
+                return new GridPortableObject(arr, p);
+
+            case OBJECT:
+                return DELEGATE.unmarshal(new ByteArrayInputStream(arr, p + 4, readInt(off + 1)), loader(ldr));
+
+            default:
+                throw new GridException("Invalid portable value type: " + arr[start + off]);
+        }
+    }
+
+    /**
+     * @param off Value offset.
+     * @return Length of encoded value including type code.
+     */
+    private int valueLength(int off) {
+        switch (arr[start + off]) {
+            case NULL:
+                return 1;
+
+            case BYTE:
+            case BOOLEAN:
+                return 2;
+
+            case SHORT:
+            case CHAR:
+                return 3;
+
+            case INT:
+            case FLOAT:
+                return 5;
+
+            case LONG:
+            case DOUBLE:
+            case DATE:
+                return 9;
+
+            case UUID_:
+                return 17;
+
+            case STRING:
+            case BYTE_ARR:
+            case OBJECT:
+                return 5 + readInt(off + 1);
+
+            case DECIMAL:
+                return 9 + readInt(off + 5);
+
+            case PORTABLE:
+                return 1 + readInt(off + 1 + LEN_OFF);
+
+            default:
+                throw new GridRuntimeException("Invalid portable value type: " + arr[start + off]);
+        }
+    }
+
+    /**
+     * @param ldr Class loader.
+     * @return Given class loader or context class loader or GridGain class loader.
+     */
+    private static ClassLoader loader(@Nullable ClassLoader ldr) {
+        if (ldr == null)
+            ldr = Thread.currentThread().getContextClassLoader();
+
+        return ldr != null ? ldr : U.gridClassLoader();
+    }
+
+    /**
+     * @param off Offset.
+     * @return Integer.
+     */
+    private int readInt(int off) {
+        return U.bytesToInt(arr, start + off);
+    }
+
+    /**
+     * @param off Offset.
+     * @return Unsigned short.
+     */
+    private int readShort(int off) {
+        return ((arr[start + off] & 0xFF) << 8) | (arr[start + off + 1] & 0xFF);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void writeExternal(ObjectOutput out) throws IOException {
+        int len = length();
+
+        out.writeInt(len);
+        out.write(arr, start, len);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        arr = new byte[in.readInt()];
+        start = 0;
+
+        in.readFully(arr);
+    }
+
+    /**
+     * Portable objects are equal if their bytes are equal. Portable object is equal to instance
+     * of class with name {@link #typeName()} if it is equal to this object deserialized, so that
+     * portable cache key matches key created from class instance.
+     *
+     * @param o Other object.
+     * @return {@code True} if objects are equal.
+     */
+    @Override public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (o == null)
+            return false;
+
+        if (!(o instanceof GridPortableObject)) {
+            Class<?> cls = o.getClass();
+
+            if (hashCode() != o.hashCode() || typeId() != cls.getName().hashCode() ||
+                !typeName().equals(cls.getName()))
+                return false;
+
+            try {
+                return o.equals(deserialize(cls.getClassLoader()));
+            }
+            catch (GridException ignored) {
+                return false;
+            }
+        }
+
+        GridPortableObject other = (GridPortableObject)o;
+
+        int len = length();
+
+        if (len != other.length())
+            return false;
+
+        for (int i = 0; i < len; i++) {
+            if (arr[start + i] != other.arr[other.start + i])
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets hash code of object this portable object was created from, so that portable
+     * cache key is mapped to the same partition as the deserialized one.
+     *
+     * @return Hash code.
+     */
+    @Override public int hashCode() {
+        return readInt(HASH_OFF);
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return S.toString(GridPortableObject.class, this, "typeName", typeName(), "fields", fields());
+    }
+}
@@ -0,0 +1,538 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.marshaller.portable;
+
+import org.gridgain.grid.*;
+import org.gridgain.grid.marshaller.*;
+import org.gridgain.grid.marshaller.jdk.*;
+import org.gridgain.grid.marshaller.optimized.*;
+import org.gridgain.grid.util.*;
+import org.gridgain.grid.util.io.*;
+import org.gridgain.grid.util.typedef.internal.*;
+import org.jetbrains.annotations.*;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.math.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Writes objects in portable format described in {@link GridPortableObject}.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+final class GridPortableWriter {
+    /** Format version. */
+    static final byte VER = 1;
+
+    /** Offset of total length in header. */
+    static final int LEN_OFF = 1;
+
+    /** Offset of type ID in header. */
+    static final int TYPE_ID_OFF = 5;
+
+    /** Offset of hash code in header. */
+    static final int HASH_OFF = 9;
+
+    /** Offset of fields count in header. */
+    static final int FIELDS_CNT_OFF = 13;
+
+    /** Offset of type name length in header. */
+    static final int TYPE_NAME_OFF = 17;
+
+    /** Size of field table entry: name hash, name offset and value offset. */
+    static final int FIELD_ENTRY_SIZE = 12;
+
+    /** */
+    static final byte NULL = 0;
+
+    /** */
+    static final byte BYTE = 1;
+
+    /** */
+    static final byte SHORT = 2;
+
+    /** */
+    static final byte INT = 3;
+
+    /** */
+    static final byte LONG = 4;
+
+    /** */
+    static final byte FLOAT = 5;
+
+    /** */
+    static final byte DOUBLE = 6;
+
+    /** */
+    static final byte CHAR = 7;
+
+    /** */
+    static final byte BOOLEAN = 8;
+
+    /** */
+    static final byte STRING = 9;
+
+    /** */
+    static final byte UUID_ = 10;
+
+    /** */
+    static final byte DATE = 11;
+
+    /** */
+    static final byte DECIMAL = 12;
+
+    /** */
+    static final byte BYTE_ARR = 13;
+
+    /** Nested portable object. */
+    static final byte PORTABLE = 14;
+
+    /** Object serialized by delegate marshaller. */
+    static final byte OBJECT = 15;
+
+    /** Charset of strings and names. */
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** Marshaller for values which can not be written in portable format. */
+    static final GridMarshaller DELEGATE = GridOptimizedMarshaller.available() ?
+        new GridOptimizedMarshaller(false) : new GridJdkMarshaller();
+
+    /** Serializable fields by class. */
+    private static final ConcurrentMap<Class<?>, Field[]> fieldsCache = new ConcurrentHashMap8<>();
+
+    /** Portable flags by class. */
+    private static final ConcurrentMap<Class<?>, Boolean> portableCache = new ConcurrentHashMap8<>();
+
+    /**
+     * Ensure singleton.
+     */
+    private GridPortableWriter() {
+        // No-op.
+    }
+
+    /**
+     * Checks whether objects of given class can be written field by field. JDK and GridGain classes,
+     * arrays, enums, anonymous classes and classes with custom serialization are written by
+     * delegate marshaller.
+     *
+     * @param cls Class.
+     * @return {@code True} if objects of given class are written in portable format.
+     */
+    static boolean portable(Class<?> cls) {
+        Boolean res = portableCache.get(cls);
+
+        if (res == null) {
+            res = !U.isJdk(cls) && !cls.isArray() && !cls.isEnum() && !cls.isAnonymousClass() &&
+                !cls.isLocalClass() && !cls.isSynthetic() && !cls.getName().startsWith("org.gridgain.grid.") &&
+                !Externalizable.class.isAssignableFrom(cls) && !hasCustomSerialization(cls);
+
+            portableCache.put(cls, res);
+        }
+
+        return res;
+    }
+
+    /**
+     * @param cls Class.
+     * @param types Names of classes written in portable format, if {@code null} any class
+     *      passing {@link #portable(Class)} check is written in portable format.
+     * @return {@code True} if objects of given class are written in portable format.
+     */
+    static boolean portable(Class<?> cls, @Nullable Collection<String> types) {
+        return (types == null || types.contains(cls.getName())) && portable(cls);
+    }
+
+    /**
+     * Removes cached data of classes loaded by given class loader.
+     *
+     * @param ldr Undeployed class loader.
+     */
+    static void onUndeploy(ClassLoader ldr) {
+        for (Class<?> cls : portableCache.keySet()) {
+            if (ldr.equals(cls.getClassLoader()))
+                portableCache.remove(cls);
+        }
+
+        for (Class<?> cls : fieldsCache.keySet()) {
+            if (ldr.equals(cls.getClassLoader()))
+                fieldsCache.remove(cls);
+        }
+    }
+
+    /**
+     * Clears cached class data.
+     */
+    static void clearCache() {
+        portableCache.clear();
+        fieldsCache.clear();
+    }
+
+    /**
+     * @param cls Class.
+     * @return {@code True} if class or its parent defines custom serialization methods.
+     */
+    private static boolean hasCustomSerialization(Class<?> cls) {
+        for (Class<?> c = cls; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Method mtd : c.getDeclaredMethods()) {
+                String name = mtd.getName();
+
+                if (name.equals("writeObject") || name.equals("readObject") || name.equals("writeReplace") ||
+                    name.equals("readResolve"))
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets non-static non-transient fields of class and its parents. If parent declares field
+     * with the same name as child, parent field is skipped.
+     *
+     * @param cls Class.
+     * @return Fields.
+     */
+    static Field[] fields(Class<?> cls) {
+        Field[] res = fieldsCache.get(cls);
+
+        if (res == null) {
+            Map<String, Field> fields = new LinkedHashMap<>();
+
+            for (Class<?> c = cls; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field f : c.getDeclaredFields()) {
+                    int mod = f.getModifiers();
+
+                    if (Modifier.isStatic(mod) || Modifier.isTransient(mod) || fields.containsKey(f.getName()))
+                        continue;
+
+                    f.setAccessible(true);
+
+                    fields.put(f.getName(), f);
+                }
+            }
+
+            res = fields.values().toArray(new Field[fields.size()]);
+
+            fieldsCache.put(cls, res);
+        }
+
+        return res;
+    }
+
+    /**
+     * @param obj Object of portable class.
+     * @param types Names of classes written in portable format, if {@code null} nested
+     *      objects of any portable class are written in portable format.
+     * @return Portable bytes.
+     * @throws GridException If failed.
+     */
+    static byte[] write(Object obj, @Nullable Collection<String> types) throws GridException {
+        return write(obj, types, Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+    }
+
+    /**
+     * @param obj Object of portable class.
+     * @param types Names of classes written in portable format.
+     * @param stack Objects being written, used to detect cycles.
+     * @return Portable bytes.
+     * @throws GridException If failed.
+     */
+    private static byte[] write(Object obj, @Nullable Collection<String> types, Set<Object> stack)
+        throws GridException {
+        assert portable(obj.getClass());
+
+        Field[] fields = fields(obj.getClass());
+
+        Map<String, Object> vals = new LinkedHashMap<>(fields.length * 2);
+
+        try {
+            for (Field f : fields)
+                vals.put(f.getName(), f.get(obj));
+        }
+        catch (IllegalAccessException e) {
+            throw new GridException("Failed to read object fields: " + obj.getClass().getName(), e);
+        }
+
+        stack.add(obj);
+
+        try {
+            return write(obj.getClass().getName(), obj.hashCode(), vals, types, stack);
+        }
+        finally {
+            stack.remove(obj);
+        }
+    }
+
+    /**
+     * @param typeName Type name.
+     * @param hash Hash code, if {@code null} it is computed from object bytes.
+     * @param fields Field values, values may be {@link Raw} slices of other portable objects.
+     * @return Portable bytes.
+     * @throws GridException If failed.
+     */
+    static byte[] write(String typeName, @Nullable Integer hash, Map<String, ?> fields) throws GridException {
+        return write(typeName, hash, fields, null, Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+    }
+
+    /**
+     * @param typeName Type name.
+     * @param hash Hash code, if {@code null} it is computed from object bytes.
+     * @param fields Field values.
+     * @param types Names of classes written in portable format.
+     * @param stack Objects being written.
+     * @return Portable bytes.
+     * @throws GridException If failed.
+     */
+    private static byte[] write(String typeName, @Nullable Integer hash, Map<String, ?> fields,
+        @Nullable Collection<String> types, Set<Object> stack) throws GridException {
+        int cnt = fields.size();
+
+        byte[][] names = new byte[cnt][];
+        int[] hashes = new int[cnt];
+
+        GridByteArrayOutputStream vals = new GridByteArrayOutputStream(64 + cnt * 16);
+        DataOutputStream out = new DataOutputStream(vals);
+
+        int[] valOffs = new int[cnt];
+
+        int i = 0;
+
+        try {
+            for (Map.Entry<String, ?> e : fields.entrySet()) {
+                names[i] = e.getKey().getBytes(UTF_8);
+                hashes[i] = e.getKey().hashCode();
+                valOffs[i] = vals.size();
+
+                writeValue(out, e.getValue(), types, stack);
+
+                i++;
+            }
+
+            out.flush();
+        }
+        catch (IOException e) {
+            throw new GridException("Failed to write portable object: " + typeName, e);
+        }
+
+        // Field table is sorted by name hash for binary search.
+        Integer[] order = new Integer[cnt];
+
+        for (i = 0; i < cnt; i++)
+            order[i] = i;
+
+        final int[] h = hashes;
+
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override public int compare(Integer o1, Integer o2) {
+                return Integer.compare(h[o1], h[o2]);
+            }
+        });
+
+        byte[] typeNameBytes = typeName.getBytes(UTF_8);
+
+        int tblOff = TYPE_NAME_OFF + 4 + typeNameBytes.length;
+        int namesOff = tblOff + cnt * FIELD_ENTRY_SIZE;
+        int valsOff = namesOff;
+
+        for (byte[] name : names)
+            valsOff += 2 + name.length;
+
+        int len = valsOff + vals.size();
+
+        byte[] arr = new byte[len];
+
+        arr[0] = VER;
+
+        U.intToBytes(len, arr, LEN_OFF);
+        U.intToBytes(typeName.hashCode(), arr, TYPE_ID_OFF);
+        U.intToBytes(cnt, arr, FIELDS_CNT_OFF);
+        U.intToBytes(typeNameBytes.length, arr, TYPE_NAME_OFF);
+
+        System.arraycopy(typeNameBytes, 0, arr, TYPE_NAME_OFF + 4, typeNameBytes.length);
+
+        int nameOff = namesOff;
+
+        for (i = 0; i < cnt; i++) {
+            int idx = order[i];
+
+            int entry = tblOff + i * FIELD_ENTRY_SIZE;
+
+            U.intToBytes(hashes[idx], arr, entry);
+            U.intToBytes(nameOff, arr, entry + 4);
+            U.intToBytes(valsOff + valOffs[idx], arr, entry + 8);
+
+            byte[] name = names[idx];
+
+            arr[nameOff] = (byte)(name.length >>> 8);
+            arr[nameOff + 1] = (byte)name.length;
+
+            System.arraycopy(name, 0, arr, nameOff + 2, name.length);
+
+            nameOff += 2 + name.length;
+        }
+
+        System.arraycopy(vals.internalArray(), 0, arr, valsOff, vals.size());
+
+        U.intToBytes(hash != null ? hash : Arrays.hashCode(arr), arr, HASH_OFF);
+
+        return arr;
+    }
+
+    /**
+     * @param out Output.
+     * @param val Value.
+     * @param types Names of classes written in portable format.
+     * @param stack Objects being written.
+     * @throws IOException If failed.
+     * @throws GridException If failed.
+     */
+    private static void writeValue(DataOutputStream out, @Nullable Object val, @Nullable Collection<String> types,
+        Set<Object> stack) throws IOException, GridException {
+        if (val == null) {
+            out.writeByte(NULL);
+
+            return;
+        }
+
+        Class<?> cls = val.getClass();
+
+        if (cls == Integer.class) {
+            out.writeByte(INT);
+            out.writeInt((Integer)val);
+        }
+        else if (cls == Long.class) {
+            out.writeByte(LONG);
+            out.writeLong((Long)val);
+        }
+        else if (cls == String.class) {
+            byte[] bytes = ((String)val).getBytes(UTF_8);
+
+            out.writeByte(STRING);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        else if (cls == Double.class) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double)val);
+        }
+        else if (cls == Boolean.class) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean)val);
+        }
+        else if (cls == Byte.class) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte)val);
+        }
+        else if (cls == Short.class) {
+            out.writeByte(SHORT);
+            out.writeShort((Short)val);
+        }
+        else if (cls == Float.class) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float)val);
+        }
+        else if (cls == Character.class) {
+            out.writeByte(CHAR);
+            out.writeChar((Character)val);
+        }
+        else if (cls == UUID.class) {
+            out.writeByte(UUID_);
+            out.writeLong(((UUID)val).getMostSignificantBits());
+            out.writeLong(((UUID)val).getLeastSignificantBits());
+        }
+        else if (cls == Date.class) {
+            out.writeByte(DATE);
+            out.writeLong(((Date)val).getTime());
+        }
+        else if (cls == BigDecimal.class) {
+            byte[] bytes = ((BigDecimal)val).unscaledValue().toByteArray();
+
+            out.writeByte(DECIMAL);
+            out.writeInt(((BigDecimal)val).scale());
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        else if (cls == byte[].class) {
+            out.writeByte(BYTE_ARR);
+            out.writeInt(((byte[])val).length);
+            out.write((byte[])val);
+        }
+        else if (cls == GridPortableObject.class) {
+            GridPortableObject po = (GridPortableObject)val;
+
+            out.writeByte(PORTABLE);
+            out.write(po.array(), po.start(), po.length());
+        }
+        else if (cls == Raw.class) {
+            Raw raw = (Raw)val;
+
+            out.write(raw.arr, raw.off, raw.len);
+        }
+        else if (portable(cls, types) && !stack.contains(val)) {
+            out.writeByte(PORTABLE);
+            out.write(write(val, types, stack));
+        }
+        else {
+            byte[] bytes = DELEGATE.marshal(val);
+
+            out.writeByte(OBJECT);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Encoded value of a field, including type code, copied as is when portable object is rebuilt.
+     */
+    static class Raw {
+        /** Array. */
+        private final byte[] arr;
+
+        /** Offset. */
+        private final int off;
+
+        /** Length. */
+        private final int len;
+
+        /**
+         * @param arr Array.
+         * @param off Offset.
+         * @param len Length.
+         */
+        Raw(byte[] arr, int off, int len) {
+            this.arr = arr;
+            this.off = off;
+            this.len = len;
+        }
+
+        /** {@inheritDoc} */
+        @Override public String toString() {
+            return S.toString(Raw.class, this, "len", len);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.spi.communication.tcp;
+
+import org.gridgain.grid.util.direct.*;
+import org.gridgain.grid.util.typedef.internal.*;
+
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+
+/**
+ * Several messages to the same node coalesced by {@link GridTcpCommunicationSpi} into single message,
+ * so they are written to connection together. Batch is unwrapped on receiving node and listener is
+ * notified about each message in order they were sent.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+public class GridTcpCommunicationBatchMessage extends GridTcpCommunicationMessageAdapter {
+    /** */
+    private static final long serialVersionUID = 0L;
+
+    /** Messages. */
+    private Collection<GridTcpCommunicationMessageAdapter> msgs;
+
+    /**
+     * Required by {@link Externalizable}.
+     */
+    public GridTcpCommunicationBatchMessage() {
+        // No-op.
+    }
+
+    /**
+     * @param msgs Messages.
+     */
+    GridTcpCommunicationBatchMessage(Collection<GridTcpCommunicationMessageAdapter> msgs) {
+        assert msgs != null;
+
+        this.msgs = msgs;
+    }
+
+    /**
+     * @return Messages.
+     */
+    Collection<GridTcpCommunicationMessageAdapter> messages() {
+        return msgs;
+    }
+
+    /** {@inheritDoc} */
+    @SuppressWarnings({"CloneDoesntCallSuperClone", "CloneCallsConstructors"})
+    @Override public GridTcpCommunicationMessageAdapter clone() {
+        GridTcpCommunicationBatchMessage _clone = new GridTcpCommunicationBatchMessage();
+
+        clone0(_clone);
+
+        return _clone;
+    }
+
+    /** {@inheritDoc} */
+    @Override protected void clone0(GridTcpCommunicationMessageAdapter _msg) {
+        GridTcpCommunicationBatchMessage _clone = (GridTcpCommunicationBatchMessage)_msg;
+
+        if (msgs != null) {
+            _clone.msgs = new ArrayList<>(msgs.size());
+
+            for (GridTcpCommunicationMessageAdapter msg : msgs)
+                _clone.msgs.add(msg.clone());
+        }
+    }
+
+    /** {@inheritDoc} */
+    @SuppressWarnings("all")
+    @Override public boolean writeTo(ByteBuffer buf) {
+        commState.setBuffer(buf);
+
+        if (!commState.typeWritten) {
+            if (!commState.putByte(directType()))
+                return false;
+
+            commState.typeWritten = true;
+        }
+
+        switch (commState.idx) {
+            case 0:
+                if (msgs != null) {
+                    if (commState.it == null) {
+                        if (!commState.putInt(msgs.size()))
+                            return false;
+
+                        commState.it = msgs.iterator();
+                    }
+
+                    while (commState.it.hasNext() || commState.cur != NULL) {
+                        if (commState.cur == NULL)
+                            commState.cur = commState.it.next();
+
+                        if (!commState.putMessage((GridTcpCommunicationMessageAdapter)commState.cur))
+                            return false;
+
+                        commState.cur = NULL;
+                    }
+
+                    commState.it = null;
+                } else {
+                    if (!commState.putInt(-1))
+                        return false;
+                }
+
+                commState.idx++;
+
+        }
+
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @SuppressWarnings("all")
+    @Override public boolean readFrom(ByteBuffer buf) {
+        commState.setBuffer(buf);
+
+        switch (commState.idx) {
+            case 0:
+                if (commState.readSize == -1) {
+                    if (buf.remaining() < 4)
+                        return false;
+
+                    commState.readSize = commState.getInt();
+                }
+
+                if (commState.readSize >= 0) {
+                    if (msgs == null)
+                        msgs = new ArrayList<>(commState.readSize);
+
+                    for (int i = commState.readItems; i < commState.readSize; i++) {
+                        Object _val = commState.getMessage();
+
+                        if (_val == MSG_NOT_READ)
+                            return false;
+
+                        msgs.add((GridTcpCommunicationMessageAdapter)_val);
+
+                        commState.readItems++;
+                    }
+                }
+
+                commState.readSize = -1;
+                commState.readItems = 0;
+
+                commState.idx++;
+
+        }
+
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override public byte directType() {
+        return 79;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return S.toString(GridTcpCommunicationBatchMessage.class, this, "size", msgs != null ? msgs.size() : 0);
+    }
+}
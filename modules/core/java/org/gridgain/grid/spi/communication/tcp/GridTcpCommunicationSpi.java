@@ -35,11 +35,13 @@ import org.gridgain.grid.spi.*;
 import org.gridgain.grid.spi.communication.*;
 import org.gridgain.grid.thread.*;
 import org.gridgain.grid.util.*;
+import org.gridgain.grid.util.LongAdder;
 import org.gridgain.grid.util.direct.*;
 import org.gridgain.grid.util.ipc.*;
 import org.gridgain.grid.util.ipc.shmem.*;
 import org.gridgain.grid.util.lang.*;
 import org.gridgain.grid.util.nio.*;
+import org.gridgain.grid.util.tostring.*;
 import org.gridgain.grid.util.typedef.*;
 import org.gridgain.grid.util.typedef.internal.*;
 import org.gridgain.grid.util.worker.*;
@@ -53,6 +55,7 @@ import java.nio.channels.spi.*;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
 
 import static org.gridgain.grid.GridSystemProperties.*;
 import static org.gridgain.grid.events.GridEventType.*;
@@ -79,6 +82,28 @@ import static org.gridgain.grid.events.GridEventType.*;
  * {@link #setIdleConnectionTimeout(long)} configuration parameter to configure
  * you own idle connection timeout.
  * <p>
+ * By default single connection is used for each remote node. If one connection cannot keep up
+ * with the traffic, several connections per node may be configured with
+ * {@link #setConnectionsPerNode(int)}. Messages are striped across connections by their
+ * ordering key (see {@link GridTcpCommunicationMessageAdapter#orderKey()}), e.g. by topic for
+ * grid messages and by future or request ID for cache gets and queries, so messages with the same
+ * key are always sent over the same connection and are delivered in send order, while messages with
+ * different keys may overtake each other.
+ * <p>
+ * Traffic between nodes may be compressed (see {@link #setCompressionEnabled(boolean)}). Compression is
+ * used on connection only if it is enabled on both nodes and both nodes use asynchronous send.
+ * Written chunks smaller than {@link #setCompressionThreshold(int)} are sent as is, and compression is temporarily turned off for
+ * connection if compressed chunks are not smaller than {@link #setCompressionMaxRatio(double)} of original
+ * size or compression is too slow. Compression is not used for shared memory connections.
+ * <p>
+ * Small messages may be coalesced to reduce number of writes (see {@link #setCoalescingLatency(long)}).
+ * Messages to the same connection are then accumulated for up to configured latency or until
+ * {@link #setCoalescingBatchSize(int)} messages are collected and are sent as single
+ * {@link GridTcpCommunicationBatchMessage}, which is unwrapped by receiving node. If batch can not be
+ * sent, its messages are kept and resent later, and new messages to the same connection are rejected
+ * with exception until batch is sent or remote node leaves topology. Messages which are still pending
+ * when remote node leaves topology or SPI is stopped are dropped with warning.
+ * <p>
  * <h1 class="header">Configuration</h1>
  * <h2 class="header">Mandatory</h2>
  * This SPI has no mandatory configuration parameters.
@@ -99,6 +124,12 @@ import static org.gridgain.grid.events.GridEventType.*;
  * <li>Async message sending (see {@link #setAsyncSend(boolean)})</li>
  * <li>Message queue limit (see {@link #setMessageQueueLimit(int)})</li>
  * <li>Dual socket connection (see {@link #setDualSocketConnection(boolean)})</li>
+ * <li>Connections per node (see {@link #setConnectionsPerNode(int)})</li>
+ * <li>Compression (see {@link #setCompressionEnabled(boolean)})</li>
+ * <li>Compression threshold (see {@link #setCompressionThreshold(int)})</li>
+ * <li>Compression maximum ratio (see {@link #setCompressionMaxRatio(double)})</li>
+ * <li>Coalescing latency (see {@link #setCoalescingLatency(long)})</li>
+ * <li>Coalescing batch size (see {@link #setCoalescingBatchSize(int)})</li>
  * <li>Minimum buffered message count (see {@link #setMinimumBufferedMessageCount(int)})</li>
  * <li>Buffer size ratio (see {@link #setBufferSizeRatio(double)})</li>
  * <li>Connect timeout (see {@link #setConnectTimeout(long)})</li>
@@ -177,6 +208,9 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
     /** Node attribute that is mapped to node's external ports numbers (value is <tt>comm.tcp.ext-ports</tt>). */
     public static final String ATTR_EXT_PORTS = "comm.tcp.ext-ports";
 
+    /** Node attribute that is mapped to compression flag (value is <tt>comm.tcp.compression</tt>). */
+    public static final String ATTR_COMPRESSION = "comm.tcp.compression";
+
     /** Default port which node sets listener to (value is <tt>47100</tt>). */
     public static final int DFLT_PORT = 47100;
 
@@ -207,6 +241,24 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
     /** Default value for dualSocketConnection flag. */
     public static final boolean DFLT_DUAL_SOCKET_CONNECTION = false;
 
+    /** Default number of connections per remote node (value is <tt>1</tt>). */
+    public static final int DFLT_CONNS_PER_NODE = 1;
+
+    /** Default value for compression flag (value is <tt>false</tt>). */
+    public static final boolean DFLT_COMPRESSION_ENABLED = false;
+
+    /** Default minimum size of compressed chunk (value is <tt>512</tt> bytes). */
+    public static final int DFLT_COMPRESSION_THRESHOLD = 512;
+
+    /** Default maximum ratio of compressed to original chunk size (value is <tt>0.9</tt>). */
+    public static final double DFLT_COMPRESSION_MAX_RATIO = 0.9;
+
+    /** Default coalescing latency (value is <tt>0</tt>, coalescing is disabled). */
+    public static final long DFLT_COALESCING_LATENCY = 0;
+
+    /** Default maximum number of coalesced messages (value is <tt>64</tt>). */
+    public static final int DFLT_COALESCING_BATCH_SIZE = 64;
+
     /**
      * Default count of selectors for TCP server equals to
      * {@code "Math.min(4, Runtime.getRuntime().availableProcessors())"}.
@@ -257,10 +309,15 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
                 UUID id = ses.meta(NODE_ID_META);
 
                 if (id != null) {
-                    GridCommunicationClient rmv = clients.remove(id);
+                    for (int i = 0; i < connsPerNode; i++) {
+                        ConnectionKey key = new ConnectionKey(id, i);
+
+                        GridCommunicationClient client = clients.get(key);
 
-                    if (rmv != null)
-                        rmv.forceClose();
+                        if (client instanceof GridTcpNioCommunicationClient &&
+                            ((GridTcpNioCommunicationClient)client).session() == ses && clients.remove(key, client))
+                            client.forceClose();
+                    }
                 }
             }
         }
@@ -297,48 +354,38 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
                 if (!locVer.equals(rmtVer))
                     ses.addMeta(GridNioServer.DIFF_VER_NODE_ID_META_KEY, sndId);
 
-                if (asyncSnd && ses.remoteAddress() != null && !dualSockConn) {
-                    Object sync = locks.tryLock(sndId);
+                // Compression is enabled right after node ID message, if both nodes support it.
+                if (compress(rmtNode))
+                    ses.addMeta(GridNioCompressionFilter.COMPRESSION_META_KEY, true);
+
+                // Accepted session is not reused if messages are striped, since remote
+                // node uses it for one stripe only.
+                if (asyncSnd && ses.remoteAddress() != null && !dualSockConn && connsPerNode == 1) {
+                    ConnectionKey key = new ConnectionKey(sndId, 0);
+
+                    Object sync = locks.tryLock(key);
 
                     if (sync != null) {
                         try {
-                            if (clients.get(sndId) == null) {
+                            if (clients.get(key) == null) {
                                 if (log.isDebugEnabled())
                                     log.debug("Will reuse session for node: " + sndId);
 
-                                clients.put(sndId, new GridTcpNioCommunicationClient(ses));
+                                clients.put(key, new GridTcpNioCommunicationClient(ses));
                             }
                         }
                         finally {
-                            locks.unlock(sndId, sync);
+                            locks.unlock(key, sync);
                         }
                     }
                 }
             }
-            else {
-                rcvdMsgsCnt.increment();
-
-                GridRunnable c;
-
-                if (msgQueueLimit > 0) {
-                    GridNioMessageTracker tracker = ses.meta(TRACKER_META);
-
-                    if (tracker == null) {
-                        GridNioMessageTracker old = ses.addMeta(TRACKER_META, tracker =
-                            new GridNioMessageTracker(ses, msgQueueLimit));
-
-                        assert old == null;
-                    }
-
-                    tracker.onMessageReceived();
-
-                    c = tracker;
-                }
-                else
-                    c = NOOP;
-
-                notifyListener(sndId, msg, c);
+            else if (msg instanceof GridTcpCommunicationBatchMessage) {
+                for (GridTcpCommunicationMessageAdapter msg0 : ((GridTcpCommunicationBatchMessage)msg).messages())
+                    onMessageReceived(ses, sndId, msg0);
             }
+            else
+                onMessageReceived(ses, sndId, msg);
         }
     };
 
@@ -417,6 +464,42 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
     /** Dual socket connection flag. */
     private boolean dualSockConn = DFLT_DUAL_SOCKET_CONNECTION;
 
+    /** Number of connections per remote node. */
+    private int connsPerNode = DFLT_CONNS_PER_NODE;
+
+    /** Compression flag. */
+    private boolean compressionEnabled = DFLT_COMPRESSION_ENABLED;
+
+    /** Minimum size of compressed chunk. */
+    private int compressionThreshold = DFLT_COMPRESSION_THRESHOLD;
+
+    /** Maximum ratio of compressed to original chunk size. */
+    private double compressionMaxRatio = DFLT_COMPRESSION_MAX_RATIO;
+
+    /** Compression filter. */
+    private GridNioCompressionFilter compressionFilter;
+
+    /** Coalescing latency in microseconds. */
+    private long coalescingLatency = DFLT_COALESCING_LATENCY;
+
+    /** Maximum number of coalesced messages. */
+    private int coalescingBatchSize = DFLT_COALESCING_BATCH_SIZE;
+
+    /** Batches of coalesced messages. */
+    private final ConcurrentMap<ConnectionKey, MessageBatch> batches = GridConcurrentFactory.newMap();
+
+    /** Coalescing worker. */
+    private CoalescingWorker coalescingWorker;
+
+    /** Executor sending expired batches, so that slow or unreachable node does not delay other batches. */
+    private ExecutorService coalescingExec;
+
+    /** Sent batches count. */
+    private final LongAdder sentBatchesCnt = new LongAdder();
+
+    /** Count of messages sent in batches. */
+    private final LongAdder batchedMsgsCnt = new LongAdder();
+
     /** NIO server. */
     private GridNioServer<GridTcpCommunicationMessageAdapter> nioSrvr;
 
@@ -445,7 +528,7 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
     private final Collection<ShmemWorker> shmemWorkers = new ConcurrentLinkedDeque8<>();
 
     /** Clients. */
-    private final ConcurrentMap<UUID, GridCommunicationClient> clients = GridConcurrentFactory.newMap();
+    private final ConcurrentMap<ConnectionKey, GridCommunicationClient> clients = GridConcurrentFactory.newMap();
 
     /** SPI listener. */
     private volatile GridCommunicationListener<GridTcpCommunicationMessageAdapter> lsnr;
@@ -477,6 +560,9 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
     /** Sent bytes count.*/
     private final LongAdder sentBytesCnt = new LongAdder();
 
+    /** Sent messages count by connection index. */
+    private LongAdder[] sentMsgsCntByConn;
+
     /** Context initialization latch. */
     private final CountDownLatch ctxInitLatch = new CountDownLatch(1);
 
@@ -934,6 +1020,165 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
         return dualSockConn;
     }
 
+    /**
+     * Sets number of connections established to each remote node. Each message is sent over the
+     * connection chosen by its ordering key (see {@link GridTcpCommunicationMessageAdapter#orderKey()}),
+     * so order of messages with the same key is preserved. Several connections allow to use
+     * more than one selector thread and socket buffer for traffic of single node pair.
+     * <p>
+     * Note that sessions accepted from remote node are not reused for sending when more than one
+     * connection per node is configured.
+     * <p>
+     * If not provided, default is {@link #DFLT_CONNS_PER_NODE}.
+     *
+     * @param connsPerNode Number of connections per remote node.
+     */
+    @GridSpiConfiguration(optional = true)
+    public void setConnectionsPerNode(int connsPerNode) {
+        this.connsPerNode = connsPerNode;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getConnectionsPerNode() {
+        return connsPerNode;
+    }
+
+    /**
+     * Sets whether traffic to other nodes should be compressed. Compression is used on connection only if
+     * remote node has it enabled too. It is useful when bandwidth between nodes is limited and messages
+     * (e.g. preloading or data loader batches) are well compressible.
+     * <p>
+     * Compression requires asynchronous send (see {@link #setAsyncSend(boolean)}) on both nodes,
+     * since blocking clients write messages without compression frames.
+     * <p>
+     * If not provided, default is {@link #DFLT_COMPRESSION_ENABLED}.
+     *
+     * @param compressionEnabled Whether traffic should be compressed.
+     */
+    @GridSpiConfiguration(optional = true)
+    public void setCompressionEnabled(boolean compressionEnabled) {
+        this.compressionEnabled = compressionEnabled;
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    /**
+     * Sets minimum size of chunk written to socket that is compressed. Smaller chunks are sent as is.
+     * <p>
+     * If not provided, default is {@link #DFLT_COMPRESSION_THRESHOLD}.
+     *
+     * @param compressionThreshold Minimum size of compressed chunk.
+     */
+    @GridSpiConfiguration(optional = true)
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * Sets maximum ratio of compressed to original chunk size. If chunk is compressed worse, it is sent
+     * as is and compression is backed off for this connection for exponentially growing number of chunks.
+     * <p>
+     * If not provided, default is {@link #DFLT_COMPRESSION_MAX_RATIO}.
+     *
+     * @param compressionMaxRatio Maximum compression ratio.
+     */
+    @GridSpiConfiguration(optional = true)
+    public void setCompressionMaxRatio(double compressionMaxRatio) {
+        this.compressionMaxRatio = compressionMaxRatio;
+    }
+
+    /** {@inheritDoc} */
+    @Override public double getCompressionMaxRatio() {
+        return compressionMaxRatio;
+    }
+
+    /** {@inheritDoc} */
+    @Override public double getCompressionRatio() {
+        GridNioCompressionFilter filter = compressionFilter;
+
+        return filter != null ? filter.compressionRatio() : 1;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getCompressionBytesSaved() {
+        GridNioCompressionFilter filter = compressionFilter;
+
+        return filter != null ? filter.bytesSaved() : 0;
+    }
+
+    /**
+     * @return Whether this node compresses traffic. Blocking clients do not write compression frames,
+     *      so compression is used only with asynchronous send.
+     */
+    private boolean compressionSupported() {
+        return compressionEnabled && asyncSnd;
+    }
+
+    /**
+     * @param node Remote node.
+     * @return Whether connections to given node should be compressed.
+     */
+    private boolean compress(GridNode node) {
+        return compressionSupported() &&
+            Boolean.TRUE.equals(node.attribute(createSpiAttributeName(ATTR_COMPRESSION)));
+    }
+
+    /**
+     * Sets latency budget of message coalescing in microseconds. If positive, messages sent to the same
+     * connection are accumulated for up to this time (or until {@link #setCoalescingBatchSize(int)}
+     * messages are collected) and are written together, which reduces number of writes and system calls
+     * when many small messages are sent. Coalescing is used only for nodes of the same version.
+     * <p>
+     * Note that positive latency makes each message wait for the flush and requires background threads
+     * sending expired batches (number of these threads is equal to {@link #setSelectorsCount(int)}),
+     * so coalescing makes sense only under high message rates.
+     * <p>
+     * If not provided, default is {@link #DFLT_COALESCING_LATENCY}.
+     *
+     * @param coalescingLatency Coalescing latency in microseconds, {@code 0} to disable coalescing.
+     */
+    @GridSpiConfiguration(optional = true)
+    public void setCoalescingLatency(long coalescingLatency) {
+        this.coalescingLatency = coalescingLatency;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getCoalescingLatency() {
+        return coalescingLatency;
+    }
+
+    /**
+     * Sets maximum number of coalesced messages. Batch is sent right away once it reaches this size.
+     * <p>
+     * If not provided, default is {@link #DFLT_COALESCING_BATCH_SIZE}.
+     *
+     * @param coalescingBatchSize Maximum number of coalesced messages.
+     */
+    @GridSpiConfiguration(optional = true)
+    public void setCoalescingBatchSize(int coalescingBatchSize) {
+        this.coalescingBatchSize = coalescingBatchSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getCoalescingBatchSize() {
+        return coalescingBatchSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override public double getAverageMessagesPerBatch() {
+        long cnt = sentBatchesCnt.sum();
+
+        return cnt > 0 ? (double)batchedMsgsCnt.sum() / cnt : 0;
+    }
+
     /**
      * Sets message queue limit for incoming and outgoing messages.
      * <p>
@@ -1026,6 +1271,50 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
         return rcvdBytesCnt.intValue();
     }
 
+    /** {@inheritDoc} */
+    @Override public long[] getSentMessagesCountByConnection() {
+        LongAdder[] cnts = sentMsgsCntByConn;
+
+        long[] res = new long[connsPerNode];
+
+        if (cnts != null) {
+            for (int i = 0; i < res.length && i < cnts.length; i++)
+                res[i] = cnts[i].sum();
+        }
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long[] getSentBytesCountByConnection() {
+        return connectionBytes(true);
+    }
+
+    /** {@inheritDoc} */
+    @Override public long[] getReceivedBytesCountByConnection() {
+        return connectionBytes(false);
+    }
+
+    /**
+     * @param snd {@code True} for sent bytes, {@code false} for received.
+     * @return Bytes count of currently open connections by connection index.
+     */
+    private long[] connectionBytes(boolean snd) {
+        long[] res = new long[connsPerNode];
+
+        for (Map.Entry<ConnectionKey, GridCommunicationClient> e : clients.entrySet()) {
+            int idx = e.getKey().idx;
+
+            if (idx < res.length && e.getValue() instanceof GridTcpNioCommunicationClient) {
+                GridNioSession ses = ((GridTcpNioCommunicationClient)e.getValue()).session();
+
+                res[idx] += snd ? ses.bytesSent() : ses.bytesReceived();
+            }
+        }
+
+        return res;
+    }
+
     /** {@inheritDoc} */
     @Override public void resetMetrics() {
         // Can't use 'reset' method because it is not thread-safe
@@ -1034,6 +1323,21 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
         rcvdMsgsCnt.add(-rcvdMsgsCnt.sum());
         sentBytesCnt.add(-sentBytesCnt.sum());
         rcvdBytesCnt.add(-rcvdBytesCnt.sum());
+
+        sentBatchesCnt.add(-sentBatchesCnt.sum());
+        batchedMsgsCnt.add(-batchedMsgsCnt.sum());
+
+        GridNioCompressionFilter filter = compressionFilter;
+
+        if (filter != null)
+            filter.resetMetrics();
+
+        LongAdder[] cnts = sentMsgsCntByConn;
+
+        if (cnts != null) {
+            for (LongAdder cnt : cnts)
+                cnt.add(-cnt.sum());
+        }
     }
 
     /** {@inheritDoc} */
@@ -1056,6 +1360,12 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
         assertParameter(bufSizeRatio > 0 && bufSizeRatio < 1, "bufSizeRatio > 0 && bufSizeRatio < 1");
         assertParameter(connTimeout >= 0, "connTimeout >= 0");
         assertParameter(maxConnTimeout >= connTimeout, "maxConnTimeout >= connTimeout");
+        assertParameter(connsPerNode > 0, "connsPerNode > 0");
+        assertParameter(compressionThreshold >= 0, "compressionThreshold >= 0");
+        assertParameter(compressionMaxRatio > 0 && compressionMaxRatio <= 1,
+            "compressionMaxRatio > 0 && compressionMaxRatio <= 1");
+        assertParameter(coalescingLatency >= 0, "coalescingLatency >= 0");
+        assertParameter(coalescingBatchSize > 0, "coalescingBatchSize > 0");
 
         try {
             locHost = U.resolveLocalHost(locAddr);
@@ -1096,12 +1406,16 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
         try {
             GridBiTuple<Collection<String>, Collection<String>> addrs = U.resolveLocalAddresses(locHost);
 
-            return F.asMap(
+            Map<String, Object> attrs = F.asMap(
                 createSpiAttributeName(ATTR_ADDRS), addrs.get1(),
                 createSpiAttributeName(ATTR_HOST_NAMES), addrs.get2(),
                 createSpiAttributeName(ATTR_PORT), boundTcpPort,
                 createSpiAttributeName(ATTR_SHMEM_PORT), boundTcpShmemPort >= 0 ? boundTcpShmemPort : null,
                 createSpiAttributeName(ATTR_EXT_PORTS), extPorts);
+
+            attrs.put(createSpiAttributeName(ATTR_COMPRESSION), compressionSupported());
+
+            return attrs;
         }
         catch (IOException | GridException e) {
             throw new GridSpiException("Failed to resolve local host to addresses: " + locHost, e);
@@ -1133,6 +1447,12 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
             log.debug(configInfo("shmemPort", shmemPort));
             log.debug(configInfo("msgQueueLimit", msgQueueLimit));
             log.debug(configInfo("dualSockConn", dualSockConn));
+            log.debug(configInfo("connsPerNode", connsPerNode));
+            log.debug(configInfo("compressionEnabled", compressionEnabled));
+            log.debug(configInfo("compressionThreshold", compressionThreshold));
+            log.debug(configInfo("compressionMaxRatio", compressionMaxRatio));
+            log.debug(configInfo("coalescingLatency", coalescingLatency));
+            log.debug(configInfo("coalescingBatchSize", coalescingBatchSize));
             log.debug(configInfo("minBufferedMsgCnt", minBufferedMsgCnt));
             log.debug(configInfo("bufSizeRatio", bufSizeRatio));
             log.debug(configInfo("connTimeout", connTimeout));
@@ -1149,6 +1469,13 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
             U.quietAndWarn(log, "'TCP_NO_DELAY' for communication is off, which should be used with caution " +
                 "since may produce significant delays with some scenarios.");
 
+        LongAdder[] cnts = new LongAdder[connsPerNode];
+
+        for (int i = 0; i < cnts.length; i++)
+            cnts[i] = new LongAdder();
+
+        sentMsgsCntByConn = cnts;
+
         registerMBean(gridName, this, GridTcpCommunicationSpiMBean.class);
 
         if (shmemSrv != null) {
@@ -1169,6 +1496,15 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
             clientFlushWorker.start();
         }
 
+        if (coalescingLatency > 0) {
+            coalescingExec = new GridThreadPoolExecutor(gridName, selectorsCnt, selectorsCnt, 0,
+                new LinkedBlockingQueue<Runnable>());
+
+            coalescingWorker = new CoalescingWorker();
+
+            coalescingWorker.start();
+        }
+
         sockTimeoutWorker = new SocketTimeoutWorker();
 
         sockTimeoutWorker.start();
@@ -1226,6 +1562,25 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
         // If configured TCP port is busy, find first available in range.
         for (int port = locPort; port < locPort + locPortRange; port++) {
             try {
+                GridNioFilter[] filters;
+
+                if (compressionSupported()) {
+                    // Node ID message received on accepted session is never compressed.
+                    compressionFilter = new GridNioCompressionFilter(log, compressionThreshold, compressionMaxRatio,
+                        nodeIdMsg.nodeIdBytesWithType.length);
+
+                    filters = new GridNioFilter[] {
+                        new GridNioCodecFilter(new GridDirectParser(msgReader), log, true),
+                        compressionFilter,
+                        new GridConnectionBytesVerifyFilter(log)
+                    };
+                }
+                else
+                    filters = new GridNioFilter[] {
+                        new GridNioCodecFilter(new GridDirectParser(msgReader), log, true),
+                        new GridConnectionBytesVerifyFilter(log)
+                    };
+
                 GridNioServer<GridTcpCommunicationMessageAdapter> srvr =
                     GridNioServer.<GridTcpCommunicationMessageAdapter>builder()
                     .address(locHost)
@@ -1243,8 +1598,7 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
                     .directMode(true)
                     .metricsListener(metricsLsnr)
                     .messageWriter(msgWriter)
-                    .filters(new GridNioCodecFilter(new GridDirectParser(msgReader), log, true),
-                        new GridConnectionBytesVerifyFilter(log))
+                    .filters(filters)
                     .build();
 
                 boundTcpPort = port;
@@ -1333,12 +1687,16 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
 
         U.interrupt(idleClientWorker);
         U.interrupt(clientFlushWorker);
+        U.interrupt(coalescingWorker);
         U.interrupt(sockTimeoutWorker);
 
         U.join(idleClientWorker, log);
         U.join(clientFlushWorker, log);
+        U.join(coalescingWorker, log);
         U.join(sockTimeoutWorker, log);
 
+        U.shutdownNow(getClass(), coalescingExec, log);
+
         U.cancel(shmemWorkers);
         U.join(shmemWorkers, log);
 
@@ -1351,6 +1709,11 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
         // Clear resources.
         nioSrvr = null;
         idleClientWorker = null;
+        coalescingWorker = null;
+        coalescingExec = null;
+
+        for (MessageBatch batch : batches.values())
+            dropBatch(batch, "SPI has been stopped");
 
         boundTcpPort = -1;
 
@@ -1380,16 +1743,25 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
     void onNodeLeft(UUID nodeId) {
         assert nodeId != null;
 
-        GridCommunicationClient client = clients.get(nodeId);
+        for (int i = 0; i < connsPerNode; i++) {
+            ConnectionKey key = new ConnectionKey(nodeId, i);
 
-        if (client != null) {
-            if (log.isDebugEnabled())
-                log.debug("Forcing NIO client close since node has left [nodeId=" + nodeId +
-                    ", client=" + client + ']');
+            MessageBatch batch = batches.get(key);
 
-            client.forceClose();
+            if (batch != null)
+                dropBatch(batch, "node has left topology");
+
+            GridCommunicationClient client = clients.get(key);
 
-            clients.remove(nodeId, client);
+            if (client != null) {
+                if (log.isDebugEnabled())
+                    log.debug("Forcing NIO client close since node has left [nodeId=" + nodeId +
+                        ", client=" + client + ']');
+
+                client.forceClose();
+
+                clients.remove(key, client);
+            }
         }
     }
 
@@ -1426,37 +1798,169 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
         if (node.id().equals(locNodeId))
             notifyListener(locNodeId, msg, NOOP);
         else {
-            GridCommunicationClient client = null;
+            int idx = connsPerNode > 1 ? U.safeAbs(msg.orderKey()) % connsPerNode : 0;
 
-            boolean closeOnRelease = true;
+            ConnectionKey key = new ConnectionKey(node.id(), idx);
 
-            try {
-                client = reserveClient(node);
+            // Remote node of other version may not support batches.
+            if (coalescingLatency > 0 && getSpiContext().localNode().version().equals(node.version()))
+                coalesce(node, key, msg);
+            else
+                sendMessage0(node, key, msg);
+        }
+    }
+
+    /**
+     * Adds message to batch of given connection and sends batch if it is full.
+     *
+     * @param node Destination node.
+     * @param key Connection key.
+     * @param msg Message.
+     * @throws GridSpiException If previous batch of this connection failed and was not resent yet.
+     */
+    private void coalesce(GridNode node, ConnectionKey key, GridTcpCommunicationMessageAdapter msg)
+        throws GridSpiException {
+        MessageBatch batch = batches.get(key);
+
+        if (batch == null) {
+            MessageBatch old = batches.putIfAbsent(key, batch = new MessageBatch(node, key));
+
+            if (old != null)
+                batch = old;
+        }
 
-                UUID nodeId = null;
+        int size = batch.add(msg);
 
-                if (!client.async() && !getSpiContext().localNode().version().equals(node.version()))
-                    nodeId = node.id();
+        if (size < 0 && batch.closed())
+            throw new GridSpiException("Failed to send message to remote node (coalesced messages have been " +
+                "dropped): " + node, batch.error());
 
-                client.sendMessage(nodeId, msg);
+        if (size < 0)
+            throw new GridSpiException("Failed to send message to remote node (connection failed, " +
+                "pending messages will be resent): " + node, batch.error());
 
-                sentMsgsCnt.increment();
+        if (size == 1) {
+            // Let flusher know about new deadline.
+            CoalescingWorker worker = coalescingWorker;
 
-                closeOnRelease = false;
+            if (worker != null)
+                LockSupport.unpark(worker);
+        }
+
+        if (size >= coalescingBatchSize) {
+            try {
+                flush(batch);
             }
-            catch (GridException e) {
-                throw new GridSpiException("Failed to send message to remote node: " + node, e);
+            catch (GridSpiException e) {
+                // Message is kept in batch and will be resent by flusher.
+                if (log.isDebugEnabled())
+                    log.debug("Failed to send coalesced messages (will retry) [batch=" + batch + ", err=" + e + ']');
             }
-            finally {
-                if (client != null) {
-                    if (closeOnRelease) {
-                        client.forceClose();
+        }
+    }
 
-                        clients.remove(node.id(), client);
-                    }
-                    else
-                        client.release();
+    /**
+     * Sends all messages of batch. Messages are taken from batch under its monitor and are sent
+     * under separate send lock, so that messages can be added while batch is being sent. If sending
+     * fails, messages are returned to batch and batch rejects new messages until it is resent.
+     *
+     * @param batch Batch.
+     * @throws GridSpiException If failed.
+     */
+    private void flush(MessageBatch batch) throws GridSpiException {
+        // Batches of the same connection are sent in order.
+        synchronized (batch.sndMux) {
+            List<GridTcpCommunicationMessageAdapter> msgs = batch.drain();
+
+            if (msgs == null)
+                return;
+
+            try {
+                sendMessage0(batch.node, batch.key,
+                    msgs.size() == 1 ? msgs.get(0) : new GridTcpCommunicationBatchMessage(msgs));
+            }
+            catch (GridSpiException e) {
+                if (!batch.onFailed(msgs, e, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connTimeout)))
+                    U.warn(log, "Dropped coalesced messages since batch has been closed while being sent [batch=" +
+                        batch + ", cnt=" + msgs.size() + ", err=" + e.getMessage() + ']');
+
+                throw e;
+            }
+
+            batch.onSent();
+
+            sentBatchesCnt.increment();
+            batchedMsgsCnt.add(msgs.size());
+        }
+    }
+
+    /**
+     * Removes batch and fails its pending messages. Senders still holding the batch get exception
+     * on next attempt to add message.
+     *
+     * @param batch Batch.
+     * @param reason Reason of drop.
+     */
+    private void dropBatch(MessageBatch batch, String reason) {
+        // Close before removal, so that messages can not be added to batch which is not tracked anymore.
+        List<GridTcpCommunicationMessageAdapter> dropped = batch.close(new GridSpiException(
+            "Coalesced messages have been dropped (" + reason + "): " + batch.node.id()));
+
+        batches.remove(batch.key, batch);
+
+        if (!dropped.isEmpty())
+            U.warn(log, "Dropped coalesced messages (" + reason + ") [nodeId=" + batch.node.id() +
+                ", connIdx=" + batch.key.idx + ", cnt=" + dropped.size() + ']');
+    }
+
+    /**
+     * Sends message over connection with given key.
+     *
+     * @param node Destination node.
+     * @param key Connection key.
+     * @param msg Message.
+     * @throws GridSpiException If failed.
+     */
+    private void sendMessage0(GridNode node, ConnectionKey key, GridTcpCommunicationMessageAdapter msg)
+        throws GridSpiException {
+        GridCommunicationClient client = null;
+
+        boolean closeOnRelease = true;
+
+        try {
+            client = reserveClient(node, key);
+
+            UUID nodeId = null;
+
+            if (!client.async() && !getSpiContext().localNode().version().equals(node.version()))
+                nodeId = node.id();
+
+            client.sendMessage(nodeId, msg);
+
+            int cnt = msg instanceof GridTcpCommunicationBatchMessage ?
+                ((GridTcpCommunicationBatchMessage)msg).messages().size() : 1;
+
+            sentMsgsCnt.add(cnt);
+
+            LongAdder[] cnts = sentMsgsCntByConn;
+
+            if (cnts != null && key.idx < cnts.length)
+                cnts[key.idx].add(cnt);
+
+            closeOnRelease = false;
+        }
+        catch (GridException e) {
+            throw new GridSpiException("Failed to send message to remote node: " + node, e);
+        }
+        finally {
+            if (client != null) {
+                if (closeOnRelease) {
+                    client.forceClose();
+
+                    clients.remove(key, client);
                 }
+                else
+                    client.release();
             }
         }
     }
@@ -1465,38 +1969,40 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
      * Returns existing or just created client to node.
      *
      * @param node Node to which client should be open.
+     * @param key Connection key.
      * @return The existing or just created client.
      * @throws GridException Thrown if any exception occurs.
      */
-    private GridCommunicationClient reserveClient(GridNode node) throws GridException {
+    private GridCommunicationClient reserveClient(GridNode node, ConnectionKey key) throws GridException {
         assert node != null;
+        assert key != null;
 
         UUID nodeId = node.id();
 
         while (true) {
-            GridCommunicationClient client = clients.get(nodeId);
+            GridCommunicationClient client = clients.get(key);
 
             if (client == null) {
                 // Do not allow concurrent connects.
-                Object sync = locks.lock(nodeId);
+                Object sync = locks.lock(key);
 
                 try {
-                    client = clients.get(nodeId);
+                    client = clients.get(key);
 
                     if (client == null) {
-                        GridCommunicationClient old = clients.put(nodeId, client = createNioClient(node));
+                        GridCommunicationClient old = clients.put(key, client = createNioClient(node));
 
                         assert old == null;
                     }
                 }
                 finally {
-                    locks.unlock(nodeId, sync);
+                    locks.unlock(key, sync);
                 }
 
                 assert client != null;
 
                 if (getSpiContext().node(nodeId) == null) {
-                    if (clients.remove(nodeId, client))
+                    if (clients.remove(key, client))
                         client.forceClose();
 
                     throw new GridSpiException("Destination node is not in topology: " + node.id());
@@ -1507,7 +2013,7 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
                 return client;
             else
                 // Client has just been closed by idle worker. Help it and try again.
-                clients.remove(nodeId, client);
+                clients.remove(key, client);
         }
     }
 
@@ -1704,7 +2210,8 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
                                 ch,
                                 F.asMap(
                                     NODE_ID_META, node.id(),
-                                    GridNioServer.DIFF_VER_NODE_ID_META_KEY, diffVerNodeId)
+                                    GridNioServer.DIFF_VER_NODE_ID_META_KEY, diffVerNodeId,
+                                    GridNioCompressionFilter.COMPRESSION_META_KEY, compress(node))
                             ).get();
 
                             client = new GridTcpNioCommunicationClient(ses);
@@ -1898,6 +2405,36 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
         }
     }
 
+    /**
+     * @param ses Session message was received on.
+     * @param sndId Sender ID.
+     * @param msg Communication message.
+     */
+    private void onMessageReceived(GridNioSession ses, UUID sndId, GridTcpCommunicationMessageAdapter msg) {
+        rcvdMsgsCnt.increment();
+
+        GridRunnable c;
+
+        if (msgQueueLimit > 0) {
+            GridNioMessageTracker tracker = ses.meta(TRACKER_META);
+
+            if (tracker == null) {
+                GridNioMessageTracker old = ses.addMeta(TRACKER_META, tracker =
+                    new GridNioMessageTracker(ses, msgQueueLimit));
+
+                assert old == null;
+            }
+
+            tracker.onMessageReceived();
+
+            c = tracker;
+        }
+        else
+            c = NOOP;
+
+        notifyListener(sndId, msg, c);
+    }
+
     /**
      * @param sndId Sender ID.
      * @param msg Communication message.
@@ -2072,8 +2609,10 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
         @SuppressWarnings({"BusyWait"})
         @Override protected void body() throws InterruptedException {
             while (!isInterrupted()) {
-                for (Map.Entry<UUID, GridCommunicationClient> e : clients.entrySet()) {
-                    UUID nodeId = e.getKey();
+                for (Map.Entry<ConnectionKey, GridCommunicationClient> e : clients.entrySet()) {
+                    ConnectionKey key = e.getKey();
+
+                    UUID nodeId = key.nodeId;
 
                     GridCommunicationClient client = e.getValue();
 
@@ -2083,7 +2622,7 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
 
                         client.forceClose();
 
-                        clients.remove(nodeId, client);
+                        clients.remove(key, client);
 
                         continue;
                     }
@@ -2095,7 +2634,7 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
                             log.debug("Closing idle node connection: " + nodeId);
 
                         if (client.close() || client.closed())
-                            clients.remove(nodeId, client);
+                            clients.remove(key, client);
                     }
                 }
 
@@ -2121,7 +2660,7 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
             while (!isInterrupted()) {
                 long connBufFlushFreq0 = connBufFlushFreq;
 
-                for (Map.Entry<UUID, GridCommunicationClient> entry : clients.entrySet()) {
+                for (Map.Entry<ConnectionKey, GridCommunicationClient> entry : clients.entrySet()) {
                     GridCommunicationClient client = entry.getValue();
 
                     if (client.reserve()) {
@@ -2133,7 +2672,7 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
                             err = false;
                         }
                         catch (IOException e) {
-                            if (getSpiContext().pingNode(entry.getKey()))
+                            if (getSpiContext().pingNode(entry.getKey().nodeId))
                                 U.error(log, "Failed to flush client: " + client, e);
                             else if (log.isDebugEnabled())
                                 log.debug("Failed to flush client (node left): " + client);
@@ -2152,6 +2691,272 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
         }
     }
 
+    /**
+     * Tracks deadlines of coalesced batches and hands expired ones to {@link #coalescingExec}. Each batch
+     * is handed over at most once at a time, so one slow or unreachable node occupies a single executor
+     * thread and does not delay batches of other nodes.
+     */
+    private class CoalescingWorker extends GridSpiThread {
+        /**
+         *
+         */
+        CoalescingWorker() {
+            super(gridName, "nio-coalescing-flusher", log);
+        }
+
+        /** {@inheritDoc} */
+        @Override protected void body() throws InterruptedException {
+            long latency = TimeUnit.MICROSECONDS.toNanos(coalescingLatency);
+
+            while (!isInterrupted()) {
+                long now = System.nanoTime();
+
+                // Time to wait until the earliest batch deadline, 0 if there are no pending batches.
+                long wait = 0;
+
+                for (MessageBatch batch : batches.values()) {
+                    if (getSpiContext().node(batch.key.nodeId) == null) {
+                        dropBatch(batch, "node has left topology");
+
+                        continue;
+                    }
+
+                    long deadline = batch.deadline(latency);
+
+                    if (deadline == 0)
+                        continue;
+
+                    if (deadline - now <= 0) {
+                        schedule(batch);
+
+                        continue;
+                    }
+
+                    long left = Math.max(deadline - now, 1);
+
+                    if (wait == 0 || left < wait)
+                        wait = left;
+                }
+
+                // Adding first message to batch or completing scheduled flush unparks this thread.
+                if (wait > 0)
+                    LockSupport.parkNanos(wait);
+                else
+                    LockSupport.park();
+            }
+        }
+
+        /**
+         * @param batch Expired batch.
+         */
+        private void schedule(final MessageBatch batch) {
+            if (!batch.onScheduled())
+                return;
+
+            try {
+                coalescingExec.execute(new Runnable() {
+                    @Override public void run() {
+                        try {
+                            flush(batch);
+                        }
+                        catch (GridSpiException e) {
+                            LT.warn(log, e, "Failed to send coalesced messages (will retry): " + batch);
+                        }
+                        finally {
+                            batch.onFlushed();
+
+                            // Recalculate deadline of batch.
+                            LockSupport.unpark(CoalescingWorker.this);
+                        }
+                    }
+                });
+            }
+            catch (RejectedExecutionException e) {
+                batch.onFlushed();
+
+                if (log.isDebugEnabled())
+                    log.debug("Failed to schedule sending of coalesced messages (SPI is stopping) [batch=" +
+                        batch + ", err=" + e + ']');
+            }
+        }
+    }
+
+    /**
+     * Messages waiting to be sent together over the same connection.
+     */
+    private static class MessageBatch {
+        /** Destination node. */
+        private final GridNode node;
+
+        /** Connection key. */
+        private final ConnectionKey key;
+
+        /** Lock held while batch is being sent, guarantees order of batches of the same connection. */
+        @GridToStringExclude
+        private final Object sndMux = new Object();
+
+        /** Messages. */
+        private List<GridTcpCommunicationMessageAdapter> msgs = new ArrayList<>();
+
+        /** Time first message was added in nanoseconds. */
+        private long startTime;
+
+        /** Error of last send, {@code null} if last send succeeded. */
+        @GridToStringExclude
+        private GridSpiException err;
+
+        /** Time of next send attempt after failure in nanoseconds. */
+        private long retryTime;
+
+        /** Whether batch has been handed to executor and is not sent yet. */
+        private boolean scheduled;
+
+        /** Whether batch has been dropped and does not accept messages anymore. */
+        private boolean closed;
+
+        /**
+         * @param node Destination node.
+         * @param key Connection key.
+         */
+        private MessageBatch(GridNode node, ConnectionKey key) {
+            this.node = node;
+            this.key = key;
+        }
+
+        /**
+         * @param msg Message.
+         * @return Number of messages in batch or {@code -1} if message was rejected since last send failed
+         *      or batch has been closed.
+         */
+        synchronized int add(GridTcpCommunicationMessageAdapter msg) {
+            if (err != null)
+                return -1;
+
+            if (msgs.isEmpty())
+                startTime = System.nanoTime();
+
+            msgs.add(msg);
+
+            return msgs.size();
+        }
+
+        /**
+         * @param latency Coalescing latency in nanoseconds.
+         * @return Time when batch should be sent in nanoseconds or {@code 0} if batch is empty
+         *      or is already scheduled for sending.
+         */
+        synchronized long deadline(long latency) {
+            if (msgs.isEmpty() || scheduled)
+                return 0;
+
+            long deadline = err != null ? retryTime : startTime + latency;
+
+            return deadline != 0 ? deadline : 1;
+        }
+
+        /**
+         * @return Error of last send.
+         */
+        @Nullable synchronized GridSpiException error() {
+            return err;
+        }
+
+        /**
+         * Returns messages which failed to be sent to the head of batch.
+         *
+         * @param failed Messages which failed to be sent.
+         * @param e Error.
+         * @param retryTime Time of next send attempt in nanoseconds.
+         * @return {@code False} if batch has been closed and failed messages were dropped.
+         */
+        synchronized boolean onFailed(List<GridTcpCommunicationMessageAdapter> failed, GridSpiException e,
+            long retryTime) {
+            if (closed)
+                return false;
+
+            failed.addAll(msgs);
+
+            msgs = failed;
+
+            err = e;
+
+            this.retryTime = retryTime;
+
+            return true;
+        }
+
+        /**
+         * Resets error after successful send.
+         */
+        synchronized void onSent() {
+            if (!closed)
+                err = null;
+        }
+
+        /**
+         * @return {@code True} if batch was marked as scheduled, {@code false} if it is already scheduled.
+         */
+        synchronized boolean onScheduled() {
+            if (scheduled)
+                return false;
+
+            scheduled = true;
+
+            return true;
+        }
+
+        /**
+         * Resets scheduled flag after flush attempt.
+         */
+        synchronized void onFlushed() {
+            scheduled = false;
+        }
+
+        /**
+         * Closes batch, so that it rejects new messages with given error.
+         *
+         * @param e Error to reject new messages with.
+         * @return Dropped pending messages.
+         */
+        synchronized List<GridTcpCommunicationMessageAdapter> close(GridSpiException e) {
+            closed = true;
+
+            err = e;
+
+            List<GridTcpCommunicationMessageAdapter> res = msgs;
+
+            msgs = new ArrayList<>();
+
+            return res;
+        }
+
+        /**
+         * @return {@code True} if batch has been closed.
+         */
+        synchronized boolean closed() {
+            return closed;
+        }
+
+        /**
+         * @return Messages or {@code null} if batch is empty.
+         */
+        @Nullable synchronized List<GridTcpCommunicationMessageAdapter> drain() {
+            if (msgs.isEmpty())
+                return null;
+
+            List<GridTcpCommunicationMessageAdapter> res = msgs;
+
+            msgs = new ArrayList<>(res.size());
+
+            return res;
+        }
+
+        /** {@inheritDoc} */
+        @Override public synchronized String toString() {
+            return S.toString(MessageBatch.class, this, "size", msgs.size(), "failed", err != null && !closed);
+        }
+    }
+
     /**
      * Handles sockets timeouts.
      */
@@ -2391,6 +3196,52 @@ public class GridTcpCommunicationSpi extends GridSpiAdapter
         }
     }
 
+    /**
+     * Key of connection to remote node.
+     */
+    private static class ConnectionKey {
+        /** Remote node ID. */
+        private final UUID nodeId;
+
+        /** Connection index. */
+        private final int idx;
+
+        /**
+         * @param nodeId Remote node ID.
+         * @param idx Connection index.
+         */
+        private ConnectionKey(UUID nodeId, int idx) {
+            assert nodeId != null;
+            assert idx >= 0 : idx;
+
+            this.nodeId = nodeId;
+            this.idx = idx;
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean equals(Object o) {
+            if (this == o)
+                return true;
+
+            if (!(o instanceof ConnectionKey))
+                return false;
+
+            ConnectionKey other = (ConnectionKey)o;
+
+            return idx == other.idx && nodeId.equals(other.nodeId);
+        }
+
+        /** {@inheritDoc} */
+        @Override public int hashCode() {
+            return 31 * nodeId.hashCode() + idx;
+        }
+
+        /** {@inheritDoc} */
+        @Override public String toString() {
+            return S.toString(ConnectionKey.class, this);
+        }
+    }
+
     /**
      * Node ID message.
      */
@@ -238,6 +238,102 @@ public interface GridTcpCommunicationSpiMBean extends GridSpiManagementMBean {
     @GridMBeanDescription("Dual-socket connection.")
     public boolean isDualSocketConnection();
 
+    /**
+     * Gets number of connections established to each remote node.
+     *
+     * @return Number of connections per remote node.
+     */
+    @GridMBeanDescription("Connections per node.")
+    public int getConnectionsPerNode();
+
+    /**
+     * Gets sent messages count by connection index.
+     *
+     * @return Sent messages count by connection index.
+     */
+    @GridMBeanDescription("Sent messages count by connection index.")
+    public long[] getSentMessagesCountByConnection();
+
+    /**
+     * Gets bytes sent over currently open connections by connection index.
+     *
+     * @return Sent bytes count by connection index.
+     */
+    @GridMBeanDescription("Sent bytes count of open connections by connection index.")
+    public long[] getSentBytesCountByConnection();
+
+    /**
+     * Gets bytes received over currently open connections by connection index.
+     *
+     * @return Received bytes count by connection index.
+     */
+    @GridMBeanDescription("Received bytes count of open connections by connection index.")
+    public long[] getReceivedBytesCountByConnection();
+
+    /**
+     * Gets flag indicating whether traffic to other nodes is compressed.
+     *
+     * @return Whether traffic is compressed.
+     */
+    @GridMBeanDescription("Compression enabled.")
+    public boolean isCompressionEnabled();
+
+    /**
+     * Gets minimum size of compressed chunk.
+     *
+     * @return Minimum size of compressed chunk.
+     */
+    @GridMBeanDescription("Compression threshold.")
+    public int getCompressionThreshold();
+
+    /**
+     * Gets maximum ratio of compressed to original chunk size.
+     *
+     * @return Maximum compression ratio.
+     */
+    @GridMBeanDescription("Compression maximum ratio.")
+    public double getCompressionMaxRatio();
+
+    /**
+     * Gets ratio of bytes written to compressed connections to their size before compression.
+     *
+     * @return Compression ratio.
+     */
+    @GridMBeanDescription("Compression ratio.")
+    public double getCompressionRatio();
+
+    /**
+     * Gets number of bytes saved by compression.
+     *
+     * @return Bytes saved by compression.
+     */
+    @GridMBeanDescription("Bytes saved by compression.")
+    public long getCompressionBytesSaved();
+
+    /**
+     * Gets latency budget of message coalescing in microseconds, {@code 0} if coalescing is disabled.
+     *
+     * @return Coalescing latency.
+     */
+    @GridMBeanDescription("Coalescing latency in microseconds.")
+    public long getCoalescingLatency();
+
+    /**
+     * Gets maximum number of coalesced messages.
+     *
+     * @return Coalescing batch size.
+     */
+    @GridMBeanDescription("Coalescing batch size.")
+    public int getCoalescingBatchSize();
+
+    /**
+     * Gets average number of messages sent together when coalescing is enabled.
+     *
+     * @return Average messages per batch.
+     */
+    @GridMBeanDescription("Average messages per batch.")
+    public double getAverageMessagesPerBatch();
+
     /**
      * Gets message queue limit for incoming and outgoing messages.
      * <p>
@@ -51,10 +51,12 @@ import org.gridgain.grid.util.typedef.internal.*;
 import org.gridgain.grid.util.*;
 import org.gridgain.grid.util.io.*;
 import org.gridgain.grid.util.lang.*;
+import org.gridgain.grid.util.nio.*;
 import org.jetbrains.annotations.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.*;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
@@ -207,6 +209,9 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
     /** Default statistics print frequency in milliseconds (value is <tt>0ms</tt>). */
     public static final long DFLT_STATS_PRINT_FREQ = 0;
 
+    /** Node attribute holding version of metrics format used in heartbeat messages. */
+    public static final String ATTR_HEARTBEAT_METRICS_VER = "disco.tcp.hb.metrics.ver";
+
     /** Maximum ack timeout value for receiving message acknowledgement in milliseconds (value is <tt>600,000ms</tt>). */
     public static final long DFLT_MAX_ACK_TIMEOUT = 10 * 60 * 1000;
 
@@ -219,6 +224,15 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
     /** Response CONTINUE JOIN. */
     private static final int RES_CONTINUE_JOIN = 100;
 
+    /** NIO session metadata key for connection state. */
+    private static final int NIO_SES_STATE_META_KEY = GridNioSessionMetaKey.nextUniqueKey();
+
+    /** Number of heartbeats local node sends metrics deltas against the same keyframe. */
+    private static final int METRICS_KEYFRAME_FREQ = 30;
+
+    /** Version of metrics format used in heartbeat messages (keyframes and deltas). */
+    private static final int HEARTBEAT_METRICS_VER = 1;
+
     /** Response WAIT. */
     private static final int RES_WAIT = 200;
 
@@ -343,11 +357,11 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
     /** Discovery state. */
     private GridTcpDiscoverySpiState spiState = DISCONNECTED;
 
-    /** Socket readers. */
-    private final Collection<SocketReader> readers = new LinkedList<>();
+    /** NIO server accepting incoming connections. */
+    private GridNioServer<ByteBuffer> nioSrvr;
 
-    /** TCP server for discovery SPI. */
-    private TcpServer tcpSrvr;
+    /** Port NIO server is bound to. */
+    private int nioSrvrPort;
 
     /** Message worker. */
     private MessageWorker msgWorker;
@@ -475,7 +489,8 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
     }
 
     /**
-     * Sets maximum network timeout to use for network operations.
+     * Sets maximum network timeout to use for network operations. Incoming connections which do not
+     * complete handshake within this timeout are closed.
      * <p>
      * If not specified, default is {@link #DFLT_NETWORK_TIMEOUT}.
      *
@@ -779,6 +794,26 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
         return stats.maxMessageProcessingTime();
     }
 
+    /** {@inheritDoc} */
+    @Override public long getAvgHeartbeatRingTime() {
+        return stats.avgHeartbeatRingTime();
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getMaxHeartbeatRingTime() {
+        return stats.maxHeartbeatRingTime();
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getAvgHeartbeatMetricsSize() {
+        return stats.avgHeartbeatMetricsSize();
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getMaxHeartbeatMetricsSize() {
+        return stats.maxHeartbeatMetricsSize();
+    }
+
     /** {@inheritDoc} */
     @Override public int getTotalReceivedMessages() {
         return stats.totalReceivedMessages();
@@ -925,7 +960,7 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
         msgWorker = new MessageWorker();
         msgWorker.start();
 
-        tcpSrvr = new TcpServer();
+        nioSrvr = createNioServer();
 
         // Init local node.
         GridBiTuple<Collection<String>, Collection<String>> addrs;
@@ -941,19 +976,23 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
             locNodeId,
             addrs.get1(),
             addrs.get2(),
-            tcpSrvr.port,
+            nioSrvrPort,
             metricsProvider,
             nodeVer);
 
-        locNode.setAttributes(nodeAttrs);
+        Map<String, Object> attrs = new HashMap<>(nodeAttrs);
+
+        attrs.put(createSpiAttributeName(ATTR_HEARTBEAT_METRICS_VER), HEARTBEAT_METRICS_VER);
+
+        locNode.setAttributes(attrs);
 
         locNode.local(true);
 
         if (log.isDebugEnabled())
             log.debug("Local node initialized: " + locNode);
 
-        // Start TCP server thread after local node is initialized.
-        tcpSrvr.start();
+        // Start NIO server after local node is initialized.
+        nioSrvr.start();
 
         ring.localNode(locNode);
 
@@ -999,7 +1038,7 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
             log.debug(startInfo());
 
         if (restart)
-            getSpiContext().registerPort(tcpSrvr.port, TCP);
+            getSpiContext().registerPort(nioSrvrPort, TCP);
     }
 
     /**
@@ -1094,7 +1133,7 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
     @Override public void onContextInitialized0(GridSpiContext spiCtx) throws GridSpiException {
         ctxInitLatch.countDown();
 
-        spiCtx.registerPort(tcpSrvr.port, TCP);
+        spiCtx.registerPort(nioSrvrPort, TCP);
     }
 
     /** {@inheritDoc} */
@@ -1180,17 +1219,8 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
             }
         }
 
-        U.interrupt(tcpSrvr);
-        U.join(tcpSrvr, log);
-
-        Collection<SocketReader> tmp;
-
-        synchronized (mux) {
-            tmp = new ArrayList<>(readers);
-        }
-
-        U.interrupt(tmp);
-        U.joinThreads(tmp, log);
+        if (nioSrvr != null)
+            nioSrvr.stop();
 
         U.interrupt(hbsSnd);
         U.join(hbsSnd, log);
@@ -1871,10 +1901,16 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
         assert sock != null;
         assert msg != null;
         assert bout != null;
+        assert bout.size() == 0;
+
+        // Reserve space for message size, NIO server reads messages prepended with size.
+        bout.write(new byte[4], 0, 4);
 
         // Marshall message first to perform only write after.
         marsh.marshal(msg, bout);
 
+        U.intToBytes(bout.size() - 4, bout.internalArray(), 0);
+
         SocketTimeoutObject obj = new SocketTimeoutObject(sock, U.currentTimeMillis() + sockTimeout);
 
         sockTimeoutWorker.addTimeoutObject(obj);
@@ -2294,8 +2330,8 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
     void simulateNodeFailure() {
         U.warn(log, "Simulating node failure: " + locNodeId);
 
-        U.interrupt(tcpSrvr);
-        U.join(tcpSrvr, log);
+        if (nioSrvr != null)
+            nioSrvr.stop();
 
         U.interrupt(hbsSnd);
         U.join(hbsSnd, log);
@@ -2309,15 +2345,6 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
         U.interrupt(metricsUpdateNtf);
         U.join(metricsUpdateNtf, log);
 
-        Collection<SocketReader> tmp;
-
-        synchronized (mux) {
-            tmp = new ArrayList<>(readers);
-        }
-
-        U.interrupt(tmp);
-        U.joinThreads(tmp, log);
-
         U.interrupt(msgWorker);
         U.join(msgWorker, log);
 
@@ -2657,6 +2684,27 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
         /** Force pending messages send. */
         private boolean forceSndPending;
 
+        /** Last local metrics keyframe. */
+        private byte[] metricsKeyframe;
+
+        /** Last local metrics keyframe version. */
+        private long metricsKeyframeVer;
+
+        /** Topology version last local metrics keyframe was created on. */
+        private long metricsKeyframeTopVer;
+
+        /** Whether last local metrics keyframe has made two passes. */
+        private boolean metricsKeyframeAcked;
+
+        /** Number of deltas sent against last local metrics keyframe. */
+        private int metricsDeltas;
+
+        /** Whether new keyframe should be sent since node has joined and holds no keyframes yet. */
+        private boolean forceMetricsKeyframe;
+
+        /** Last metrics keyframes received from nodes. */
+        private final Map<UUID, byte[]> metricsKeyframes = new HashMap<>();
+
         /** Constructor. */
         private MessageWorker() {
             super(gridName, "tcp-disco-msg-worker", log);
@@ -3348,6 +3396,44 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
                         }
                     }
 
+                    Object locMetricsVer = locNode.attribute(createSpiAttributeName(ATTR_HEARTBEAT_METRICS_VER));
+                    Object rmtMetricsVer = node.attribute(createSpiAttributeName(ATTR_HEARTBEAT_METRICS_VER));
+
+                    if (!F.eq(locMetricsVer, rmtMetricsVer)) {
+                        String errMsg = "Local node's heartbeat metrics format differs from remote node's " +
+                            "(node will not join, all nodes in topology should exchange metrics in the same format) " +
+                            "[locMetricsVer=" + locMetricsVer + ", rmtMetricsVer=" + rmtMetricsVer +
+                            ", locNodeAddrs=" + U.addressesAsString(locNode) +
+                            ", rmtNodeAddrs=" + U.addressesAsString(node) +
+                            ", locNodeId=" + locNode.id() + ", rmtNodeId=" + msg.creatorNodeId() + ']';
+
+                        LT.warn(log, null, errMsg);
+
+                        // Always output in debug.
+                        if (log.isDebugEnabled())
+                            log.debug(errMsg);
+
+                        try {
+                            String sndMsg = "Local node's heartbeat metrics format differs from remote node's " +
+                                "(node will not join, all nodes in topology should exchange metrics in the same " +
+                                "format) [locMetricsVer=" + rmtMetricsVer + ", rmtMetricsVer=" + locMetricsVer +
+                                ", locNodeAddrs=" + U.addressesAsString(node) + ", locPort=" + node.discoveryPort() +
+                                ", rmtNodeAddr=" + U.addressesAsString(locNode) + ", locNodeId=" + node.id() +
+                                ", rmtNodeId=" + locNode.id() + ']';
+
+                            trySendMessageDirectly(node,
+                                new GridTcpDiscoveryCheckFailedMessage(locNodeId, sndMsg));
+                        }
+                        catch (GridSpiException e) {
+                            if (log.isDebugEnabled())
+                                log.debug("Failed to send metrics format check failed message to node " +
+                                    "[node=" + node + ", err=" + e.getMessage() + ']');
+                        }
+
+                        // Ignore join request.
+                        return;
+                    }
+
                     String locMarsh = locNode.attribute(ATTR_MARSHALLER);
                     String rmtMarsh = node.attribute(ATTR_MARSHALLER);
 
@@ -3573,6 +3659,10 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
                 if (msg.verified()) {
                     stats.onRingMessageReceived(msg);
 
+                    // Message has passed joined node, so it is connected and will receive next keyframe.
+                    if (node != null)
+                        forceMetricsKeyframe = true;
+
                     addMessage(new GridTcpDiscoveryDiscardMessage(locNodeId, msg.id()));
 
                     return;
@@ -3636,6 +3726,9 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
                         log.debug("Topology version has been updated: [ring=" + ring + ", msg=" + msg + ']');
 
                     lastMsg = msg;
+
+                    // Joined node holds no keyframes, next heartbeat follows this message along the ring.
+                    forceMetricsKeyframe = true;
                 }
 
                 notifyDiscovery(EVT_NODE_JOINED, topVer, node);
@@ -4146,32 +4239,67 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
                 return;
             }
 
+            if (locNodeId.equals(msg.creatorNodeId())) {
+                if (msg.senderNodeId() == null)
+                    stats.onHeartbeatCreated(msg);
+                else
+                    stats.onHeartbeatRingPassed(msg);
+            }
+
             long tstamp = U.currentTimeMillis();
 
             if (msg.hasMetrics() && spiStateCopy() == CONNECTED)
-                for (Map.Entry<UUID, GridNodeMetrics> e : msg.metrics().entrySet()) {
+                for (Map.Entry<UUID, byte[]> e : msg.metrics().entrySet()) {
                     GridTcpDiscoveryNode node = ring.node(e.getKey());
 
                     if (node != null) {
-                        node.setMetrics(e.getValue());
+                        byte[] frame = e.getValue();
+
+                        byte[] keyframe = metricsKeyframes.get(node.id());
+
+                        if (GridTcpDiscoveryMetricsDeltaHelper.isKeyframe(frame) && (keyframe == null ||
+                            GridTcpDiscoveryMetricsDeltaHelper.version(keyframe) <
+                            GridTcpDiscoveryMetricsDeltaHelper.version(frame)))
+                            metricsKeyframes.put(node.id(), frame);
+
+                        byte[] metrics = GridTcpDiscoveryMetricsDeltaHelper.metrics(keyframe, frame);
 
                         node.lastUpdateTime(tstamp);
 
-                        notifyDiscovery(EVT_NODE_METRICS_UPDATED, ring.topologyVersion(), node);
+                        if (metrics != null) {
+                            node.setMetrics(GridDiscoveryMetricsHelper.deserialize(metrics, 0));
+
+                            notifyDiscovery(EVT_NODE_METRICS_UPDATED, ring.topologyVersion(), node);
+                        }
+                        else if (log.isDebugEnabled())
+                            log.debug("Skipping metrics delta against unknown keyframe: " + node.id());
                     }
                     else if (log.isDebugEnabled())
                         log.debug("Received metrics from unknown node: " + e.getKey());
                 }
 
+            if (metricsKeyframes.size() > ring.allNodes().size())
+                metricsKeyframes.keySet().retainAll(F.nodeIds(ring.allNodes()));
+
             if (ring.hasRemoteNodes()) {
                 if ((locNodeId.equals(msg.creatorNodeId()) && msg.senderNodeId() == null ||
                     !msg.hasMetrics(locNodeId)) && spiStateCopy() == CONNECTED)
 
                     // Message is on its first ring or just created on coordinator.
-                    msg.setMetrics(locNodeId, metricsProvider.getMetrics());
-                else
+                    msg.setMetrics(locNodeId, localMetrics());
+                else {
                     // Message is on its second ring.
+                    byte[] frame = msg.metrics().get(locNodeId);
+
+                    if (frame != null && GridTcpDiscoveryMetricsDeltaHelper.isKeyframe(frame) &&
+                        GridTcpDiscoveryMetricsDeltaHelper.version(frame) == metricsKeyframeVer)
+                        // All nodes have seen the keyframe, deltas can be sent against it.
+                        metricsKeyframeAcked = true;
+
                     msg.removeMetrics(locNodeId);
+                }
+
+                stats.onHeartbeatSent(msg.metricsSize());
 
                 sendMessageAcrossRing(msg);
             }
@@ -4182,6 +4310,44 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
             }
         }
 
+        /**
+         * Encodes local node metrics for heartbeat message. Keyframe is resent until it makes two
+         * passes, then deltas against it are sent until topology changes, new node joins or
+         * {@link #METRICS_KEYFRAME_FREQ} deltas are sent.
+         *
+         * @return Local metrics keyframe or delta.
+         */
+        private byte[] localMetrics() {
+            byte[] metrics = new byte[GridDiscoveryMetricsHelper.METRICS_SIZE];
+
+            GridDiscoveryMetricsHelper.serialize(metrics, 0, metricsProvider.getMetrics());
+
+            long topVer = ring.topologyVersion();
+
+            if (metricsKeyframe != null && metricsKeyframeTopVer == topVer && !forceMetricsKeyframe) {
+                if (!metricsKeyframeAcked)
+                    return metricsKeyframe;
+
+                if (metricsDeltas < METRICS_KEYFRAME_FREQ) {
+                    byte[] delta = GridTcpDiscoveryMetricsDeltaHelper.delta(metricsKeyframe, metrics);
+
+                    if (delta != null) {
+                        metricsDeltas++;
+
+                        return delta;
+                    }
+                }
+            }
+
+            metricsKeyframe = GridTcpDiscoveryMetricsDeltaHelper.keyframe(++metricsKeyframeVer, metrics);
+            metricsKeyframeTopVer = topVer;
+            metricsKeyframeAcked = false;
+            metricsDeltas = 0;
+            forceMetricsKeyframe = false;
+
+            return metricsKeyframe;
+        }
+
         /**
          * Processes heartbeat message when working with metrics store.
          *
@@ -4216,11 +4382,17 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
                 return;
             }
 
-            if (locNodeId.equals(msg.creatorNodeId()) && msg.senderNodeId() != null) {
-                if (log.isDebugEnabled())
-                    log.debug("Discarding heartbeat message that has made full ring pass: " + msg);
+            if (locNodeId.equals(msg.creatorNodeId())) {
+                if (msg.senderNodeId() != null) {
+                    stats.onHeartbeatRingPassed(msg);
 
-                return;
+                    if (log.isDebugEnabled())
+                        log.debug("Discarding heartbeat message that has made full ring pass: " + msg);
+
+                    return;
+                }
+
+                stats.onHeartbeatCreated(msg);
             }
 
             long tstamp = U.currentTimeMillis();
@@ -4320,511 +4492,441 @@ public class GridTcpDiscoverySpi extends GridSpiAdapter implements GridDiscovery
     }
 
     /**
-     * Thread that accepts incoming TCP connections.
-     * <p>
-     * Tcp server will call provided closure when accepts incoming connection.
-     * From that moment server is no more responsible for the socket.
+     * Creates NIO server accepting incoming discovery connections. Server binds to the first
+     * available port within configured range.
+     *
+     * @return NIO server.
+     * @throws GridSpiException If failed to bind to any port.
      */
-    private class TcpServer extends GridSpiThread {
-        /** Socket TCP server listens to. */
-        private ServerSocket srvrSock;
-
-        /** Port to listen. */
-        private int port;
-
-        /**
-         * Constructor.
-         *
-         * @throws GridSpiException In case of error.
-         */
-        TcpServer() throws GridSpiException {
-            super(gridName, "tcp-disco-srvr", log);
-
-            setPriority(threadPri);
-
-            for (port = locPort; port < locPort + locPortRange; port++) {
-                try {
-                    srvrSock = new ServerSocket(port, 0, locHost);
+    private GridNioServer<ByteBuffer> createNioServer() throws GridSpiException {
+        GridException lastEx = null;
 
-                    break;
-                }
-                catch (IOException e) {
-                    if (port < locPort + locPortRange - 1) {
-                        if (log.isDebugEnabled())
-                            log.debug("Failed to bind to local port (will try next port within range) " +
-                                "[port=" + port + ", localHost=" + locHost + ']');
-                    }
-                    else {
-                        throw new GridSpiException("Failed to bind TCP server socket (possibly all ports in range " +
-                            "are in use) [firstPort=" + locPort + ", lastPort=" + (locPort + locPortRange - 1) +
-                            ", addr=" + locHost + ']', e);
-                    }
-                }
-            }
-
-            if (log.isInfoEnabled())
-                log.info("Successfully bound to TCP port [port=" + port + ", localHost=" + locHost + ']');
-        }
-
-        /** {@inheritDoc} */
-        @Override protected void body() throws InterruptedException {
+        for (int port = locPort; port < locPort + locPortRange; port++) {
             try {
-                while (!isInterrupted()) {
-                    Socket sock = srvrSock.accept();
-
-                    long tstamp = U.currentTimeMillis();
-
-                    if (log.isDebugEnabled())
-                        log.debug("Accepted incoming connection from addr: " + sock.getInetAddress());
-
-                    SocketReader reader = new SocketReader(sock);
-
-                    synchronized (mux) {
-                        readers.add(reader);
-
-                        reader.start();
-                    }
-
-                    stats.onServerSocketInitialized(U.currentTimeMillis() - tstamp);
-                }
+                GridNioServer<ByteBuffer> srvr = GridNioServer.<ByteBuffer>builder()
+                    .address(locHost)
+                    .port(port)
+                    .listener(new NioListener())
+                    .logger(log)
+                    .selectorCount(1)
+                    .gridName(gridName)
+                    .tcpNoDelay(true)
+                    .directBuffer(false)
+                    .idleTimeout(netTimeout)
+                    .byteOrder(ByteOrder.BIG_ENDIAN)
+                    .filters(new GridNioCodecFilter(new NioParser(), log, false))
+                    .build();
+
+                nioSrvrPort = port;
+
+                if (log.isInfoEnabled())
+                    log.info("Successfully bound to TCP port [port=" + port + ", localHost=" + locHost + ']');
+
+                return srvr;
             }
-            catch (IOException e) {
-                if (log.isDebugEnabled())
-                    U.error(log, "Failed to accept TCP connection.", e);
+            catch (GridException e) {
+                lastEx = e;
 
-                if (!isInterrupted()) {
-                    if (U.isMacInvalidArgumentError(e))
-                        U.error(log, "Failed to accept TCP connection\n\t" + U.MAC_INVALID_ARG_MSG, e);
-                    else
-                        U.error(log, "Failed to accept TCP connection.", e);
-                }
-            }
-            finally {
-                U.closeQuiet(srvrSock);
+                if (log.isDebugEnabled())
+                    log.debug("Failed to bind to local port (will try next port within range) " +
+                        "[port=" + port + ", localHost=" + locHost + ']');
             }
         }
 
-        /** {@inheritDoc} */
-        @Override public void interrupt() {
-            super.interrupt();
-
-            U.close(srvrSock, log);
-        }
+        throw new GridSpiException("Failed to bind TCP server socket (possibly all ports in range " +
+            "are in use) [firstPort=" + locPort + ", lastPort=" + (locPort + locPortRange - 1) +
+            ", addr=" + locHost + ']', lastEx);
     }
 
     /**
-     * Thread that reads messages from the socket created for incoming connections.
+     * State of the connection accepted by NIO server.
      */
-    private class SocketReader extends GridSpiThread {
-        /** Socket to read data from. */
-        private final Socket sock;
+    private static class NioSessionState {
+        /** Magic header bytes read so far. */
+        private final byte[] hdr = new byte[U.GG_HEADER.length];
 
-        /**
-         * Constructor.
-         *
-         * @param sock Socket to read data from.
-         */
-        SocketReader(Socket sock) {
-            super(gridName, "tcp-disco-sock-reader", log);
+        /** Number of magic header bytes read so far. */
+        private int hdrCnt;
 
-            this.sock = sock;
+        /** Buffer for incoming messages. */
+        private final GridNioServerBuffer buf = new GridNioServerBuffer();
 
-            setPriority(threadPri);
+        /** Whether message is partially read into {@link #buf}. */
+        private boolean partial;
 
-            stats.onSocketReaderCreated();
-        }
+        /** Remote node ID, {@code null} until handshake is done. */
+        private UUID nodeId;
+    }
 
+    /**
+     * Parser of the stream sent to discovery NIO server. Stream starts with {@link U#GG_HEADER},
+     * then every message is prepended with 4-byte size. Responses are written without size, since
+     * they are read by blocking sockets.
+     * <p>
+     * Message which is entirely contained in read buffer is returned as a slice of this buffer and
+     * is unmarshalled in place, only messages split between reads are copied.
+     */
+    private class NioParser implements GridNioParser {
         /** {@inheritDoc} */
-        @Override protected void body() throws InterruptedException {
-            try {
-                UUID nodeId;
-
-                InputStream in;
+        @Nullable @Override public ByteBuffer decode(GridNioSession ses, ByteBuffer buf) throws IOException,
+            GridException {
+            NioSessionState state = ses.meta(NIO_SES_STATE_META_KEY);
 
-                try {
-                    // Set socket options.
-                    sock.setKeepAlive(true);
-                    sock.setTcpNoDelay(true);
-
-                    int timeout = sock.getSoTimeout();
-
-                    sock.setSoTimeout((int)netTimeout);
+            if (state == null) {
+                state = new NioSessionState();
 
-                    byte[] buf = new byte[4];
-                    int read = 0;
-
-                    while (read < buf.length) {
-                        int r = sock.getInputStream().read(buf, read, buf.length - read);
-
-                        if (r >= 0)
-                            read += r;
-                        else {
-                            if (log.isDebugEnabled())
-                                log.debug("Failed to read magic header (too few bytes received) " +
-                                    "[rmtAddr=" + sock.getRemoteSocketAddress() +
-                                    ", locAddr=" + sock.getLocalSocketAddress() + ']');
-
-                            LT.warn(log, null, "Failed to read magic header (too few bytes received) [rmtAddr=" +
-                                sock.getRemoteSocketAddress() + ", locAddr=" + sock.getLocalSocketAddress() + ']');
-
-                            return;
-                        }
-                    }
-
-                    if (!U.bytesEqual(buf, 0, U.GG_HEADER, 0, 4)) {
-                        if (log.isDebugEnabled())
-                            log.debug("Unknown connection detected (is some other software connecting to " +
-                                "this GridGain port?) " +
-                                "[rmtAddr=" + sock.getRemoteSocketAddress() +
-                                ", locAddr=" + sock.getLocalSocketAddress() + ']');
-
-                        LT.warn(log, null, "Unknown connection detected (is some other software connecting to " +
-                            "this GridGain port?) [rmtAddr=" + sock.getRemoteSocketAddress() +
-                            ", locAddr=" + sock.getLocalSocketAddress() + ']');
+                ses.addMeta(NIO_SES_STATE_META_KEY, state);
+            }
 
-                        return;
-                    }
+            // Peer which keeps sending data without completing handshake.
+            if (state.nodeId == null && U.currentTimeMillis() - ses.createTime() > netTimeout)
+                throw new GridException("Handshake timed out [rmtAddr=" + ses.remoteAddress() +
+                    ", netTimeout=" + netTimeout + ']');
 
-                    // Restore timeout.
-                    sock.setSoTimeout(timeout);
+            if (state.hdrCnt < state.hdr.length) {
+                while (state.hdrCnt < state.hdr.length && buf.hasRemaining())
+                    state.hdr[state.hdrCnt++] = buf.get();
 
-                    // Handshake.
-                    GridTcpDiscoveryHandshakeRequest req = readMessage(sock, netTimeout);
+                if (state.hdrCnt < state.hdr.length)
+                    return null;
 
-                    nodeId = req.creatorNodeId();
+                if (!U.bytesEqual(state.hdr, 0, U.GG_HEADER, 0, U.GG_HEADER.length)) {
+                    LT.warn(log, null, "Unknown connection detected (is some other software connecting to " +
+                        "this GridGain port?) [rmtAddr=" + ses.remoteAddress() +
+                        ", locAddr=" + ses.localAddress() + ']');
 
-                    writeToSocket(sock, new GridTcpDiscoveryHandshakeResponse(locNodeId, locNode.internalOrder()));
+                    throw new GridException("Unknown connection detected [rmtAddr=" + ses.remoteAddress() +
+                        ", locAddr=" + ses.localAddress() + ']');
+                }
 
-                    // It can happen if a remote node is stopped and it has a loopback address in the list of addresses,
-                    // the local node sends a handshake request message on the loopback address, so we get here.
-                    if (locNodeId.equals(nodeId)) {
-                        if (log.isDebugEnabled())
-                            log.debug("Handshake request from local node: " + req);
+                if (!buf.hasRemaining())
+                    return null;
+            }
 
-                        return;
-                    }
+            if (!state.partial && buf.remaining() >= 4) {
+                int size = buf.getInt(buf.position());
 
-                    in = sock.getInputStream();
+                if (size > 0 && buf.remaining() - 4 >= size) {
+                    ByteBuffer msg = buf.duplicate();
 
-                    if (log.isDebugEnabled())
-                        log.debug("Initialized connection with remote node: " + nodeId);
-                }
-                catch (IOException e) {
-                    if (log.isDebugEnabled())
-                        U.error(log, "Caught exception on handshake [err=" + e +", sock=" + sock + ']', e);
+                    msg.position(buf.position() + 4);
+                    msg.limit(msg.position() + size);
 
-                    if (X.hasCause(e, ObjectStreamException.class) || !sock.isClosed()) {
-                        if (U.isMacInvalidArgumentError(e))
-                            LT.error(log, e, "Failed to initialize connection [sock=" + sock + "]\n\t" +
-                                U.MAC_INVALID_ARG_MSG);
-                        else
-                            LT.error(log, e, "Failed to initialize connection [sock=" + sock + ']');
-                    }
+                    buf.position(msg.limit());
 
-                    return;
+                    return msg;
                 }
-                catch (GridException e) {
-                    if (log.isDebugEnabled())
-                        U.error(log, "Caught exception on handshake [err=" + e +", sock=" + sock + ']', e);
-
-                    if (e.hasCause(SocketTimeoutException.class))
-                        LT.warn(log, null, "Socket operation timed out on handshake " +
-                            "(consider increasing 'networkTimeout' configuration property) " +
-                            "[netTimeout=" + netTimeout + ']');
+            }
 
-                    // Always report marshalling problems.
-                    else if (e.hasCause(ObjectStreamException.class) ||
-                        (!sock.isClosed() && !e.hasCause(IOException.class)))
-                        LT.error(log, e, "Failed to initialize connection [sock=" + sock + ']');
+            byte[] data = state.buf.read(buf);
 
-                    return;
-                }
+            state.partial = data == null;
 
-                while (!isInterrupted()) {
-                    try {
-                        GridTcpDiscoveryAbstractMessage msg = marsh.unmarshal(in, U.gridClassLoader());
+            return data != null ? ByteBuffer.wrap(data) : null;
+        }
 
-                        msg.senderNodeId(nodeId);
+        /** {@inheritDoc} */
+        @Override public ByteBuffer encode(GridNioSession ses, Object msg) throws IOException, GridException {
+            return ByteBuffer.wrap((byte[])msg);
+        }
 
-                        if (log.isDebugEnabled())
-                            log.debug("Message has been received: " + msg);
+        /** {@inheritDoc} */
+        @Override public String toString() {
+            return S.toString(NioParser.class, this);
+        }
+    }
 
-                        stats.onMessageReceived(msg);
+    /**
+     * Listener of the discovery NIO server. Processes messages received on incoming
+     * connections in selector threads, so number of threads does not depend on
+     * number of connected nodes.
+     */
+    private class NioListener extends GridNioServerListenerAdapter<ByteBuffer> {
+        /** {@inheritDoc} */
+        @Override public void onConnected(GridNioSession ses) {
+            if (log.isDebugEnabled())
+                log.debug("Accepted incoming connection from addr: " + ses.remoteAddress());
 
-                        if (msg instanceof GridTcpDiscoveryJoinRequestMessage) {
-                            GridTcpDiscoveryJoinRequestMessage req = (GridTcpDiscoveryJoinRequestMessage)msg;
+            stats.onSocketReaderCreated();
+        }
 
-                            // Direct join request requires special processing.
-                            if (!req.responded()) {
-                                processJoinRequestMessage(req);
+        /** {@inheritDoc} */
+        @Override public void onDisconnected(GridNioSession ses, @Nullable Exception e) {
+            if (e != null && log.isDebugEnabled())
+                U.error(log, "Connection closed with error [ses=" + ses + ", locNodeId=" + locNodeId + ']', e);
 
-                                continue;
-                            }
-                        }
-                        else if (msg instanceof GridTcpDiscoveryDuplicateIdMessage) {
-                            // Send receipt back.
-                            writeToSocket(sock, RES_OK);
+            stats.onSocketReaderRemoved();
+        }
 
-                            boolean ignored = false;
+        /** {@inheritDoc} */
+        @Override public void onSessionIdleTimeout(GridNioSession ses) {
+            NioSessionState state = ses.meta(NIO_SES_STATE_META_KEY);
 
-                            GridTcpDiscoverySpiState state = null;
+            // Established connections may be idle, but handshake must be done within network timeout.
+            if (state == null || state.nodeId == null) {
+                if (log.isDebugEnabled())
+                    log.debug("Closing connection which did not complete handshake within network timeout " +
+                        "[rmtAddr=" + ses.remoteAddress() + ", netTimeout=" + netTimeout + ']');
 
-                            synchronized (mux) {
-                                if (spiState == CONNECTING) {
-                                    joinRes.set(msg);
+                ses.close();
+            }
+        }
 
-                                    spiState = DUPLICATE_ID;
+        /** {@inheritDoc} */
+        @Override public void onMessage(GridNioSession ses, ByteBuffer data) {
+            NioSessionState state = ses.meta(NIO_SES_STATE_META_KEY);
 
-                                    mux.notifyAll();
-                                }
-                                else {
-                                    ignored = true;
+            assert state != null;
 
-                                    state = spiState;
-                                }
-                            }
+            if (state.nodeId == null) {
+                processHandshake(ses, state, data);
 
-                            if (ignored && log.isDebugEnabled())
-                                log.debug("Duplicate ID message has been ignored [msg=" + msg +
-                                    ", spiState=" + state + ']');
+                return;
+            }
 
-                            continue;
-                        }
-                        else if (msg instanceof GridTcpDiscoveryAuthFailedMessage) {
-                            // Send receipt back.
-                            writeToSocket(sock, RES_OK);
+            UUID nodeId = state.nodeId;
 
-                            boolean ignored = false;
+            GridTcpDiscoveryAbstractMessage msg;
 
-                            GridTcpDiscoverySpiState state = null;
+            try {
+                msg = marsh.unmarshal(data, U.gridClassLoader());
+            }
+            catch (GridException e) {
+                if (log.isDebugEnabled())
+                    U.error(log, "Caught exception on message read [ses=" + ses +
+                        ", locNodeId=" + locNodeId + ", rmtNodeId=" + nodeId + ']', e);
 
-                            synchronized (mux) {
-                                if (spiState == CONNECTING) {
-                                    joinRes.set(msg);
+                // Always report marshalling errors.
+                boolean err = e.hasCause(ObjectStreamException.class) ||
+                    (nodeAlive(nodeId) && spiStateCopy() == CONNECTED && !X.hasCause(e, IOException.class));
 
-                                    spiState = AUTH_FAILED;
+                if (err)
+                    LT.error(log, e, "Failed to read message [ses=" + ses + ", locNodeId=" + locNodeId +
+                        ", rmtNodeId=" + nodeId + ']');
 
-                                    mux.notifyAll();
-                                }
-                                else {
-                                    ignored = true;
+                ses.close();
 
-                                    state = spiState;
-                                }
-                            }
+                return;
+            }
 
-                            if (ignored && log.isDebugEnabled())
-                                log.debug("Auth failed message has been ignored [msg=" + msg +
-                                    ", spiState=" + state + ']');
+            msg.senderNodeId(nodeId);
 
-                            continue;
-                        }
-                        else if (msg instanceof GridTcpDiscoveryCheckFailedMessage) {
-                            // Send receipt back.
-                            writeToSocket(sock, RES_OK);
+            if (log.isDebugEnabled())
+                log.debug("Message has been received: " + msg);
 
-                            boolean ignored = false;
+            stats.onMessageReceived(msg);
 
-                            GridTcpDiscoverySpiState state = null;
+            if (msg instanceof GridTcpDiscoveryJoinRequestMessage) {
+                GridTcpDiscoveryJoinRequestMessage req = (GridTcpDiscoveryJoinRequestMessage)msg;
 
-                            synchronized (mux) {
-                                if (spiState == CONNECTING) {
-                                    joinRes.set(msg);
+                // Direct join request requires special processing.
+                if (!req.responded()) {
+                    processJoinRequestMessage(ses, req);
 
-                                    spiState = CHECK_FAILED;
+                    return;
+                }
+            }
+            else if (msg instanceof GridTcpDiscoveryDuplicateIdMessage) {
+                processJoinResult(ses, msg, DUPLICATE_ID, "Duplicate ID");
 
-                                    mux.notifyAll();
-                                }
-                                else {
-                                    ignored = true;
+                return;
+            }
+            else if (msg instanceof GridTcpDiscoveryAuthFailedMessage) {
+                processJoinResult(ses, msg, AUTH_FAILED, "Auth failed");
 
-                                    state = spiState;
-                                }
-                            }
+                return;
+            }
+            else if (msg instanceof GridTcpDiscoveryCheckFailedMessage) {
+                processJoinResult(ses, msg, CHECK_FAILED, "Check failed");
 
-                            if (ignored && log.isDebugEnabled())
-                                log.debug("Check failed message has been ignored [msg=" + msg +
-                                    ", spiState=" + state + ']');
+                return;
+            }
+            else if (msg instanceof GridTcpDiscoveryLoopbackProblemMessage) {
+                processJoinResult(ses, msg, LOOPBACK_PROBLEM, "Loopback problem");
 
-                            continue;
-                        }
-                        else if (msg instanceof GridTcpDiscoveryLoopbackProblemMessage) {
-                            // Send receipt back.
-                            writeToSocket(sock, RES_OK);
+                return;
+            }
 
-                            boolean ignored = false;
+            msgWorker.addMessage(msg);
 
-                            GridTcpDiscoverySpiState state = null;
+            // Send receipt back.
+            sendReceipt(ses, RES_OK, false);
+        }
 
-                            synchronized (mux) {
-                                if (spiState == CONNECTING) {
-                                    joinRes.set(msg);
+        /**
+         * @param ses Session.
+         * @param state Session state.
+         * @param data Handshake request bytes.
+         */
+        private void processHandshake(GridNioSession ses, NioSessionState state, ByteBuffer data) {
+            try {
+                GridTcpDiscoveryHandshakeRequest req = marsh.unmarshal(data, U.gridClassLoader());
 
-                                    spiState = LOOPBACK_PROBLEM;
+                state.nodeId = req.creatorNodeId();
 
-                                    mux.notifyAll();
-                                }
-                                else {
-                                    ignored = true;
+                stats.onServerSocketInitialized(U.currentTimeMillis() - ses.createTime());
 
-                                    state = spiState;
-                                }
-                            }
+                GridNioFuture<?> fut = ses.send(
+                    marsh.marshal(new GridTcpDiscoveryHandshakeResponse(locNodeId, locNode.internalOrder())));
 
-                            if (ignored && log.isDebugEnabled())
-                                log.debug("Loopback problem message has been ignored [msg=" + msg +
-                                    ", spiState=" + state + ']');
+                // It can happen if a remote node is stopped and it has a loopback address in the list of addresses,
+                // the local node sends a handshake request message on the loopback address, so we get here.
+                if (locNodeId.equals(state.nodeId)) {
+                    if (log.isDebugEnabled())
+                        log.debug("Handshake request from local node: " + req);
 
-                            continue;
-                        }
+                    closeOnSent(ses, fut);
 
-                        msgWorker.addMessage(msg);
+                    return;
+                }
 
-                        // Send receipt back.
-                        writeToSocket(sock, RES_OK);
-                    }
-                    catch (GridException e) {
-                        if (log.isDebugEnabled())
-                            U.error(log, "Caught exception on message read [sock=" + sock +
-                                ", locNodeId=" + locNodeId + ", rmtNodeId=" + nodeId + ']', e);
+                if (log.isDebugEnabled())
+                    log.debug("Initialized connection with remote node: " + state.nodeId);
+            }
+            catch (GridException e) {
+                if (log.isDebugEnabled())
+                    U.error(log, "Caught exception on handshake [err=" + e + ", ses=" + ses + ']', e);
 
-                        if (isInterrupted() || sock.isClosed())
-                            return;
+                // Always report marshalling problems.
+                if (e.hasCause(ObjectStreamException.class) || !e.hasCause(IOException.class))
+                    LT.error(log, e, "Failed to initialize connection [ses=" + ses + ']');
 
-                        // Always report marshalling errors.
-                        boolean err = e.hasCause(ObjectStreamException.class) ||
-                            (nodeAlive(nodeId) && spiStateCopy() == CONNECTED && !X.hasCause(e, IOException.class));
+                ses.close();
+            }
+        }
 
-                        if (err)
-                            LT.error(log, e, "Failed to read message [sock=" + sock + ", locNodeId=" + locNodeId +
-                                ", rmtNodeId=" + nodeId + ']');
+        /**
+         * Processes message with join result for local node.
+         *
+         * @param ses Session.
+         * @param msg Message.
+         * @param newState SPI state to set if local node is joining.
+         * @param desc Message description for logging.
+         */
+        private void processJoinResult(GridNioSession ses, GridTcpDiscoveryAbstractMessage msg,
+            GridTcpDiscoverySpiState newState, String desc) {
+            // Send receipt back.
+            sendReceipt(ses, RES_OK, false);
 
-                        return;
-                    }
-                    catch (IOException e) {
-                        if (log.isDebugEnabled())
-                            U.error(log, "Caught exception on message read [sock=" + sock + ", locNodeId=" + locNodeId +
-                                ", rmtNodeId=" + nodeId + ']', e);
+            boolean ignored = false;
 
-                        if (isInterrupted() || sock.isClosed())
-                            return;
+            GridTcpDiscoverySpiState state = null;
 
-                        // Always report marshalling errors (although it is strange here).
-                        boolean err = X.hasCause(e, ObjectStreamException.class) ||
-                            (nodeAlive(nodeId) && spiStateCopy() == CONNECTED);
+            synchronized (mux) {
+                if (spiState == CONNECTING) {
+                    joinRes.set(msg);
 
-                        if (err)
-                            LT.error(log, e, "Failed to send receipt on message [sock=" + sock +
-                                ", locNodeId=" + locNodeId + ", rmtNodeId=" + nodeId + ']');
+                    spiState = newState;
 
-                        return;
-                    }
+                    mux.notifyAll();
                 }
-            }
-            finally {
-                U.closeQuiet(sock);
-            }
-        }
-
-        /**
-         * @param nodeId Node ID.
-         * @return {@code True} if node is in the ring and is not being removed from.
-         */
-        private boolean nodeAlive(UUID nodeId) {
-            // Is node alive or about to be removed from the ring?
-            GridTcpDiscoveryNode node = ring.node(nodeId);
-
-            boolean nodeAlive = node != null && node.visible();
+                else {
+                    ignored = true;
 
-            if (nodeAlive) {
-                synchronized (mux) {
-                    nodeAlive = !F.transform(failedNodes, F.node2id()).contains(nodeId) &&
-                        !F.transform(leavingNodes, F.node2id()).contains(nodeId);
+                    state = spiState;
                 }
             }
 
-            return nodeAlive;
+            if (ignored && log.isDebugEnabled())
+                log.debug(desc + " message has been ignored [msg=" + msg + ", spiState=" + state + ']');
         }
 
         /**
+         * @param ses Session.
          * @param msg Join request message.
-         * @throws IOException If IO failed.
          */
         @SuppressWarnings({"IfMayBeConditional"})
-        private void processJoinRequestMessage(GridTcpDiscoveryJoinRequestMessage msg) throws IOException {
+        private void processJoinRequestMessage(GridNioSession ses, GridTcpDiscoveryJoinRequestMessage msg) {
             assert msg != null;
             assert !msg.responded();
 
             GridTcpDiscoverySpiState state = spiStateCopy();
 
+            // Direct join request - connection should be closed after handling.
             if (state == CONNECTED) {
-                // Direct join request - socket should be closed after handling.
-                try {
-                    writeToSocket(sock, RES_OK);
+                sendReceipt(ses, RES_OK, true);
 
-                    if (log.isDebugEnabled())
-                        log.debug("Responded to join request message [msg=" + msg + ", res=" + RES_OK + ']');
+                if (log.isDebugEnabled())
+                    log.debug("Responded to join request message [msg=" + msg + ", res=" + RES_OK + ']');
 
-                    msg.responded(true);
+                msg.responded(true);
 
-                    msgWorker.addMessage(msg);
-                }
-                finally {
-                    U.closeQuiet(sock);
-                }
+                msgWorker.addMessage(msg);
             }
             else {
-                // Direct join request - socket should be closed after handling.
-                try {
-                    stats.onMessageProcessingStarted(msg);
+                stats.onMessageProcessingStarted(msg);
 
-                    Integer res;
+                Integer res;
 
-                    SocketAddress rmtAddr = sock.getRemoteSocketAddress();
+                SocketAddress rmtAddr = ses.remoteAddress();
 
-                    if (state == CONNECTING) {
-                        if (noResAddrs.contains(rmtAddr) || locNodeId.compareTo(msg.creatorNodeId()) < 0)
-                            // Remote node node has not responded to join request or loses UUID race.
-                            res = RES_WAIT;
-                        else
-                            // Remote node responded to join request and wins UUID race.
-                            res = RES_CONTINUE_JOIN;
-                    }
+                if (state == CONNECTING) {
+                    if (noResAddrs.contains(rmtAddr) || locNodeId.compareTo(msg.creatorNodeId()) < 0)
+                        // Remote node node has not responded to join request or loses UUID race.
+                        res = RES_WAIT;
                     else
-                        // Local node is stopping. Remote node should try next one.
+                        // Remote node responded to join request and wins UUID race.
                         res = RES_CONTINUE_JOIN;
+                }
+                else
+                    // Local node is stopping. Remote node should try next one.
+                    res = RES_CONTINUE_JOIN;
 
-                    writeToSocket(sock, res);
+                sendReceipt(ses, res, true);
 
-                    if (log.isDebugEnabled())
-                        log.debug("Responded to join request message [msg=" + msg + ", res=" + res + ']');
+                if (log.isDebugEnabled())
+                    log.debug("Responded to join request message [msg=" + msg + ", res=" + res + ']');
 
-                    fromAddrs.addAll(msg.node().socketAddresses());
+                fromAddrs.addAll(msg.node().socketAddresses());
 
-                    stats.onMessageProcessingFinished(msg);
-                }
-                finally {
-                    U.closeQuiet(sock);
-                }
+                stats.onMessageProcessingFinished(msg);
             }
         }
 
-        /** {@inheritDoc} */
-        @Override public void interrupt() {
-            super.interrupt();
+        /**
+         * Sends one-byte response.
+         *
+         * @param ses Session.
+         * @param res Response.
+         * @param close Whether to close session after response is sent.
+         */
+        private void sendReceipt(GridNioSession ses, int res, boolean close) {
+            GridNioFuture<?> fut = ses.send(new byte[] {(byte)res});
 
-            U.closeQuiet(sock);
+            if (close)
+                closeOnSent(ses, fut);
         }
 
-        /** {@inheritDoc} */
-        @Override protected void cleanup() {
-            super.cleanup();
+        /**
+         * @param ses Session.
+         * @param fut Send future.
+         */
+        private void closeOnSent(final GridNioSession ses, GridNioFuture<?> fut) {
+            fut.listenAsync(new CI1<GridNioFuture<?>>() {
+                @Override public void apply(GridNioFuture<?> fut) {
+                    ses.close();
+                }
+            });
+        }
 
-            synchronized (mux) {
-                readers.remove(this);
+        /**
+         * @param nodeId Node ID.
+         * @return {@code True} if node is in the ring and is not being removed from.
+         */
+        private boolean nodeAlive(UUID nodeId) {
+            // Is node alive or about to be removed from the ring?
+            GridTcpDiscoveryNode node = ring.node(nodeId);
+
+            boolean nodeAlive = node != null && node.visible();
+
+            if (nodeAlive) {
+                synchronized (mux) {
+                    nodeAlive = !F.transform(failedNodes, F.node2id()).contains(nodeId) &&
+                        !F.transform(leavingNodes, F.node2id()).contains(nodeId);
+                }
             }
 
-            stats.onSocketReaderRemoved();
+            return nodeAlive;
         }
     }
 
@@ -199,6 +199,38 @@ public interface GridTcpDiscoverySpiMBean extends GridSpiManagementMBean {
     @GridMBeanDescription("Max message processing time.")
     public long getMaxMessageProcessingTime();
 
+    /**
+     * Gets average time it takes for heartbeat to make full ring pass. Measured on coordinator.
+     *
+     * @return Average heartbeat ring pass time in milliseconds.
+     */
+    @GridMBeanDescription("Avg heartbeat ring pass time.")
+    public long getAvgHeartbeatRingTime();
+
+    /**
+     * Gets max time it takes for heartbeat to make full ring pass. Measured on coordinator.
+     *
+     * @return Max heartbeat ring pass time in milliseconds.
+     */
+    @GridMBeanDescription("Max heartbeat ring pass time.")
+    public long getMaxHeartbeatRingTime();
+
+    /**
+     * Gets average size of node metrics in heartbeats sent by this node.
+     *
+     * @return Average heartbeat metrics size in bytes.
+     */
+    @GridMBeanDescription("Avg heartbeat metrics size.")
+    public long getAvgHeartbeatMetricsSize();
+
+    /**
+     * Gets max size of node metrics in heartbeats sent by this node.
+     *
+     * @return Max heartbeat metrics size in bytes.
+     */
+    @GridMBeanDescription("Max heartbeat metrics size.")
+    public int getMaxHeartbeatMetricsSize();
+
     /**
      * Gets total received messages count.
      *
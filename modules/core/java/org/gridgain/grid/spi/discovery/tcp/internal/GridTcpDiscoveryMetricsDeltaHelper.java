@@ -0,0 +1,189 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.spi.discovery.tcp.internal;
+
+import org.gridgain.grid.spi.discovery.*;
+import org.gridgain.grid.util.typedef.internal.*;
+import org.jetbrains.annotations.*;
+
+/**
+ * Helper class to encode node metrics carried by heartbeat messages.
+ * <p>
+ * Metrics serialized with {@link GridDiscoveryMetricsHelper} are sent either as
+ * keyframe, which contains all metrics, or as delta against previously sent keyframe
+ * of the same version. Delta consists of bit mask of changed 4-byte words of serialized
+ * metrics followed by new values of these words only, so unchanged metrics take one bit.
+ * <p>
+ * Frame layout is: frame type (1 byte), keyframe version (8 bytes), then either full
+ * serialized metrics (keyframe) or mask and changed words (delta).
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+public final class GridTcpDiscoveryMetricsDeltaHelper {
+    /** Keyframe type. */
+    private static final byte KEYFRAME = 0;
+
+    /** Delta type. */
+    private static final byte DELTA = 1;
+
+    /** Header size. */
+    private static final int HDR_SIZE = 1/*type*/ + 8/*version*/;
+
+    /** Number of 4-byte words in serialized metrics. */
+    private static final int WORDS = GridDiscoveryMetricsHelper.METRICS_SIZE / 4;
+
+    /** Size of changed words mask. */
+    private static final int MASK_SIZE = (WORDS + 7) / 8;
+
+    /**
+     * Enforces singleton.
+     */
+    private GridTcpDiscoveryMetricsDeltaHelper() {
+        // No-op.
+    }
+
+    /**
+     * Creates keyframe.
+     *
+     * @param ver Keyframe version.
+     * @param metrics Serialized metrics.
+     * @return Keyframe.
+     */
+    public static byte[] keyframe(long ver, byte[] metrics) {
+        assert metrics.length == GridDiscoveryMetricsHelper.METRICS_SIZE;
+
+        byte[] frame = new byte[HDR_SIZE + metrics.length];
+
+        frame[0] = KEYFRAME;
+
+        U.longToBytes(ver, frame, 1);
+
+        System.arraycopy(metrics, 0, frame, HDR_SIZE, metrics.length);
+
+        return frame;
+    }
+
+    /**
+     * Creates delta of serialized metrics against keyframe.
+     *
+     * @param keyframe Keyframe.
+     * @param metrics Serialized metrics.
+     * @return Delta or {@code null} if delta is not smaller than keyframe.
+     */
+    @Nullable public static byte[] delta(byte[] keyframe, byte[] metrics) {
+        assert isKeyframe(keyframe);
+        assert metrics.length == GridDiscoveryMetricsHelper.METRICS_SIZE;
+        assert metrics.length % 4 == 0;
+
+        byte[] mask = new byte[MASK_SIZE];
+
+        int changed = 0;
+
+        for (int i = 0; i < WORDS; i++) {
+            if (U.bytesToInt(keyframe, HDR_SIZE + i * 4) != U.bytesToInt(metrics, i * 4)) {
+                mask[i >>> 3] |= 1 << (i & 7);
+
+                changed++;
+            }
+        }
+
+        int size = HDR_SIZE + MASK_SIZE + changed * 4;
+
+        if (size >= keyframe.length)
+            return null;
+
+        byte[] frame = new byte[size];
+
+        frame[0] = DELTA;
+
+        System.arraycopy(keyframe, 1, frame, 1, 8);
+        System.arraycopy(mask, 0, frame, HDR_SIZE, MASK_SIZE);
+
+        int off = HDR_SIZE + MASK_SIZE;
+
+        for (int i = 0; i < WORDS; i++) {
+            if ((mask[i >>> 3] & (1 << (i & 7))) != 0) {
+                System.arraycopy(metrics, i * 4, frame, off, 4);
+
+                off += 4;
+            }
+        }
+
+        assert off == size;
+
+        return frame;
+    }
+
+    /**
+     * Restores serialized metrics from frame.
+     *
+     * @param keyframe Last keyframe received from the same node, if any.
+     * @param frame Keyframe or delta.
+     * @return Serialized metrics or {@code null} if frame is delta against
+     *      keyframe other than provided one.
+     */
+    @Nullable public static byte[] metrics(@Nullable byte[] keyframe, byte[] frame) {
+        byte[] metrics = new byte[GridDiscoveryMetricsHelper.METRICS_SIZE];
+
+        if (isKeyframe(frame)) {
+            System.arraycopy(frame, HDR_SIZE, metrics, 0, metrics.length);
+
+            return metrics;
+        }
+
+        if (keyframe == null || version(keyframe) != version(frame))
+            return null;
+
+        System.arraycopy(keyframe, HDR_SIZE, metrics, 0, metrics.length);
+
+        int off = HDR_SIZE + MASK_SIZE;
+
+        for (int i = 0; i < WORDS; i++) {
+            if ((frame[HDR_SIZE + (i >>> 3)] & (1 << (i & 7))) != 0) {
+                System.arraycopy(frame, off, metrics, i * 4, 4);
+
+                off += 4;
+            }
+        }
+
+        return metrics;
+    }
+
+    /**
+     * @param frame Frame.
+     * @return {@code True} if frame is keyframe.
+     */
+    public static boolean isKeyframe(byte[] frame) {
+        return frame[0] == KEYFRAME;
+    }
+
+    /**
+     * @param frame Frame.
+     * @return Version of keyframe this frame is or refers to.
+     */
+    public static long version(byte[] frame) {
+        return U.bytesToLong(frame, 1);
+    }
+}
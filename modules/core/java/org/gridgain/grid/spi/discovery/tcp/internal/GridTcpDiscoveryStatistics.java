@@ -113,6 +113,27 @@ public class GridTcpDiscoveryStatistics {
     /** Class name of ring message that required the biggest time for full ring traverse. */
     private String maxRingTimeMsgCls;
 
+    /** Heartbeats sent timestamps. */
+    private final Map<GridUuid, Long> hbSndTs = new GridBoundedLinkedHashMap<>(16);
+
+    /** Number of heartbeats that made full ring pass. */
+    private int hbRingPasses;
+
+    /** Average time it takes for heartbeat to pass the full ring. */
+    private long avgHbRingTime;
+
+    /** Max time it takes for heartbeat to pass the full ring. */
+    private long maxHbRingTime;
+
+    /** Number of heartbeats sent to next node. */
+    private int hbSent;
+
+    /** Average size of metrics in heartbeats sent to next node. */
+    private long avgHbMetricsSize;
+
+    /** Max size of metrics in heartbeats sent to next node. */
+    private int maxHbMetricsSize;
+
     /** Average message processing time. */
     private long avgMsgProcTime;
 
@@ -392,6 +413,91 @@ public class GridTcpDiscoveryStatistics {
         return maxRingTimeMsgCls;
     }
 
+    /**
+     * Called by coordinator when heartbeat is created.
+     *
+     * @param msg Heartbeat message.
+     */
+    public synchronized void onHeartbeatCreated(GridTcpDiscoveryHeartbeatMessage msg) {
+        assert msg != null;
+
+        hbSndTs.put(msg.id(), U.currentTimeMillis());
+    }
+
+    /**
+     * Called by coordinator when heartbeat makes full ring pass.
+     *
+     * @param msg Heartbeat message.
+     */
+    public synchronized void onHeartbeatRingPassed(GridTcpDiscoveryHeartbeatMessage msg) {
+        assert msg != null;
+
+        Long sentTs = hbSndTs.remove(msg.id());
+
+        if (sentTs != null) {
+            long duration = U.currentTimeMillis() - sentTs;
+
+            hbRingPasses++;
+
+            if (maxHbRingTime < duration)
+                maxHbRingTime = duration;
+
+            avgHbRingTime = (avgHbRingTime * (hbRingPasses - 1) + duration) / hbRingPasses;
+        }
+    }
+
+    /**
+     * Called when heartbeat is sent to next node.
+     *
+     * @param metricsSize Size of metrics carried by heartbeat.
+     */
+    public synchronized void onHeartbeatSent(int metricsSize) {
+        assert metricsSize >= 0;
+
+        hbSent++;
+
+        if (maxHbMetricsSize < metricsSize)
+            maxHbMetricsSize = metricsSize;
+
+        avgHbMetricsSize = (avgHbMetricsSize * (hbSent - 1) + metricsSize) / hbSent;
+    }
+
+    /**
+     * Gets average time for heartbeat to make full ring pass.
+     *
+     * @return Average heartbeat full pass time.
+     */
+    public synchronized long avgHeartbeatRingTime() {
+        return avgHbRingTime;
+    }
+
+    /**
+     * Gets max time for heartbeat to make full ring pass.
+     *
+     * @return Max heartbeat full pass time.
+     */
+    public synchronized long maxHeartbeatRingTime() {
+        return maxHbRingTime;
+    }
+
+    /**
+     * Gets average size of metrics in heartbeats sent to next node.
+     *
+     * @return Average heartbeat metrics size in bytes.
+     */
+    public synchronized long avgHeartbeatMetricsSize() {
+        return avgHbMetricsSize;
+    }
+
+    /**
+     * Gets max size of metrics in heartbeats sent to next node.
+     *
+     * @return Max heartbeat metrics size in bytes.
+     */
+    public synchronized int maxHeartbeatMetricsSize() {
+        return maxHbMetricsSize;
+    }
+
     /**
      * Gets class name of the message took max time to process.
      *
@@ -624,14 +730,21 @@ public class GridTcpDiscoveryStatistics {
         avgMsgsSndTimes.clear();
         avgRingMsgTime = 0;
         avgSrvSockInitTime = 0;
+        avgHbMetricsSize = 0;
+        avgHbRingTime = 0;
         clientSockCreatedCnt = 0;
         crdSinceTs.set(0);
         failedNodesCnt = 0;
+        hbRingPasses = 0;
+        hbSent = 0;
+        hbSndTs.clear();
         joinedNodesCnt = 0;
         joinFinishedTs = 0;
         joinStartedTs = 0;
         leftNodesCnt = 0;
         maxClientSockInitTime = 0;
+        maxHbMetricsSize = 0;
+        maxHbRingTime = 0;
         maxMsgProcTime = 0;
         maxMsgQueueTime = 0;
         maxMsgsSndTimes.clear();
@@ -23,9 +23,6 @@
 
 package org.gridgain.grid.spi.discovery.tcp.messages;
 
-import org.gridgain.grid.*;
-import org.gridgain.grid.spi.discovery.*;
-import org.gridgain.grid.util.typedef.*;
 import org.gridgain.grid.util.typedef.internal.*;
 import org.gridgain.grid.util.tostring.*;
 
@@ -46,6 +43,10 @@ import java.util.*;
  * When message reaches coordinator second time it is discarded (it finishes the
  * second pass).
  * <p>
+ * Node sends its metrics as a keyframe until the keyframe makes two passes. After
+ * that node sends only metrics changed since this keyframe, so heartbeat size does not
+ * grow with the number of metrics which stay the same.
+ * <p>
  * If topology uses metrics store then message makes only one pass and metrics map
  * is always empty. Nodes exchange their metrics using metrics store.
  *
@@ -79,17 +80,13 @@ public class GridTcpDiscoveryHeartbeatMessage extends GridTcpDiscoveryAbstractMe
      * Sets metrics for particular node.
      *
      * @param nodeId Node ID.
-     * @param metrics Node metrics.
+     * @param metrics Node metrics keyframe or delta (see {@code GridTcpDiscoveryMetricsDeltaHelper}).
      */
-    public void setMetrics(UUID nodeId, GridNodeMetrics metrics) {
+    public void setMetrics(UUID nodeId, byte[] metrics) {
         assert nodeId != null;
         assert metrics != null;
 
-        byte[] buf = new byte[GridDiscoveryMetricsHelper.METRICS_SIZE];
-
-        GridDiscoveryMetricsHelper.serialize(buf, 0, metrics);
-
-        this.metrics.put(nodeId, buf);
+        this.metrics.put(nodeId, metrics);
     }
 
     /**
@@ -106,14 +103,24 @@ public class GridTcpDiscoveryHeartbeatMessage extends GridTcpDiscoveryAbstractMe
     /**
      * Gets metrics map.
      *
-     * @return Metrics map.
+     * @return Metrics map, values are metrics keyframes or deltas.
      */
-    public Map<UUID, GridNodeMetrics> metrics() {
-        return F.viewReadOnly(metrics, new C1<byte[], GridNodeMetrics>() {
-            @Override public GridNodeMetrics apply(byte[] metricsBytes) {
-                return GridDiscoveryMetricsHelper.deserialize(metricsBytes, 0);
-            }
-        });
+    public Map<UUID, byte[]> metrics() {
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    /**
+     * Gets size of metrics carried by this message.
+     *
+     * @return Metrics size in bytes.
+     */
+    public int metricsSize() {
+        int size = 4;
+
+        for (byte[] arr : metrics.values())
+            size += 17/*node ID*/ + 4/*length*/ + arr.length;
+
+        return size;
     }
 
     /**
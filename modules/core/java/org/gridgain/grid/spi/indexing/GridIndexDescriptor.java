@@ -57,6 +57,14 @@ public interface GridIndexDescriptor {
      */
     public boolean unique();
 
+    /**
+     * Specifies whether this is a hash index. Hash index supports only lookups of rows
+     * with all indexed fields equal to given values.
+     *
+     * @return {@code True} if index is hash index, {@code false} if it is sorted index.
+     */
+    public boolean hash();
+
     /**
      * Specified if this is SQL or Text index.
      *
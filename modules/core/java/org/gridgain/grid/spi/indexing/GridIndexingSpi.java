@@ -106,6 +106,22 @@ public interface GridIndexingSpi extends GridSpi {
     public <K, V> GridSpiCloseableIterator<GridIndexingKeyValueRow<K, V>> queryText(@Nullable String spaceName, String qry,
         GridIndexingTypeDescriptor type, GridIndexingQueryFilter<K, V>... filters) throws GridSpiException;
 
+    /**
+     * Scans range of named index directly, without SQL parsing and planning. Rows are returned lazily
+     * in index order.
+     *
+     * @param spaceName Space name.
+     * @param idxName Index name.
+     * @param range Index range or {@code null} to scan whole index.
+     * @param type Query return type.
+     * @param filters Space name and key filter.
+     * @return Queried rows.
+     * @throws GridSpiException If failed.
+     */
+    public <K, V> GridSpiCloseableIterator<GridIndexingKeyValueRow<K, V>> queryIndex(@Nullable String spaceName,
+        String idxName, @Nullable GridCacheQueryIndexRange range, GridIndexingTypeDescriptor type,
+        GridIndexingQueryFilter<K, V>... filters) throws GridSpiException;
+
     /**
      * Gets size of index for given type or -1 if it is a unknown type.
      *
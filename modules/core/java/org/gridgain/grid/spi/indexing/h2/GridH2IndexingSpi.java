@@ -33,6 +33,7 @@ import org.gridgain.grid.spi.*;
 import org.gridgain.grid.spi.indexing.*;
 import org.gridgain.grid.spi.indexing.h2.opt.*;
 import org.gridgain.grid.spi.swapspace.*;
+import org.gridgain.grid.thread.*;
 import org.gridgain.grid.util.*;
 import org.gridgain.grid.util.offheap.unsafe.*;
 import org.gridgain.grid.util.typedef.*;
@@ -56,6 +57,7 @@ import java.sql.*;
 import java.text.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import static org.h2.result.SortOrder.*;
 
@@ -88,6 +90,8 @@ import static org.h2.result.SortOrder.*;
  * (see {@link #setDefaultIndexPrimitiveValue(boolean)})</li>
  * <li>H2 Options as string  (see {@link #setIndexH2Options(String)})</li>
  * <li>Max operation memory (see {@link #setIndexMaxOperationMemory(int)})</li>
+ * <li>Max number of query result rows kept in memory (see {@link #setQueryMaxMemoryRows(int)})</li>
+ * <li>Full text index refresh frequency (see {@link #setFullTextIndexRefreshFrequency(long)})</li>
  * <li>Database user name (see {@link #setIndexUsername(String)})</li>
  * <li>Database user password(see {@link #setIndexPassword(String)})</li>
  * <li>Off-heap memory (see {@link #setMaxOffHeapMemory(long)})</li>
@@ -163,6 +167,12 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
     /** Default Index write lock wait time in milliseconds. */
     private static final long DFLT_IDX_WRITE_LOCK_WAIT_TIME = 100;
 
+    /** Default maximum number of threads used to rebuild single index. */
+    public static final int DFLT_IDX_REBUILD_THREAD_CNT = Runtime.getRuntime().availableProcessors();
+
+    /** Default minimum time in milliseconds between full text index reader reopens. */
+    public static final long DFLT_FULL_TEXT_REFRESH_FREQ = 0;
+
     /** Default DB name. */
     private static final String DFLT_DB_NAME = "gridgain_indexes";
 
@@ -171,8 +181,10 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
         ";DEFAULT_LOCK_TIMEOUT=10000";
 
     /** Options for optimized mode to work properly. */
-    private static final String OPTIMIZED_DB_OPTIONS = ";OPTIMIZE_REUSE_RESULTS=0;QUERY_CACHE_SIZE=0;" +
-        "RECOMPILE_ALWAYS=1";
+    private static final String OPTIMIZED_DB_OPTIONS = ";OPTIMIZE_REUSE_RESULTS=0;QUERY_CACHE_SIZE=0";
+
+    /** Options to recompile statements on each execution, used if statements are not cached. */
+    private static final String RECOMPILE_DB_OPTIONS = ";RECOMPILE_ALWAYS=1";
 
     /** Field name for key. */
     public static final String KEY_FIELD_NAME = "_key";
@@ -215,6 +227,15 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
     /** */
     private int idxMaxOperationMemory;
 
+    /** */
+    private int qryMaxMemoryRows;
+
+    /** */
+    private long fullTextRefreshFreq = DFLT_FULL_TEXT_REFRESH_FREQ;
+
+    /** Number of open query result iterators. */
+    private final AtomicInteger openCursors = new AtomicInteger();
+
     /** */
     private String idxH2Options;
 
@@ -242,6 +263,24 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
     /** */
     private boolean longQryExplain;
 
+    /** */
+    private int stmtCacheSize;
+
+    /** */
+    private int idxRebuildThreadCnt = DFLT_IDX_REBUILD_THREAD_CNT;
+
+    /** Grid name. */
+    private String gridName;
+
+    /** Prepared statements cache version, incremented on DDL to invalidate cached statements. */
+    private final AtomicLong stmtCacheVer = new AtomicLong();
+
+    /** */
+    private final AtomicLong stmtCacheHits = new AtomicLong();
+
+    /** */
+    private final AtomicLong stmtCacheMisses = new AtomicLong();
+
     /** Cache for deserialized offheap rows. */
     private CacheLongKeyLIRS<GridH2KeyValueRowOffheap> rowCache = CacheLongKeyLIRS.newInstance(
         32 * 1024, 1, 128, 256);
@@ -318,7 +357,8 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
 
                 conns.add(c);
 
-                return new ConnectionWrapper(c);
+                return new ConnectionWrapper(c, stmtCacheSize > 0 ?
+                    new GridH2StatementCache(stmtCacheSize, stmtCacheVer) : null);
             }
             catch (SQLException e) {
                 U.close(c, log);
@@ -714,6 +754,8 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
             U.close(stmt, log);
         }
 
+        invalidateStatements();
+
         tbl.tbl.close();
 
         if (tbl.luceneIdx != null)
@@ -738,6 +780,84 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
         return new GridEmptyCloseableIterator<>();
     }
 
+    /** {@inheritDoc} */
+    @SuppressWarnings("unchecked")
+    @Override public <K, V> GridSpiCloseableIterator<GridIndexingKeyValueRow<K, V>> queryIndex(
+        @Nullable String spaceName, String idxName, @Nullable GridCacheQueryIndexRange range,
+        GridIndexingTypeDescriptor type, GridIndexingQueryFilter<K, V>... filters) throws GridSpiException {
+        if (offheap != null)
+            throw new GridSpiException("Index queries are not supported when off-heap memory is used");
+
+        TableDescriptor tbl = tableDescriptor(spaceName, type);
+
+        if (tbl == null)
+            return new GridEmptyCloseableIterator<>();
+
+        GridH2Index idx = null;
+
+        for (Index i : tbl.tbl.getIndexes()) {
+            if (i instanceof GridH2Index && i.getName().equalsIgnoreCase(idxName)) {
+                idx = (GridH2Index)i;
+
+                break;
+            }
+        }
+
+        if (idx == null)
+            throw new GridSpiException("Failed to find index [type=" + type.name() + ", idx=" + idxName + ']');
+
+        setFilters(filters);
+
+        try {
+            Iterator<GridH2Row> rows = range == null ? idx.findRange(null, true, null, true, false) :
+                idx.findRange(searchRow(tbl.tbl, idx, range.lower()), range.lowerInclusive(),
+                    searchRow(tbl.tbl, idx, range.upper()), range.upperInclusive(), range.descending());
+
+            return new IndexIterator<>(rows, range == null ? 0 : range.limit());
+        }
+        catch (DbException e) {
+            throw new GridSpiException("Failed to scan index [type=" + type.name() + ", idx=" + idxName +
+                ", range=" + range + ']', e);
+        }
+        finally {
+            setFilters(null);
+        }
+    }
+
+    /**
+     * Creates search row for given values of first index columns.
+     *
+     * @param tbl Table.
+     * @param idx Index.
+     * @param vals Values of first index columns.
+     * @return Search row or {@code null} if values are not given.
+     * @throws GridSpiException If there are more values than index columns.
+     */
+    @Nullable private SearchRow searchRow(GridH2Table tbl, GridH2Index idx, @Nullable Object[] vals)
+        throws GridSpiException {
+        if (vals == null)
+            return null;
+
+        IndexColumn[] cols = idx.getIndexColumns();
+
+        if (vals.length > cols.length)
+            throw new GridSpiException("Too many values in index range bound [idx=" + idx.getName() +
+                ", cols=" + cols.length + ", vals=" + vals.length + ']');
+
+        SearchRow row = tbl.getTemplateRow();
+
+        for (int i = 0; i < vals.length; i++) {
+            Column col = cols[i].column;
+
+            Value v = vals[i] == null ? ValueNull.INSTANCE :
+                DataType.convertToValue(null, vals[i], Value.UNKNOWN).convertTo(col.getType());
+
+            row.setValue(col.getColumnId(), v);
+        }
+
+        return row;
+    }
+
     /** {@inheritDoc} */
     @Override public void unregisterType(@Nullable String spaceName, GridIndexingTypeDescriptor type)
         throws GridSpiException {
@@ -786,7 +906,7 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
                 throw new GridSpiException("Failed to get meta data.", e);
             }
 
-            return new GridIndexingFieldsResultAdapter(meta, new FieldsIterator(rs, res.get1()));
+            return new GridIndexingFieldsResultAdapter(meta, new FieldsIterator(rs, res.get1(), statementCache()));
         }
         catch (SQLException e) {
             onSqlException();
@@ -806,16 +926,17 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
      * @param conn Connection,.
      * @param sql Sql query.
      * @param params Parameters.
+     * @param cache Whether prepared statement can be taken from cache of current thread connection.
      * @return Result.
      * @throws SQLException If failed.
      * @throws GridSpiException If failed.
      */
     @Nullable private T2<PreparedStatement, ResultSet> executeSqlQuery(Connection conn, String sql,
-        @Nullable Collection<Object> params) throws SQLException, GridSpiException {
+        @Nullable Collection<Object> params, boolean cache) throws SQLException, GridSpiException {
         PreparedStatement stmt;
 
         try {
-            stmt = conn.prepareStatement(sql);
+            stmt = prepareStatement(conn, sql, cache);
         }
         catch (SQLException e) {
             if (e.getErrorCode() == ErrorCode.TABLE_OR_VIEW_NOT_FOUND_1)
@@ -824,9 +945,67 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
             throw new GridSpiException("Failed to parse query: " + sql, e);
         }
 
-        bindParameters(stmt, params);
+        try {
+            bindParameters(stmt, params);
+
+            return new T2<>(stmt, stmt.executeQuery());
+        }
+        catch (SQLException e) {
+            U.close(stmt, log);
+
+            throw e;
+        }
+    }
+
+    /**
+     * Prepares statement or takes it from statement cache of current thread connection.
+     * Cached statement must be returned by {@link GridH2StatementCache#release(Statement)}.
+     *
+     * @param conn Connection.
+     * @param sql Sql query.
+     * @param cache Whether statement cache should be used.
+     * @return Prepared statement.
+     * @throws SQLException If failed.
+     */
+    private PreparedStatement prepareStatement(Connection conn, String sql, boolean cache) throws SQLException {
+        ConnectionWrapper c = cache ? connCache.get() : null;
+
+        if (c == null || c.statementCache() == null || c.connection() != conn)
+            return conn.prepareStatement(sql);
+
+        GridH2StatementCache stmtCache = c.statementCache();
+
+        PreparedStatement stmt = stmtCache.acquire(c.schema(), sql);
+
+        if (stmt != null) {
+            stmtCacheHits.incrementAndGet();
+
+            return stmt;
+        }
+
+        stmtCacheMisses.incrementAndGet();
 
-        return new T2<>(stmt, stmt.executeQuery());
+        stmt = conn.prepareStatement(sql);
+
+        stmtCache.acquired(c.schema(), sql, stmt);
+
+        return stmt;
+    }
+
+    /**
+     * @return Statement cache of current thread connection or {@code null} if statements are not cached.
+     */
+    @Nullable private GridH2StatementCache statementCache() {
+        ConnectionWrapper c = connCache.get();
+
+        return c != null ? c.statementCache() : null;
+    }
+
+    /**
+     * Invalidates prepared statements cached by all connections.
+     */
+    private void invalidateStatements() {
+        stmtCacheVer.incrementAndGet();
     }
 
     /**
@@ -843,7 +1022,7 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
         @Nullable Collection<Object> params) throws SQLException, GridSpiException {
         long start = U.currentTimeMillis();
 
-        T2<PreparedStatement, ResultSet> res = executeSqlQuery(conn, sql, params);
+        T2<PreparedStatement, ResultSet> res = executeSqlQuery(conn, sql, params, true);
 
         long time = U.currentTimeMillis() - start;
 
@@ -853,18 +1032,24 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
             String longMsg = msg;
 
             if (longQryExplain) {
-                T2<PreparedStatement, ResultSet> t2 = executeSqlQuery(conn, "EXPLAIN " + sql, params);
+                T2<PreparedStatement, ResultSet> t2 = executeSqlQuery(conn, "EXPLAIN " + sql, params, false);
 
                 if (t2 == null)
                     longMsg = "Failed to explain plan because required table does not exist: " + sql;
                 else {
                     ResultSet planRs = t2.get2();
 
-                    planRs.next();
+                    try {
+                        planRs.next();
 
-                    // Add SQL explain result message into log.
-                    longMsg = "Query execution is too long [time=" + time + " ms, sql='" + sql + '\'' +
+                        // Add SQL explain result message into log.
+                        longMsg = "Query execution is too long [time=" + time + " ms, sql='" + sql + '\'' +
                             ", plan=" + U.nl() + planRs.getString(1) + U.nl() + ", parameters=" + params + "]";
+                    }
+                    finally {
+                        U.close(planRs, log);
+                        U.close(t2.get1(), log);
+                    }
                 }
             }
 
@@ -937,7 +1122,7 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
         try {
             T2<PreparedStatement, ResultSet> t = executeQuery(qry, params, tbl);
 
-            return t != null ? new KeyValIterator<K, V>(t.get2(), t.get1()) :
+            return t != null ? new KeyValIterator<K, V>(t.get2(), t.get1(), statementCache()) :
                 new GridEmptyCloseableIterator<GridIndexingKeyValueRow<K, V>>();
         }
         catch (SQLException e) {
@@ -1061,6 +1246,8 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
             createTable(schema, tbl, conn);
 
             schema.put(tbl.name(), tbl);
+
+            invalidateStatements();
         }
         catch (SQLException e) {
             onSqlException();
@@ -1253,7 +1440,7 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
             else {
                 SB sql = new SB();
 
-                sql.a("CREATE ").a(idxDesc.unique() ? "UNIQUE" : "");
+                sql.a("CREATE ").a(idxDesc.unique() ? "UNIQUE" : "").a(idxDesc.hash() ? " HASH" : "");
                 sql.a(" INDEX ").a(tbl.fullTableName()).a(cnt++);
                 sql.a(" ON ").a(tbl.fullTableName());
                 sql.a('(');
@@ -1359,7 +1546,20 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
         if (tbl == null)
             return;
 
-        tbl.tbl.rebuildIndexes();
+        int threads = idxRebuildThreadCnt;
+
+        ExecutorService exec = threads > 1 ?
+            new GridThreadPoolExecutor(gridName, threads, threads, 0, new LinkedBlockingQueue<Runnable>()) : null;
+
+        try {
+            tbl.tbl.rebuildIndexes(exec, threads);
+        }
+        finally {
+            if (exec != null)
+                U.shutdownNow(GridH2IndexingSpi.class, exec, log);
+        }
+
+        invalidateStatements();
     }
 
     /** {@inheritDoc} */
@@ -1371,8 +1571,12 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
         if (tbl == null)
             return -1;
 
+        T2<PreparedStatement, ResultSet> res = null;
+
         try {
-            ResultSet rs = executeSqlQueryWithTimer(conn, "SELECT COUNT(*) FROM " + tbl.fullTableName(), null).get2();
+            res = executeSqlQueryWithTimer(conn, "SELECT COUNT(*) FROM " + tbl.fullTableName(), null);
+
+            ResultSet rs = res.get2();
 
             rs.next();
 
@@ -1385,6 +1589,18 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
 
             throw new GridSpiException("Failed to get table size: " + tbl.fullTableName(), e);
         }
+        finally {
+            if (res != null) {
+                U.close(res.get2(), log);
+
+                GridH2StatementCache stmtCache = statementCache();
+
+                if (stmtCache != null)
+                    stmtCache.release(res.get1());
+                else
+                    U.close(res.get1(), log);
+            }
+        }
     }
 
     /** {@inheritDoc} */
@@ -1394,6 +1610,10 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
             log.debug("Starting cache query index...");
 
         assertParameter(idxWriteLockWaitTime > 0, "'idxWriteLockWaitTime' must be positive.");
+        assertParameter(idxRebuildThreadCnt > 0, "'idxRebuildThreadCnt' must be positive.");
+        assertParameter(fullTextRefreshFreq >= 0, "'fullTextRefreshFreq' must not be negative.");
+
+        this.gridName = gridName;
 
         startStopwatch();
 
@@ -1418,8 +1638,15 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
 
         opt.a(DFLT_DB_OPTIONS).a(OPTIMIZED_DB_OPTIONS);
 
+        // Cached statements are recompiled by H2 only if database schema is changed.
+        if (stmtCacheSize == 0)
+            opt.a(RECOMPILE_DB_OPTIONS);
+
         opt.a(";MAX_OPERATION_MEMORY=").a(getIndexMaxOperationMemory());
 
+        if (qryMaxMemoryRows > 0)
+            opt.a(";MAX_MEMORY_ROWS=").a(qryMaxMemoryRows);
+
         if (!F.isEmpty(getIndexH2Options())) {
             if (!getIndexH2Options().startsWith(";"))
                 opt.a(';');
@@ -1543,6 +1770,8 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
         schemas.clear();
         rowCache.clear();
 
+        invalidateStatements();
+
         if (log.isDebugEnabled())
             log.debug("Cache query index stopped [cache=" + getName() + "]");
     }
@@ -1640,6 +1869,82 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
         this.longQryExplain = longQryExplain;
     }
 
+    /**
+     * Sets maximum number of prepared statements cached by each connection of index database. Cached
+     * statements are reused for repeated queries with the same SQL, so query is not parsed and planned
+     * on each execution. Execution plans of cached statements are not recalculated when amount of data
+     * changes, but all cached statements are invalidated when types are registered or unregistered and
+     * when indexes are rebuilt.
+     * <p>
+     * If not provided, default value is {@code 0} which means that statements are not cached and
+     * each query is recompiled on execution.
+     *
+     * @param stmtCacheSize Maximum number of cached statements per connection.
+     */
+    @GridSpiConfiguration(optional = true)
+    public void setStatementCacheSize(int stmtCacheSize) {
+        A.ensure(stmtCacheSize >= 0, "stmtCacheSize >= 0");
+
+        this.stmtCacheSize = stmtCacheSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getStatementCacheSize() {
+        return stmtCacheSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getStatementCacheHits() {
+        return stmtCacheHits.get();
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getStatementCacheMisses() {
+        return stmtCacheMisses.get();
+    }
+
+    /**
+     * Sets maximum number of threads used to rebuild single index. Rows of index are split to ranges
+     * which are copied to the new index concurrently. Small indexes are always rebuilt in one thread.
+     * <p>
+     * If not provided, default value is {@link #DFLT_IDX_REBUILD_THREAD_CNT}.
+     *
+     * @param idxRebuildThreadCnt Index rebuild thread count.
+     */
+    @GridSpiConfiguration(optional = true)
+    public void setIndexRebuildThreadCount(int idxRebuildThreadCnt) {
+        this.idxRebuildThreadCnt = idxRebuildThreadCnt;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getIndexRebuildThreadCount() {
+        return idxRebuildThreadCnt;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getIndexRebuildRowsTotal() {
+        long total = 0;
+
+        for (ConcurrentMap<String, TableDescriptor> m : schemas.values()) {
+            for (TableDescriptor desc : m.values())
+                total += desc.tbl.rebuildRowsTotal();
+        }
+
+        return total;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getIndexRebuildRowsProcessed() {
+        long processed = 0;
+
+        for (ConcurrentMap<String, TableDescriptor> m : schemas.values()) {
+            for (TableDescriptor desc : m.values())
+                processed += desc.tbl.rebuildRowsProcessed();
+        }
+
+        return processed;
+    }
+
     /** {@inheritDoc} */
     @Override public boolean isIndexPrimitiveKey(@Nullable String spaceName) {
         GridH2IndexingSpaceConfiguration cfg = spaceCfgs.get(spaceName);
@@ -1689,6 +1994,52 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
         this.idxMaxOperationMemory = idxMaxOperationMemory;
     }
 
+    /** {@inheritDoc} */
+    @Override public int getQueryMaxMemoryRows() {
+        return qryMaxMemoryRows;
+    }
+
+    /**
+     * Sets maximum number of rows of query result kept in memory. Larger results are buffered in temporary
+     * files, so iterating over results of huge queries does not exhaust heap. Rows are read from these
+     * files lazily as next pages are requested.
+     * <p>
+     * If not provided, default value is {@code 0} which means that H2 default is used.
+     *
+     * @param qryMaxMemoryRows Maximum number of result rows kept in memory.
+     */
+    @GridSpiConfiguration(optional = true)
+    public void setQueryMaxMemoryRows(int qryMaxMemoryRows) {
+        A.ensure(qryMaxMemoryRows >= 0, "qryMaxMemoryRows >= 0");
+
+        this.qryMaxMemoryRows = qryMaxMemoryRows;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getOpenCursorCount() {
+        return openCursors.get();
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getFullTextIndexRefreshFrequency() {
+        return fullTextRefreshFreq;
+    }
+
+    /**
+     * Sets minimum time in milliseconds between reopens of full text index reader. Full text queries
+     * do not see updates made after last reopen, so larger value makes queries on frequently updated
+     * caches cheaper at the cost of staleness of results.
+     * <p>
+     * If not provided, default value is {@link #DFLT_FULL_TEXT_REFRESH_FREQ} which means that reader
+     * is reopened by every query following index update.
+     *
+     * @param fullTextRefreshFreq Refresh frequency in milliseconds.
+     */
+    @GridSpiConfiguration(optional = true)
+    public void setFullTextIndexRefreshFrequency(long fullTextRefreshFreq) {
+        this.fullTextRefreshFreq = fullTextRefreshFreq;
+    }
+
     /**
      * Gets H2 specific options as string.
      *
@@ -1884,11 +2235,23 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
         /** */
         private volatile String schema;
 
+        /** */
+        private final GridH2StatementCache stmtCache;
+
         /**
          * @param conn Connection to use.
+         * @param stmtCache Statement cache or {@code null} if statements are not cached.
          */
-        ConnectionWrapper(Connection conn) {
+        ConnectionWrapper(Connection conn, @Nullable GridH2StatementCache stmtCache) {
             this.conn = conn;
+            this.stmtCache = stmtCache;
+        }
+
+        /**
+         * @return Statement cache or {@code null} if statements are not cached.
+         */
+        @Nullable public GridH2StatementCache statementCache() {
+            return stmtCache;
         }
 
         /**
@@ -2170,7 +2533,7 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
 
             if (type().valueClass() == String.class) {
                 try {
-                    luceneIdx = new GridLuceneIndex(marshaller, offheap, spaceName, type, true);
+                    luceneIdx = new GridLuceneIndex(marshaller, offheap, spaceName, type, true, fullTextRefreshFreq);
                 }
                 catch (GridSpiException e1) {
                     throw new GridRuntimeException(e1);
@@ -2183,7 +2546,8 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
 
                 if (idx.text()) {
                     try {
-                        luceneIdx = new GridLuceneIndex(marshaller, offheap, spaceName, type, true);
+                        luceneIdx = new GridLuceneIndex(marshaller, offheap, spaceName, type, true,
+                            fullTextRefreshFreq);
                     }
                     catch (GridSpiException e1) {
                         throw new GridRuntimeException(e1);
@@ -2201,8 +2565,12 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
                             ASCENDING);
                     }
 
-                    idxs.add(new GridH2Index(name, tbl, idx.unique(), GridH2AbstractKeyValueRow.KEY_COL,
-                        GridH2AbstractKeyValueRow.VAL_COL, offheap, cols));
+                    if (idx.hash())
+                        idxs.add(new GridH2HashIndex(name, tbl, idx.unique(), GridH2AbstractKeyValueRow.KEY_COL,
+                            GridH2AbstractKeyValueRow.VAL_COL, offheap, cols));
+                    else
+                        idxs.add(new GridH2Index(name, tbl, idx.unique(), GridH2AbstractKeyValueRow.KEY_COL,
+                            GridH2AbstractKeyValueRow.VAL_COL, offheap, cols));
                 }
             }
 
@@ -2217,9 +2585,19 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
         /**
          * @param rs Result set.
          * @param stmt Statement to close at the end (if provided).
+         * @param stmtCache Statement cache to return statement to (if provided).
          */
-        protected FieldsIterator(ResultSet rs, Statement stmt) {
-            super(rs, stmt);
+        protected FieldsIterator(ResultSet rs, Statement stmt, @Nullable GridH2StatementCache stmtCache) {
+            super(rs, stmt, stmtCache);
+
+            openCursors.incrementAndGet();
+        }
+
+        /** {@inheritDoc} */
+        @Override protected void onClose() {
+            super.onClose();
+
+            openCursors.decrementAndGet();
         }
 
         /** {@inheritDoc} */
@@ -2259,9 +2637,19 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
         /**
          * @param rs   Result set.
          * @param stmt Statement to close at the end (if provided).
+         * @param stmtCache Statement cache to return statement to (if provided).
          */
-        protected KeyValIterator(ResultSet rs, Statement stmt) {
-            super(rs, stmt);
+        protected KeyValIterator(ResultSet rs, Statement stmt, @Nullable GridH2StatementCache stmtCache) {
+            super(rs, stmt, stmtCache);
+
+            openCursors.incrementAndGet();
+        }
+
+        /** {@inheritDoc} */
+        @Override protected void onClose() {
+            super.onClose();
+
+            openCursors.decrementAndGet();
         }
 
         /** {@inheritDoc} */
@@ -2287,6 +2675,50 @@ public class GridH2IndexingSpi extends GridSpiAdapter implements GridIndexingSpi
         }
     }
 
+    /**
+     * Key/value iterator over rows of index.
+     */
+    private static class IndexIterator<K, V> extends GridCloseableIteratorAdapter<GridIndexingKeyValueRow<K, V>> {
+        /** */
+        private final Iterator<GridH2Row> rows;
+
+        /** Number of rows left to return or negative value if there is no limit. */
+        private int left;
+
+        /**
+         * @param rows Index rows.
+         * @param limit Maximum number of returned rows, {@code 0} for no limit.
+         */
+        private IndexIterator(Iterator<GridH2Row> rows, int limit) {
+            this.rows = rows;
+
+            left = limit > 0 ? limit : -1;
+        }
+
+        /** {@inheritDoc} */
+        @Override protected boolean onHasNext() {
+            return left != 0 && rows.hasNext();
+        }
+
+        /** {@inheritDoc} */
+        @SuppressWarnings("unchecked")
+        @Override protected GridIndexingKeyValueRow<K, V> onNext() {
+            if (!onHasNext())
+                throw new NoSuchElementException();
+
+            if (left > 0)
+                left--;
+
+            GridH2Row row = rows.next();
+
+            K key = (K)row.getValue(GridH2AbstractKeyValueRow.KEY_COL).getObject();
+            V val = (V)row.getValue(GridH2AbstractKeyValueRow.VAL_COL).getObject();
+
+            return new GridIndexingKeyValueRowAdapter<>(new GridIndexingEntityAdapter<>(key, null),
+                new GridIndexingEntityAdapter<>(val, null), null);
+        }
+    }
+
     /**
      * Field descriptor.
      */
@@ -135,6 +135,30 @@ public interface GridH2IndexingSpiMBean extends GridSpiManagementMBean {
     @GridMBeanDescription("Maximum memory used for large operations (delete and insert), in bytes.")
     public int getIndexMaxOperationMemory();
 
+    /**
+     * Gets maximum number of query result rows kept in memory.
+     *
+     * @return Maximum number of result rows kept in memory, {@code 0} if H2 default is used.
+     */
+    @GridMBeanDescription("Maximum number of query result rows kept in memory.")
+    public int getQueryMaxMemoryRows();
+
+    /**
+     * Gets number of open query result cursors.
+     *
+     * @return Number of open cursors.
+     */
+    @GridMBeanDescription("Number of open query result cursors.")
+    public int getOpenCursorCount();
+
+    /**
+     * Gets minimum time in milliseconds between reopens of full text index reader.
+     *
+     * @return Refresh frequency in milliseconds.
+     */
+    @GridMBeanDescription("Minimum time in milliseconds between reopens of full text index reader.")
+    public long getFullTextIndexRefreshFrequency();
+
     /**
      * Gets user name for index database.
      *
@@ -177,6 +201,54 @@ public interface GridH2IndexingSpiMBean extends GridSpiManagementMBean {
     @GridMBeanDescription("If true, SPI will print SQL execution plan for long queries (explain SQL query).")
     public boolean isLongQueryExplain();
 
+    /**
+     * Gets maximum number of prepared statements cached by each connection of index database.
+     *
+     * @return Maximum number of cached statements per connection, {@code 0} if statements are not cached.
+     */
+    @GridMBeanDescription("Maximum number of prepared statements cached by each connection.")
+    public int getStatementCacheSize();
+
+    /**
+     * Gets number of query executions which reused cached prepared statement.
+     *
+     * @return Number of statement cache hits.
+     */
+    @GridMBeanDescription("Number of query executions which reused cached prepared statement.")
+    public long getStatementCacheHits();
+
+    /**
+     * Gets number of query executions which prepared new statement while statement cache is enabled.
+     *
+     * @return Number of statement cache misses.
+     */
+    @GridMBeanDescription("Number of query executions which prepared new statement.")
+    public long getStatementCacheMisses();
+
+    /**
+     * Gets maximum number of threads used to rebuild single index.
+     *
+     * @return Index rebuild thread count.
+     */
+    @GridMBeanDescription("Maximum number of threads used to rebuild single index.")
+    public int getIndexRebuildThreadCount();
+
+    /**
+     * Gets total number of rows to be copied by index rebuilds which are in progress.
+     *
+     * @return Total number of rows or {@code 0} if indexes are not rebuilt.
+     */
+    @GridMBeanDescription("Total number of rows to be copied by index rebuilds in progress.")
+    public long getIndexRebuildRowsTotal();
+
+    /**
+     * Gets number of rows already copied by index rebuilds which are in progress.
+     *
+     * @return Number of processed rows.
+     */
+    @GridMBeanDescription("Number of rows copied by index rebuilds in progress.")
+    public long getIndexRebuildRowsProcessed();
+
     /**
      * Defines whether indexing SPI will index by key entries where key and value are primitive types in given space.
      *
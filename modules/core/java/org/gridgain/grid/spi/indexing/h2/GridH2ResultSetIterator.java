@@ -27,6 +27,7 @@ import org.gridgain.grid.*;
 import org.gridgain.grid.spi.*;
 import org.gridgain.grid.util.*;
 import org.gridgain.grid.util.typedef.internal.*;
+import org.jetbrains.annotations.*;
 
 import java.io.*;
 import java.sql.*;
@@ -45,6 +46,9 @@ abstract class GridH2ResultSetIterator<T> extends GridCloseableIteratorAdapterEx
     /** */
     private Statement stmt;
 
+    /** */
+    private GridH2StatementCache stmtCache;
+
     /** */
     private T next;
 
@@ -54,11 +58,13 @@ abstract class GridH2ResultSetIterator<T> extends GridCloseableIteratorAdapterEx
     /**
      * @param rs Result set.
      * @param stmt Statement to close at the end (if provided).
+     * @param stmtCache Statement cache to return statement to instead of closing it (if provided).
      */
     @SuppressWarnings({"AbstractMethodCallInConstructor", "OverriddenMethodCallDuringObjectConstruction"})
-    protected GridH2ResultSetIterator(ResultSet rs, Statement stmt) {
+    protected GridH2ResultSetIterator(ResultSet rs, Statement stmt, @Nullable GridH2StatementCache stmtCache) {
         this.rs = rs;
         this.stmt = stmt;
+        this.stmtCache = stmtCache;
     }
 
     /**
@@ -135,7 +141,11 @@ abstract class GridH2ResultSetIterator<T> extends GridCloseableIteratorAdapterEx
     /** {@inheritDoc} */
     @Override protected void onClose() {
         U.close(rs, null);
-        U.close(stmt, null);
+
+        if (stmtCache != null)
+            stmtCache.release(stmt);
+        else
+            U.close(stmt, null);
     }
 
     /** {@inheritDoc} */
@@ -0,0 +1,194 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.spi.indexing.h2;
+
+import org.gridgain.grid.util.tostring.*;
+import org.gridgain.grid.util.typedef.*;
+import org.gridgain.grid.util.typedef.internal.*;
+import org.jetbrains.annotations.*;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * LRU cache of prepared statements of single connection. Statement is removed from cache while it is used
+ * by query and returned back by {@link #release(Statement)} when result set is closed, so cached statement
+ * is never executed concurrently. All cached statements are closed when version passed to constructor is
+ * changed (e.g. on DDL).
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+class GridH2StatementCache {
+    /** Maximum number of idle statements. */
+    private final int maxSize;
+
+    /** Cache version, changed on invalidation. */
+    private final AtomicLong ver;
+
+    /** Version of currently cached statements. */
+    private long curVer;
+
+    /** Idle statements in access order. */
+    @GridToStringExclude
+    private final LinkedHashMap<T2<String, String>, PreparedStatement> stmts;
+
+    /** Statements used by queries. */
+    @GridToStringExclude
+    private final Map<PreparedStatement, T2<String, String>> used = new WeakHashMap<>();
+
+    /**
+     * @param maxSize Maximum number of idle statements.
+     * @param ver Cache version.
+     */
+    GridH2StatementCache(final int maxSize, AtomicLong ver) {
+        assert maxSize > 0 : maxSize;
+
+        this.maxSize = maxSize;
+        this.ver = ver;
+
+        curVer = ver.get();
+
+        stmts = new LinkedHashMap<T2<String, String>, PreparedStatement>(16, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<T2<String, String>, PreparedStatement> e) {
+                if (size() <= maxSize)
+                    return false;
+
+                U.close(e.getValue(), null);
+
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Takes cached statement.
+     *
+     * @param schema Schema set on connection.
+     * @param sql SQL query.
+     * @return Statement or {@code null} if there is no cached statement for given query.
+     */
+    @Nullable synchronized PreparedStatement acquire(@Nullable String schema, String sql) {
+        checkVersion();
+
+        T2<String, String> key = new T2<>(schema, sql);
+
+        PreparedStatement stmt = stmts.remove(key);
+
+        if (stmt != null)
+            used.put(stmt, key);
+
+        return stmt;
+    }
+
+    /**
+     * Registers newly prepared statement, so it will be cached on release.
+     *
+     * @param schema Schema set on connection.
+     * @param sql SQL query.
+     * @param stmt Statement.
+     */
+    synchronized void acquired(@Nullable String schema, String sql, PreparedStatement stmt) {
+        checkVersion();
+
+        used.put(stmt, new T2<>(schema, sql));
+    }
+
+    /**
+     * Returns statement to cache or closes it if statement is not cacheable.
+     *
+     * @param stmt Statement.
+     */
+    synchronized void release(@Nullable Statement stmt) {
+        if (stmt == null)
+            return;
+
+        T2<String, String> key = used.remove(stmt);
+
+        boolean closed = true;
+
+        try {
+            closed = stmt.isClosed();
+        }
+        catch (SQLException ignored) {
+            // No-op.
+        }
+
+        if (key == null || closed || curVer != ver.get() || stmts.containsKey(key)) {
+            U.close(stmt, null);
+
+            return;
+        }
+
+        PreparedStatement ps = (PreparedStatement)stmt;
+
+        try {
+            ps.clearParameters();
+        }
+        catch (SQLException ignored) {
+            U.close(stmt, null);
+
+            return;
+        }
+
+        stmts.put(key, ps);
+    }
+
+    /**
+     * @return Number of idle statements.
+     */
+    synchronized int size() {
+        return stmts.size();
+    }
+
+    /**
+     * Closes all idle statements.
+     */
+    synchronized void clear() {
+        for (PreparedStatement stmt : stmts.values())
+            U.close(stmt, null);
+
+        stmts.clear();
+        used.clear();
+    }
+
+    /**
+     * Closes all statements if cache was invalidated.
+     */
+    private void checkVersion() {
+        long v = ver.get();
+
+        if (curVer != v) {
+            clear();
+
+            curVer = v;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return S.toString(GridH2StatementCache.class, this, "size", size());
+    }
+}
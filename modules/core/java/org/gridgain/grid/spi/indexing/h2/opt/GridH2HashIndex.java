@@ -0,0 +1,517 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.spi.indexing.h2.opt;
+
+import org.gridgain.grid.util.*;
+import org.gridgain.grid.util.LongAdder;
+import org.gridgain.grid.util.offheap.unsafe.*;
+import org.h2.engine.*;
+import org.h2.index.*;
+import org.h2.message.*;
+import org.h2.result.*;
+import org.h2.table.*;
+import org.h2.value.*;
+import org.jetbrains.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Hash index for equality lookups. Rows are grouped in buckets by hash code of indexed values, so lookup
+ * does not need any comparisons except ones with rows in the same bucket. Index is chosen by H2 only if
+ * all indexed columns are restricted with equality conditions, range conditions and sorting are not
+ * supported.
+ * <p>
+ * Rows in bucket are mapped by cache key, so rows of non unique index are updated in constant time
+ * regardless of how many rows have the same indexed values. If off-heap memory is used, buckets contain
+ * only pointers to off-heap rows.
+ * <p>
+ * Unlike tree index this index does not take snapshots, so query sees updates made while it is executed.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+public class GridH2HashIndex extends GridH2Index {
+    /**
+     * Buckets of rows by hash code of indexed values. Bucket maps cache key to {@link GridH2Row} or to
+     * pointer of off-heap row. Buckets are modified under their monitor and read without locking.
+     */
+    private final ConcurrentMap<Integer, ConcurrentMap<Object, Object>> buckets = new ConcurrentHashMap8<>();
+
+    /** Number of rows. */
+    private final LongAdder size = new LongAdder();
+
+    /** Off-heap rows acquired by current thread query. */
+    private final ThreadLocal<Collection<GridH2Row>> acquired = new ThreadLocal<>();
+
+    /** */
+    private final GridH2RowDescriptor desc;
+
+    /** */
+    private final GridUnsafeMemory memory;
+
+    /** */
+    private final boolean unique;
+
+    /**
+     * @param name Index name.
+     * @param tbl Table.
+     * @param unique If this index unique.
+     * @param keyCol Primary key column index.
+     * @param valCol Value column index.
+     * @param memory Memory or {@code null} if rows are stored in heap.
+     * @param cols Index columns list.
+     */
+    public GridH2HashIndex(String name, GridH2Table tbl, boolean unique, int keyCol, int valCol,
+        @Nullable GridUnsafeMemory memory, IndexColumn... cols) {
+        super(name, tbl, unique ? IndexType.createUnique(false, true) : IndexType.createNonUnique(false, true),
+            keyCol, valCol, cols);
+
+        this.unique = unique;
+        this.memory = memory;
+
+        desc = tbl.rowDescriptor();
+    }
+
+    /**
+     * @param row Row.
+     * @return Hash code of indexed values of the row.
+     */
+    private int hash(SearchRow row) {
+        int h = 0;
+
+        for (Column col : columns) {
+            Value v = row.getValue(col.getColumnId());
+
+            h = 31 * h + (v == null ? 0 : v.hashCode());
+        }
+
+        return h;
+    }
+
+    /**
+     * @param row Row.
+     * @return Cache key of the row.
+     */
+    private Object key(SearchRow row) {
+        return row.getValue(keyCol).getObject();
+    }
+
+    /**
+     * @param e Bucket element.
+     * @return Row.
+     */
+    private GridH2Row row(Object e) {
+        return memory == null ? (GridH2Row)e : desc.createPointer((Long)e);
+    }
+
+    /**
+     * @param row Row.
+     * @return Bucket element.
+     */
+    private Object element(GridH2Row row) {
+        return memory == null ? row : (Object)row.pointer();
+    }
+
+    /**
+     * Finds key of row with the same indexed values in bucket. For non unique index row
+     * is looked up by key of given row, otherwise bucket is scanned.
+     *
+     * @param b Bucket.
+     * @param row Row to find.
+     * @return Key of found row or {@code null} if row was not found.
+     */
+    @Nullable private Object find(Map<Object, Object> b, SearchRow row) {
+        if (!unique) {
+            Object key = key(row);
+
+            Object e = b.get(key);
+
+            return e != null && compareRows(row, row(e)) == 0 ? key : null;
+        }
+
+        for (Map.Entry<Object, Object> e : b.entrySet()) {
+            if (compareRows(row, row(e.getValue())) == 0)
+                return e.getKey();
+        }
+
+        return null;
+    }
+
+    /**
+     * Releases reference to off-heap row when it is safe.
+     *
+     * @param row Row.
+     */
+    private void releaseLater(GridH2Row row) {
+        final long ptr = row.pointer();
+
+        memory.finalizeLater(new Runnable() {
+            @Override public void run() {
+                desc.createPointer(ptr).decrementRefCount();
+            }
+        });
+    }
+
+    /** {@inheritDoc} */
+    @Override public GridH2Row put(GridH2Row row, boolean ifAbsent) {
+        Integer h = hash(row);
+        Object key = key(row);
+
+        if (memory != null)
+            row.incrementRefCount();
+
+        for (;;) {
+            ConcurrentMap<Object, Object> b = buckets.get(h);
+
+            if (b == null) {
+                ConcurrentMap<Object, Object> old = buckets.putIfAbsent(h, b = new ConcurrentHashMap8<>());
+
+                if (old != null)
+                    b = old;
+            }
+
+            GridH2Row old;
+
+            synchronized (b) {
+                if (buckets.get(h) != b)
+                    continue; // Bucket was removed when it became empty.
+
+                // Non unique index replaces row with the same key, unique one - row with the same values.
+                Object oldKey = unique ? find(b, row) : key;
+
+                Object e = oldKey == null ? null : b.get(oldKey);
+
+                old = e == null ? null : row(e);
+
+                if (old != null && ifAbsent) {
+                    if (memory != null)
+                        row.decrementRefCount(); // Row was not published, primary key still references it.
+
+                    return old;
+                }
+
+                if (old != null && !oldKey.equals(key))
+                    b.remove(oldKey);
+
+                b.put(key, element(row));
+            }
+
+            if (old == null)
+                size.increment();
+            else if (memory != null)
+                releaseLater(old);
+
+            return old;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public GridH2Row remove(SearchRow row) {
+        Integer h = hash(row);
+
+        for (;;) {
+            ConcurrentMap<Object, Object> b = buckets.get(h);
+
+            if (b == null)
+                return null;
+
+            GridH2Row old;
+
+            synchronized (b) {
+                if (buckets.get(h) != b)
+                    continue;
+
+                Object key = find(b, row);
+
+                if (key == null)
+                    return null;
+
+                old = row(b.remove(key));
+
+                if (b.isEmpty())
+                    buckets.remove(h, b);
+            }
+
+            size.decrement();
+
+            if (memory != null)
+                releaseLater(old);
+
+            return old;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public Cursor find(Session ses, @Nullable SearchRow first, @Nullable SearchRow last) {
+        return new GridH2Cursor(filter(doFind(first, last)));
+    }
+
+    /** {@inheritDoc} */
+    @Override public Iterator<GridH2Row> findRange(@Nullable SearchRow first, boolean inclFirst,
+        @Nullable SearchRow last, boolean inclLast, boolean desc) {
+        // Rows are not ordered, so only inclusive bounds are supported and direction is ignored.
+        if ((first != null && !inclFirst) || (last != null && !inclLast))
+            throw DbException.getUnsupportedException("exclusive bounds for hash index");
+
+        return filter(doFind(first, last));
+    }
+
+    /**
+     * Finds rows with indexed values equal to given ones. If bounds are not equal, all rows are scanned.
+     *
+     * @param first Lower bound.
+     * @param last Upper bound.
+     * @return Iterator over found rows.
+     */
+    private Iterator<GridH2Row> doFind(@Nullable SearchRow first, @Nullable SearchRow last) {
+        SearchRow search = searchRow(first);
+
+        boolean point = search != null && last != null && compareRows(search, last) == 0;
+
+        Collection<GridH2Row> acq = memory == null ? null : acquired.get();
+
+        GridUnsafeMemory.Operation op = memory == null ? null : memory.begin();
+
+        try {
+            Collection<ConcurrentMap<Object, Object>> bs;
+
+            if (point) {
+                ConcurrentMap<Object, Object> b = buckets.get(hash(search));
+
+                if (b == null)
+                    return new GridEmptyIterator<>();
+
+                bs = Collections.singleton(b);
+            }
+            else
+                bs = buckets.values();
+
+            List<GridH2Row> res = new ArrayList<>();
+
+            for (ConcurrentMap<Object, Object> b : bs) {
+                for (Object e : b.values()) {
+                    GridH2Row row = row(e);
+
+                    if (first != null && compareRows(row, first) < 0 || last != null && compareRows(row, last) > 0)
+                        continue;
+
+                    if (acq != null) {
+                        row.incrementRefCount(); // Will be released with snapshot.
+
+                        acq.add(row);
+                    }
+
+                    res.add(row);
+                }
+            }
+
+            return res.iterator();
+        }
+        finally {
+            if (memory != null)
+                memory.end(op);
+        }
+    }
+
+    /**
+     * Converts values of search row to types of indexed columns.
+     *
+     * @param row Search row.
+     * @return Converted search row or {@code null} if some indexed value is not set.
+     */
+    @Nullable private SearchRow searchRow(@Nullable SearchRow row) {
+        if (row == null)
+            return null;
+
+        SearchRow res = getTable().getTemplateRow();
+
+        for (Column col : columns) {
+            int id = col.getColumnId();
+
+            Value v = row.getValue(id);
+
+            if (v == null)
+                return null;
+
+            res.setValue(id, v.convertTo(col.getType()));
+        }
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override Iterator<GridH2Row> rows() {
+        return filter(doFind(null, null));
+    }
+
+    /** {@inheritDoc} */
+    @Nullable @Override public ConcurrentNavigableMap<SearchRow, GridH2Row> takeSnapshot(
+        @Nullable ConcurrentNavigableMap s) {
+        assert s == null;
+
+        if (memory != null) {
+            assert acquired.get() == null;
+
+            acquired.set(new ArrayList<GridH2Row>());
+        }
+
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void releaseSnapshot() {
+        if (memory == null)
+            return;
+
+        Collection<GridH2Row> rows = acquired.get();
+
+        acquired.remove();
+
+        if (rows != null) {
+            for (GridH2Row row : rows)
+                releaseLater(row);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public double getCost(Session ses, int[] masks) {
+        if (masks == null)
+            return Long.MAX_VALUE;
+
+        for (Column col : columns) {
+            if ((masks[col.getColumnId()] & IndexCondition.EQUALITY) != IndexCondition.EQUALITY)
+                return Long.MAX_VALUE;
+        }
+
+        if (unique)
+            return 2;
+
+        return 2 + (double)getRowCountApproximation() / Math.max(1, buckets.size());
+    }
+
+    /**
+     * Gets number of rows in index. Unlike tree index, rows are not filtered by expiration time
+     * and key filters of current thread.
+     *
+     * @param ses Session.
+     * @return Number of rows.
+     */
+    @Override public long getRowCount(@Nullable Session ses) {
+        return size.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getRowCountApproximation() {
+        return size.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean canScan() {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean canFindNext() {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override public Cursor findNext(Session ses, SearchRow higherThan, SearchRow last) {
+        throw DbException.getUnsupportedException("findNext");
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean canGetFirstOrLast() {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    @Override public Cursor findFirstOrLast(Session ses, boolean first) {
+        throw DbException.getUnsupportedException("findFirstOrLast");
+    }
+
+    /** {@inheritDoc} */
+    @Override public GridH2AbstractKeyValueRow findOne(GridSearchRowPointer row) {
+        ConcurrentMap<Object, Object> b = buckets.get(hash(row));
+
+        if (b == null)
+            return null;
+
+        Object key = find(b, row);
+
+        Object e = key == null ? null : b.get(key);
+
+        return e == null ? null : (GridH2AbstractKeyValueRow)row(e);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void close() {
+        if (memory != null) {
+            for (ConcurrentMap<Object, Object> b : buckets.values()) {
+                for (Object e : b.values())
+                    releaseLater(row(e));
+            }
+        }
+
+        buckets.clear();
+
+        size.reset();
+    }
+
+    /** {@inheritDoc} */
+    @Override GridH2Index createCopy(GridUnsafeMemory mem, @Nullable ExecutorService exec, int parallelism,
+        AtomicLong progress) throws InterruptedException {
+        GridH2HashIndex idx = new GridH2HashIndex(getName(), (GridH2Table)getTable(), unique, keyCol, valCol,
+            mem, getIndexColumns());
+
+        Thread thread = Thread.currentThread();
+
+        long i = 0;
+
+        for (ConcurrentMap<Object, Object> b : buckets.values()) {
+            for (Object e : b.values()) {
+                idx.put(row(e), false);
+
+                // Check for interruptions and update progress every 1000 iterations.
+                if (++i % 1000 == 0) {
+                    progress.addAndGet(1000);
+
+                    if (thread.isInterrupted())
+                        throw new InterruptedException();
+                }
+            }
+        }
+
+        progress.addAndGet(i % 1000);
+
+        return idx;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return "Hash " + super.toString();
+    }
+}
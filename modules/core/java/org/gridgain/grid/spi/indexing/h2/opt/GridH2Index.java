@@ -24,6 +24,7 @@
 package org.gridgain.grid.spi.indexing.h2.opt;
 
 import edu.stanford.ppl.concurrent.*;
+import org.gridgain.grid.*;
 import org.gridgain.grid.spi.indexing.*;
 import org.gridgain.grid.util.*;
 import org.gridgain.grid.util.typedef.*;
@@ -40,9 +41,11 @@ import org.jetbrains.annotations.*;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 /**
- * Base class for snapshotable tree indexes.
+ * Base class for snapshotable tree indexes. Subclasses which do not use tree must override all methods
+ * accessing it (see {@link GridH2HashIndex}).
  *
  * @author @java.author
  * @version @java.version
@@ -53,6 +56,9 @@ public class GridH2Index extends BaseIndex implements Comparator<GridSearchRowPo
     private static final ThreadLocal<GridIndexingQueryFilter<?, ?>[]> filters =
         new ThreadLocal<>();
 
+    /** Minimal number of rows in range copied in separate thread. */
+    private static final int COPY_RANGE_MIN_SIZE = 10000;
+
     /** */
     protected final ConcurrentNavigableMap<GridSearchRowPointer, GridH2Row> tree;
 
@@ -133,6 +139,28 @@ public class GridH2Index extends BaseIndex implements Comparator<GridSearchRowPo
         };
     }
 
+    /**
+     * Constructor for indexes which do not use tree. Unlike tree index, primary key column is not added to
+     * index columns of non unique index.
+     *
+     * @param name Index name.
+     * @param tbl Table.
+     * @param type Index type.
+     * @param keyCol Primary key column index.
+     * @param valCol Value column index.
+     * @param cols Index columns list.
+     */
+    protected GridH2Index(String name, GridH2Table tbl, IndexType type, int keyCol, int valCol, IndexColumn... cols) {
+        IndexColumn.mapColumns(cols, tbl);
+
+        initBaseIndex(tbl, 0, name, cols, type);
+
+        this.keyCol = keyCol;
+        this.valCol = valCol;
+
+        tree = null;
+    }
+
     /**
      * Closes index and releases resources.
      */
@@ -351,7 +379,7 @@ public class GridH2Index extends BaseIndex implements Comparator<GridSearchRowPo
      * @param iter Iterator over rows.
      * @return Filtered iterator.
      */
-    private Iterator<GridH2Row> filter(Iterator<GridH2Row> iter) {
+    protected Iterator<GridH2Row> filter(Iterator<GridH2Row> iter) {
         return new FilteringIterator(iter, U.currentTimeMillis());
     }
 
@@ -386,6 +414,32 @@ public class GridH2Index extends BaseIndex implements Comparator<GridSearchRowPo
         }
     }
 
+    /**
+     * Finds rows in given range without SQL engine. Unlike {@link #find(Session, SearchRow, SearchRow)} this
+     * method does not use snapshot of current thread but takes own one, so returned iterator can be consumed
+     * lazily from any thread. Must not be used for off-heap indexes.
+     *
+     * @param first Lower bound or {@code null} if range is not bounded from below.
+     * @param inclFirst Whether lower bound is inclusive.
+     * @param last Upper bound or {@code null} if range is not bounded from above.
+     * @param inclLast Whether upper bound is inclusive.
+     * @param desc Whether rows should be returned in reverse order.
+     * @return Iterator over rows in given range.
+     */
+    @SuppressWarnings("unchecked")
+    public Iterator<GridH2Row> findRange(@Nullable SearchRow first, boolean inclFirst, @Nullable SearchRow last,
+        boolean inclLast, boolean desc) {
+        assert tree instanceof SnapTreeMap;
+
+        NavigableMap<GridSearchRowPointer, GridH2Row> range = subTree(((SnapTreeMap)tree).clone(),
+            comparable(first, inclFirst ? -1 : 1), comparable(last, inclLast ? 1 : -1));
+
+        if (range == null)
+            return new GridEmptyIterator<>();
+
+        return filter(desc ? range.descendingMap().values().iterator() : range.values().iterator());
+    }
+
     /**
      * Gets iterator over all rows in this index.
      *
@@ -628,33 +682,107 @@ public class GridH2Index extends BaseIndex implements Comparator<GridSearchRowPo
     }
 
     /**
-     * Creates copy of this index.
+     * Creates copy of this index. If executor is given, rows are split to ranges which are copied
+     * to the new tree concurrently.
      *
      * @param memory Memory.
+     * @param exec Executor to copy ranges in or {@code null} to copy in current thread.
+     * @param parallelism Number of ranges.
+     * @param progress Counter of copied rows.
      * @return New index instance.
      * @throws InterruptedException If copy operation was interrupted.
      */
-    GridH2Index createCopy(GridUnsafeMemory memory) throws InterruptedException {
+    GridH2Index createCopy(GridUnsafeMemory memory, @Nullable ExecutorService exec, int parallelism,
+        final AtomicLong progress) throws InterruptedException {
         IndexColumn[] cols = getIndexColumns();
 
         if (!getIndexType().isUnique())
             cols = Arrays.copyOf(cols, cols.length - 1);
 
-        GridH2Index idx = new GridH2Index(getName(), (GridH2Table)getTable(), getIndexType().isUnique(), keyCol, valCol,
-            memory, cols);
+        final GridH2Index idx = new GridH2Index(getName(), (GridH2Table)getTable(), getIndexType().isUnique(), keyCol,
+            valCol, memory, cols);
+
+        int size = tree.size();
 
+        if (exec == null || parallelism < 2 || size < parallelism * COPY_RANGE_MIN_SIZE) {
+            copy(tree, idx, progress);
+
+            return idx;
+        }
+
+        // Take bounds of ranges with equal number of rows, tree is not modified while index is copied.
+        List<GridSearchRowPointer> bounds = new ArrayList<>(parallelism - 1);
+
+        int step = size / parallelism;
+        int i = 0;
+
+        for (GridSearchRowPointer key : tree.keySet()) {
+            if (++i % step == 0 && bounds.size() < parallelism - 1)
+                bounds.add(key);
+        }
+
+        Collection<Future<?>> futs = new ArrayList<>(parallelism);
+
+        try {
+            for (int r = 0; r <= bounds.size(); r++) {
+                GridSearchRowPointer lo = r == 0 ? null : bounds.get(r - 1);
+                GridSearchRowPointer hi = r == bounds.size() ? null : bounds.get(r);
+
+                final Map<GridSearchRowPointer, GridH2Row> range = lo == null ? tree.headMap(hi, false) :
+                    hi == null ? tree.tailMap(lo, true) : tree.subMap(lo, true, hi, false);
+
+                futs.add(exec.submit(new Callable<Object>() {
+                    @Override public Object call() throws Exception {
+                        copy(range, idx, progress);
+
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<?> fut : futs)
+                fut.get();
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof InterruptedException)
+                throw (InterruptedException)e.getCause();
+
+            throw new GridRuntimeException("Failed to copy index: " + getName(), e.getCause());
+        }
+        finally {
+            for (Future<?> fut : futs)
+                fut.cancel(true);
+        }
+
+        return idx;
+    }
+
+    /**
+     * Copies rows to tree of given index.
+     *
+     * @param rows Rows to copy.
+     * @param idx Index.
+     * @param progress Counter of copied rows.
+     * @throws InterruptedException If copy operation was interrupted.
+     */
+    private static void copy(Map<GridSearchRowPointer, GridH2Row> rows, GridH2Index idx, AtomicLong progress)
+        throws InterruptedException {
         Thread thread = Thread.currentThread();
 
         long i = 0;
 
-        for (GridH2Row row : tree.values()) {
-            // Check for interruptions every 1000 iterations.
-            if (++i % 1000 == 0 && thread.isInterrupted())
-                throw new InterruptedException();
-
+        for (GridH2Row row : rows.values()) {
             idx.tree.put(row, row);
+
+            // Check for interruptions and update progress every 1000 iterations.
+            if (++i % 1000 == 0) {
+                progress.addAndGet(1000);
+
+                if (thread.isInterrupted())
+                    throw new InterruptedException();
+            }
         }
 
-        return idx;
+        progress.addAndGet(i % 1000);
     }
 }
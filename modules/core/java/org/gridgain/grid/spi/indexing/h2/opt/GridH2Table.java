@@ -41,6 +41,7 @@ import org.jetbrains.annotations.*;
 import java.sql.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 import java.util.concurrent.locks.*;
 
 /**
@@ -74,6 +75,12 @@ public class GridH2Table extends TableBase {
     /** */
     private final long writeLockWaitTime;
 
+    /** Total number of rows to copy during indexes rebuild. */
+    private volatile long rebuildTotal;
+
+    /** Number of rows copied during indexes rebuild. */
+    private final AtomicLong rebuildProcessed = new AtomicLong();
+
     /**
      * Creates table.
      *
@@ -284,7 +291,7 @@ public class GridH2Table extends TableBase {
             if (i == 1)
                 size = s.size();
             else
-                assert size == s.size();
+                assert s == null || size == s.size(); // Hash indexes do not take snapshots.
         }
 
         return snapshot;
@@ -514,9 +521,13 @@ public class GridH2Table extends TableBase {
     }
 
     /**
-     * Rebuilds all indexes of this table.
+     * Rebuilds all indexes of this table. Queries are served by old indexes until rebuild is finished
+     * (only if table is not stored off-heap).
+     *
+     * @param exec Executor to rebuild indexes in or {@code null} to rebuild in current thread.
+     * @param parallelism Maximum number of threads used to rebuild single index.
      */
-    public void rebuildIndexes() {
+    public void rebuildIndexes(@Nullable ExecutorService exec, int parallelism) {
         GridUnsafeMemory memory = desc == null ? null : desc.memory();
 
         lock.writeLock().lock();
@@ -525,8 +536,11 @@ public class GridH2Table extends TableBase {
             if (memory == null && actualSnapshot == null)
                 actualSnapshot = takeIndexesSnapshot(); // Allow read access while we are rebuilding indexes.
 
+            rebuildProcessed.set(0);
+            rebuildTotal = (idxs.size() - 1) * getRowCountApproximation();
+
             for (int i = 1, len = idxs.size(); i < len; i++) {
-                GridH2Index newIdx = index(i).createCopy(memory);
+                GridH2Index newIdx = index(i).createCopy(memory, exec, parallelism, rebuildProcessed);
 
                 idxs.set(i, newIdx);
 
@@ -541,9 +555,33 @@ public class GridH2Table extends TableBase {
             lock.writeLock().unlock();
 
             actualSnapshot = null;
+
+            rebuildTotal = 0;
+            rebuildProcessed.set(0);
         }
     }
 
+    /**
+     * Rebuilds all indexes of this table in current thread.
+     */
+    public void rebuildIndexes() {
+        rebuildIndexes(null, 1);
+    }
+
+    /**
+     * @return Total number of rows to be copied by current index rebuild or {@code 0} if indexes are not rebuilt.
+     */
+    public long rebuildRowsTotal() {
+        return rebuildTotal;
+    }
+
+    /**
+     * @return Number of rows already copied by current index rebuild.
+     */
+    public long rebuildRowsProcessed() {
+        return rebuildProcessed.get();
+    }
+
     /** {@inheritDoc} */
     @Override public Index addIndex(Session ses, String s, int i, IndexColumn[] idxCols, IndexType idxType,
         boolean b, String s1) {
@@ -47,6 +47,10 @@ import java.util.concurrent.atomic.*;
 import static org.gridgain.grid.spi.indexing.h2.GridH2IndexingSpi.*;
 
 /**
+ * Full text index of single type. Documents are buffered by index writer and merged in background by
+ * writer's default merge scheduler, index is never committed. Queries use shared near-real-time reader which
+ * is reopened if index was updated and refresh frequency passed since last reopen.
+ *
  * @author @java.author
  * @version @java.version
  */
@@ -78,6 +82,15 @@ public class GridLuceneIndex implements Closeable {
     /** */
     private final GridLuceneDirectory dir;
 
+    /** Minimum time in milliseconds between reader reopens. */
+    private final long refreshFreq;
+
+    /** Current reader, guarded by {@code this}. */
+    private IndexReader reader;
+
+    /** Time of last reader reopen, guarded by {@code this}. */
+    private long refreshTs;
+
     /**
      * Constructor.
      *
@@ -86,14 +99,18 @@ public class GridLuceneIndex implements Closeable {
      * @param spaceName Space name.
      * @param type Type descriptor.
      * @param storeVal Store value in index.
+     * @param refreshFreq Minimum time in milliseconds between reader reopens, {@code 0} to reopen reader
+     *      on every query following index update.
      * @throws GridSpiException If failed.
      */
     public GridLuceneIndex(GridIndexingMarshaller marshaller, @Nullable GridUnsafeMemory mem,
-        @Nullable String spaceName, GridIndexingTypeDescriptor type, boolean storeVal) throws GridSpiException {
+        @Nullable String spaceName, GridIndexingTypeDescriptor type, boolean storeVal, long refreshFreq)
+        throws GridSpiException {
         this.marshaller = marshaller;
         this.spaceName = spaceName;
         this.type = type;
         this.storeVal = storeVal;
+        this.refreshFreq = refreshFreq;
 
         dir = new GridLuceneDirectory(mem == null ? new GridUnsafeMemory(0) : mem);
 
@@ -219,22 +236,7 @@ public class GridLuceneIndex implements Closeable {
      */
     public <K, V> GridCloseableIterator<GridIndexingKeyValueRow<K, V>> query(String qry,
         GridIndexingQueryFilter<K, V>[] filters) throws GridSpiException {
-        IndexReader reader;
-
-        try {
-            long updates = updateCntr.get();
-
-            if (updates != 0) {
-                writer.commit();
-
-                updateCntr.addAndGet(-updates);
-            }
-
-            reader = IndexReader.open(writer, true);
-        }
-        catch (IOException e) {
-            throw new GridSpiException(e);
-        }
+        IndexReader reader = acquireReader();
 
         IndexSearcher searcher = new IndexSearcher(reader);
 
@@ -251,14 +253,74 @@ public class GridLuceneIndex implements Closeable {
             docs = searcher.search(parser.parse(qry), f, Integer.MAX_VALUE);
         }
         catch (Exception e) {
+            U.closeQuiet(searcher);
+            releaseReader(reader);
+
             throw new GridSpiException(e);
         }
 
         return new It<>(reader, searcher, docs.scoreDocs, filters);
     }
 
+    /**
+     * Gets current reader reopening it if needed. Reader must be released by {@link #releaseReader(IndexReader)}.
+     *
+     * @return Reader.
+     * @throws GridSpiException If failed.
+     */
+    private synchronized IndexReader acquireReader() throws GridSpiException {
+        long now = U.currentTimeMillis();
+
+        long updates = updateCntr.get();
+
+        if (reader == null || (updates != 0 && now - refreshTs >= refreshFreq)) {
+            IndexReader r;
+
+            try {
+                r = IndexReader.open(writer, true);
+            }
+            catch (IOException e) {
+                throw new GridSpiException(e);
+            }
+
+            updateCntr.addAndGet(-updates);
+
+            if (reader != null)
+                releaseReader(reader);
+
+            reader = r;
+            refreshTs = now;
+        }
+
+        reader.incRef();
+
+        return reader;
+    }
+
+    /**
+     * Releases reader, it is closed when released by all queries and replaced by newer one.
+     *
+     * @param reader Reader.
+     */
+    private static void releaseReader(IndexReader reader) {
+        try {
+            reader.decRef();
+        }
+        catch (IOException ignored) {
+            // No-op.
+        }
+    }
+
     /** {@inheritDoc} */
     @Override public void close() {
+        synchronized (this) {
+            if (reader != null) {
+                releaseReader(reader);
+
+                reader = null;
+            }
+        }
+
         U.closeQuiet(writer);
         U.closeQuiet(dir);
     }
@@ -378,7 +440,8 @@ public class GridLuceneIndex implements Closeable {
         /** {@inheritDoc} */
         @Override protected void onClose() throws GridException {
             U.closeQuiet(searcher);
-            U.closeQuiet(reader);
+
+            releaseReader(reader);
         }
     }
 }
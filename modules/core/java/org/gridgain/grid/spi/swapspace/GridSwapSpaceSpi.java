@@ -27,6 +27,7 @@ import org.gridgain.grid.*;
 import org.gridgain.grid.lang.*;
 import org.gridgain.grid.spi.*;
 import org.gridgain.grid.spi.swapspace.file.*;
+import org.gridgain.grid.spi.swapspace.lsm.*;
 import org.gridgain.grid.spi.swapspace.noop.*;
 import org.jetbrains.annotations.*;
 
@@ -49,6 +50,10 @@ import java.util.*;
  *     {@link GridFileSwapSpaceSpi} - pure Java implementation with in-memory keys. This SPI is used by default.
  * </li>
  * <li>
+ *     {@link GridLsmSwapSpaceSpi} - log-structured implementation which keeps only sparse indexes and bloom filters
+ *     in memory. Suitable when swapped data is much larger than available heap.
+ * </li>
+ * <li>
  *     {@link GridNoopSwapSpaceSpi} - no-op SPI mainly for testing.
  * </li>
  * </ul>
@@ -31,9 +31,11 @@ import org.gridgain.grid.resources.*;
 import org.gridgain.grid.spi.*;
 import org.gridgain.grid.spi.swapspace.*;
 import org.gridgain.grid.util.*;
+import org.gridgain.grid.util.LongAdder;
 import org.gridgain.grid.util.typedef.*;
 import org.gridgain.grid.util.typedef.internal.*;
 import org.jetbrains.annotations.*;
+import sun.nio.ch.*;
 
 import java.io.*;
 import java.nio.*;
@@ -67,6 +69,8 @@ import static org.gridgain.grid.events.GridEventType.*;
  *     <li>Write buffer size in bytes (see {@link #setWriteBufferSize(int)}).</li>
  *     <li>Max write queue size in bytes (see {@link #setMaxWriteQueueSize(int)}).</li>
  *     <li>Read stripes number. (see {@link #setReadStripesNumber(int)}).</li>
+ *     <li>Memory-mapped reads (see {@link #setMemoryMappedReads(boolean)}).</li>
+ *     <li>Mapping window size in bytes (see {@link #setMappingWindowSize(int)}).</li>
  * </ul>
  *
  * <h2 class="header">Java Example</h2>
@@ -128,9 +132,15 @@ public class GridFileSwapSpaceSpi extends GridSpiAdapter implements GridSwapSpac
     /** Default write queue size in bytes. */
     public static final int DFLT_QUE_SIZE = 1024 * 1024;
 
+    /** Default mapping window size in bytes. */
+    public static final int DFLT_MAPPING_WIN_SIZE = 64 * 1024 * 1024;
+
     /** Name for {@code null} space. */
     public static final String DFLT_SPACE_NAME = "gg-dflt-space";
 
+    /** Process statistics file, used to get page faults. */
+    private static final String PROC_STAT = "/proc/self/stat";
+
     /** Spaces. */
     private final ConcurrentMap<String, Space> spaces = new ConcurrentHashMap<>();
 
@@ -155,6 +165,12 @@ public class GridFileSwapSpaceSpi extends GridSpiAdapter implements GridSwapSpac
     /** Read stripes number. */
     private int readStripesNum = -1;
 
+    /** Whether values are read from memory-mapped files. */
+    private boolean mmapReads;
+
+    /** Mapping window size. */
+    private int mappingWinSize = DFLT_MAPPING_WIN_SIZE;
+
     /** Logger. */
     @GridLoggerResource
     private GridLogger log;
@@ -250,12 +266,122 @@ public class GridFileSwapSpaceSpi extends GridSpiAdapter implements GridSwapSpac
         this.readStripesNum = readStripesNum;
     }
 
+    /** {@inheritDoc} */
+    @Override public boolean isMemoryMappedReads() {
+        return mmapReads;
+    }
+
+    /**
+     * Sets flag indicating whether values should be read from memory-mapped swap files rather than through
+     * file channels. Memory-mapped reads avoid system call per read and are faster for read-heavy workloads,
+     * especially when swapped data fits in OS page cache. Reads which cannot be served from mapping (e.g. value
+     * crosses mapping window boundary) fall back to file channels. Default is {@code false}.
+     *
+     * @param mmapReads {@code True} to read values from memory-mapped files.
+     */
+    public void setMemoryMappedReads(boolean mmapReads) {
+        this.mmapReads = mmapReads;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getMappingWindowSize() {
+        return mappingWinSize;
+    }
+
+    /**
+     * Sets size in bytes of swap file regions which are mapped to memory. Used only if memory-mapped reads
+     * are enabled (see {@link #setMemoryMappedReads(boolean)}). Larger windows mean fewer mappings and fewer
+     * values crossing window boundary. Window is remapped as file grows within it, every time the mapped part
+     * of the window at least doubles. Default is
+     * {@link #DFLT_MAPPING_WIN_SIZE}.
+     *
+     * @param mappingWinSize Mapping window size in bytes.
+     */
+    public void setMappingWindowSize(int mappingWinSize) {
+        this.mappingWinSize = mappingWinSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getMappedBytes() {
+        long res = 0;
+
+        for (Space space : spaces.values()) {
+            for (SwapFile f : space.files()) {
+                if (f.mapped != null)
+                    res += f.mapped.mappedBytes.get();
+            }
+        }
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getMappedReads() {
+        long res = 0;
+
+        for (Space space : spaces.values()) {
+            for (SwapFile f : space.files()) {
+                if (f.mapped != null)
+                    res += f.mapped.reads.sum();
+            }
+        }
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getChannelReads() {
+        long res = 0;
+
+        for (Space space : spaces.values()) {
+            for (SwapFile f : space.files())
+                res += f.chReads.sum();
+        }
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getMajorPageFaults() {
+        File f = new File(PROC_STAT);
+
+        if (!f.exists())
+            return -1;
+
+        BufferedReader r = null;
+
+        try {
+            r = new BufferedReader(new FileReader(f));
+
+            String line = r.readLine();
+
+            if (line == null)
+                return -1;
+
+            // Process name may contain spaces, so fields are counted from the end of name.
+            String[] fields = line.substring(line.lastIndexOf(')') + 2).split(" ");
+
+            // Major faults is the 12th field of the file and the 10th one after process name.
+            return fields.length > 9 ? Long.parseLong(fields[9]) : -1;
+        }
+        catch (IOException | NumberFormatException e) {
+            if (log.isDebugEnabled())
+                log.debug("Failed to read page faults from " + PROC_STAT + ": " + e);
+
+            return -1;
+        }
+        finally {
+            U.closeQuiet(r);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override public void spiStart(@Nullable String gridName) throws GridSpiException {
         assertParameter(!F.isEmpty(baseDir), "!F.isEmpty(baseDir)");
         assertParameter(maxSparsity >= 0 && maxSparsity < 1, "maxSparsity >= 0 && maxSparsity < 1");
         assertParameter(readStripesNum == -1 || (readStripesNum & (readStripesNum - 1)) == 0,
             "readStripesNum must be positive and power of two.");
+        assertParameter(!mmapReads || mappingWinSize > 0, "mappingWinSize > 0");
 
         if (readStripesNum == -1) {
             // User has not configured the number.
@@ -713,10 +839,12 @@ public class GridFileSwapSpaceSpi extends GridSpiAdapter implements GridSwapSpac
                 assert i != NEW;
 
                 if (i != DELETED) {
-                    StripedFileChannel ch = i < 0 ? space.left.readCh : space.right.readCh;
+                    SwapFile f = i < 0 ? space.left : space.right;
+
+                    StripedFileChannel ch = f.readCh;
 
                     if (idx != DELETED) // Double check works in pair with striped channel reopening.
-                        v = readValue(ch);
+                        v = f.read(this, ch);
                 }
             }
             else if (v.length != len) {
@@ -968,6 +1096,254 @@ public class GridFileSwapSpaceSpi extends GridSpiAdapter implements GridSwapSpac
         }
     }
 
+    /**
+     * Memory-mapped reader of swap file. File is mapped by windows of fixed size aligned to window size. Window
+     * is mapped on first read from it. Window is remapped when a value is read from the part of window which has
+     * been written after window was mapped, but only once file has grown within the window to at least twice
+     * the mapped size, until then such values are read through file channel. Values crossing window boundary
+     * are not read by this reader.
+     * <p>
+     * Mappings are released explicitly rather than by garbage collector. Access to released mapping or to mapped
+     * region of truncated file crashes JVM, so reads are done under read lock, and mappings are released and file
+     * is truncated under write lock. Mappings replaced by larger ones are retired and released as soon as write
+     * lock can be acquired without waiting.
+     */
+    private static class MappedReader {
+        /** */
+        private final File file;
+
+        /** Window size. */
+        private final int winSize;
+
+        /** Lock guarding access to mapped memory against file truncation. */
+        private final GridSpinReadWriteLock lock = new GridSpinReadWriteLock();
+
+        /** Windows, copied on write under this object monitor. */
+        private volatile MappedByteBuffer[] wins = new MappedByteBuffer[0];
+
+        /** File to map, guarded by this object monitor. */
+        private RandomAccessFile raf;
+
+        /** Mappings replaced by larger ones and not released yet, guarded by this object monitor. */
+        private final Collection<MappedByteBuffer> retired = new ArrayList<>();
+
+        /** Mapped bytes. */
+        private final AtomicLong mappedBytes = new AtomicLong();
+
+        /** Number of reads from mapped memory. */
+        private final LongAdder reads = new LongAdder();
+
+        /**
+         * @param file File.
+         * @param winSize Window size.
+         */
+        MappedReader(File file, int winSize) {
+            assert winSize > 0;
+
+            this.file = file;
+            this.winSize = winSize;
+        }
+
+        /**
+         * Reads value from mapped memory.
+         *
+         * @param pos Value position.
+         * @param len Value length.
+         * @return Bytes or {@code null} if value can not be read from mapped memory.
+         */
+        @Nullable byte[] read(long pos, int len) {
+            int w = (int)(pos / winSize);
+            int off = (int)(pos - (long)w * winSize);
+
+            if (off + len > winSize)
+                return null;
+
+            lock.readLock();
+
+            try {
+                MappedByteBuffer buf = window(w);
+
+                if (buf == null || buf.capacity() < off + len) {
+                    buf = map(w, off + len);
+
+                    if (buf == null)
+                        return null;
+                }
+
+                byte[] v = new byte[len];
+
+                ByteBuffer dup = buf.duplicate();
+
+                dup.position(off);
+                dup.get(v);
+
+                reads.increment();
+
+                return v;
+            }
+            finally {
+                lock.readUnlock();
+
+                releaseRetired();
+            }
+        }
+
+        /**
+         * Releases retired mappings if no reads are in progress.
+         */
+        private void releaseRetired() {
+            synchronized (this) {
+                if (retired.isEmpty())
+                    return;
+            }
+
+            if (!lock.tryWriteLock())
+                return;
+
+            try {
+                synchronized (this) {
+                    for (MappedByteBuffer buf : retired)
+                        release(buf);
+
+                    retired.clear();
+                }
+            }
+            finally {
+                lock.writeUnlock();
+            }
+        }
+
+        /**
+         * Releases mapping. Must be called under write lock.
+         *
+         * @param buf Mapping.
+         */
+        private void release(MappedByteBuffer buf) {
+            assert lock.writeLockedByCurrentThread();
+
+            mappedBytes.addAndGet(-buf.capacity());
+
+            ((DirectBuffer)buf).cleaner().clean();
+        }
+
+        /**
+         * @param w Window index.
+         * @return Window or {@code null} if window is not mapped.
+         */
+        @Nullable private MappedByteBuffer window(int w) {
+            MappedByteBuffer[] wins0 = wins;
+
+            return w < wins0.length ? wins0[w] : null;
+        }
+
+        /**
+         * Maps window. Must be called under read lock.
+         *
+         * @param w Window index.
+         * @param minSize Required mapped size of the window.
+         * @return Window or {@code null} if file is shorter than required.
+         */
+        @Nullable private synchronized MappedByteBuffer map(int w, int minSize) {
+            MappedByteBuffer old = window(w);
+
+            if (old != null && old.capacity() >= minSize)
+                return old;
+
+            long start = (long)w * winSize;
+
+            MappedByteBuffer buf;
+
+            try {
+                if (raf == null || !raf.getChannel().isOpen()) {
+                    // Channel is closed if thread is interrupted while mapping.
+                    U.closeQuiet(raf);
+
+                    raf = new RandomAccessFile(file, "r");
+                }
+
+                FileChannel ch = raf.getChannel();
+
+                long size = Math.min(winSize, ch.size() - start);
+
+                if (size < minSize)
+                    return null;
+
+                // Grow mapping geometrically, so that reads from the tail of growing file do not remap every time.
+                if (old != null && size < winSize && size < 2L * old.capacity())
+                    return null;
+
+                buf = ch.map(FileChannel.MapMode.READ_ONLY, start, size);
+            }
+            catch (IOException ignore) {
+                // Value will be read through file channel.
+                return null;
+            }
+
+            MappedByteBuffer[] wins0 = Arrays.copyOf(wins, Math.max(wins.length, w + 1));
+
+            wins0[w] = buf;
+
+            wins = wins0;
+
+            mappedBytes.addAndGet(buf.capacity());
+
+            // Old mapping may still be read by other threads.
+            if (old != null)
+                retired.add(old);
+
+            return buf;
+        }
+
+        /**
+         * Releases mappings of file region starting from given position and all retired mappings.
+         * Must be called under write lock.
+         *
+         * @param from Start of the region.
+         */
+        private synchronized void unmap(long from) {
+            assert lock.writeLockedByCurrentThread();
+
+            MappedByteBuffer[] wins0 = wins.clone();
+
+            for (int w = (int)(from / winSize); w < wins0.length; w++) {
+                MappedByteBuffer buf = wins0[w];
+
+                if (buf != null && (long)w * winSize + buf.capacity() > from) {
+                    release(buf);
+
+                    wins0[w] = null;
+                }
+            }
+
+            wins = wins0;
+
+            for (MappedByteBuffer buf : retired)
+                release(buf);
+
+            retired.clear();
+        }
+
+        /**
+         * Drops all mappings and closes file.
+         */
+        void close() {
+            lock.writeLock();
+
+            try {
+                unmap(0);
+
+                synchronized (this) {
+                    U.closeQuiet(raf);
+
+                    raf = null;
+                }
+            }
+            finally {
+                lock.writeUnlock();
+            }
+        }
+    }
+
     /**
      * Swap file.
      */
@@ -993,12 +1369,19 @@ public class GridFileSwapSpaceSpi extends GridSpiAdapter implements GridSwapSpac
         /** */
         private final GridFileSwapArray<SwapValue> arr = new GridFileSwapArray<>();
 
+        /** Memory-mapped reader, {@code null} if memory-mapped reads are disabled. */
+        @Nullable private final MappedReader mapped;
+
+        /** Number of reads through file channel. */
+        private final LongAdder chReads = new LongAdder();
+
         /**
          * @param file File.
          * @param readerStripes Reader stripes number.
+         * @param mappingWinSize Mapping window size, {@code 0} to disable memory-mapped reads.
          * @throws IOException In case of error.
          */
-        SwapFile(File file, int readerStripes) throws IOException {
+        SwapFile(File file, int readerStripes, int mappingWinSize) throws IOException {
             assert file != null;
 
             file.delete();
@@ -1013,6 +1396,54 @@ public class GridFileSwapSpaceSpi extends GridSpiAdapter implements GridSwapSpac
             writeCh = raf.getChannel();
 
             readCh = new StripedFileChannel(file, readerStripes);
+
+            mapped = mappingWinSize > 0 ? new MappedReader(file, mappingWinSize) : null;
+        }
+
+        /**
+         * Reads value from file.
+         *
+         * @param val Value.
+         * @param ch Read channel.
+         * @return Bytes or {@code null} if value has been concurrently removed.
+         * @throws GridSpiException If failed.
+         */
+        @Nullable byte[] read(SwapValue val, StripedFileChannel ch) throws GridSpiException {
+            if (mapped != null) {
+                byte[] v = mapped.read(val.pos, val.len);
+
+                if (v != null)
+                    return v;
+            }
+
+            chReads.increment();
+
+            return val.readValue(ch);
+        }
+
+        /**
+         * Truncates file. Mappings of truncated region are dropped first, since access to them would crash JVM.
+         *
+         * @param newLen New length.
+         * @throws IOException If failed.
+         */
+        private void truncate(long newLen) throws IOException {
+            if (mapped == null) {
+                writeCh.truncate(newLen);
+
+                return;
+            }
+
+            mapped.lock.writeLock();
+
+            try {
+                mapped.unmap(newLen);
+
+                writeCh.truncate(newLen);
+            }
+            finally {
+                mapped.lock.writeUnlock();
+            }
         }
 
         /**
@@ -1157,6 +1588,9 @@ public class GridFileSwapSpaceSpi extends GridSpiAdapter implements GridSwapSpac
 
             readCh.close();
 
+            if (mapped != null)
+                mapped.close();
+
             return U.delete(file);
         }
 
@@ -1339,7 +1773,7 @@ public class GridFileSwapSpaceSpi extends GridSpiAdapter implements GridSwapSpac
                 if (vals.isEmpty()) {
                     arr.truncate(1);
 
-                    writeCh.truncate(0);
+                    truncate(0);
 
                     len = 0;
 
@@ -1366,7 +1800,7 @@ public class GridFileSwapSpaceSpi extends GridSpiAdapter implements GridSwapSpac
                 arr.truncate(idx + 1);
 
                 if (len - beg > MIN_TRUNK_SIZE) {
-                    writeCh.truncate(beg);
+                    truncate(beg);
 
                     len = beg;
                 }
@@ -1445,9 +1879,11 @@ public class GridFileSwapSpaceSpi extends GridSpiAdapter implements GridSwapSpac
             try {
                 initializer.init(new Callable<Void>(){
                     @Override public Void call() throws Exception {
-                        left = new SwapFile(new File(dir, name + ".left"), readStripesNum);
+                        int winSize = mmapReads ? mappingWinSize : 0;
+
+                        left = new SwapFile(new File(dir, name + ".left"), readStripesNum, winSize);
 
-                        right = new SwapFile(new File(dir, name + ".right"), readStripesNum);
+                        right = new SwapFile(new File(dir, name + ".right"), readStripesNum, winSize);
 
                         final Object mux = new Object();
 
@@ -1551,6 +1987,18 @@ public class GridFileSwapSpaceSpi extends GridSpiAdapter implements GridSwapSpac
             return left.length() + right.length();
         }
 
+        /**
+         * Gets swap files of initialized space.
+         *
+         * @return Swap files.
+         */
+        Collection<SwapFile> files() {
+            SwapFile l = left;
+            SwapFile r = right;
+
+            return l == null || r == null ? Collections.<SwapFile>emptyList() : Arrays.asList(l, r);
+        }
+
         /**
          * Gets total space count.
          *
@@ -73,4 +73,53 @@ public interface GridFileSwapSpaceSpiMBean extends GridSpiManagementMBean {
      */
     @GridMBeanDescription("Read pool size.")
     public int getReadStripesNumber();
+
+    /**
+     * Gets flag indicating whether values are read from memory-mapped files.
+     *
+     * @return {@code True} if values are read from memory-mapped files.
+     */
+    @GridMBeanDescription("Whether values are read from memory-mapped files.")
+    public boolean isMemoryMappedReads();
+
+    /**
+     * Gets mapping window size in bytes.
+     *
+     * @return Mapping window size in bytes.
+     */
+    @GridMBeanDescription("Mapping window size in bytes.")
+    public int getMappingWindowSize();
+
+    /**
+     * Gets size of swap file regions currently mapped to memory.
+     *
+     * @return Mapped bytes.
+     */
+    @GridMBeanDescription("Size of swap file regions mapped to memory in bytes.")
+    public long getMappedBytes();
+
+    /**
+     * Gets number of values read from mapped memory.
+     *
+     * @return Number of values read from mapped memory.
+     */
+    @GridMBeanDescription("Number of values read from mapped memory.")
+    public long getMappedReads();
+
+    /**
+     * Gets number of values read through file channels.
+     *
+     * @return Number of values read through file channels.
+     */
+    @GridMBeanDescription("Number of values read through file channels.")
+    public long getChannelReads();
+
+    /**
+     * Gets number of major page faults of the whole process, i.e. faults which required disk read. Growth
+     * of this number relative to {@link #getMappedReads()} shows how often mapped reads miss OS page cache.
+     *
+     * @return Number of major page faults or {@code -1} if not supported by OS.
+     */
+    @GridMBeanDescription("Number of major page faults of the process (-1 if not supported by OS).")
+    public long getMajorPageFaults();
 }
\ No newline at end of file
@@ -0,0 +1,150 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.spi.swapspace.lsm;
+
+import org.gridgain.grid.util.typedef.internal.*;
+
+import java.io.*;
+
+/**
+ * Bloom filter of segment keys. Bit positions are derived from a single 64-bit key hash
+ * by double hashing.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+class GridLsmBloomFilter {
+    /** Maximum number of hash functions. */
+    private static final int MAX_HASHES = 30;
+
+    /** Bits. */
+    private final long[] bits;
+
+    /** Number of hash functions. */
+    private final int hashes;
+
+    /**
+     * @param expected Expected number of keys.
+     * @param bitsPerKey Bits per key.
+     */
+    GridLsmBloomFilter(long expected, int bitsPerKey) {
+        assert bitsPerKey > 0;
+
+        long nbits = Math.max(64, expected * bitsPerKey);
+
+        bits = new long[(int)Math.min(Integer.MAX_VALUE - 8, (nbits + 63) >>> 6)];
+
+        // Optimal number of hash functions is bitsPerKey * ln(2).
+        hashes = Math.max(1, Math.min(MAX_HASHES, (int)Math.round(bitsPerKey * 0.69)));
+    }
+
+    /**
+     * @param bits Bits.
+     * @param hashes Number of hash functions.
+     */
+    private GridLsmBloomFilter(long[] bits, int hashes) {
+        this.bits = bits;
+        this.hashes = hashes;
+    }
+
+    /**
+     * @param hash Key hash.
+     */
+    void add(long hash) {
+        long nbits = (long)bits.length << 6;
+
+        int h1 = (int)hash;
+        int h2 = (int)(hash >>> 32);
+
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((h1 + (long)i * h2) & Long.MAX_VALUE) % nbits;
+
+            bits[(int)(bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * @param hash Key hash.
+     * @return {@code False} if key is definitely absent.
+     */
+    boolean mightContain(long hash) {
+        long nbits = (long)bits.length << 6;
+
+        int h1 = (int)hash;
+        int h2 = (int)(hash >>> 32);
+
+        for (int i = 0; i < hashes; i++) {
+            long bit = ((h1 + (long)i * h2) & Long.MAX_VALUE) % nbits;
+
+            if ((bits[(int)(bit >>> 6)] & (1L << bit)) == 0)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return Size of serialized filter in bytes.
+     */
+    int serializedSize() {
+        return 8 + (bits.length << 3);
+    }
+
+    /**
+     * @param out Output.
+     * @throws IOException If failed.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(hashes);
+        out.writeInt(bits.length);
+
+        for (long l : bits)
+            out.writeLong(l);
+    }
+
+    /**
+     * @param in Input.
+     * @return Bloom filter.
+     * @throws IOException If failed.
+     */
+    static GridLsmBloomFilter readFrom(DataInput in) throws IOException {
+        int hashes = in.readInt();
+        int len = in.readInt();
+
+        if (hashes <= 0 || hashes > MAX_HASHES || len <= 0)
+            throw new IOException("Invalid bloom filter [hashes=" + hashes + ", len=" + len + ']');
+
+        long[] bits = new long[len];
+
+        for (int i = 0; i < len; i++)
+            bits[i] = in.readLong();
+
+        return new GridLsmBloomFilter(bits, hashes);
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return S.toString(GridLsmBloomFilter.class, this, "bits", (long)bits.length << 6);
+    }
+}
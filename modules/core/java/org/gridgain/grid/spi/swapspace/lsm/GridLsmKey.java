@@ -0,0 +1,165 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.spi.swapspace.lsm;
+
+import org.gridgain.grid.util.typedef.internal.*;
+
+import java.util.*;
+
+/**
+ * Key of {@link GridLsmSwapSpaceSpi} entry. Keys are ordered by partition and then by
+ * key bytes compared as unsigned, so entries of the same partition are stored contiguously.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+final class GridLsmKey implements Comparable<GridLsmKey> {
+    /** FNV-1a offset basis. */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    /** FNV-1a prime. */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** Empty key bytes. */
+    private static final byte[] EMPTY = new byte[0];
+
+    /** Partition. */
+    private final int part;
+
+    /** Key bytes. */
+    private final byte[] bytes;
+
+    /** Hash code. */
+    private final int hash;
+
+    /**
+     * @param part Partition.
+     * @param bytes Key bytes.
+     */
+    GridLsmKey(int part, byte[] bytes) {
+        assert bytes != null;
+
+        this.part = part;
+        this.bytes = bytes;
+
+        hash = 31 * part + Arrays.hashCode(bytes);
+    }
+
+    /**
+     * @param part Partition.
+     * @return Key which is less than any other key of the partition.
+     */
+    static GridLsmKey first(int part) {
+        return new GridLsmKey(part, EMPTY);
+    }
+
+    /**
+     * @return Partition.
+     */
+    int partition() {
+        return part;
+    }
+
+    /**
+     * @return Key bytes.
+     */
+    byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * @return Approximate memory size of the key.
+     */
+    int memorySize() {
+        return bytes.length + 48;
+    }
+
+    /**
+     * Gets 64-bit hash used by bloom filters. Independent of {@link #hashCode()}.
+     *
+     * @return 64-bit hash.
+     */
+    long hash64() {
+        long h = FNV_OFFSET;
+
+        for (int i = 0; i < 4; i++) {
+            h ^= (part >>> (i << 3)) & 0xff;
+            h *= FNV_PRIME;
+        }
+
+        for (byte b : bytes) {
+            h ^= b & 0xff;
+            h *= FNV_PRIME;
+        }
+
+        // Final avalanche, FNV alone mixes high bits poorly.
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+
+        return h;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int compareTo(GridLsmKey o) {
+        if (part != o.part)
+            return part < o.part ? -1 : 1;
+
+        byte[] b = o.bytes;
+
+        int len = Math.min(bytes.length, b.length);
+
+        for (int i = 0; i < len; i++) {
+            int c = (bytes[i] & 0xff) - (b[i] & 0xff);
+
+            if (c != 0)
+                return c;
+        }
+
+        return bytes.length - b.length;
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof GridLsmKey))
+            return false;
+
+        GridLsmKey other = (GridLsmKey)o;
+
+        return part == other.part && hash == other.hash && Arrays.equals(bytes, other.bytes);
+    }
+
+    /** {@inheritDoc} */
+    @Override public int hashCode() {
+        return hash;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return S.toString(GridLsmKey.class, this, "len", bytes.length);
+    }
+}
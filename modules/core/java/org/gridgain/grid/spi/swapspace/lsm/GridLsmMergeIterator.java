@@ -0,0 +1,151 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.spi.swapspace.lsm;
+
+import java.util.*;
+
+/**
+ * Merges sorted sources of {@link GridLsmSwapSpaceSpi} space into a single sorted sequence. If the same key
+ * is present in several sources, only the entry of the newest source is returned.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+class GridLsmMergeIterator implements Iterator<Map.Entry<GridLsmKey, byte[]>> {
+    /** Heads of sources ordered by key and then by source rank. */
+    private final PriorityQueue<Head> heads;
+
+    /** Whether removed entries should be skipped. */
+    private final boolean skipTombstones;
+
+    /** Next entry. */
+    private Map.Entry<GridLsmKey, byte[]> next;
+
+    /**
+     * @param srcs Sorted sources, newest first.
+     * @param skipTombstones Whether removed entries should be skipped.
+     */
+    GridLsmMergeIterator(List<? extends Iterator<? extends Map.Entry<GridLsmKey, byte[]>>> srcs,
+        boolean skipTombstones) {
+        this.skipTombstones = skipTombstones;
+
+        heads = new PriorityQueue<>(Math.max(1, srcs.size()));
+
+        for (int i = 0; i < srcs.size(); i++) {
+            Iterator<? extends Map.Entry<GridLsmKey, byte[]>> it = srcs.get(i);
+
+            if (it.hasNext())
+                heads.add(new Head(i, it));
+        }
+
+        advance();
+    }
+
+    /**
+     * Moves to the next entry.
+     */
+    private void advance() {
+        next = null;
+
+        while (next == null && !heads.isEmpty()) {
+            Head h = heads.poll();
+
+            Map.Entry<GridLsmKey, byte[]> e = h.entry;
+
+            // Older versions of the same key.
+            while (!heads.isEmpty() && heads.peek().entry.getKey().equals(e.getKey()))
+                requeue(heads.poll());
+
+            requeue(h);
+
+            if (!skipTombstones || e.getValue() != GridLsmSegment.TOMBSTONE)
+                next = e;
+        }
+    }
+
+    /**
+     * @param h Head to move forward.
+     */
+    private void requeue(Head h) {
+        if (h.it.hasNext()) {
+            h.entry = h.it.next();
+
+            heads.add(h);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public boolean hasNext() {
+        return next != null;
+    }
+
+    /** {@inheritDoc} */
+    @Override public Map.Entry<GridLsmKey, byte[]> next() {
+        Map.Entry<GridLsmKey, byte[]> res = next;
+
+        if (res == null)
+            throw new NoSuchElementException();
+
+        advance();
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Current entry of a source.
+     */
+    private static class Head implements Comparable<Head> {
+        /** Source rank, smaller is newer. */
+        private final int rank;
+
+        /** Source. */
+        private final Iterator<? extends Map.Entry<GridLsmKey, byte[]>> it;
+
+        /** Current entry. */
+        private Map.Entry<GridLsmKey, byte[]> entry;
+
+        /**
+         * @param rank Source rank.
+         * @param it Source.
+         */
+        private Head(int rank, Iterator<? extends Map.Entry<GridLsmKey, byte[]>> it) {
+            this.rank = rank;
+            this.it = it;
+
+            entry = it.next();
+        }
+
+        /** {@inheritDoc} */
+        @Override public int compareTo(Head o) {
+            int c = entry.getKey().compareTo(o.entry.getKey());
+
+            return c != 0 ? c : rank < o.rank ? -1 : rank > o.rank ? 1 : 0;
+        }
+    }
+}
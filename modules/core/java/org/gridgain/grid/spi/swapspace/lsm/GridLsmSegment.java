@@ -0,0 +1,587 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.spi.swapspace.lsm;
+
+import org.gridgain.grid.*;
+import org.gridgain.grid.util.typedef.*;
+import org.gridgain.grid.util.typedef.internal.*;
+import org.jetbrains.annotations.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Immutable sorted segment of {@link GridLsmSwapSpaceSpi} space. Segment file consists of
+ * <ul>
+ *     <li>data: records {@code [part][keyLen][valLen][key][val]} sorted by {@link GridLsmKey},
+ *     {@code valLen} is {@code -1} for removed entries;</li>
+ *     <li>sparse index: {@code [cnt]} followed by {@code [part][keyLen][key][offset]} of the first record
+ *     of every data block;</li>
+ *     <li>bloom filter of all keys of the segment;</li>
+ *     <li>footer: {@code [indexOffset][bloomOffset][count][level][magic]}.</li>
+ * </ul>
+ * Segment is opened from its file only, so index and bloom filter loaded in memory are exactly the
+ * ones stored on disk. Point reads check bloom filter, find the block by binary search in sparse index
+ * and read a single block.
+ * <p>
+ * Segment is reference counted: readers {@link #acquire()} segment before use, and file is closed
+ * and deleted when the last reference is released after segment has been replaced by compaction.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+class GridLsmSegment {
+    /** Value returned for removed entries. */
+    static final byte[] TOMBSTONE = new byte[0];
+
+    /** Magic number. */
+    private static final int MAGIC = 0x4c534d31;
+
+    /** Footer size. */
+    private static final int FOOTER_SIZE = 8 + 8 + 8 + 4 + 4;
+
+    /** Record header size. */
+    private static final int REC_HDR_SIZE = 12;
+
+    /** Buffer size for sequential reads and writes. */
+    private static final int STREAM_BUF_SIZE = 64 * 1024;
+
+    /** File. */
+    private final File file;
+
+    /** Segment ID, greater for newer segments. */
+    private final long id;
+
+    /** Compaction level. */
+    private final int level;
+
+    /** File. */
+    private final RandomAccessFile raf;
+
+    /** Channel for positional reads. */
+    private final FileChannel ch;
+
+    /** Partitions of index keys. */
+    private final int[] idxParts;
+
+    /** Index keys. */
+    private final byte[][] idxKeys;
+
+    /** Offsets of index blocks. */
+    private final long[] idxOffs;
+
+    /** End of data. */
+    private final long dataEnd;
+
+    /** Number of records, including removed entries. */
+    private final long cnt;
+
+    /** Bloom filter. */
+    private final GridLsmBloomFilter bloom;
+
+    /** References. */
+    private final AtomicInteger refs = new AtomicInteger(1);
+
+    /**
+     * @param file File.
+     * @param id Segment ID.
+     * @throws IOException If failed.
+     */
+    private GridLsmSegment(File file, long id) throws IOException {
+        this.file = file;
+        this.id = id;
+
+        raf = new RandomAccessFile(file, "r");
+
+        boolean ok = false;
+
+        try {
+            ch = raf.getChannel();
+
+            long len = ch.size();
+
+            if (len < FOOTER_SIZE)
+                throw new IOException("Segment file is too short: " + file.getAbsolutePath());
+
+            DataInputStream footer = input(len - FOOTER_SIZE, FOOTER_SIZE);
+
+            long idxOff = footer.readLong();
+            long bloomOff = footer.readLong();
+
+            cnt = footer.readLong();
+            level = footer.readInt();
+
+            if (footer.readInt() != MAGIC || idxOff > bloomOff || bloomOff > len - FOOTER_SIZE)
+                throw new IOException("Invalid segment file: " + file.getAbsolutePath());
+
+            dataEnd = idxOff;
+
+            DataInputStream idx = input(idxOff, (int)(bloomOff - idxOff));
+
+            int idxCnt = idx.readInt();
+
+            idxParts = new int[idxCnt];
+            idxKeys = new byte[idxCnt][];
+            idxOffs = new long[idxCnt];
+
+            for (int i = 0; i < idxCnt; i++) {
+                idxParts[i] = idx.readInt();
+                idxKeys[i] = new byte[idx.readInt()];
+
+                idx.readFully(idxKeys[i]);
+
+                idxOffs[i] = idx.readLong();
+            }
+
+            bloom = GridLsmBloomFilter.readFrom(input(bloomOff, (int)(len - FOOTER_SIZE - bloomOff)));
+
+            ok = true;
+        }
+        finally {
+            if (!ok)
+                U.closeQuiet(raf);
+        }
+    }
+
+    /**
+     * Writes sorted entries to a new segment file and opens it.
+     *
+     * @param file File.
+     * @param id Segment ID.
+     * @param level Compaction level.
+     * @param it Entries in ascending key order, removed entries have {@link #TOMBSTONE} value.
+     * @param expected Expected number of entries.
+     * @param dropTombstones Whether removed entries should be skipped.
+     * @param bitsPerKey Bloom filter bits per key.
+     * @param blockSize Data block size.
+     * @return Segment or {@code null} if there was nothing to write.
+     * @throws IOException If failed.
+     */
+    @Nullable static GridLsmSegment write(File file, long id, int level,
+        Iterator<? extends Map.Entry<GridLsmKey, byte[]>> it, long expected, boolean dropTombstones,
+        int bitsPerKey, int blockSize) throws IOException {
+        GridLsmBloomFilter bloom = new GridLsmBloomFilter(expected, bitsPerKey);
+
+        List<GridLsmKey> idxKeys = new ArrayList<>();
+        List<Long> idxOffs = new ArrayList<>();
+
+        long off = 0;
+        long lastIdxOff = -1;
+        long cnt = 0;
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file),
+            STREAM_BUF_SIZE));
+
+        boolean ok = false;
+
+        try {
+            GridLsmKey prev = null;
+
+            while (it.hasNext()) {
+                Map.Entry<GridLsmKey, byte[]> e = it.next();
+
+                GridLsmKey key = e.getKey();
+                byte[] val = e.getValue();
+
+                assert prev == null || prev.compareTo(key) < 0 : "Entries are not sorted: " + prev + ", " + key;
+
+                prev = key;
+
+                if (val == TOMBSTONE && dropTombstones)
+                    continue;
+
+                if (lastIdxOff < 0 || off - lastIdxOff >= blockSize) {
+                    idxKeys.add(key);
+                    idxOffs.add(off);
+
+                    lastIdxOff = off;
+                }
+
+                out.writeInt(key.partition());
+                out.writeInt(key.bytes().length);
+                out.writeInt(val == TOMBSTONE ? -1 : val.length);
+                out.write(key.bytes());
+
+                off += REC_HDR_SIZE + key.bytes().length;
+
+                if (val != TOMBSTONE) {
+                    out.write(val);
+
+                    off += val.length;
+                }
+
+                bloom.add(key.hash64());
+
+                cnt++;
+            }
+
+            if (cnt == 0) {
+                U.closeQuiet(out);
+
+                if (!file.delete())
+                    throw new IOException("Failed to delete empty segment file: " + file.getAbsolutePath());
+
+                ok = true;
+
+                return null;
+            }
+
+            long idxOff = off;
+
+            out.writeInt(idxKeys.size());
+
+            off += 4;
+
+            for (int i = 0; i < idxKeys.size(); i++) {
+                GridLsmKey key = idxKeys.get(i);
+
+                out.writeInt(key.partition());
+                out.writeInt(key.bytes().length);
+                out.write(key.bytes());
+                out.writeLong(idxOffs.get(i));
+
+                off += 16 + key.bytes().length;
+            }
+
+            long bloomOff = off;
+
+            bloom.writeTo(out);
+
+            out.writeLong(idxOff);
+            out.writeLong(bloomOff);
+            out.writeLong(cnt);
+            out.writeInt(level);
+            out.writeInt(MAGIC);
+
+            out.close();
+
+            GridLsmSegment seg = new GridLsmSegment(file, id);
+
+            ok = true;
+
+            return seg;
+        }
+        finally {
+            if (!ok) {
+                U.closeQuiet(out);
+
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * @return Segment ID.
+     */
+    long id() {
+        return id;
+    }
+
+    /**
+     * @return Compaction level.
+     */
+    int level() {
+        return level;
+    }
+
+    /**
+     * @return Number of records, including removed entries.
+     */
+    long count() {
+        return cnt;
+    }
+
+    /**
+     * @return File length.
+     */
+    long length() {
+        return file.length();
+    }
+
+    /**
+     * @return Size of sparse index and bloom filter in memory.
+     */
+    long indexMemorySize() {
+        long size = bloom.serializedSize() + idxKeys.length * 32L;
+
+        for (byte[] k : idxKeys)
+            size += k.length;
+
+        return size;
+    }
+
+    /**
+     * Acquires reference.
+     *
+     * @return {@code False} if segment has already been released.
+     */
+    boolean acquire() {
+        while (true) {
+            int r = refs.get();
+
+            if (r == 0)
+                return false;
+
+            if (refs.compareAndSet(r, r + 1))
+                return true;
+        }
+    }
+
+    /**
+     * Releases reference. Segment file is closed and deleted when the last reference is released.
+     */
+    void release() {
+        int r = refs.decrementAndGet();
+
+        assert r >= 0;
+
+        if (r == 0) {
+            U.closeQuiet(raf);
+
+            file.delete();
+        }
+    }
+
+    /**
+     * @param hash Key hash.
+     * @return {@code False} if key is definitely absent in this segment.
+     */
+    boolean mightContain(long hash) {
+        return bloom.mightContain(hash);
+    }
+
+    /**
+     * Reads value. Caller must hold a reference and should check bloom filter first.
+     *
+     * @param key Key.
+     * @return Value, {@link #TOMBSTONE} if entry was removed or {@code null} if key is not in this segment.
+     * @throws IOException If failed.
+     */
+    @Nullable byte[] get(GridLsmKey key) throws IOException {
+        int blk = floorBlock(key);
+
+        if (blk < 0)
+            return null;
+
+        long start = idxOffs[blk];
+        long end = blk + 1 < idxOffs.length ? idxOffs[blk + 1] : dataEnd;
+
+        ByteBuffer buf = read(start, (int)(end - start));
+
+        while (buf.remaining() >= REC_HDR_SIZE) {
+            int part = buf.getInt();
+            int keyLen = buf.getInt();
+            int valLen = buf.getInt();
+
+            byte[] keyBytes = new byte[keyLen];
+
+            buf.get(keyBytes);
+
+            int c = new GridLsmKey(part, keyBytes).compareTo(key);
+
+            if (c == 0) {
+                if (valLen < 0)
+                    return TOMBSTONE;
+
+                byte[] val = new byte[valLen];
+
+                buf.get(val);
+
+                return val;
+            }
+
+            if (c > 0)
+                return null;
+
+            if (valLen > 0)
+                buf.position(buf.position() + valLen);
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets iterator over records starting from given partition. Caller must hold a reference
+     * while using the iterator.
+     *
+     * @param part Partition to start from, {@code null} to iterate from the beginning.
+     * @return Iterator over records in ascending key order, removed entries have {@link #TOMBSTONE} value.
+     */
+    Iterator<Map.Entry<GridLsmKey, byte[]>> iterator(@Nullable Integer part) {
+        long start = 0;
+
+        if (part != null) {
+            int blk = floorBlock(GridLsmKey.first(part));
+
+            if (blk >= 0)
+                start = idxOffs[blk];
+        }
+
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new ChannelInputStream(start),
+            STREAM_BUF_SIZE));
+
+        final long start0 = start;
+
+        return new Iterator<Map.Entry<GridLsmKey, byte[]>>() {
+            /** Current offset. */
+            private long off = start0;
+
+            @Override public boolean hasNext() {
+                return off < dataEnd;
+            }
+
+            @Override public Map.Entry<GridLsmKey, byte[]> next() {
+                if (off >= dataEnd)
+                    throw new NoSuchElementException();
+
+                try {
+                    int part = in.readInt();
+                    byte[] keyBytes = new byte[in.readInt()];
+                    int valLen = in.readInt();
+
+                    in.readFully(keyBytes);
+
+                    byte[] val = TOMBSTONE;
+
+                    if (valLen >= 0) {
+                        val = new byte[valLen];
+
+                        in.readFully(val);
+                    }
+
+                    off += REC_HDR_SIZE + keyBytes.length + Math.max(0, valLen);
+
+                    return new T2<>(new GridLsmKey(part, keyBytes), val);
+                }
+                catch (IOException e) {
+                    throw new GridRuntimeException("Failed to read segment: " + file.getAbsolutePath(), e);
+                }
+            }
+
+            @Override public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * @param key Key.
+     * @return Index of the last block which first key is not greater than given one, {@code -1} if none.
+     */
+    private int floorBlock(GridLsmKey key) {
+        int lo = 0;
+        int hi = idxOffs.length - 1;
+        int res = -1;
+
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+
+            if (new GridLsmKey(idxParts[mid], idxKeys[mid]).compareTo(key) <= 0) {
+                res = mid;
+                lo = mid + 1;
+            }
+            else
+                hi = mid - 1;
+        }
+
+        return res;
+    }
+
+    /**
+     * @param pos Position.
+     * @param len Length.
+     * @return Buffer with read bytes.
+     * @throws IOException If failed.
+     */
+    private ByteBuffer read(long pos, int len) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(len);
+
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, pos + buf.position());
+
+            if (n < 0)
+                throw new EOFException("Unexpected end of segment file: " + file.getAbsolutePath());
+        }
+
+        buf.flip();
+
+        return buf;
+    }
+
+    /**
+     * @param pos Position.
+     * @param len Length.
+     * @return Input stream over read bytes.
+     * @throws IOException If failed.
+     */
+    private DataInputStream input(long pos, int len) throws IOException {
+        ByteBuffer buf = read(pos, len);
+
+        return new DataInputStream(new ByteArrayInputStream(buf.array(), 0, len));
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return S.toString(GridLsmSegment.class, this, "file", file.getName(), "blocks", idxOffs.length);
+    }
+
+    /**
+     * Input stream which reads segment channel with positional reads, so that many
+     * iterators can scan the same segment concurrently.
+     */
+    private class ChannelInputStream extends InputStream {
+        /** Position. */
+        private long pos;
+
+        /**
+         * @param pos Start position.
+         */
+        private ChannelInputStream(long pos) {
+            this.pos = pos;
+        }
+
+        /** {@inheritDoc} */
+        @Override public int read() throws IOException {
+            byte[] b = new byte[1];
+
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        /** {@inheritDoc} */
+        @Override public int read(byte[] b, int off, int len) throws IOException {
+            if (pos >= dataEnd)
+                return -1;
+
+            int n = ch.read(ByteBuffer.wrap(b, off, (int)Math.min(len, dataEnd - pos)), pos);
+
+            if (n > 0)
+                pos += n;
+
+            return n;
+        }
+    }
+}
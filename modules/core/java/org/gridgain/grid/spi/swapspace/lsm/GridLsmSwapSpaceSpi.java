@@ -0,0 +1,1606 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.spi.swapspace.lsm;
+
+import org.gridgain.grid.*;
+import org.gridgain.grid.lang.*;
+import org.gridgain.grid.logger.*;
+import org.gridgain.grid.marshaller.*;
+import org.gridgain.grid.resources.*;
+import org.gridgain.grid.spi.*;
+import org.gridgain.grid.spi.swapspace.*;
+import org.gridgain.grid.util.*;
+import org.gridgain.grid.util.LongAdder;
+import org.gridgain.grid.util.typedef.*;
+import org.gridgain.grid.util.typedef.internal.*;
+import org.jetbrains.annotations.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+import static org.gridgain.grid.events.GridEventType.*;
+
+/**
+ * Log-structured swap space SPI implementation. Unlike
+ * {@link org.gridgain.grid.spi.swapspace.file.GridFileSwapSpaceSpi} this SPI does not keep swapped keys in memory,
+ * so amount of swapped data is limited by disk size rather than by heap size.
+ * <p>
+ * Every space accumulates updates in an in-memory sorted table (memtable). When memtable reaches configured
+ * size it is frozen and written to disk by background flusher thread as an immutable sorted segment. Each segment
+ * keeps a sparse index with one entry per data block and a bloom filter of its keys in memory, so a read of
+ * a key absent in segment usually does not touch the disk, and a read of a key present in segment reads
+ * a single block. Removes are written as tombstones.
+ * <p>
+ * Background compactor thread merges segments of the same level into a single segment of the next level as
+ * soon as their number reaches compaction threshold (see {@link #setCompactionThreshold(int)}), so the number of
+ * segments a read has to check grows only logarithmically with the amount of data. Readers and writers are never
+ * blocked by compaction. Writers are blocked only if flusher falls behind by more than two memtables.
+ * <p>
+ * Stores do not read previous values from disk. Overwrite of a key which has already been flushed to a segment
+ * is therefore counted as a new entry, so {@link #count(String)} and {@link #size(String)} may overestimate
+ * space contents if keys are overwritten without being removed first. Removes still read previous value,
+ * since it is passed to the caller.
+ * <p>
+ * <b>NOTE: This SPI does not support swap eviction currently, manual removes needed to reduce disk space
+ * consumption. Swapped data does not survive node restart.</b>
+ * <p>
+ * Every space has a name and when used in combination with in-memory data grid name and local node ID,
+ * space name represents the actual cache name associated with this swap space. Default name is {@code null}
+ * which is represented by {@link #DFLT_SPACE_NAME}.
+ *
+ * <h1 class="header">Configuration</h1>
+ * <h2 class="header">Mandatory</h2>
+ * This SPI has no mandatory configuration parameters.
+ * <h2 class="header">Optional SPI configuration.</h2>
+ * <ul>
+ *     <li>Base directory path (see {@link #setBaseDirectory(String)}).</li>
+ *     <li>Memtable size in bytes (see {@link #setMemtableSize(int)}).</li>
+ *     <li>Compaction threshold (see {@link #setCompactionThreshold(int)}).</li>
+ *     <li>Bloom filter bits per key (see {@link #setBloomFilterBitsPerKey(int)}).</li>
+ *     <li>Index block size in bytes (see {@link #setIndexBlockSize(int)}).</li>
+ * </ul>
+ *
+ * <h2 class="header">Java Example</h2>
+ * GridLsmSwapSpaceSpi needs to be explicitly configured to override default file-based swap space SPI.
+ * <pre name="code" class="java">
+ * GridLsmSwapSpaceSpi spi = new GridLsmSwapSpaceSpi();
+ *
+ * // Configure root folder path.
+ * spi.setBaseDirectory("/path/to/swap/folder");
+ *
+ * GridConfiguration cfg = new GridConfiguration();
+ *
+ * // Override default swap space SPI.
+ * cfg.setSwapSpaceSpi(spi);
+ *
+ * // Starts grid.
+ * G.start(cfg);
+ * </pre>
+ * <h2 class="header">Spring Example</h2>
+ * GridLsmSwapSpaceSpi can be configured from Spring XML configuration file:
+ * <pre name="code" class="xml">
+ * &lt;bean id=&quot;grid.cfg&quot; class=&quot;org.gridgain.grid.GridConfiguration&quot; scope=&quot;singleton&quot;&gt;
+ *     ...
+ *     &lt;property name=&quot;swapSpaceSpi&quot;&gt;
+ *         &lt;bean class=&quot;org.gridgain.grid.spi.swapspace.lsm.GridLsmSwapSpaceSpi&quot;&gt;
+ *             &lt;property name=&quot;baseDirectory&quot; value=&quot;/path/to/swap/folder&quot;/&gt;
+ *             &lt;property name=&quot;memtableSize&quot; value=&quot;8388608&quot;/&gt;
+ *         &lt;/bean&gt;
+ *     &lt;/property&gt;
+ *     ...
+ * &lt;/bean&gt;
+ * </pre>
+ * <p>
+ * <img src="http://www.gridgain.com/images/spring-small.png">
+ * <br>
+ * For information about Spring framework visit <a href="http://www.springframework.org/">www.springframework.org</a>
+ *
+ * @author @java.author
+ * @version @java.version
+ * @see GridSwapSpaceSpi
+ */
+@GridSpiInfo(
+    author = /*@java.spi.author*/"GridGain Systems",
+    url = /*@java.spi.url*/"www.gridgain.com",
+    email = /*@java.spi.email*/"support@gridgain.com",
+    version = /*@java.spi.version*/"x.x")
+@GridSpiMultipleInstancesSupport(true)
+public class GridLsmSwapSpaceSpi extends GridSpiAdapter implements GridSwapSpaceSpi, GridLsmSwapSpaceSpiMBean {
+    /** Default base directory. */
+    public static final String DFLT_BASE_DIR = "work/swapspace";
+
+    /** Default memtable size in bytes. */
+    public static final int DFLT_MEMTABLE_SIZE = 4 * 1024 * 1024;
+
+    /** Default number of segments on one level which triggers compaction. */
+    public static final int DFLT_COMPACTION_THRESHOLD = 4;
+
+    /** Default number of bloom filter bits per key, gives about 1% of false positives. */
+    public static final int DFLT_BLOOM_BITS_PER_KEY = 10;
+
+    /** Default index block size in bytes. */
+    public static final int DFLT_IDX_BLOCK_SIZE = 4 * 1024;
+
+    /** Name for {@code null} space. */
+    public static final String DFLT_SPACE_NAME = "gg-dflt-space";
+
+    /** Maximum number of frozen memtables waiting for flush before writers are blocked. */
+    private static final int MAX_FROZEN_MEMTABLES = 2;
+
+    /** Interval in milliseconds blocked writers check flusher state with. */
+    private static final long BACKPRESSURE_TIMEOUT = 100;
+
+    /** Number of key lock stripes. */
+    private static final int KEY_LOCK_STRIPES = 256;
+
+    /** Delay in milliseconds before failed flush or compaction is retried. */
+    private static final long RETRY_DELAY = 1000;
+
+    /** Approximate memory overhead of memtable entry. */
+    private static final int MEMTABLE_ENTRY_OVERHEAD = 64;
+
+    /** Spaces. */
+    private final ConcurrentMap<String, Space> spaces = new ConcurrentHashMap<>();
+
+    /** Segment ID generator. */
+    private final AtomicLong segIdGen = new AtomicLong();
+
+    /** Number of finished flushes. */
+    private final LongAdder flushCnt = new LongAdder();
+
+    /** Number of finished compactions. */
+    private final LongAdder compactionCnt = new LongAdder();
+
+    /** Number of segment reads avoided by bloom filters. */
+    private final LongAdder bloomSkips = new LongAdder();
+
+    /** Number of bloom filter false positives. */
+    private final LongAdder bloomFalsePositives = new LongAdder();
+
+    /** Base directory. */
+    private String baseDir = DFLT_BASE_DIR;
+
+    /** Memtable size. */
+    private int memtableSize = DFLT_MEMTABLE_SIZE;
+
+    /** Compaction threshold. */
+    private int compactionThreshold = DFLT_COMPACTION_THRESHOLD;
+
+    /** Bloom filter bits per key. */
+    private int bloomBitsPerKey = DFLT_BLOOM_BITS_PER_KEY;
+
+    /** Index block size. */
+    private int idxBlockSize = DFLT_IDX_BLOCK_SIZE;
+
+    /** Eviction listener. */
+    private volatile GridSwapSpaceSpiListener evictLsnr;
+
+    /** Directory. */
+    private File dir;
+
+    /** Logger. */
+    @GridLoggerResource
+    private GridLogger log;
+
+    /** Local node ID. */
+    @GridLocalNodeIdResource
+    private UUID locNodeId;
+
+    /** Name of the grid. */
+    @GridNameResource
+    private String gridName;
+
+    /** Marshaller. */
+    @GridMarshallerResource
+    private GridMarshaller marsh;
+
+    /** {@inheritDoc} */
+    @Override public String getBaseDirectory() {
+        return baseDir;
+    }
+
+    /**
+     * Sets base directory.
+     *
+     * @param baseDir Base directory.
+     */
+    @GridSpiConfiguration(optional = true)
+    public void setBaseDirectory(String baseDir) {
+        this.baseDir = baseDir;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getMemtableSize() {
+        return memtableSize;
+    }
+
+    /**
+     * Sets memtable size in bytes. Memtable is frozen and flushed to disk as a new segment once it occupies
+     * more memory than specified. Larger memtables produce fewer segments and less compaction work at the cost
+     * of heap memory: each space may hold up to {@code 3} memtables. Default is {@link #DFLT_MEMTABLE_SIZE}.
+     *
+     * @param memtableSize Memtable size in bytes.
+     */
+    @GridSpiConfiguration(optional = true)
+    public void setMemtableSize(int memtableSize) {
+        this.memtableSize = memtableSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    /**
+     * Sets number of segments on one level which triggers their compaction into a single segment of the next level.
+     * Smaller values mean fewer segments to check on read and more disk writes. Default is
+     * {@link #DFLT_COMPACTION_THRESHOLD}.
+     *
+     * @param compactionThreshold Compaction threshold.
+     */
+    @GridSpiConfiguration(optional = true)
+    public void setCompactionThreshold(int compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getBloomFilterBitsPerKey() {
+        return bloomBitsPerKey;
+    }
+
+    /**
+     * Sets number of bloom filter bits per key. Each additional bit roughly halves the number of false positives,
+     * i.e. disk reads of segments which do not contain the key. Default is {@link #DFLT_BLOOM_BITS_PER_KEY}.
+     *
+     * @param bloomBitsPerKey Bloom filter bits per key.
+     */
+    @GridSpiConfiguration(optional = true)
+    public void setBloomFilterBitsPerKey(int bloomBitsPerKey) {
+        this.bloomBitsPerKey = bloomBitsPerKey;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getIndexBlockSize() {
+        return idxBlockSize;
+    }
+
+    /**
+     * Sets size in bytes of segment data block covered by one entry of in-memory sparse index. Point read
+     * reads one block, so smaller blocks mean faster reads and more memory taken by index. Default is
+     * {@link #DFLT_IDX_BLOCK_SIZE}.
+     *
+     * @param idxBlockSize Index block size in bytes.
+     */
+    @GridSpiConfiguration(optional = true)
+    public void setIndexBlockSize(int idxBlockSize) {
+        this.idxBlockSize = idxBlockSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int getSegmentsCount() {
+        int res = 0;
+
+        for (Space space : spaces.values())
+            res += space.state.segs.size();
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getSegmentsSize() {
+        long res = 0;
+
+        for (Space space : spaces.values()) {
+            for (GridLsmSegment seg : space.state.segs)
+                res += seg.length();
+        }
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getIndexMemorySize() {
+        long res = 0;
+
+        for (Space space : spaces.values()) {
+            for (GridLsmSegment seg : space.state.segs)
+                res += seg.indexMemorySize();
+        }
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getFlushesCount() {
+        return flushCnt.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getCompactionsCount() {
+        return compactionCnt.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getBloomFilterSkips() {
+        return bloomSkips.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override public long getBloomFilterFalsePositives() {
+        return bloomFalsePositives.sum();
+    }
+
+    /** {@inheritDoc} */
+    @Override public void spiStart(@Nullable String gridName) throws GridSpiException {
+        assertParameter(!F.isEmpty(baseDir), "!F.isEmpty(baseDir)");
+        assertParameter(memtableSize > 0, "memtableSize > 0");
+        assertParameter(compactionThreshold > 1, "compactionThreshold > 1");
+        assertParameter(bloomBitsPerKey > 0, "bloomBitsPerKey > 0");
+        assertParameter(idxBlockSize > 0, "idxBlockSize > 0");
+
+        startStopwatch();
+
+        registerMBean(gridName, this, GridLsmSwapSpaceSpiMBean.class);
+
+        dir = new File(baseDir + File.separator + gridName + File.separator + locNodeId);
+
+        if (!dir.isAbsolute())
+            dir = new File(U.getGridGainHome(), dir.getPath());
+
+        if (dir.exists()) {
+            U.warn(log, "Swap directory already exists (will delete): " + dir.getAbsolutePath());
+
+            if (!U.delete(dir))
+                throw new GridSpiException("Failed to delete swap directory: " + dir.getAbsolutePath());
+        }
+
+        if (!U.mkdirs(dir))
+            throw new GridSpiException("Failed to create swap directory: " + dir.getAbsolutePath());
+
+        if (!dir.canRead())
+            throw new GridSpiException("Can't read from swap directory: " + dir.getAbsolutePath());
+
+        if (!dir.canWrite())
+            throw new GridSpiException("Can't write to swap directory: " + dir.getAbsolutePath());
+
+        if (log.isDebugEnabled()) {
+            log.debug(configInfo("baseDir", baseDir));
+            log.debug(configInfo("memtableSize", memtableSize));
+            log.debug(configInfo("compactionThreshold", compactionThreshold));
+            log.debug(configInfo("bloomBitsPerKey", bloomBitsPerKey));
+            log.debug(configInfo("idxBlockSize", idxBlockSize));
+        }
+
+        if (log.isDebugEnabled())
+            log.debug(startInfo());
+    }
+
+    /** {@inheritDoc} */
+    @Override public void spiStop() throws GridSpiException {
+        unregisterMBean();
+
+        for (Space space : spaces.values()) {
+            try {
+                space.stop();
+            }
+            catch (GridInterruptedException e) {
+                U.error(log, "Interrupted.", e);
+            }
+        }
+
+        if (dir != null && dir.exists() && !U.delete(dir))
+            U.warn(log, "Failed to delete swap directory: " + dir.getAbsolutePath());
+
+        if (log.isDebugEnabled())
+            log.debug(stopInfo());
+    }
+
+    /** {@inheritDoc} */
+    @Override public void clear(@Nullable String spaceName) throws GridSpiException {
+        Space space = space(spaceName, false);
+
+        if (space == null)
+            return;
+
+        space.clear();
+
+        notifyListener(EVT_SWAP_SPACE_CLEARED, spaceName);
+    }
+
+    /** {@inheritDoc} */
+    @Override public long size(@Nullable String spaceName) throws GridSpiException {
+        Space space = space(spaceName, false);
+
+        if (space == null)
+            return 0;
+
+        return space.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override public long count(@Nullable String spaceName) throws GridSpiException {
+        Space space = space(spaceName, false);
+
+        if (space == null)
+            return 0;
+
+        return space.count();
+    }
+
+    /** {@inheritDoc} */
+    @Nullable @Override public byte[] read(@Nullable String spaceName, GridSwapKey key, GridSwapContext ctx)
+        throws GridSpiException {
+        assert key != null;
+        assert ctx != null;
+
+        Space space = space(spaceName, false);
+
+        if (space == null)
+            return null;
+
+        byte[] val = space.read(lsmKey(key));
+
+        notifyListener(EVT_SWAP_SPACE_DATA_READ, spaceName);
+
+        return val;
+    }
+
+    /** {@inheritDoc} */
+    @Override public Map<GridSwapKey, byte[]> readAll(@Nullable String spaceName, Iterable<GridSwapKey> keys,
+        GridSwapContext ctx) throws GridSpiException {
+        assert keys != null;
+        assert ctx != null;
+
+        Space space = space(spaceName, false);
+
+        if (space == null)
+            return Collections.emptyMap();
+
+        Map<GridSwapKey, byte[]> res = new HashMap<>();
+
+        for (GridSwapKey key : keys) {
+            if (key != null) {
+                byte[] val = space.read(lsmKey(key));
+
+                if (val != null)
+                    res.put(key, val);
+
+                notifyListener(EVT_SWAP_SPACE_DATA_READ, spaceName);
+            }
+        }
+
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void remove(@Nullable String spaceName, GridSwapKey key, @Nullable GridInClosure<byte[]> c,
+        GridSwapContext ctx) throws GridSpiException {
+        assert key != null;
+        assert ctx != null;
+
+        Space space = space(spaceName, false);
+
+        if (space == null)
+            return;
+
+        byte[] val = space.remove(lsmKey(key));
+
+        if (c != null)
+            c.apply(val);
+
+        notifyListener(EVT_SWAP_SPACE_DATA_REMOVED, spaceName);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void removeAll(@Nullable String spaceName, Collection<GridSwapKey> keys,
+        @Nullable GridBiInClosure<GridSwapKey, byte[]> c, GridSwapContext ctx) throws GridSpiException {
+        assert keys != null;
+        assert ctx != null;
+
+        Space space = space(spaceName, false);
+
+        if (space == null)
+            return;
+
+        for (GridSwapKey key : keys) {
+            if (key != null) {
+                byte[] val = space.remove(lsmKey(key));
+
+                if (c != null)
+                    c.apply(key, val);
+
+                notifyListener(EVT_SWAP_SPACE_DATA_REMOVED, spaceName);
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public void store(@Nullable String spaceName, GridSwapKey key, @Nullable byte[] val,
+        GridSwapContext ctx) throws GridSpiException {
+        assert key != null;
+        assert ctx != null;
+
+        Space space = space(spaceName, true);
+
+        assert space != null;
+
+        space.store(lsmKey(key), val);
+
+        notifyListener(EVT_SWAP_SPACE_DATA_STORED, spaceName);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void storeAll(@Nullable String spaceName, Map<GridSwapKey, byte[]> pairs,
+        GridSwapContext ctx) throws GridSpiException {
+        assert pairs != null;
+        assert ctx != null;
+
+        Space space = space(spaceName, true);
+
+        assert space != null;
+
+        for (Map.Entry<GridSwapKey, byte[]> pair : pairs.entrySet()) {
+            GridSwapKey key = pair.getKey();
+
+            if (key != null) {
+                space.store(lsmKey(key), pair.getValue());
+
+                notifyListener(EVT_SWAP_SPACE_DATA_STORED, spaceName);
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override public void setListener(@Nullable GridSwapSpaceSpiListener evictLsnr) {
+        this.evictLsnr = evictLsnr;
+    }
+
+    /** {@inheritDoc} */
+    @Nullable @Override public Collection<Integer> partitions(@Nullable String spaceName)
+        throws GridSpiException {
+        Space space = space(spaceName, false);
+
+        if (space == null)
+            return null;
+
+        return space.partitions();
+    }
+
+    /** {@inheritDoc} */
+    @Nullable @Override public <K> GridSpiCloseableIterator<K> keyIterator(@Nullable String spaceName,
+        final GridSwapContext ctx) throws GridSpiException {
+        assert ctx != null;
+
+        Space space = space(spaceName, false);
+
+        if (space == null)
+            return null;
+
+        final SpaceIterator iter = space.iterator(null);
+
+        return new GridCloseableIteratorAdapter<K>() {
+            @Override protected K onNext() throws GridException {
+                return marsh.unmarshal(iter.next().getKey().bytes(), ctx.classLoader());
+            }
+
+            @Override protected boolean onHasNext() {
+                return iter.hasNext();
+            }
+
+            @Override protected void onRemove() {
+                iter.remove();
+            }
+
+            @Override protected void onClose() {
+                iter.close();
+            }
+        };
+    }
+
+    /** {@inheritDoc} */
+    @Nullable @Override public GridSpiCloseableIterator<Map.Entry<byte[], byte[]>> rawIterator(
+        @Nullable String spaceName) throws GridSpiException {
+        Space space = space(spaceName, false);
+
+        if (space == null)
+            return null;
+
+        return rawIterator(space.iterator(null));
+    }
+
+    /** {@inheritDoc} */
+    @Nullable @Override public GridSpiCloseableIterator<Map.Entry<byte[], byte[]>> rawIterator(
+        @Nullable String spaceName, int part) throws GridSpiException {
+        Space space = space(spaceName, false);
+
+        if (space == null)
+            return null;
+
+        return rawIterator(space.iterator(part));
+    }
+
+    /**
+     * Creates raw iterator based on provided space iterator.
+     *
+     * @param iter Space iterator.
+     * @return Raw iterator.
+     */
+    private GridSpiCloseableIterator<Map.Entry<byte[], byte[]>> rawIterator(final SpaceIterator iter) {
+        return new GridCloseableIteratorAdapter<Map.Entry<byte[], byte[]>>() {
+            @Override protected Map.Entry<byte[], byte[]> onNext() {
+                Map.Entry<GridLsmKey, byte[]> x = iter.next();
+
+                return new T2<>(x.getKey().bytes(), x.getValue());
+            }
+
+            @Override protected boolean onHasNext() {
+                return iter.hasNext();
+            }
+
+            @Override protected void onRemove() {
+                iter.remove();
+            }
+
+            @Override protected void onClose() {
+                iter.close();
+            }
+        };
+    }
+
+    /**
+     * Gets key bytes.
+     *
+     * @param key Swap key.
+     * @return Key of LSM space.
+     * @throws GridSpiException In case of error.
+     */
+    private GridLsmKey lsmKey(GridSwapKey key) throws GridSpiException {
+        assert key != null;
+
+        byte[] keyBytes = key.keyBytes();
+
+        if (keyBytes == null) {
+            try {
+                keyBytes = marsh.marshal(key.key());
+            }
+            catch (GridException e) {
+                throw new GridSpiException("Failed to marshal key: " + key.key(), e);
+            }
+
+            key.keyBytes(keyBytes);
+        }
+
+        return new GridLsmKey(key.partition(), keyBytes);
+    }
+
+    /**
+     * Notifies eviction listener.
+     *
+     * @param evtType Event type.
+     * @param spaceName Space name.
+     */
+    private void notifyListener(int evtType, @Nullable String spaceName) {
+        GridSwapSpaceSpiListener lsnr = evictLsnr;
+
+        if (lsnr != null)
+            lsnr.onSwapEvent(evtType, spaceName, null);
+    }
+
+    /**
+     * Gets space by name.
+     *
+     * @param name Space name.
+     * @param create Whether to create space if it doesn't exist.
+     * @return Space.
+     * @throws GridSpiException In case of error.
+     */
+    @Nullable private Space space(@Nullable String name, boolean create) throws GridSpiException {
+        String masked = name != null ? name : DFLT_SPACE_NAME;
+
+        assert masked != null;
+
+        Space space = spaces.get(masked);
+
+        if (space == null && create) {
+            validateName(name);
+
+            Space old = spaces.putIfAbsent(masked, space = new Space(masked));
+
+            if (old != null)
+                space = old;
+        }
+
+        if (space != null)
+            space.initialize();
+
+        return space;
+    }
+
+    /**
+     * Validates space name.
+     *
+     * @param name Space name.
+     * @throws GridSpiException If name is invalid.
+     */
+    private void validateName(@Nullable String name) throws GridSpiException {
+        if (name == null)
+            return;
+
+        if (name.isEmpty())
+            throw new GridSpiException("Space name cannot be empty: " + name);
+        else if (DFLT_SPACE_NAME.equalsIgnoreCase(name))
+            throw new GridSpiException("Space name is reserved for default space: " + name);
+        else if (name.contains("/") || name.contains("\\"))
+            throw new GridSpiException("Space name contains invalid characters: " + name);
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return S.toString(GridLsmSwapSpaceSpi.class, this);
+    }
+
+    /**
+     * In-memory sorted table of recent updates.
+     */
+    private static class Memtable {
+        /** Entries, removed entries have {@link GridLsmSegment#TOMBSTONE} value. */
+        private final ConcurrentSkipListMap<GridLsmKey, byte[]> map = new ConcurrentSkipListMap<>();
+
+        /** Approximate occupied memory. */
+        private final AtomicLong mem = new AtomicLong();
+
+        /**
+         * @param key Key.
+         * @param val Value or {@link GridLsmSegment#TOMBSTONE}.
+         * @return Previous value in this memtable.
+         */
+        @Nullable private byte[] put(GridLsmKey key, byte[] val) {
+            byte[] old = map.put(key, val);
+
+            mem.addAndGet(key.memorySize() + val.length + MEMTABLE_ENTRY_OVERHEAD);
+
+            return old;
+        }
+
+        /**
+         * @param part Partition to start from, {@code null} to iterate from the beginning.
+         * @return Iterator over entries.
+         */
+        private Iterator<Map.Entry<GridLsmKey, byte[]>> iterator(@Nullable Integer part) {
+            return (part == null ? map : map.tailMap(GridLsmKey.first(part))).entrySet().iterator();
+        }
+    }
+
+    /**
+     * Immutable snapshot of frozen memtables and segments of a space.
+     */
+    private static class State {
+        /** Empty state. */
+        private static final State EMPTY = new State(Collections.<Memtable>emptyList(),
+            Collections.<GridLsmSegment>emptyList());
+
+        /** Frozen memtables waiting for flush, newest first. */
+        private final List<Memtable> frozen;
+
+        /** Segments, newest first. Levels never decrease from newest segment to oldest. */
+        private final List<GridLsmSegment> segs;
+
+        /**
+         * @param frozen Frozen memtables.
+         * @param segs Segments.
+         */
+        private State(List<Memtable> frozen, List<GridLsmSegment> segs) {
+            this.frozen = frozen;
+            this.segs = segs;
+        }
+
+        /**
+         * @param mem Memtable to freeze.
+         * @return New state.
+         */
+        private State freeze(Memtable mem) {
+            List<Memtable> frozen0 = new ArrayList<>(frozen.size() + 1);
+
+            frozen0.add(mem);
+            frozen0.addAll(frozen);
+
+            return new State(Collections.unmodifiableList(frozen0), segs);
+        }
+
+        /**
+         * @param mem Flushed memtable.
+         * @param seg Segment memtable was flushed to, {@code null} if memtable contained nothing to flush.
+         * @return New state.
+         */
+        private State flushed(Memtable mem, @Nullable GridLsmSegment seg) {
+            List<Memtable> frozen0 = new ArrayList<>(frozen);
+
+            frozen0.remove(mem);
+
+            List<GridLsmSegment> segs0 = new ArrayList<>(segs.size() + 1);
+
+            if (seg != null)
+                segs0.add(seg);
+
+            segs0.addAll(segs);
+
+            return new State(Collections.unmodifiableList(frozen0), Collections.unmodifiableList(segs0));
+        }
+
+        /**
+         * @param run Compacted segments.
+         * @param seg Result of compaction, {@code null} if nothing was left after compaction.
+         * @return New state.
+         */
+        private State compacted(List<GridLsmSegment> run, @Nullable GridLsmSegment seg) {
+            int idx = segs.indexOf(run.get(0));
+
+            assert idx >= 0 && segs.subList(idx, idx + run.size()).equals(run);
+
+            List<GridLsmSegment> segs0 = new ArrayList<>(segs.size() - run.size() + 1);
+
+            segs0.addAll(segs.subList(0, idx));
+
+            if (seg != null)
+                segs0.add(seg);
+
+            segs0.addAll(segs.subList(idx + run.size(), segs.size()));
+
+            return new State(frozen, Collections.unmodifiableList(segs0));
+        }
+    }
+
+    /**
+     * Iterator over space entries. Holds references to segments it reads until closed or exhausted.
+     */
+    private class SpaceIterator implements Iterator<Map.Entry<GridLsmKey, byte[]>> {
+        /** Space. */
+        private final Space space;
+
+        /** Merged entries. */
+        private final Iterator<Map.Entry<GridLsmKey, byte[]>> it;
+
+        /** Partition or {@code null} for all partitions. */
+        private final Integer part;
+
+        /** Acquired segments. */
+        private List<GridLsmSegment> segs;
+
+        /** Next entry. */
+        private Map.Entry<GridLsmKey, byte[]> next;
+
+        /** Last returned entry. */
+        private Map.Entry<GridLsmKey, byte[]> last;
+
+        /**
+         * @param space Space.
+         * @param it Merged entries.
+         * @param part Partition or {@code null} for all partitions.
+         * @param segs Acquired segments.
+         */
+        private SpaceIterator(Space space, Iterator<Map.Entry<GridLsmKey, byte[]>> it, @Nullable Integer part,
+            List<GridLsmSegment> segs) {
+            this.space = space;
+            this.it = it;
+            this.part = part;
+            this.segs = segs;
+
+            advance();
+        }
+
+        /**
+         * Moves to the next entry.
+         */
+        private void advance() {
+            next = null;
+
+            while (it.hasNext()) {
+                Map.Entry<GridLsmKey, byte[]> e = it.next();
+
+                int p = e.getKey().partition();
+
+                if (part == null || p == part) {
+                    next = e;
+
+                    return;
+                }
+
+                if (p > part)
+                    break;
+            }
+
+            close();
+        }
+
+        /** {@inheritDoc} */
+        @Override public boolean hasNext() {
+            return next != null;
+        }
+
+        /** {@inheritDoc} */
+        @Override public Map.Entry<GridLsmKey, byte[]> next() {
+            Map.Entry<GridLsmKey, byte[]> res = next;
+
+            if (res == null)
+                throw new NoSuchElementException();
+
+            advance();
+
+            last = res;
+
+            return res;
+        }
+
+        /** {@inheritDoc} */
+        @Override public void remove() {
+            if (last == null)
+                throw new IllegalStateException();
+
+            try {
+                space.remove(last.getKey());
+            }
+            catch (GridSpiException e) {
+                throw new GridRuntimeException(e);
+            }
+            finally {
+                last = null;
+            }
+        }
+
+        /**
+         * Releases acquired segments.
+         */
+        private void close() {
+            List<GridLsmSegment> segs0 = segs;
+
+            if (segs0 != null) {
+                segs = null;
+
+                for (GridLsmSegment seg : segs0)
+                    seg.release();
+            }
+        }
+    }
+
+    /**
+     * Space.
+     */
+    private class Space {
+        /** Space name. */
+        private final String name;
+
+        /** */
+        private final GridAtomicInitializer<Void> initializer = new GridAtomicInitializer<>();
+
+        /** Mutex guarding state changes. */
+        private final Object mux = new Object();
+
+        /**
+         * Memtable lock. Updates of active memtable are done under read lock, active memtable
+         * is frozen under write lock.
+         */
+        private final ReadWriteLock memLock = new ReentrantReadWriteLock();
+
+        /** Key locks making lookup of previous value and update atomic for counters. */
+        private final GridStripedLock keyLocks = new GridStripedLock(KEY_LOCK_STRIPES);
+
+        /** Active memtable. */
+        private volatile Memtable active = new Memtable();
+
+        /** Frozen memtables and segments. */
+        private volatile State state = State.EMPTY;
+
+        /** Total size. */
+        private final AtomicLong size = new AtomicLong();
+
+        /** Total count. */
+        private final AtomicLong cnt = new AtomicLong();
+
+        /** Counts of entries per partition. */
+        private final ConcurrentMap<Integer, AtomicLong> partCnts = new ConcurrentHashMap8<>();
+
+        /** Flusher thread. */
+        private Thread flusher;
+
+        /** Compactor thread. */
+        private Thread compactor;
+
+        /**
+         * @param name Space name.
+         */
+        private Space(String name) {
+            assert name != null;
+
+            this.name = name;
+        }
+
+        /**
+         * Initializes space.
+         *
+         * @throws GridSpiException If initialization failed.
+         */
+        public void initialize() throws GridSpiException {
+            if (initializer.succeeded())
+                return;
+
+            assert dir.exists();
+            assert dir.isDirectory();
+
+            try {
+                initializer.init(new Callable<Void>() {
+                    @Override public Void call() throws Exception {
+                        flusher = new GridSpiThread(gridName, "Swap flusher: " + name, log) {
+                            @Override protected void body() throws InterruptedException {
+                                while (!isInterrupted()) {
+                                    try {
+                                        flush();
+                                    }
+                                    catch (IOException e) {
+                                        // Memtable stays frozen and is flushed again, writers wait meanwhile.
+                                        U.error(log, "Failed to flush swap memtable (will retry): " + name, e);
+
+                                        Thread.sleep(RETRY_DELAY);
+                                    }
+                                }
+                            }
+                        };
+
+                        compactor = new GridSpiThread(gridName, "Swap compactor: " + name, log) {
+                            @Override protected void body() throws InterruptedException {
+                                while (!isInterrupted()) {
+                                    try {
+                                        compact();
+                                    }
+                                    catch (IOException e) {
+                                        // Source segments stay in place and are compacted again.
+                                        U.error(log, "Failed to compact swap segments (will retry): " + name, e);
+
+                                        Thread.sleep(RETRY_DELAY);
+                                    }
+                                }
+                            }
+                        };
+
+                        flusher.start();
+                        compactor.start();
+
+                        return null;
+                    }
+                });
+            }
+            catch (GridException e) {
+                throw new GridSpiException(e);
+            }
+        }
+
+        /**
+         * Gets total size of space values in bytes.
+         *
+         * @return Total size.
+         */
+        public long size() {
+            return size.get();
+        }
+
+        /**
+         * Gets total space count.
+         *
+         * @return Total count.
+         */
+        public long count() {
+            return cnt.get();
+        }
+
+        /**
+         * Gets numbers of partitions stored in this space.
+         *
+         * @return Partition numbers.
+         */
+        public Collection<Integer> partitions() {
+            Collection<Integer> res = new ArrayList<>(partCnts.size());
+
+            for (Map.Entry<Integer, AtomicLong> e : partCnts.entrySet()) {
+                if (e.getValue().get() > 0)
+                    res.add(e.getKey());
+            }
+
+            return res;
+        }
+
+        /**
+         * Clears space.
+         */
+        public void clear() {
+            memLock.writeLock().lock();
+
+            try {
+                synchronized (mux) {
+                    State s = state;
+
+                    state = State.EMPTY;
+                    active = new Memtable();
+
+                    size.set(0);
+                    cnt.set(0);
+                    partCnts.clear();
+
+                    // Flushes and compactions in progress will see their inputs are gone and discard results.
+                    for (GridLsmSegment seg : s.segs)
+                        seg.release();
+
+                    mux.notifyAll();
+                }
+            }
+            finally {
+                memLock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Stops space.
+         *
+         * @throws GridInterruptedException If interrupted.
+         */
+        public void stop() throws GridInterruptedException {
+            U.interrupt(flusher);
+            U.interrupt(compactor);
+
+            U.join(flusher);
+            U.join(compactor);
+
+            clear();
+        }
+
+        /**
+         * Stores value in space.
+         *
+         * @param key Key.
+         * @param val Value, {@code null} to remove.
+         * @throws GridSpiException In case of error.
+         */
+        public void store(GridLsmKey key, @Nullable byte[] val) throws GridSpiException {
+            assert key != null;
+
+            if (val == null) {
+                remove(key);
+
+                return;
+            }
+
+            awaitFlush();
+
+            keyLocks.lock(key);
+
+            try {
+                memLock.readLock().lock();
+
+                try {
+                    // Only memtables are checked, previous value is never read from disk.
+                    byte[] old = active.put(key, val);
+
+                    if (old == null)
+                        old = frozenValue(key);
+
+                    if (old == null || old == GridLsmSegment.TOMBSTONE) {
+                        size.addAndGet(val.length);
+                        cnt.incrementAndGet();
+
+                        partitionCount(key.partition()).incrementAndGet();
+                    }
+                    else
+                        size.addAndGet(val.length - old.length);
+                }
+                finally {
+                    memLock.readLock().unlock();
+                }
+            }
+            finally {
+                keyLocks.unlock(key);
+            }
+
+            freezeIfFull();
+        }
+
+        /**
+         * Removes value from space.
+         *
+         * @param key Key.
+         * @return Removed value or {@code null} if there was no value.
+         * @throws GridSpiException In case of error.
+         */
+        @Nullable public byte[] remove(GridLsmKey key) throws GridSpiException {
+            assert key != null;
+
+            awaitFlush();
+
+            byte[] old;
+
+            keyLocks.lock(key);
+
+            try {
+                memLock.readLock().lock();
+
+                try {
+                    old = read(key);
+
+                    if (old == null)
+                        return null;
+
+                    active.put(key, GridLsmSegment.TOMBSTONE);
+
+                    size.addAndGet(-old.length);
+                    cnt.decrementAndGet();
+
+                    partitionCount(key.partition()).decrementAndGet();
+                }
+                finally {
+                    memLock.readLock().unlock();
+                }
+            }
+            finally {
+                keyLocks.unlock(key);
+            }
+
+            freezeIfFull();
+
+            return old;
+        }
+
+        /**
+         * Reads value from space.
+         *
+         * @param key Key.
+         * @return Value or {@code null} if there is no value.
+         * @throws GridSpiException In case of error.
+         */
+        @Nullable public byte[] read(GridLsmKey key) throws GridSpiException {
+            assert key != null;
+
+            // Active memtable must be read before state: memtable is added to state before it stops being active.
+            byte[] val = active.map.get(key);
+
+            if (val != null)
+                return val == GridLsmSegment.TOMBSTONE ? null : val;
+
+            long hash = key.hash64();
+
+            while (true) {
+                State s = state;
+
+                for (Memtable mem : s.frozen) {
+                    val = mem.map.get(key);
+
+                    if (val != null)
+                        return val == GridLsmSegment.TOMBSTONE ? null : val;
+                }
+
+                boolean retry = false;
+
+                for (GridLsmSegment seg : s.segs) {
+                    if (!seg.mightContain(hash)) {
+                        bloomSkips.increment();
+
+                        continue;
+                    }
+
+                    if (!seg.acquire()) {
+                        // Segment has been replaced by compaction, its data is in newer state.
+                        retry = true;
+
+                        break;
+                    }
+
+                    try {
+                        val = seg.get(key);
+                    }
+                    catch (IOException e) {
+                        throw new GridSpiException("Failed to read swap segment [space=" + name + ", seg=" + seg +
+                            ']', e);
+                    }
+                    finally {
+                        seg.release();
+                    }
+
+                    if (val != null)
+                        return val == GridLsmSegment.TOMBSTONE ? null : val;
+
+                    bloomFalsePositives.increment();
+                }
+
+                if (!retry)
+                    return null;
+            }
+        }
+
+        /**
+         * Looks up key in frozen memtables.
+         *
+         * @param key Key.
+         * @return Value, {@link GridLsmSegment#TOMBSTONE} if key has been removed, or {@code null}
+         *      if key is not found in frozen memtables.
+         */
+        @Nullable private byte[] frozenValue(GridLsmKey key) {
+            for (Memtable mem : state.frozen) {
+                byte[] val = mem.map.get(key);
+
+                if (val != null)
+                    return val;
+            }
+
+            return null;
+        }
+
+        /**
+         * Gets iterator over space entries.
+         *
+         * @param part Partition or {@code null} for all partitions.
+         * @return Iterator.
+         */
+        public SpaceIterator iterator(@Nullable Integer part) {
+            while (true) {
+                Memtable mem = active;
+                State s = state;
+
+                List<GridLsmSegment> acquired = new ArrayList<>(s.segs.size());
+
+                for (GridLsmSegment seg : s.segs) {
+                    if (!seg.acquire())
+                        break;
+
+                    acquired.add(seg);
+                }
+
+                if (acquired.size() < s.segs.size()) {
+                    for (GridLsmSegment seg : acquired)
+                        seg.release();
+
+                    continue;
+                }
+
+                List<Iterator<Map.Entry<GridLsmKey, byte[]>>> srcs = new ArrayList<>(s.frozen.size() +
+                    acquired.size() + 1);
+
+                srcs.add(mem.iterator(part));
+
+                for (Memtable m : s.frozen)
+                    srcs.add(m.iterator(part));
+
+                for (GridLsmSegment seg : acquired)
+                    srcs.add(seg.iterator(part));
+
+                return new SpaceIterator(this, new GridLsmMergeIterator(srcs, true), part, acquired);
+            }
+        }
+
+        /**
+         * @param part Partition.
+         * @return Partition entries counter.
+         */
+        private AtomicLong partitionCount(int part) {
+            AtomicLong c = partCnts.get(part);
+
+            if (c == null) {
+                AtomicLong old = partCnts.putIfAbsent(part, c = new AtomicLong());
+
+                if (old != null)
+                    c = old;
+            }
+
+            return c;
+        }
+
+        /**
+         * Blocks writer while flusher is behind.
+         *
+         * @throws GridSpiException If interrupted or flusher has failed.
+         */
+        private void awaitFlush() throws GridSpiException {
+            if (state.frozen.size() < MAX_FROZEN_MEMTABLES)
+                return;
+
+            synchronized (mux) {
+                while (state.frozen.size() >= MAX_FROZEN_MEMTABLES) {
+                    if (!flusher.isAlive())
+                        throw new GridSpiException("Swap flusher has stopped: " + name);
+
+                    try {
+                        mux.wait(BACKPRESSURE_TIMEOUT);
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+
+                        throw new GridSpiException("Interrupted while waiting for swap flush: " + name, e);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Freezes active memtable if it is full.
+         */
+        private void freezeIfFull() {
+            Memtable mem = active;
+
+            if (mem.mem.get() < memtableSize)
+                return;
+
+            memLock.writeLock().lock();
+
+            try {
+                if (active != mem)
+                    return;
+
+                synchronized (mux) {
+                    state = state.freeze(mem);
+                    active = new Memtable();
+
+                    mux.notifyAll();
+                }
+            }
+            finally {
+                memLock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Flushes the oldest frozen memtable to a new segment.
+         *
+         * @throws InterruptedException If interrupted.
+         * @throws IOException If segment could not be written.
+         */
+        private void flush() throws InterruptedException, IOException {
+            Memtable mem;
+            boolean dropTombstones;
+
+            synchronized (mux) {
+                while (state.frozen.isEmpty())
+                    mux.wait();
+
+                mem = F.last(state.frozen);
+
+                // Nothing older than this memtable, so removed entries do not shadow anything.
+                dropTombstones = state.segs.isEmpty();
+            }
+
+            long id = segIdGen.incrementAndGet();
+
+            GridLsmSegment seg = GridLsmSegment.write(segmentFile(id), id, 0, mem.map.entrySet().iterator(),
+                mem.map.size(), dropTombstones, bloomBitsPerKey, idxBlockSize);
+
+            synchronized (mux) {
+                State s = state;
+
+                if (s.frozen.contains(mem)) {
+                    state = s.flushed(mem, seg);
+
+                    flushCnt.increment();
+                }
+                else if (seg != null)
+                    // Space has been cleared.
+                    seg.release();
+
+                mux.notifyAll();
+            }
+        }
+
+        /**
+         * Merges segments of the first level which has enough segments into a single segment of the next level.
+         *
+         * @throws InterruptedException If interrupted.
+         * @throws IOException If merged segment could not be written.
+         */
+        private void compact() throws InterruptedException, IOException {
+            List<GridLsmSegment> run;
+            boolean dropTombstones;
+
+            synchronized (mux) {
+                while ((run = compactionRun(state.segs)) == null)
+                    mux.wait();
+
+                // Merge includes the oldest segment, so removed entries do not shadow anything.
+                dropTombstones = F.last(run) == F.last(state.segs);
+            }
+
+            List<Iterator<Map.Entry<GridLsmKey, byte[]>>> srcs = new ArrayList<>(run.size());
+            List<GridLsmSegment> acquired = new ArrayList<>(run.size());
+
+            long expected = 0;
+
+            GridLsmSegment res;
+
+            try {
+                for (GridLsmSegment seg : run) {
+                    if (!seg.acquire())
+                        // Space has been cleared.
+                        return;
+
+                    acquired.add(seg);
+
+                    srcs.add(seg.iterator(null));
+
+                    expected += seg.count();
+                }
+
+                long id = segIdGen.incrementAndGet();
+
+                res = GridLsmSegment.write(segmentFile(id), id, run.get(0).level() + 1,
+                    new GridLsmMergeIterator(srcs, false), expected, dropTombstones, bloomBitsPerKey, idxBlockSize);
+            }
+            finally {
+                for (GridLsmSegment seg : acquired)
+                    seg.release();
+            }
+
+            synchronized (mux) {
+                State s = state;
+
+                if (s.segs.containsAll(run)) {
+                    state = s.compacted(run, res);
+
+                    for (GridLsmSegment seg : run)
+                        seg.release();
+
+                    compactionCnt.increment();
+                }
+                else if (res != null)
+                    // Space has been cleared.
+                    res.release();
+            }
+
+            if (log.isDebugEnabled())
+                log.debug("Compacted swap segments [space=" + name + ", segs=" + run + ", res=" + res + ']');
+        }
+
+        /**
+         * @param segs Segments, newest first.
+         * @return Segments of the lowest level which has at least {@code compactionThreshold} segments,
+         *      or {@code null} if compaction is not needed.
+         */
+        @Nullable private List<GridLsmSegment> compactionRun(List<GridLsmSegment> segs) {
+            int start = 0;
+
+            for (int i = 1; i <= segs.size(); i++) {
+                if (i == segs.size() || segs.get(i).level() != segs.get(start).level()) {
+                    if (i - start >= compactionThreshold)
+                        return new ArrayList<>(segs.subList(start, i));
+
+                    start = i;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * @param id Segment ID.
+         * @return Segment file.
+         */
+        private File segmentFile(long id) {
+            return new File(dir, name + '-' + id + ".seg");
+        }
+    }
+}
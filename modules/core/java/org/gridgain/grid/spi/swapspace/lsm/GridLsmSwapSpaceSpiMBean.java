@@ -0,0 +1,132 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.spi.swapspace.lsm;
+
+import org.gridgain.grid.spi.*;
+import org.gridgain.grid.util.mbean.*;
+
+/**
+ * Management bean for {@link GridLsmSwapSpaceSpi}.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+@GridMBeanDescription("MBean that provides configuration and runtime information on log-structured swapspace SPI.")
+public interface GridLsmSwapSpaceSpiMBean extends GridSpiManagementMBean {
+    /**
+     * Gets base directory.
+     *
+     * @return Base directory.
+     */
+    @GridMBeanDescription("Base directory.")
+    public String getBaseDirectory();
+
+    /**
+     * Gets memtable size in bytes.
+     *
+     * @return Memtable size in bytes.
+     */
+    @GridMBeanDescription("Memtable size in bytes.")
+    public int getMemtableSize();
+
+    /**
+     * Gets number of segments on one level which triggers compaction.
+     *
+     * @return Compaction threshold.
+     */
+    @GridMBeanDescription("Number of segments on one level which triggers compaction.")
+    public int getCompactionThreshold();
+
+    /**
+     * Gets number of bloom filter bits per key.
+     *
+     * @return Bloom filter bits per key.
+     */
+    @GridMBeanDescription("Bloom filter bits per key.")
+    public int getBloomFilterBitsPerKey();
+
+    /**
+     * Gets size of segment data block covered by one sparse index entry.
+     *
+     * @return Index block size in bytes.
+     */
+    @GridMBeanDescription("Index block size in bytes.")
+    public int getIndexBlockSize();
+
+    /**
+     * Gets number of segments in all spaces.
+     *
+     * @return Number of segments.
+     */
+    @GridMBeanDescription("Number of segments in all spaces.")
+    public int getSegmentsCount();
+
+    /**
+     * Gets total size of segment files in all spaces.
+     *
+     * @return Size of segment files in bytes.
+     */
+    @GridMBeanDescription("Size of segment files in bytes.")
+    public long getSegmentsSize();
+
+    /**
+     * Gets memory occupied by sparse indexes and bloom filters of all segments.
+     *
+     * @return Memory size in bytes.
+     */
+    @GridMBeanDescription("Memory occupied by sparse indexes and bloom filters in bytes.")
+    public long getIndexMemorySize();
+
+    /**
+     * Gets number of finished memtable flushes.
+     *
+     * @return Number of flushes.
+     */
+    @GridMBeanDescription("Number of finished memtable flushes.")
+    public long getFlushesCount();
+
+    /**
+     * Gets number of finished compactions.
+     *
+     * @return Number of compactions.
+     */
+    @GridMBeanDescription("Number of finished compactions.")
+    public long getCompactionsCount();
+
+    /**
+     * Gets number of segment reads avoided by bloom filters.
+     *
+     * @return Number of segment reads avoided by bloom filters.
+     */
+    @GridMBeanDescription("Number of segment reads avoided by bloom filters.")
+    public long getBloomFilterSkips();
+
+    /**
+     * Gets number of segment reads which did not find the key despite positive bloom filter check.
+     *
+     * @return Number of bloom filter false positives.
+     */
+    @GridMBeanDescription("Number of bloom filter false positives.")
+    public long getBloomFilterFalsePositives();
+}
@@ -174,6 +174,17 @@ public abstract class GridTcpCommunicationMessageAdapter implements Serializable
      */
     public abstract byte directType();
 
+    /**
+     * Gets ordering key of this message. Messages with equal keys are sent to the same node over
+     * the same connection, so their order is preserved when communication SPI uses several
+     * connections per node. Default implementation returns {@code 0}.
+     *
+     * @return Ordering key.
+     */
+    public int orderKey() {
+        return 0;
+    }
+
     /** {@inheritDoc} */
     @SuppressWarnings("CloneDoesntDeclareCloneNotSupportedException")
     @Override public abstract GridTcpCommunicationMessageAdapter clone();
@@ -314,6 +314,9 @@ public class GridTcpCommunicationMessageFactory {
             case 78:
                 return new GridJobStealingRequest();
 
+            case 79:
+                return new GridTcpCommunicationBatchMessage();
+
             default:
                 return createCustom(type);
         }
@@ -0,0 +1,82 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.util.io;
+
+import java.io.*;
+import java.nio.*;
+
+/**
+ * Input stream reading remaining bytes of {@link ByteBuffer}. Buffer position is advanced by read bytes.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+public class GridByteBufferInputStream extends InputStream {
+    /** */
+    private final ByteBuffer buf;
+
+    /**
+     * @param buf Buffer to read from.
+     */
+    public GridByteBufferInputStream(ByteBuffer buf) {
+        this.buf = buf;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int read() {
+        return buf.hasRemaining() ? buf.get() & 0xff : -1;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int read(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || len > b.length - off)
+            throw new IndexOutOfBoundsException();
+
+        if (len == 0)
+            return 0;
+
+        if (!buf.hasRemaining())
+            return -1;
+
+        len = Math.min(len, buf.remaining());
+
+        buf.get(b, off, len);
+
+        return len;
+    }
+
+    /** {@inheritDoc} */
+    @Override public long skip(long n) {
+        int skip = (int)Math.min(Math.max(n, 0), buf.remaining());
+
+        buf.position(buf.position() + skip);
+
+        return skip;
+    }
+
+    /** {@inheritDoc} */
+    @Override public int available() {
+        return buf.remaining();
+    }
+}
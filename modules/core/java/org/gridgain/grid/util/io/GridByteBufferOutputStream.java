@@ -0,0 +1,56 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.util.io;
+
+import java.io.*;
+import java.nio.*;
+
+/**
+ * Output stream writing to {@link ByteBuffer} starting at its position. Buffer is not grown,
+ * {@link BufferOverflowException} is thrown if written data does not fit into remaining space.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+public class GridByteBufferOutputStream extends OutputStream {
+    /** */
+    private final ByteBuffer buf;
+
+    /**
+     * @param buf Buffer to write to.
+     */
+    public GridByteBufferOutputStream(ByteBuffer buf) {
+        this.buf = buf;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void write(int b) {
+        buf.put((byte)b);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void write(byte[] b, int off, int len) {
+        buf.put(b, off, len);
+    }
+}
@@ -38,6 +38,14 @@ public interface GridDataInput extends DataInput {
      */
     public void bytes(byte[] bytes, int len);
 
+    /**
+     * Sets off-heap memory region to read from.
+     *
+     * @param addr Memory address.
+     * @param len Region length.
+     */
+    public void memory(long addr, int len);
+
     /**
      * @param in Underlying input stream.
      * @throws IOException In case of error.
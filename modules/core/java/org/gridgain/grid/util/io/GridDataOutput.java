@@ -37,6 +37,15 @@ public interface GridDataOutput extends DataOutput {
      */
     public void outputStream(OutputStream out);
 
+    /**
+     * Sets off-heap memory region to write to until {@link #reset()} is called. Region is not grown,
+     * {@link java.nio.BufferOverflowException} is thrown if written data does not fit into it.
+     *
+     * @param addr Memory address.
+     * @param len Region length.
+     */
+    public void memory(long addr, int len);
+
     /**
      * @return Copy of internal array shrunk to offset.
      */
@@ -86,10 +86,13 @@ public class GridUnsafeDataInput extends InputStream implements GridDataInput {
     /** End offset of valid data in buf, or -1 if no more block data. */
     private int end = -1;
 
-    /** Bytes. */
+    /** Bytes, {@code null} if data is read from off-heap memory. */
     @GridToStringExclude
     private byte[] buf;
 
+    /** Offset of data in {@link #buf} or memory address. */
+    private long bufOff = byteArrOff;
+
     /** Offset. */
     private int off;
 
@@ -113,6 +116,16 @@ public class GridUnsafeDataInput extends InputStream implements GridDataInput {
     /** {@inheritDoc} */
     @Override public void bytes(byte[] bytes, int len) {
         buf = bytes;
+        bufOff = byteArrOff;
+
+        max = len;
+        off = 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override public void memory(long addr, int len) {
+        buf = null;
+        bufOff = addr;
 
         max = len;
         off = 0;
@@ -123,6 +136,7 @@ public class GridUnsafeDataInput extends InputStream implements GridDataInput {
         this.in = in;
 
         buf = inBuf;
+        bufOff = byteArrOff;
     }
 
     /**
@@ -192,6 +206,9 @@ public class GridUnsafeDataInput extends InputStream implements GridDataInput {
     @Override public void reset() throws IOException {
         in = null;
 
+        buf = inBuf;
+        bufOff = byteArrOff;
+
         off = 0;
         max = 0;
     }
@@ -204,7 +221,7 @@ public class GridUnsafeDataInput extends InputStream implements GridDataInput {
 
         byte[] arr = new byte[arrSize];
 
-        UNSAFE.copyMemory(buf, byteArrOff + offset(arrSize), arr, byteArrOff, arrSize);
+        UNSAFE.copyMemory(buf, bufOff + offset(arrSize), arr, byteArrOff, arrSize);
 
         return arr;
     }
@@ -219,7 +236,7 @@ public class GridUnsafeDataInput extends InputStream implements GridDataInput {
 
         short[] arr = new short[arrSize];
 
-        UNSAFE.copyMemory(buf, byteArrOff + offset(bytesToCp), arr, shortArrOff, bytesToCp);
+        UNSAFE.copyMemory(buf, bufOff + offset(bytesToCp), arr, shortArrOff, bytesToCp);
 
         return arr;
     }
@@ -234,7 +251,7 @@ public class GridUnsafeDataInput extends InputStream implements GridDataInput {
 
         int[] arr = new int[arrSize];
 
-        UNSAFE.copyMemory(buf, byteArrOff + offset(bytesToCp), arr, intArrOff, bytesToCp);
+        UNSAFE.copyMemory(buf, bufOff + offset(bytesToCp), arr, intArrOff, bytesToCp);
 
         return arr;
     }
@@ -249,7 +266,7 @@ public class GridUnsafeDataInput extends InputStream implements GridDataInput {
 
         double[] arr = new double[arrSize];
 
-        UNSAFE.copyMemory(buf, byteArrOff + offset(bytesToCp), arr, doubleArrOff, bytesToCp);
+        UNSAFE.copyMemory(buf, bufOff + offset(bytesToCp), arr, doubleArrOff, bytesToCp);
 
         return arr;
     }
@@ -276,7 +293,7 @@ public class GridUnsafeDataInput extends InputStream implements GridDataInput {
 
         char[] arr = new char[arrSize];
 
-        UNSAFE.copyMemory(buf, byteArrOff + offset(bytesToCp), arr, charArrOff, bytesToCp);
+        UNSAFE.copyMemory(buf, bufOff + offset(bytesToCp), arr, charArrOff, bytesToCp);
 
         return arr;
     }
@@ -291,7 +308,7 @@ public class GridUnsafeDataInput extends InputStream implements GridDataInput {
 
         long[] arr = new long[arrSize];
 
-        UNSAFE.copyMemory(buf, byteArrOff + offset(bytesToCp), arr, longArrOff, bytesToCp);
+        UNSAFE.copyMemory(buf, bufOff + offset(bytesToCp), arr, longArrOff, bytesToCp);
 
         return arr;
     }
@@ -306,7 +323,7 @@ public class GridUnsafeDataInput extends InputStream implements GridDataInput {
 
         float[] arr = new float[arrSize];
 
-        UNSAFE.copyMemory(buf, byteArrOff + offset(bytesToCp), arr, floatArrOff, bytesToCp);
+        UNSAFE.copyMemory(buf, bufOff + offset(bytesToCp), arr, floatArrOff, bytesToCp);
 
         return arr;
     }
@@ -317,14 +334,14 @@ public class GridUnsafeDataInput extends InputStream implements GridDataInput {
 
         fromStream(len);
 
-        UNSAFE.copyMemory(buf, byteArrOff + offset(len), b, byteArrOff, len);
+        UNSAFE.copyMemory(buf, bufOff + offset(len), b, byteArrOff, len);
     }
 
     /** {@inheritDoc} */
     @Override public void readFully(byte[] b, int off, int len) throws IOException {
         fromStream(len);
 
-        UNSAFE.copyMemory(buf, byteArrOff + offset(len), b, byteArrOff + off, len);
+        UNSAFE.copyMemory(buf, bufOff + offset(len), b, byteArrOff + off, len);
     }
 
     /** {@inheritDoc} */
@@ -341,14 +358,14 @@ public class GridUnsafeDataInput extends InputStream implements GridDataInput {
     @Override public boolean readBoolean() throws IOException {
         fromStream(1);
 
-        return UNSAFE.getBoolean(buf, byteArrOff + offset(1));
+        return UNSAFE.getBoolean(buf, bufOff + offset(1));
     }
 
     /** {@inheritDoc} */
     @Override public byte readByte() throws IOException {
         fromStream(1);
 
-        return UNSAFE.getByte(buf, byteArrOff + offset(1));
+        return UNSAFE.getByte(buf, bufOff + offset(1));
     }
 
     /** {@inheritDoc} */
@@ -360,7 +377,7 @@ public class GridUnsafeDataInput extends InputStream implements GridDataInput {
     @Override public short readShort() throws IOException {
         fromStream(2);
 
-        return UNSAFE.getShort(buf, byteArrOff + offset(2));
+        return UNSAFE.getShort(buf, bufOff + offset(2));
     }
 
     /** {@inheritDoc} */
@@ -372,7 +389,7 @@ public class GridUnsafeDataInput extends InputStream implements GridDataInput {
     @Override public char readChar() throws IOException {
         fromStream(2);
 
-        char v = UNSAFE.getChar(buf, byteArrOff + off);
+        char v = UNSAFE.getChar(buf, bufOff + off);
 
         offset(2);
 
@@ -383,28 +400,28 @@ public class GridUnsafeDataInput extends InputStream implements GridDataInput {
     @Override public int readInt() throws IOException {
         fromStream(4);
 
-        return UNSAFE.getInt(buf, byteArrOff + offset(4));
+        return UNSAFE.getInt(buf, bufOff + offset(4));
     }
 
     /** {@inheritDoc} */
     @Override public long readLong() throws IOException {
         fromStream(8);
 
-        return UNSAFE.getLong(buf, byteArrOff + offset(8));
+        return UNSAFE.getLong(buf, bufOff + offset(8));
     }
 
     /** {@inheritDoc} */
     @Override public float readFloat() throws IOException {
         fromStream(4);
 
-        return UNSAFE.getFloat(buf, byteArrOff + offset(4));
+        return UNSAFE.getFloat(buf, bufOff + offset(4));
     }
 
     /** {@inheritDoc} */
     @Override public double readDouble() throws IOException {
         fromStream(8);
 
-        return UNSAFE.getDouble(buf, byteArrOff + offset(8));
+        return UNSAFE.getDouble(buf, bufOff + offset(8));
     }
 
     /** {@inheritDoc} */
@@ -433,7 +450,7 @@ public class GridUnsafeDataInput extends InputStream implements GridDataInput {
         else {
             int toRead = Math.min(len, max - this.off);
 
-            UNSAFE.copyMemory(buf, byteArrOff + offset(toRead), b, byteArrOff + off, toRead);
+            UNSAFE.copyMemory(buf, bufOff + offset(toRead), b, byteArrOff + off, toRead);
 
             return toRead;
         }
@@ -28,6 +28,7 @@ import org.gridgain.grid.util.*;
 import sun.misc.*;
 
 import java.io.*;
+import java.nio.*;
 
 import static org.gridgain.grid.GridSystemProperties.*;
 
@@ -71,9 +72,18 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
     /** Char buffer for fast string writes. */
     private final char[] cbuf = new char[CHAR_BUF_SIZE];
 
-    /** Bytes. */
+    /** Bytes, {@code null} if data is written to off-heap memory. */
     private byte[] bytes;
 
+    /** Offset of data in {@link #bytes} or memory address. */
+    private long bytesOff = byteArrOff;
+
+    /** Length of off-heap memory region or {@code -1} if data is written to array. */
+    private int memLen = -1;
+
+    /** Array saved while data is written to off-heap memory. */
+    private byte[] savedBytes;
+
     /** Offset. */
     private int off;
 
@@ -109,6 +119,21 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
         this.off = off;
     }
 
+    /** {@inheritDoc} */
+    @Override public void memory(long addr, int len) {
+        assert memLen < 0 : "Memory region is already set.";
+        assert len >= 0 : len;
+
+        savedBytes = bytes;
+
+        bytes = null;
+        bytesOff = addr;
+        memLen = len;
+
+        off = 0;
+        out = null;
+    }
+
     /**
      * @param out Underlying output stream.
      */
@@ -122,7 +147,7 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
     @Override public byte[] array() {
         byte[] bytes0 = new byte[off];
 
-        UNSAFE.copyMemory(bytes, byteArrOff, bytes0, byteArrOff, off);
+        UNSAFE.copyMemory(bytes, bytesOff, bytes0, byteArrOff, off);
 
         return bytes0;
     }
@@ -148,6 +173,13 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
     private void requestFreeSize(int size) {
         size = off + size;
 
+        if (memLen >= 0) {
+            if (size > memLen)
+                throw new BufferOverflowException();
+
+            return;
+        }
+
         maxOff = Math.max(maxOff, size);
 
         long now = U.currentTimeMillis();
@@ -190,7 +222,7 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
     @Override public void write(byte[] b) throws IOException {
         requestFreeSize(b.length);
 
-        UNSAFE.copyMemory(b, byteArrOff, bytes, byteArrOff + off, b.length);
+        UNSAFE.copyMemory(b, byteArrOff, bytes, bytesOff + off, b.length);
 
         onWrite(b.length);
     }
@@ -199,7 +231,7 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
     @Override public void write(byte[] b, int off, int len) throws IOException {
         requestFreeSize(len);
 
-        UNSAFE.copyMemory(b, byteArrOff + off, bytes, byteArrOff + this.off, len);
+        UNSAFE.copyMemory(b, byteArrOff + off, bytes, bytesOff + this.off, len);
 
         onWrite(len);
     }
@@ -212,7 +244,7 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
 
         requestFreeSize(bytesToCp);
 
-        UNSAFE.copyMemory(arr, doubleArrOff, bytes, byteArrOff + off, bytesToCp);
+        UNSAFE.copyMemory(arr, doubleArrOff, bytes, bytesOff + off, bytesToCp);
 
         onWrite(bytesToCp);
     }
@@ -234,7 +266,7 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
 
         requestFreeSize(bytesToCp);
 
-        UNSAFE.copyMemory(arr, charArrOff, bytes, byteArrOff + off, bytesToCp);
+        UNSAFE.copyMemory(arr, charArrOff, bytes, bytesOff + off, bytesToCp);
 
         onWrite(bytesToCp);
     }
@@ -247,7 +279,7 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
 
         requestFreeSize(bytesToCp);
 
-        UNSAFE.copyMemory(arr, longArrOff, bytes, byteArrOff + off, bytesToCp);
+        UNSAFE.copyMemory(arr, longArrOff, bytes, bytesOff + off, bytesToCp);
 
         onWrite(bytesToCp);
     }
@@ -260,13 +292,21 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
 
         requestFreeSize(bytesToCp);
 
-        UNSAFE.copyMemory(arr, floatArrOff, bytes, byteArrOff + off, bytesToCp);
+        UNSAFE.copyMemory(arr, floatArrOff, bytes, bytesOff + off, bytesToCp);
 
         onWrite(bytesToCp);
     }
 
     /** {@inheritDoc} */
     @Override public void reset() {
+        if (memLen >= 0) {
+            bytes = savedBytes;
+            bytesOff = byteArrOff;
+            memLen = -1;
+
+            savedBytes = null;
+        }
+
         off = 0;
 
         out = null;
@@ -278,7 +318,7 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
 
         requestFreeSize(arr.length);
 
-        UNSAFE.copyMemory(arr, byteArrOff, bytes, byteArrOff + off, arr.length);
+        UNSAFE.copyMemory(arr, byteArrOff, bytes, bytesOff + off, arr.length);
 
         onWrite(arr.length);
     }
@@ -291,7 +331,7 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
 
         requestFreeSize(bytesToCp);
 
-        UNSAFE.copyMemory(arr, shortArrOff, bytes, byteArrOff + off, bytesToCp);
+        UNSAFE.copyMemory(arr, shortArrOff, bytes, bytesOff + off, bytesToCp);
 
         onWrite(bytesToCp);
     }
@@ -304,7 +344,7 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
 
         requestFreeSize(bytesToCp);
 
-        UNSAFE.copyMemory(arr, intArrOff, bytes, byteArrOff + off, bytesToCp);
+        UNSAFE.copyMemory(arr, intArrOff, bytes, bytesOff + off, bytesToCp);
 
         onWrite(bytesToCp);
     }
@@ -318,7 +358,7 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
     @Override public void writeBoolean(boolean v) throws IOException {
         requestFreeSize(1);
 
-        UNSAFE.putBoolean(bytes, byteArrOff + off, v);
+        UNSAFE.putBoolean(bytes, bytesOff + off, v);
 
         onWrite(1);
     }
@@ -327,7 +367,7 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
     @Override public void writeByte(int v) throws IOException {
         requestFreeSize(1);
 
-        UNSAFE.putByte(bytes, byteArrOff + off, (byte)v);
+        UNSAFE.putByte(bytes, bytesOff + off, (byte)v);
 
         onWrite(1);
     }
@@ -336,7 +376,7 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
     @Override public void writeShort(int v) throws IOException {
         requestFreeSize(2);
 
-        UNSAFE.putShort(bytes, byteArrOff + off, (short)v);
+        UNSAFE.putShort(bytes, bytesOff + off, (short)v);
 
         onWrite(2);
     }
@@ -345,7 +385,7 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
     @Override public void writeChar(int v) throws IOException {
         requestFreeSize(2);
 
-        UNSAFE.putChar(bytes, byteArrOff + off, (char)v);
+        UNSAFE.putChar(bytes, bytesOff + off, (char)v);
 
         onWrite(2);
     }
@@ -354,7 +394,7 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
     @Override public void writeInt(int v) throws IOException {
         requestFreeSize(4);
 
-        UNSAFE.putInt(bytes, byteArrOff + off, v);
+        UNSAFE.putInt(bytes, bytesOff + off, v);
 
         onWrite(4);
     }
@@ -363,7 +403,7 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
     @Override public void writeLong(long v) throws IOException {
         requestFreeSize(8);
 
-        UNSAFE.putLong(bytes, byteArrOff + off, v);
+        UNSAFE.putLong(bytes, bytesOff + off, v);
 
         onWrite(8);
     }
@@ -372,7 +412,7 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
     @Override public void writeFloat(float v) throws IOException {
         requestFreeSize(4);
 
-        UNSAFE.putFloat(bytes, byteArrOff + off, v);
+        UNSAFE.putFloat(bytes, bytesOff + off, v);
 
         onWrite(4);
     }
@@ -381,7 +421,7 @@ public class GridUnsafeDataOutput extends OutputStream implements GridDataOutput
     @Override public void writeDouble(double v) throws IOException {
         requestFreeSize(8);
 
-        UNSAFE.putDouble(bytes, byteArrOff + off, v);
+        UNSAFE.putDouble(bytes, bytesOff + off, v);
 
         onWrite(8);
     }
@@ -0,0 +1,548 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.util.nio;
+
+import org.gridgain.grid.*;
+import org.gridgain.grid.logger.*;
+import org.gridgain.grid.util.LongAdder;
+import org.gridgain.grid.util.tostring.*;
+import org.gridgain.grid.util.typedef.internal.*;
+
+import java.nio.*;
+import java.util.zip.*;
+
+/**
+ * Filter that compresses outgoing bytes and decompresses incoming bytes of NIO session.
+ * <p>
+ * Compression is used on session only if {@link #COMPRESSION_META_KEY} meta is set to {@code true}. Both
+ * sides of connection must agree on it, since once compression is enabled all bytes are sent as frames
+ * consisting of one byte flag, 4 bytes payload length and payload, which is compressed with {@link Deflater}
+ * at {@link Deflater#BEST_SPEED} level if flag is set. For non-accepted sessions meta should be passed on
+ * session creation, for accepted sessions it is checked after first {@code hsSize} bytes (handshake) are
+ * received, so it can be set by listener when handshake message is processed.
+ * <p>
+ * Chunks smaller than threshold are sent uncompressed. If chunk compression ratio is greater than
+ * configured maximum ratio or compression takes too long for the saved bytes, compression is backed off
+ * for exponentially growing number of chunks, so incompressible traffic costs only the frame header.
+ * <p>
+ * In direct mode outgoing messages are not passed through filter chain, so {@link GridNioServer}
+ * compresses write buffer of session before writing it to socket.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+public class GridNioCompressionFilter extends GridNioFilterAdapter {
+    /** Compression flag meta key. */
+    public static final int COMPRESSION_META_KEY = GridNioSessionMetaKey.nextUniqueKey();
+
+    /** Compression session meta key. */
+    private static final int SES_META_KEY = GridNioSessionMetaKey.nextUniqueKey();
+
+    /** Flag of uncompressed frame. */
+    private static final byte RAW = 0;
+
+    /** Flag of compressed frame. */
+    private static final byte DEFLATED = 1;
+
+    /** Frame header size (flag and payload length). */
+    private static final int HDR_SIZE = 5;
+
+    /** Maximum number of chunks compression is backed off for. */
+    private static final int MAX_BACKOFF = 1024;
+
+    /** Maximum compression time per saved byte in nanoseconds. */
+    private static final long MAX_NANOS_PER_SAVED_BYTE = 100;
+
+    /** Grid logger. */
+    @GridToStringExclude
+    private final GridLogger log;
+
+    /** Minimum size of compressed chunk. */
+    private final int threshold;
+
+    /** Maximum ratio of compressed to original size. */
+    private final double maxRatio;
+
+    /** Number of bytes received on accepted session before compression may be enabled. */
+    private final int hsSize;
+
+    /** Size of chunks written to compressed sessions. */
+    private final LongAdder origBytes = new LongAdder();
+
+    /** Size of frames written to compressed sessions. */
+    private final LongAdder wireBytes = new LongAdder();
+
+    /**
+     * Creates a filter instance.
+     *
+     * @param log Logger.
+     * @param threshold Minimum size of compressed chunk.
+     * @param maxRatio Maximum ratio of compressed to original size.
+     * @param hsSize Number of bytes received on accepted session before compression may be enabled.
+     */
+    public GridNioCompressionFilter(GridLogger log, int threshold, double maxRatio, int hsSize) {
+        super("GridNioCompressionFilter");
+
+        assert threshold >= 0 : threshold;
+        assert maxRatio > 0 && maxRatio <= 1 : maxRatio;
+        assert hsSize >= 0 : hsSize;
+
+        this.log = log;
+        this.threshold = threshold;
+        this.maxRatio = maxRatio;
+        this.hsSize = hsSize;
+    }
+
+    /**
+     * @return Ratio of bytes written to compressed sessions to their size before compression.
+     */
+    public double compressionRatio() {
+        long orig = origBytes.sum();
+
+        return orig > 0 ? (double)wireBytes.sum() / orig : 1;
+    }
+
+    /**
+     * @return Number of bytes saved by compression (negative if frame headers cost more than saved).
+     */
+    public long bytesSaved() {
+        return origBytes.sum() - wireBytes.sum();
+    }
+
+    /**
+     * Resets compression metrics.
+     */
+    public void resetMetrics() {
+        origBytes.add(-origBytes.sum());
+        wireBytes.add(-wireBytes.sum());
+    }
+
+    /**
+     * @param ses NIO session.
+     * @return Compression session or {@code null} if compression is not enabled on given session.
+     */
+    static CompressionSession session(GridNioSession ses) {
+        CompressionSession cmp = ses.meta(SES_META_KEY);
+
+        return cmp != null && cmp.enabled() ? cmp : null;
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return S.toString(GridNioCompressionFilter.class, this);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onSessionOpened(GridNioSession ses) throws GridException {
+        ses.addMeta(SES_META_KEY, new CompressionSession(ses, ses.accepted() ? hsSize : 0));
+
+        proceedSessionOpened(ses);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onSessionClosed(GridNioSession ses) throws GridException {
+        CompressionSession cmp = ses.removeMeta(SES_META_KEY);
+
+        if (cmp != null)
+            cmp.close();
+
+        proceedSessionClosed(ses);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onExceptionCaught(GridNioSession ses, GridException ex) throws GridException {
+        proceedExceptionCaught(ses, ex);
+    }
+
+    /** {@inheritDoc} */
+    @Override public GridNioFuture<?> onSessionWrite(GridNioSession ses, Object msg) throws GridException {
+        // Direct messages are compressed by server.
+        if (msg instanceof ByteBuffer) {
+            CompressionSession cmp = session(ses);
+
+            if (cmp != null && ((ByteBuffer)msg).hasRemaining())
+                return proceedSessionWrite(ses, cmp.encode((ByteBuffer)msg, false));
+        }
+
+        return proceedSessionWrite(ses, msg);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onMessageReceived(GridNioSession ses, Object msg) throws GridException {
+        if (!(msg instanceof ByteBuffer))
+            throw new GridNioException("Failed to decompress incoming message (message should be a byte buffer, " +
+                "is filter properly placed?): " + msg.getClass());
+
+        CompressionSession cmp = ses.meta(SES_META_KEY);
+
+        if (cmp == null) {
+            proceedMessageReceived(ses, msg);
+
+            return;
+        }
+
+        cmp.decode((ByteBuffer)msg);
+    }
+
+    /** {@inheritDoc} */
+    @Override public GridNioFuture<Boolean> onSessionClose(GridNioSession ses) throws GridException {
+        return proceedSessionClose(ses);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onSessionIdleTimeout(GridNioSession ses) throws GridException {
+        proceedSessionIdleTimeout(ses);
+    }
+
+    /** {@inheritDoc} */
+    @Override public void onSessionWriteTimeout(GridNioSession ses) throws GridException {
+        proceedSessionWriteTimeout(ses);
+    }
+
+    /**
+     * Compression state of single session.
+     */
+    class CompressionSession {
+        /** Session. */
+        private final GridNioSession ses;
+
+        /** Number of handshake bytes left to receive. */
+        private int hsLeft;
+
+        /** Whether compression is enabled. */
+        private volatile boolean enabled;
+
+        /** Deflater. */
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+
+        /** Inflater. */
+        private final Inflater inflater = new Inflater(true);
+
+        /** Buffer for direct chunk to compress. */
+        private byte[] chunk = new byte[0];
+
+        /** Reusable frame buffer. */
+        private byte[] frameBuf = new byte[0];
+
+        /** Frame which is not fully written yet. */
+        private ByteBuffer pending;
+
+        /** Number of chunks to send uncompressed. */
+        private int skip;
+
+        /** Current backoff. */
+        private int backoff;
+
+        /** Header of received frame. */
+        private final ByteBuffer rcvHdr = ByteBuffer.allocate(HDR_SIZE);
+
+        /** Payload of received frame. */
+        private byte[] rcvFrame;
+
+        /** Received payload length. */
+        private int rcvLen;
+
+        /** Received payload flag. */
+        private byte rcvFlag;
+
+        /** Decompressed bytes not consumed by next filter yet. */
+        private ByteBuffer plain;
+
+        /**
+         * @param ses Session.
+         * @param hsLeft Number of handshake bytes to receive.
+         */
+        private CompressionSession(GridNioSession ses, int hsLeft) {
+            this.ses = ses;
+            this.hsLeft = hsLeft;
+
+            if (hsLeft == 0)
+                enabled = Boolean.TRUE.equals(ses.meta(COMPRESSION_META_KEY));
+        }
+
+        /**
+         * @return Whether compression is enabled.
+         */
+        boolean enabled() {
+            return enabled;
+        }
+
+        /**
+         * @return Frame which is not fully written yet or {@code null}.
+         */
+        ByteBuffer pending() {
+            return pending != null && pending.hasRemaining() ? pending : null;
+        }
+
+        /**
+         * Encodes all remaining bytes of given buffer to frame.
+         *
+         * @param src Source buffer.
+         * @param reuse Whether frame buffer can be reused, in this case returned frame is also kept as
+         *      pending until it is written.
+         * @return Frame.
+         */
+        synchronized ByteBuffer encode(ByteBuffer src, boolean reuse) {
+            int len = src.remaining();
+
+            // Frame is never longer than uncompressed one.
+            byte[] frame = reuse ? frameBuf : new byte[HDR_SIZE + len];
+
+            if (frame.length < HDR_SIZE + len)
+                frame = frameBuf = new byte[HDR_SIZE + len];
+
+            int frameLen = 0;
+
+            // Compressed payload also contains original length.
+            int maxLen = Math.min((int)(len * maxRatio), len - 4);
+
+            if (len >= threshold && maxLen > 0 && skip == 0) {
+                byte[] in;
+                int off;
+
+                // Heap buffer is compressed in place, direct one is copied first.
+                if (src.hasArray()) {
+                    in = src.array();
+                    off = src.arrayOffset() + src.position();
+                }
+                else {
+                    if (chunk.length < len)
+                        chunk = new byte[len];
+
+                    int pos = src.position();
+
+                    src.get(chunk, 0, len);
+                    src.position(pos);
+
+                    in = chunk;
+                    off = 0;
+                }
+
+                long start = System.nanoTime();
+
+                deflater.reset();
+                deflater.setInput(in, off, len);
+                deflater.finish();
+
+                int cLen = 0;
+
+                while (!deflater.finished() && cLen < maxLen)
+                    cLen += deflater.deflate(frame, HDR_SIZE + 4 + cLen, maxLen - cLen);
+
+                long dur = System.nanoTime() - start;
+
+                if (deflater.finished() && dur <= (len - cLen) * MAX_NANOS_PER_SAVED_BYTE) {
+                    frame[0] = DEFLATED;
+
+                    U.intToBytes(cLen + 4, frame, 1);
+                    U.intToBytes(len, frame, HDR_SIZE);
+
+                    frameLen = HDR_SIZE + 4 + cLen;
+
+                    backoff = 0;
+                }
+                else {
+                    backoff = backoff == 0 ? 1 : Math.min(backoff << 1, MAX_BACKOFF);
+
+                    skip = backoff;
+
+                    if (log.isDebugEnabled())
+                        log.debug("Backing off compression [ses=" + ses + ", len=" + len + ", cLen=" + cLen +
+                            ", dur=" + dur + ", backoff=" + backoff + ']');
+                }
+            }
+            else if (skip > 0)
+                skip--;
+
+            if (frameLen == 0) {
+                frame[0] = RAW;
+
+                U.intToBytes(len, frame, 1);
+
+                // Uncompressed chunk is copied to frame straight from source.
+                src.get(frame, HDR_SIZE, len);
+
+                frameLen = HDR_SIZE + len;
+            }
+            else
+                src.position(src.limit());
+
+            origBytes.add(len);
+            wireBytes.add(frameLen);
+
+            ByteBuffer res = ByteBuffer.wrap(frame, 0, frameLen);
+
+            if (reuse)
+                pending = res;
+
+            return res;
+        }
+
+        /**
+         * Decodes received bytes and passes them to next filter.
+         *
+         * @param in Received bytes.
+         * @throws GridException If failed.
+         */
+        void decode(ByteBuffer in) throws GridException {
+            while (in.hasRemaining()) {
+                if (hsLeft > 0) {
+                    // Handshake is passed as is.
+                    int n = Math.min(hsLeft, in.remaining());
+
+                    ByteBuffer hs = in.slice();
+
+                    hs.limit(n);
+                    hs.order(in.order());
+
+                    proceedMessageReceived(ses, hs);
+
+                    in.position(in.position() + hs.position());
+
+                    hsLeft -= hs.position();
+
+                    if (hsLeft == 0)
+                        enabled = Boolean.TRUE.equals(ses.meta(COMPRESSION_META_KEY));
+
+                    // Next filter waits for more bytes.
+                    if (hs.hasRemaining())
+                        return;
+                }
+                else if (!enabled) {
+                    proceedMessageReceived(ses, in);
+
+                    return;
+                }
+                else
+                    readFrame(in);
+            }
+        }
+
+        /**
+         * Reads frame bytes and passes decoded payload to next filter once frame is fully read.
+         *
+         * @param in Received bytes.
+         * @throws GridException If failed.
+         */
+        private void readFrame(ByteBuffer in) throws GridException {
+            if (rcvFrame == null) {
+                while (rcvHdr.hasRemaining() && in.hasRemaining())
+                    rcvHdr.put(in.get());
+
+                if (rcvHdr.hasRemaining())
+                    return;
+
+                rcvFlag = rcvHdr.get(0);
+
+                int len = rcvHdr.getInt(1);
+
+                if ((rcvFlag != RAW && rcvFlag != DEFLATED) || len < 0 || (rcvFlag == DEFLATED && len < 4))
+                    throw new GridNioException("Invalid compression frame header [flag=" + rcvFlag + ", len=" +
+                        len + ", ses=" + ses + ']');
+
+                rcvFrame = new byte[len];
+                rcvLen = 0;
+            }
+
+            int n = Math.min(rcvFrame.length - rcvLen, in.remaining());
+
+            in.get(rcvFrame, rcvLen, n);
+
+            rcvLen += n;
+
+            if (rcvLen < rcvFrame.length)
+                return;
+
+            byte[] frame = rcvFrame;
+
+            rcvFrame = null;
+            rcvHdr.clear();
+
+            if (rcvFlag == RAW) {
+                ensurePlain(frame.length, in.order());
+
+                plain.put(frame);
+            }
+            else {
+                int len = U.bytesToInt(frame, 0);
+
+                ensurePlain(len, in.order());
+
+                inflater.reset();
+                inflater.setInput(frame, 4, frame.length - 4);
+
+                try {
+                    int cnt = inflater.inflate(plain.array(), plain.arrayOffset() + plain.position(), len);
+
+                    if (cnt != len || !inflater.finished())
+                        throw new GridNioException("Failed to decompress frame (size mismatch) [expected=" + len +
+                            ", actual=" + cnt + ", ses=" + ses + ']');
+
+                    plain.position(plain.position() + cnt);
+                }
+                catch (DataFormatException e) {
+                    throw new GridNioException("Failed to decompress frame: " + ses, e);
+                }
+            }
+
+            plain.flip();
+
+            proceedMessageReceived(ses, plain);
+
+            // Keep bytes next filter is not able to consume yet.
+            plain.compact();
+        }
+
+        /**
+         * @param len Number of bytes to append to plain buffer.
+         * @param order Byte order.
+         */
+        private void ensurePlain(int len, ByteOrder order) {
+            if (plain == null)
+                plain = ByteBuffer.allocate(Math.max(len, 8 << 10)).order(order);
+            else if (plain.remaining() < len) {
+                ByteBuffer buf = ByteBuffer.allocate(Math.max(plain.position() + len, plain.capacity() << 1));
+
+                buf.order(order);
+
+                plain.flip();
+
+                buf.put(plain);
+
+                plain = buf;
+            }
+        }
+
+        /**
+         * Releases compression resources.
+         */
+        void close() {
+            synchronized (this) {
+                deflater.end();
+            }
+
+            inflater.end();
+        }
+    }
+}
@@ -731,51 +731,65 @@ public class GridNioServer<T> {
             ByteBuffer buf = ses.writeBuffer();
             NioOperationFuture<?> req = ses.removeMeta(NIO_OPERATION.ordinal());
             UUID nodeId = ses.meta(DIFF_VER_NODE_ID_META_KEY);
+            GridNioCompressionFilter.CompressionSession cmp = GridNioCompressionFilter.session(ses);
 
             while (true) {
-                if (req == null) {
-                    req = (NioOperationFuture<?>)ses.pollFuture();
+                // Frame compressed on previous call is written first.
+                ByteBuffer out = cmp != null ? cmp.pending() : null;
 
-                    if (req == null && buf.position() == 0) {
-                        key.interestOps(key.interestOps() & (~SelectionKey.OP_WRITE));
+                if (out == null) {
+                    if (req == null) {
+                        req = (NioOperationFuture<?>)ses.pollFuture();
 
-                        break;
+                        if (req == null && buf.position() == 0) {
+                            key.interestOps(key.interestOps() & (~SelectionKey.OP_WRITE));
+
+                            break;
+                        }
                     }
-                }
 
-                GridTcpCommunicationMessageAdapter msg;
-                boolean finished = false;
+                    GridTcpCommunicationMessageAdapter msg;
+                    boolean finished = false;
 
-                if (req != null) {
-                    msg = req.directMessage();
+                    if (req != null) {
+                        msg = req.directMessage();
 
-                    assert msg != null;
-                    assert msgWriter != null;
+                        assert msg != null;
+                        assert msgWriter != null;
 
-                    finished = msgWriter.write(nodeId, msg, buf);
-                }
+                        finished = msgWriter.write(nodeId, msg, buf);
+                    }
 
-                // Fill up as many messages as possible to write buffer.
-                while (finished) {
-                    req = (NioOperationFuture<?>)ses.pollFuture();
+                    // Fill up as many messages as possible to write buffer.
+                    while (finished) {
+                        req = (NioOperationFuture<?>)ses.pollFuture();
 
-                    if (req == null)
-                        break;
+                        if (req == null)
+                            break;
 
-                    msg = req.directMessage();
+                        msg = req.directMessage();
 
-                    assert msg != null;
-                    assert msgWriter != null;
+                        assert msg != null;
+                        assert msgWriter != null;
 
-                    finished = msgWriter.write(nodeId, msg, buf);
-                }
+                        finished = msgWriter.write(nodeId, msg, buf);
+                    }
 
-                buf.flip();
+                    buf.flip();
 
-                assert buf.hasRemaining();
+                    assert buf.hasRemaining();
+
+                    if (cmp != null) {
+                        out = cmp.encode(buf, true);
+
+                        buf.clear();
+                    }
+                    else
+                        out = buf;
+                }
 
                 if (!skipWrite) {
-                    int cnt = sockCh.write(buf);
+                    int cnt = sockCh.write(out);
 
                     if (log.isTraceEnabled())
                         log.trace("Bytes sent [sockCh=" + sockCh + ", cnt=" + cnt + ']');
@@ -795,14 +809,16 @@ public class GridNioServer<T> {
                     }
                 }
 
-                if (buf.hasRemaining()) {
-                    buf.compact();
+                if (out.hasRemaining()) {
+                    // Compressed frame is kept by compression session.
+                    if (out == buf)
+                        buf.compact();
 
                     ses.addMeta(NIO_OPERATION.ordinal(), req);
 
                     break;
                 }
-                else
+                else if (out == buf)
                     buf.clear();
             }
         }
@@ -136,6 +136,13 @@ public class GridTcpNioCommunicationClient extends GridAbstractCommunicationClie
         // No-op.
     }
 
+    /**
+     * @return Session.
+     */
+    public GridNioSession session() {
+        return ses;
+    }
+
     /** {@inheritDoc} */
     @Override public boolean async() {
         return true;
@@ -231,4 +231,24 @@ public class GridOffHeapMapFactory {
         long initCap, long totalMem, short lruStripes, @Nullable GridOffHeapEvictListener lsnr) {
         return new GridUnsafePartitionedMap(parts, concurrency, load, initCap, totalMem, lruStripes, lsnr);
     }
+
+    /**
+     * Creates off-heap map based on {@code Unsafe} implementation with limited
+     * memory and LRU-based eviction. Entries are allocated from arena of slabs
+     * of given size shared by all partitions instead of being allocated one by one.
+     *
+     * @param parts Partitions.
+     * @param concurrency Concurrency.
+     * @param load Load factor.
+     * @param initCap Initial capacity.
+     * @param totalMem Total memory.
+     * @param lruStripes Number of LRU stripes.
+     * @param lsnr Optional eviction listener which gets notified every time an entry is evicted.
+     * @param slabSize Slab size, {@code 0} to allocate every entry separately.
+     * @return Off-heap map.
+     */
+    public static GridOffHeapPartitionedMap unsafePartitionedMap(int parts, int concurrency, float load,
+        long initCap, long totalMem, short lruStripes, @Nullable GridOffHeapEvictListener lsnr, int slabSize) {
+        return new GridUnsafePartitionedMap(parts, concurrency, load, initCap, totalMem, lruStripes, lsnr, slabSize);
+    }
 }
@@ -156,6 +156,30 @@ public interface GridOffHeapPartitionedMap {
      */
     public long freeSize();
 
+    /**
+     * Gets memory allocated for slabs of arena allocator. Entries are carved from slabs when
+     * map is created with non-zero slab size.
+     *
+     * @return Memory allocated for slabs, {@code 0} if arena allocation is disabled.
+     */
+    public long slabAllocatedSize();
+
+    /**
+     * Gets size of slab chunks occupied by entries. Difference between {@link #slabAllocatedSize()}
+     * and this value is free space kept inside of slabs.
+     *
+     * @return Size of slab chunks in use.
+     */
+    public long slabUsedSize();
+
+    /**
+     * Gets size of entries stored in slab chunks. Difference between {@link #slabUsedSize()} and
+     * this value is space lost to rounding of entry sizes to size classes.
+     *
+     * @return Size of entries stored in slabs.
+     */
+    public long slabRequestedSize();
+
     /**
      * Destructs this map and deallocates all memory.
      */
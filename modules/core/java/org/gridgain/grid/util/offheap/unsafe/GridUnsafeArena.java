@@ -0,0 +1,466 @@
+/* 
+ Copyright (C) GridGain Systems. All Rights Reserved.
+ 
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+ 
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+/*  _________        _____ __________________        _____
+ *  __  ____/___________(_)______  /__  ____/______ ____(_)_______
+ *  _  / __  __  ___/__  / _  __  / _  / __  _  __ `/__  / __  __ \
+ *  / /_/ /  _  /    _  /  / /_/ /  / /_/ /  / /_/ / _  /  _  / / /
+ *  \____/   /_/     /_/   \_,__/   \____/   \__,_/  /_/   /_/ /_/
+ */
+
+package org.gridgain.grid.util.offheap.unsafe;
+
+import org.gridgain.grid.util.offheap.*;
+import org.gridgain.grid.util.typedef.internal.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Slab allocator shared by all {@link GridUnsafeMap} segments using the same {@link GridUnsafeMemory}.
+ * Memory is requested from {@link GridUnsafeMemory} in slabs of fixed size, and every slab is cut into
+ * chunks of a single size class. Released chunks are linked into free list of their slab and reused by
+ * subsequent allocations of the same size class, so small entries do not go to native allocator on every
+ * write.
+ * <p>
+ * Every size class retains one empty slab, so that alternating allocations and releases do not take
+ * and give back slab on every cycle. Further slabs which become empty are given back to
+ * {@link GridUnsafeMemory} right away. Requests larger than maximum chunk size are served by
+ * {@link GridUnsafeMemory} directly.
+ * <p>
+ * Memory limit is charged per slab: chunks cut from existing slabs are free of charge, and whenever new
+ * slab takes memory above the limit, slab size is added to {@link #evictSize()}. Callers should evict
+ * that many bytes of entries after allocation, outside of any locks held while allocating.
+ *
+ * @author @java.author
+ * @version @java.version
+ */
+class GridUnsafeArena {
+    /** Minimum chunk size. */
+    private static final int MIN_CHUNK_SIZE = 16;
+
+    /** Minimum number of chunks per slab. */
+    private static final int MIN_CHUNKS_PER_SLAB = 8;
+
+    /** Minimum slab size. */
+    static final int MIN_SLAB_SIZE = MIN_CHUNK_SIZE * MIN_CHUNKS_PER_SLAB;
+
+    /** Memory. */
+    private final GridUnsafeMemory mem;
+
+    /** Slab size. */
+    private final int slabSize;
+
+    /** Chunk sizes of size classes in ascending order. */
+    private final int[] chunkSizes;
+
+    /** Size classes. */
+    private final SizeClass[] classes;
+
+    /** Size of slabs allocated above memory limit which has not been evicted yet. */
+    private final AtomicLong evictSize = new AtomicLong();
+
+    /** Slabs by address. */
+    private final ConcurrentSkipListMap<Long, Slab> slabs = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param mem Memory.
+     * @param slabSize Slab size.
+     */
+    GridUnsafeArena(GridUnsafeMemory mem, int slabSize) {
+        assert slabSize >= MIN_SLAB_SIZE : slabSize;
+
+        this.mem = mem;
+        this.slabSize = slabSize;
+
+        chunkSizes = chunkSizes(slabSize / MIN_CHUNKS_PER_SLAB);
+
+        classes = new SizeClass[chunkSizes.length];
+
+        for (int i = 0; i < classes.length; i++)
+            classes[i] = new SizeClass(chunkSizes[i]);
+    }
+
+    /**
+     * Builds size classes. Chunk sizes grow by one eighth of the nearest lower power of two, so that
+     * space lost to rounding is never larger than 12.5% of chunk.
+     *
+     * @param maxChunk Maximum chunk size.
+     * @return Chunk sizes.
+     */
+    private static int[] chunkSizes(int maxChunk) {
+        List<Integer> res = new ArrayList<>();
+
+        for (int size = MIN_CHUNK_SIZE; size <= maxChunk;
+            size += Math.max(MIN_CHUNK_SIZE, Integer.highestOneBit(size) >>> 3))
+            res.add(size);
+
+        return U.toIntArray(res);
+    }
+
+    /**
+     * @param size Requested size.
+     * @return Size class index or {@code -1} if size is served by {@link GridUnsafeMemory} directly.
+     */
+    private int sizeClass(int size) {
+        int idx = Arrays.binarySearch(chunkSizes, size);
+
+        if (idx < 0)
+            idx = -idx - 1;
+
+        return idx < chunkSizes.length ? idx : -1;
+    }
+
+    /**
+     * Reserves memory for allocation of given size. Only sizes served by {@link GridUnsafeMemory} directly
+     * are reserved, chunks are charged with their slabs.
+     *
+     * @param size Requested size.
+     * @return {@code True} if memory limit is not exceeded.
+     */
+    boolean reserve(int size) {
+        return sizeClass(size) >= 0 || mem.reserve(size);
+    }
+
+    /**
+     * Gets and resets size of slabs allocated above memory limit since last call.
+     *
+     * @return Number of bytes which should be evicted.
+     */
+    int evictSize() {
+        return evictSize.get() == 0 ? 0 : (int)Math.min(Integer.MAX_VALUE, evictSize.getAndSet(0));
+    }
+
+    /**
+     * Allocates chunk. Memory must have been reserved via {@link #reserve(int)}.
+     *
+     * @param size Requested size.
+     * @return Chunk address.
+     * @throws GridOffHeapOutOfMemoryException If memory could not be allocated.
+     */
+    long allocate(int size) throws GridOffHeapOutOfMemoryException {
+        int idx = sizeClass(size);
+
+        if (idx < 0)
+            return mem.allocate(size, false, true);
+
+        SizeClass cls = classes[idx];
+
+        long ptr;
+
+        synchronized (cls) {
+            ptr = cls.allocate(size);
+        }
+
+        mem.onChunkAllocated(cls.chunkSize, size);
+
+        return ptr;
+    }
+
+    /**
+     * Releases chunk allocated by {@link #allocate(int)}.
+     *
+     * @param ptr Chunk address, {@code 0} is ignored.
+     * @param size Size passed to {@link #allocate(int)}.
+     */
+    void release(long ptr, int size) {
+        if (ptr == 0)
+            return;
+
+        if (sizeClass(size) < 0) {
+            mem.release(ptr, size);
+
+            return;
+        }
+
+        Map.Entry<Long, Slab> e = slabs.floorEntry(ptr);
+
+        assert e != null : "Failed to find slab for chunk: " + ptr;
+
+        Slab slab = e.getValue();
+
+        SizeClass cls = slab.cls;
+
+        assert cls.chunkSize == chunkSizes[sizeClass(size)] && ptr < slab.addr + slabSize :
+            "Chunk does not belong to slab [ptr=" + ptr +
+            ", slab=" + slab.addr + ", size=" + size + ']';
+
+        boolean free;
+
+        synchronized (cls) {
+            free = cls.release(slab, ptr, size);
+        }
+
+        if (free) {
+            slabs.remove(slab.addr);
+
+            mem.releaseSlab(slab.addr, slabSize);
+        }
+
+        mem.onChunkReleased(cls.chunkSize, size);
+    }
+
+    /**
+     * Releases all slabs. Chunks which are still in use are given back as well.
+     */
+    void destruct() {
+        for (SizeClass cls : classes) {
+            synchronized (cls) {
+                long used = 0;
+
+                for (Slab slab = cls.slabs; slab != null; slab = slab.next)
+                    used += (long)slab.used * cls.chunkSize;
+
+                if (used > 0)
+                    mem.onChunkReleased(used, cls.requested);
+
+                cls.cur = null;
+                cls.slabs = null;
+                cls.partial = null;
+                cls.requested = 0;
+                cls.empty = false;
+            }
+        }
+
+        for (Slab slab : slabs.values())
+            mem.releaseSlab(slab.addr, slabSize);
+
+        slabs.clear();
+    }
+
+    /** {@inheritDoc} */
+    @Override public String toString() {
+        return S.toString(GridUnsafeArena.class, this, "classes", chunkSizes.length, "slabs", slabs.size());
+    }
+
+    /**
+     * Size class. All fields are guarded by size class monitor.
+     */
+    private class SizeClass {
+        /** Chunk size. */
+        private final int chunkSize;
+
+        /** Number of chunks per slab. */
+        private final int cap;
+
+        /** Slab allocations are currently served from. */
+        private Slab cur;
+
+        /** Head of the list of all slabs of this class. */
+        private Slab slabs;
+
+        /** Head of the list of slabs with free chunks, except current one. */
+        private Slab partial;
+
+        /** Total size requested for chunks in use. */
+        private long requested;
+
+        /** Whether class retains an empty slab. */
+        private boolean empty;
+
+        /**
+         * @param chunkSize Chunk size.
+         */
+        private SizeClass(int chunkSize) {
+            this.chunkSize = chunkSize;
+
+            cap = slabSize / chunkSize;
+        }
+
+        /**
+         * @param size Requested size.
+         * @return Chunk address.
+         * @throws GridOffHeapOutOfMemoryException If new slab could not be allocated.
+         */
+        long allocate(int size) throws GridOffHeapOutOfMemoryException {
+            Slab slab = cur;
+
+            if (slab == null || slab.full()) {
+                slab = partial;
+
+                if (slab != null)
+                    unlinkPartial(slab);
+                else {
+                    if (!mem.reserve(slabSize))
+                        evictSize.addAndGet(slabSize);
+
+                    slab = new Slab(this, mem.allocateSlab(slabSize));
+
+                    slab.next = slabs;
+
+                    if (slabs != null)
+                        slabs.prev = slab;
+
+                    slabs = slab;
+
+                    GridUnsafeArena.this.slabs.put(slab.addr, slab);
+                }
+
+                cur = slab;
+            }
+
+            // Retained empty slab is being reused.
+            if (slab.used == 0 && slab.bump > 0)
+                empty = false;
+
+            requested += size;
+
+            return slab.allocate();
+        }
+
+        /**
+         * @param slab Slab.
+         * @param ptr Chunk address.
+         * @param size Requested size.
+         * @return {@code True} if slab became empty and was unlinked, so it should be freed by the caller.
+         */
+        boolean release(Slab slab, long ptr, int size) {
+            slab.release(ptr);
+
+            requested -= size;
+
+            if (slab.used == 0 && !empty)
+                empty = true; // Retain slab, it stays current or partial.
+            else if (slab.used == 0) {
+                if (slab == cur)
+                    cur = null;
+                else if (slab.partial)
+                    unlinkPartial(slab);
+
+                if (slab.prev != null)
+                    slab.prev.next = slab.next;
+                else
+                    slabs = slab.next;
+
+                if (slab.next != null)
+                    slab.next.prev = slab.prev;
+
+                return true;
+            }
+
+            if (slab != cur && !slab.partial) {
+                slab.partial = true;
+                slab.nextPartial = partial;
+
+                if (partial != null)
+                    partial.prevPartial = slab;
+
+                partial = slab;
+            }
+
+            return false;
+        }
+
+        /**
+         * @param slab Slab to remove from partial list.
+         */
+        private void unlinkPartial(Slab slab) {
+            assert slab.partial;
+
+            if (slab.prevPartial != null)
+                slab.prevPartial.nextPartial = slab.nextPartial;
+            else
+                partial = slab.nextPartial;
+
+            if (slab.nextPartial != null)
+                slab.nextPartial.prevPartial = slab.prevPartial;
+
+            slab.prevPartial = null;
+            slab.nextPartial = null;
+            slab.partial = false;
+        }
+    }
+
+    /**
+     * Slab. All fields except address and class are guarded by size class monitor.
+     */
+    private class Slab {
+        /** Slab address. */
+        private final long addr;
+
+        /** Size class. */
+        private final SizeClass cls;
+
+        /** Number of chunks which have ever been cut from the slab. */
+        private int bump;
+
+        /** Number of chunks in use. */
+        private int used;
+
+        /** Head of free chunks list, next free chunk address is stored in the first 8 bytes of chunk. */
+        private long freeHead;
+
+        /** Whether slab is in partial list. */
+        private boolean partial;
+
+        /** Links in list of all slabs of size class. */
+        private Slab prev, next;
+
+        /** Links in list of partial slabs of size class. */
+        private Slab prevPartial, nextPartial;
+
+        /**
+         * @param cls Size class.
+         * @param addr Slab address.
+         */
+        private Slab(SizeClass cls, long addr) {
+            this.cls = cls;
+            this.addr = addr;
+        }
+
+        /**
+         * @return {@code True} if slab has no free chunks.
+         */
+        boolean full() {
+            return freeHead == 0 && bump == cls.cap;
+        }
+
+        /**
+         * @return Chunk address.
+         */
+        long allocate() {
+            assert !full();
+
+            long ptr;
+
+            if (freeHead != 0) {
+                ptr = freeHead;
+
+                freeHead = mem.readLong(ptr);
+            }
+            else
+                ptr = addr + (long)cls.chunkSize * bump++;
+
+            used++;
+
+            return ptr;
+        }
+
+        /**
+         * @param ptr Chunk address.
+         */
+        void release(long ptr) {
+            assert used > 0;
+
+            mem.writeLong(ptr, freeHead);
+
+            freeHead = ptr;
+
+            used--;
+        }
+    }
+}
@@ -78,6 +78,9 @@ public class GridUnsafeMap<K> implements GridOffHeapMap<K> {
     /** Total memory. */
     private final GridUnsafeMemory mem;
 
+    /** Arena entries are allocated from, {@code null} if entries are allocated in {@link #mem} directly. */
+    @Nullable private final GridUnsafeArena arena;
+
     /**
      * Mask value for indexing into segments. The upper bits of a
      * key's hash code are used to choose the segment.
@@ -119,6 +122,8 @@ public class GridUnsafeMap<K> implements GridOffHeapMap<K> {
 
         part = 0;
 
+        arena = null;
+
         mem = new GridUnsafeMemory(totalMem);
 
         lru = totalMem > 0 ? new GridUnsafeLru(lruStripes, mem) : null;
@@ -182,11 +187,16 @@ public class GridUnsafeMap<K> implements GridOffHeapMap<K> {
      * @param mem Memory.
      * @param lru LRU.
      * @param evictLsnr Eviction closure.
+     * @param lruPoller LRU poller.
+     * @param arena Arena shared by all maps using {@code mem}, {@code null} to allocate entries in
+     *      {@code mem} directly.
      */
     @SuppressWarnings("unchecked")
     GridUnsafeMap(int part, int concurrency, float load, long initCap, LongAdder totalCnt, GridUnsafeMemory mem,
-        GridUnsafeLru lru, @Nullable GridOffHeapEvictListener evictLsnr, GridUnsafeLruPoller lruPoller) {
+        GridUnsafeLru lru, @Nullable GridOffHeapEvictListener evictLsnr, GridUnsafeLruPoller lruPoller,
+        @Nullable GridUnsafeArena arena) {
         this.part = part;
+        this.arena = arena;
         this.concurrency = concurrency > MAX_CONCURRENCY ? MAX_CONCURRENCY : concurrency;
         this.load = load;
         this.totalCnt = totalCnt;
@@ -339,6 +349,21 @@ public class GridUnsafeMap<K> implements GridOffHeapMap<K> {
         return mem.freeSize();
     }
 
+    /** {@inheritDoc} */
+    @Override public long slabAllocatedSize() {
+        return mem.slabAllocatedSize();
+    }
+
+    /** {@inheritDoc} */
+    @Override public long slabUsedSize() {
+        return mem.slabUsedSize();
+    }
+
+    /** {@inheritDoc} */
+    @Override public long slabRequestedSize() {
+        return mem.slabRequestedSize();
+    }
+
     /** {@inheritDoc} */
     @Override public void destruct() {
         for (Segment seg : segs) {
@@ -501,6 +526,50 @@ public class GridUnsafeMap<K> implements GridOffHeapMap<K> {
             tblAddr = mem.allocateSystem(memCap, true);
         }
 
+        /**
+         * Reserves memory for entry of given size.
+         *
+         * @param size Entry size.
+         * @return {@code True} if memory is under allowed size.
+         */
+        private boolean reserve(int size) {
+            return arena == null ? mem.reserve(size) : arena.reserve(size);
+        }
+
+        /**
+         * @param poll Whether memory reserved for entry exceeded allowed size.
+         * @param size Entry size.
+         * @return Number of bytes to evict, including slabs allocated above allowed size.
+         */
+        private int evictSize(boolean poll, int size) {
+            int evict = poll ? size : 0;
+
+            return arena == null ? evict : evict + arena.evictSize();
+        }
+
+        /**
+         * Allocates entry memory which has been reserved before.
+         *
+         * @param size Entry size.
+         * @return Entry address.
+         */
+        private long allocate(int size) {
+            return arena == null ? mem.allocate(size, false, true) : arena.allocate(size);
+        }
+
+        /**
+         * Releases entry memory.
+         *
+         * @param addr Entry address, {@code 0} is ignored.
+         * @param size Entry size.
+         */
+        private void release(long addr, int size) {
+            if (arena == null)
+                mem.release(addr, size);
+            else
+                arena.release(addr, size);
+        }
+
         /**
          * @return Index ID.
          */
@@ -626,7 +695,7 @@ public class GridUnsafeMap<K> implements GridOffHeapMap<K> {
                     while (true) {
                         long next = Entry.nextAddress(entryAddr, mem);
 
-                        mem.release(entryAddr, Entry.size(entryAddr, mem));
+                        release(entryAddr, Entry.size(entryAddr, mem));
 
                         if (next == 0)
                             break;
@@ -868,7 +937,7 @@ public class GridUnsafeMap<K> implements GridOffHeapMap<K> {
                 writeUnlock();
 
                 // Remove current mapping outside of lock.
-                mem.release(relAddr, relSize);
+                release(relAddr, relSize);
             }
 
             // Notify eviction.
@@ -893,10 +962,10 @@ public class GridUnsafeMap<K> implements GridOffHeapMap<K> {
 
             int size = Entry.HEADER + keyBytes.length + valBytes.length;
 
-            boolean poll = !mem.reserve(size);
+            boolean poll = !reserve(size);
 
             // Allocate outside of lock.
-            long addr = mem.allocate(size, false, true);
+            long addr = allocate(size);
 
             // Write as much as possible outside of lock.
             Entry.write(addr, hash, keyBytes, valBytes, mem);
@@ -920,15 +989,17 @@ public class GridUnsafeMap<K> implements GridOffHeapMap<K> {
                 totalCnt.increment();
             }
             catch (GridOffHeapOutOfMemoryException e) {
-                mem.release(addr, size);
+                release(addr, size);
 
                 throw e;
             }
             finally {
                 writeUnlock();
 
-                if (poll)
-                    lruPoller.lruPoll(size);
+                int evict = evictSize(poll, size);
+
+                if (evict > 0)
+                    lruPoller.lruPoll(evict);
 
                 if (cnt > threshold)
                     rehash();
@@ -1007,9 +1078,9 @@ public class GridUnsafeMap<K> implements GridOffHeapMap<K> {
 
                 size = Entry.HEADER + keyBytes.length + valBytes.length;
 
-                poll = !mem.reserve(size);
+                poll = !reserve(size);
 
-                long addr = mem.allocate(size, false, true);
+                long addr = allocate(size);
 
                 Bin.first(binAddr, addr, mem);
 
@@ -1032,10 +1103,12 @@ public class GridUnsafeMap<K> implements GridOffHeapMap<K> {
 
                 // Release memory outside of lock.
                 if (relAddr != 0)
-                    mem.release(relAddr, relSize);
+                    release(relAddr, relSize);
+
+                int evict = evictSize(poll, size);
 
-                if (poll)
-                    lruPoller.lruPoll(size);
+                if (evict > 0)
+                    lruPoller.lruPoll(evict);
 
                 if (isNew && cnt > threshold)
                     rehash();
@@ -1131,7 +1204,7 @@ public class GridUnsafeMap<K> implements GridOffHeapMap<K> {
 
                 // Release memory outside lock.
                 if (relAddr != 0)
-                    mem.release(relAddr, relSize);
+                    release(relAddr, relSize);
             }
         }
 
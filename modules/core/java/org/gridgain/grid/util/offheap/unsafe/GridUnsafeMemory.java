@@ -28,6 +28,7 @@ import org.gridgain.grid.kernal.processors.cache.*;
 import org.gridgain.grid.util.typedef.*;
 import org.gridgain.grid.util.typedef.internal.*;
 import org.gridgain.grid.util.*;
+import org.gridgain.grid.util.LongAdder;
 import org.gridgain.grid.util.offheap.*;
 import org.gridgain.grid.util.tostring.*;
 import org.jetbrains.annotations.*;
@@ -72,6 +73,16 @@ public class GridUnsafeMemory {
     @GridToStringInclude
     private final AtomicLong sysAllocated;
 
+    /** Total amount of memory allocated for slabs of {@link GridUnsafeArena}, included into {@link #allocated}. */
+    @GridToStringInclude
+    private final AtomicLong slabAllocated;
+
+    /** Total size of slab chunks in use. */
+    private final LongAdder slabUsed = new LongAdder();
+
+    /** Total size requested for slab chunks in use. */
+    private final LongAdder slabRequested = new LongAdder();
+
     /** Event listener. */
     private GridOffHeapEventListener lsnr;
 
@@ -86,6 +97,8 @@ public class GridUnsafeMemory {
         allocated = new AtomicLong();
 
         sysAllocated = new AtomicLong();
+
+        slabAllocated = new AtomicLong();
     }
 
     /**
@@ -165,6 +178,22 @@ public class GridUnsafeMemory {
         return allocate0(size, init, false, sysAllocated);
     }
 
+    /**
+     * Allocates slab for {@link GridUnsafeArena}. Slab size must have been reserved via
+     * {@link #reserve(long)}, slab is additionally accounted in slab memory counter.
+     *
+     * @param size Slab size.
+     * @return Allocated slab address.
+     * @throws GridOffHeapOutOfMemoryException If memory could not be allocated.
+     */
+    public long allocateSlab(long size) throws GridOffHeapOutOfMemoryException {
+        long ptr = allocate0(size, false, true, allocated);
+
+        slabAllocated.addAndGet(size);
+
+        return ptr;
+    }
+
     /**
      * Performs actual memory allocation.
      *
@@ -230,6 +259,41 @@ public class GridUnsafeMemory {
         release0(ptr, size, sysAllocated);
     }
 
+    /**
+     * Releases slab allocated by {@link #allocateSlab(long)}.
+     *
+     * @param ptr Slab address.
+     * @param size Slab size.
+     */
+    public void releaseSlab(long ptr, long size) {
+        release0(ptr, size, allocated);
+
+        slabAllocated.addAndGet(-size);
+    }
+
+    /**
+     * Accounts chunk allocated from slab. Chunk itself is not accounted against total memory,
+     * since the whole slab is.
+     *
+     * @param chunkSize Chunk size.
+     * @param reqSize Requested size.
+     */
+    void onChunkAllocated(long chunkSize, long reqSize) {
+        slabUsed.add(chunkSize);
+        slabRequested.add(reqSize);
+    }
+
+    /**
+     * Accounts chunk given back to slab.
+     *
+     * @param chunkSize Chunk size.
+     * @param reqSize Requested size.
+     */
+    void onChunkReleased(long chunkSize, long reqSize) {
+        slabUsed.add(-chunkSize);
+        slabRequested.add(-reqSize);
+    }
+
     /**
      * Internal release procedure. Decreases size of corresponding counter.
      *
@@ -680,6 +744,27 @@ public class GridUnsafeMemory {
         return sysAllocated.get();
     }
 
+    /**
+     * @return Size of memory allocated for slabs with {@link #allocateSlab(long)}.
+     */
+    public long slabAllocatedSize() {
+        return slabAllocated.get();
+    }
+
+    /**
+     * @return Size of slab chunks in use.
+     */
+    public long slabUsedSize() {
+        return slabUsed.sum();
+    }
+
+    /**
+     * @return Size requested for slab chunks in use, does not include space lost to size class rounding.
+     */
+    public long slabRequestedSize() {
+        return slabRequested.sum();
+    }
+
     /** {@inheritDoc} */
     @Override public String toString() {
         return S.toString(GridUnsafeMemory.class, this);
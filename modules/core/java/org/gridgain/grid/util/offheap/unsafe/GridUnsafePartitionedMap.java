@@ -28,6 +28,7 @@ import org.gridgain.grid.lang.*;
 import org.gridgain.grid.util.*;
 import org.gridgain.grid.util.lang.*;
 import org.gridgain.grid.util.offheap.*;
+import org.gridgain.grid.util.typedef.internal.*;
 import org.jetbrains.annotations.*;
 
 import java.util.*;
@@ -69,15 +70,34 @@ public class GridUnsafePartitionedMap implements GridOffHeapPartitionedMap {
     /** */
     private final LongAdder totalCnt = new LongAdder();
 
+    /** Arena shared by all partitions, {@code null} if entries are allocated in {@link #mem} directly. */
+    @Nullable private final GridUnsafeArena arena;
+
     /**
      * @param parts Partitions.
      * @param totalMem Total memory.
      * @param lruStripes LRU stripes.
      * @param evictLsnr Eviction callback.
      */
-    @SuppressWarnings("unchecked")
     public GridUnsafePartitionedMap(int parts, int concurrency, float load, long initCap, long totalMem,
         short lruStripes, @Nullable GridOffHeapEvictListener evictLsnr) {
+        this(parts, concurrency, load, initCap, totalMem, lruStripes, evictLsnr, 0);
+    }
+
+    /**
+     * @param parts Partitions.
+     * @param totalMem Total memory.
+     * @param lruStripes LRU stripes.
+     * @param evictLsnr Eviction callback.
+     * @param slabSize Slab size of arena shared by all partitions, {@code 0} to allocate every entry separately.
+     */
+    @SuppressWarnings("unchecked")
+    public GridUnsafePartitionedMap(int parts, int concurrency, float load, long initCap, long totalMem,
+        short lruStripes, @Nullable GridOffHeapEvictListener evictLsnr, int slabSize) {
+        A.ensure(slabSize == 0 || slabSize >= GridUnsafeArena.MIN_SLAB_SIZE,
+            "slabSize == 0 || slabSize >= " + GridUnsafeArena.MIN_SLAB_SIZE);
+        A.ensure(totalMem <= 0 || slabSize <= totalMem, "totalMem <= 0 || slabSize <= totalMem");
+
         this.parts = parts;
         this.concurrency = concurrency;
         this.load = load;
@@ -92,6 +112,8 @@ public class GridUnsafePartitionedMap implements GridOffHeapPartitionedMap {
 
         lru = totalMem > 0 ? new GridUnsafeLru(lruStripes, mem) : null;
 
+        arena = slabSize > 0 ? new GridUnsafeArena(mem, slabSize) : null;
+
         long cnt = initCap / parts;
         int mod = (int)(initCap % parts);
 
@@ -134,7 +156,7 @@ public class GridUnsafePartitionedMap implements GridOffHeapPartitionedMap {
                             left -= released;
                         }
                     }
-                }
+                }, arena
             );
         }
     }
@@ -219,6 +241,21 @@ public class GridUnsafePartitionedMap implements GridOffHeapPartitionedMap {
         return mem.freeSize();
     }
 
+    /** {@inheritDoc} */
+    @Override public long slabAllocatedSize() {
+        return mem.slabAllocatedSize();
+    }
+
+    /** {@inheritDoc} */
+    @Override public long slabUsedSize() {
+        return mem.slabUsedSize();
+    }
+
+    /** {@inheritDoc} */
+    @Override public long slabRequestedSize() {
+        return mem.slabRequestedSize();
+    }
+
     /** {@inheritDoc} */
     @Override public boolean eventListener(GridOffHeapEventListener evtLsnr) {
         if (this.evtLsnr != null)
@@ -252,6 +289,9 @@ public class GridUnsafePartitionedMap implements GridOffHeapPartitionedMap {
         for (GridUnsafeMap m : partMap)
             m.destruct();
 
+        if (arena != null)
+            arena.destruct();
+
         if (lru != null)
             lru.destruct();
     }